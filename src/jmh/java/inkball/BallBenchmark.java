@@ -0,0 +1,92 @@
+package inkball;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks for the collision checks of the Ball class. Every
+ * benchmark checks every ball against every line segment, so the score is
+ * the cost of one pass over a board with that many balls and segments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BallBenchmark {
+
+    @Param({"1", "64", "1024"})
+    public int balls;
+
+    @Param({"1", "16", "256"})
+    public int lines;
+
+    private Ball[] ballArray;
+    private LineSegment[] segments;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkFixtures.SEED);
+        ballArray = BenchmarkFixtures.scatterBalls(balls, random);
+        segments = BenchmarkFixtures.randomSegments(lines, random);
+    }
+
+    @Benchmark
+    public int isCollidingWithLine() {
+        int hits = 0;
+        for (Ball ball : ballArray) {
+            for (LineSegment segment : segments) {
+                if (ball.isCollidingWithLine(segment)) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    // The wall hitboxes are the four sides of a tile, so the segments are
+    // checked four at a time the way a wall tile is
+    @Benchmark
+    public int checkCollisionWithWall() {
+        int hits = 0;
+        LineSegment[] hitbox = new LineSegment[4];
+        for (Ball ball : ballArray) {
+            for (int i = 0; i < segments.length; i += 4) {
+                for (int j = 0; j < 4; j++) {
+                    hitbox[j] = segments[(i + j) % segments.length];
+                }
+                if (ball.checkCollisionWithWall(hitbox)) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    // Reflecting twice from the same segment gives back the starting velocity,
+    // so the balls keep the same speeds however long the benchmark runs
+    @Benchmark
+    public float updateTrajectory() {
+        float sum = 0;
+        for (Ball ball : ballArray) {
+            for (LineSegment segment : segments) {
+                ball.updateTrajectory(segment);
+                sum += ball.getVelocityX();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,140 @@
+package inkball;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+import processing.data.JSONObject;
+
+/**
+ * Builds the objects the JMH benchmarks run on. Everything is built from a
+ * fixed seed, so every run of a benchmark measures the same scene. The
+ * shipped config.json and level files are read from the working directory,
+ * which "gradle jmh" sets to the project directory.
+ */
+final class BenchmarkFixtures {
+    static final long SEED = 7;
+
+    // Longest line segment, about the length of a quick mouse drag in one frame
+    static final float MAX_SEGMENT_LENGTH = 64;
+
+    private BenchmarkFixtures() {
+    }
+
+    // Hands out the shipped layouts and blank images, without a window
+    static class HeadlessApp extends PApplet {
+        @Override
+        public PImage loadImage(String path) {
+            if (path.endsWith(SpriteAtlas.SHEET)) {
+                return new PImage(381, 400);
+            }
+            return new PImage(App.CELLSIZE, App.CELLSIZE);
+        }
+
+        @Override
+        public String[] loadStrings(String path) {
+            return Simulation.readLayout(path);
+        }
+    }
+
+    /**
+     * Parse the shipped configuration
+     * @return  The configuration in config.json
+     */
+    static GameConfig loadConfig() {
+        try {
+            byte[] bytes = Files.readAllBytes(Paths.get(GameConfig.FILE));
+            return GameConfig.parse(JSONObject.parse(new String(bytes, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Load a shipped level into a simulation
+     * @param config        The shipped configuration
+     * @param levelIndex    The index of the level
+     * @return              The simulation with the level loaded
+     */
+    static Simulation loadSimulation(GameConfig config, int levelIndex) {
+        Level level = new Level(config, levelIndex);
+        Simulation simulation = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+        simulation.loadLevel(level, Simulation.readLayout(level.getLayoutFile()));
+        return simulation;
+    }
+
+    /**
+     * Scatter balls with random velocities over the board, all in one store
+     * like the balls of a simulation
+     * @param count     The number of balls
+     * @param random    The random number generator
+     * @return          The balls
+     */
+    static Ball[] scatterBalls(int count, Random random) {
+        BallStore store = new BallStore(count);
+        Ball[] balls = new Ball[count];
+        for (int i = 0; i < count; i++) {
+            balls[i] = new Ball(0, 0, null, "ball" + (i % BallColour.COUNT));
+            store.add(balls[i]);
+            balls[i].setPosition(randomX(random), randomY(random));
+            balls[i].setVelocity(random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2);
+        }
+        return balls;
+    }
+
+    /**
+     * Create random line segments over the board, no longer than a mouse
+     * drag in one frame
+     * @param count     The number of segments
+     * @param random    The random number generator
+     * @return          The segments
+     */
+    static LineSegment[] randomSegments(int count, Random random) {
+        LineSegment[] segments = new LineSegment[count];
+        for (int i = 0; i < count; i++) {
+            float x = randomX(random);
+            float y = randomY(random);
+            segments[i] = new LineSegment(x, y,
+                    x + (random.nextFloat() * 2 - 1) * MAX_SEGMENT_LENGTH,
+                    y + (random.nextFloat() * 2 - 1) * MAX_SEGMENT_LENGTH);
+        }
+        return segments;
+    }
+
+    /**
+     * Create lines drawn as random walks over the board
+     * @param count     The number of lines
+     * @param segments  The number of segments in each line
+     * @param random    The random number generator
+     * @return          The lines
+     */
+    static Line[] randomLines(int count, int segments, Random random) {
+        Line[] lines = new Line[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = new Line();
+            float x = randomX(random);
+            float y = randomY(random);
+            for (int s = 0; s < segments; s++) {
+                float nextX = x + (random.nextFloat() * 2 - 1) * MAX_SEGMENT_LENGTH / 4;
+                float nextY = y + (random.nextFloat() * 2 - 1) * MAX_SEGMENT_LENGTH / 4;
+                lines[i].addSegment(new LineSegment(x, y, nextX, nextY));
+                x = nextX;
+                y = nextY;
+            }
+        }
+        return lines;
+    }
+
+    private static float randomX(Random random) {
+        return App.CELLSIZE + random.nextFloat() * (App.BOARD_WIDTH - 2) * App.CELLSIZE;
+    }
+
+    private static float randomY(Random random) {
+        return App.TOPBAR + App.CELLSIZE + random.nextFloat() * (App.BOARD_HEIGHT - 2) * App.CELLSIZE;
+    }
+}
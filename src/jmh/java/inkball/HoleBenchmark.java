@@ -0,0 +1,65 @@
+package inkball;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmark for the attraction of balls to holes. Holes are placed at
+ * random on the board and every ball is attracted to every hole, through the
+ * ball store the way the simulation does it, so no ball is captured and the
+ * scene stays the same.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HoleBenchmark {
+
+    @Param({"1", "64", "1024"})
+    public int balls;
+
+    @Param({"1", "4", "16"})
+    public int holes;
+
+    private BallStore store;
+    private Hole[] holeArray;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkFixtures.SEED);
+        store = BenchmarkFixtures.scatterBalls(balls, random)[0].getStore();
+        holeArray = new Hole[holes];
+        for (int i = 0; i < holes; i++) {
+            int x = 1 + random.nextInt(App.BOARD_WIDTH - 3);
+            int y = 1 + random.nextInt(App.BOARD_HEIGHT - 3);
+            holeArray[i] = new Hole(x, y, null, "hole" + (i % BallColour.COUNT), null);
+        }
+    }
+
+    @Benchmark
+    public int attractBall() {
+        int captures = 0;
+        for (int slot = 0; slot < store.size(); slot++) {
+            for (Hole hole : holeArray) {
+                if (hole.attractBall(store, slot)) {
+                    captures++;
+                }
+            }
+        }
+        return captures;
+    }
+}
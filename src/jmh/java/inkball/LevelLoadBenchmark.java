@@ -0,0 +1,53 @@
+package inkball;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmark for loading each shipped level into a board. The layout
+ * file is read and the tiles, wall edges, holes and spawners are built, the
+ * way the level prefetcher does it. The offscreen layers need a window, so
+ * they are left out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LevelLoadBenchmark {
+
+    @Param({"0", "1", "2"})
+    public int level;
+
+    private GameConfig config;
+    private BenchmarkFixtures.HeadlessApp app;
+    private GameStateManager gameStateManager;
+
+    @Setup
+    public void setUp() {
+        config = BenchmarkFixtures.loadConfig();
+        app = new BenchmarkFixtures.HeadlessApp();
+        gameStateManager = new GameStateManager(null, new Level(config, level));
+    }
+
+    @Benchmark
+    public Board loadLevel() {
+        Board board = new Board(app, App.BOARD_WIDTH, App.BOARD_HEIGHT, gameStateManager);
+        Level loaded = new Level(config, level);
+        board.setLevel(loaded);
+        board.loadLayout(app, loaded);
+        return board;
+    }
+}
@@ -0,0 +1,60 @@
+package inkball;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmark for Line.isCollidingWithBall. Every ball is checked against
+ * every line, and each line is a random stroke of SEGMENTS segments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineBenchmark {
+
+    private static final int SEGMENTS = 16;
+
+    @Param({"1", "64", "1024"})
+    public int balls;
+
+    @Param({"1", "16", "64"})
+    public int lines;
+
+    private Ball[] ballArray;
+    private Line[] lineArray;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkFixtures.SEED);
+        ballArray = BenchmarkFixtures.scatterBalls(balls, random);
+        lineArray = BenchmarkFixtures.randomLines(lines, SEGMENTS, random);
+    }
+
+    @Benchmark
+    public int isCollidingWithBall() {
+        int hits = 0;
+        for (Ball ball : ballArray) {
+            for (Line line : lineArray) {
+                if (line.isCollidingWithBall(ball)) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,61 @@
+package inkball;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmark for checking balls against the walls of each shipped level.
+ * Wall collisions are checked the way the simulation does it, against the
+ * merged wall edges in the cell of the ball's next position.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WallCollisionBenchmark {
+
+    @Param({"0", "1", "2"})
+    public int level;
+
+    @Param({"1", "64", "1024"})
+    public int balls;
+
+    private WallGrid wallGrid;
+    private Ball[] ballArray;
+
+    @Setup
+    public void setUp() {
+        GameConfig config = BenchmarkFixtures.loadConfig();
+        wallGrid = BenchmarkFixtures.loadSimulation(config, level).getWallGrid();
+        ballArray = BenchmarkFixtures.scatterBalls(balls, new Random(BenchmarkFixtures.SEED));
+    }
+
+    @Benchmark
+    public int checkWallCollisions() {
+        int hits = 0;
+        for (Ball ball : ballArray) {
+            int cell = wallGrid.getCell(ball.getPosX() + ball.getVelocityX(), ball.getPosY() + ball.getVelocityY());
+            for (int i = wallGrid.getCellStart(cell); i < wallGrid.getCellEnd(cell); i++) {
+                if (ball.checkCollisionWithEdge(wallGrid.getEdge(i))) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+}
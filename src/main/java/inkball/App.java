@@ -3,14 +3,11 @@ package inkball;
 import processing.core.PApplet;
 import processing.core.PImage;
 import processing.core.PFont;
-import processing.data.JSONObject;
 import processing.event.KeyEvent;
 import processing.event.MouseEvent;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
-
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 public class App extends PApplet {
@@ -26,30 +23,35 @@ public class App extends PApplet {
 
     // GAME VARIABLES
     public static final int FPS = 60;
-    public static Random random = new Random();
 
-    // Level Variables
+    // Every level gets its own seed from the session's random numbers, so a session can be replayed
+    private long sessionSeed;
+    private Random sessionRandom;
+    private InputRecorder recorder;
+
+    // Level Variables, the configuration is parsed once and reused by every restart
+    private GameConfig config;
     private Level level;
     private int levelIndex;
 
     // BOARD VARIABLES
     private Board board;
+    private GameConfig boardConfig; // The configuration and level the board was loaded from
+    private int boardLevelIndex;
+    private Simulation simulation;
     private HUD hud;
     private GameStateManager gameStateManager;
 
-    private PImage wall0, wall1, wall2, wall3, wall4;
-    private PImage backgroundTile;
+    // Builds the board of the next level in the background
+    private LevelPrefetcher prefetcher;
 
     // Lines
-    private List<Line> lines;
     private Line currentLine;
-    private float lastX, lastY;
     private boolean isDrawing;
 
     public int frameCount = 0;
 
     public App() {
-        this.lines = new ArrayList<>();
         this.isDrawing = false;
     }
 
@@ -68,61 +70,53 @@ public class App extends PApplet {
     @Override
     public void setup() {
         frameRate(FPS);
+        Profiler.dumpOnExit();
+        startSession();
         FONT = createFont("Arial-Bold", 16, true);
         textFont(FONT);
-        JSONObject config = loadJSONObject("config.json");
+        config = GameConfig.load(this);
         if (config == null) {
-            println("Error: config.json file not found.");
+            Log.error("config.json file not found.");
+            Log.flush();
             exit();
         }
 
-        // Load Board Images
-        try {
-            wall0 = loadImage(URLDecoder.decode(this.getClass().getResource("wall0.png").getPath(), StandardCharsets.UTF_8.name()));
-            wall1 = loadImage(URLDecoder.decode(this.getClass().getResource("wall1.png").getPath(), StandardCharsets.UTF_8.name()));
-            wall2 = loadImage(URLDecoder.decode(this.getClass().getResource("wall2.png").getPath(), StandardCharsets.UTF_8.name()));
-            wall3 = loadImage(URLDecoder.decode(this.getClass().getResource("wall3.png").getPath(), StandardCharsets.UTF_8.name()));
-            wall4 = loadImage(URLDecoder.decode(this.getClass().getResource("wall4.png").getPath(), StandardCharsets.UTF_8.name()));
-
-            // spawner = loadImage(URLDecoder.decode(this.getClass().getResource("entrypoint.png").getPath(), StandardCharsets.UTF_8.name()));
-            backgroundTile = loadImage(URLDecoder.decode(this.getClass().getResource("tile.png").getPath(), StandardCharsets.UTF_8.name()));
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        }
+        // Load Board Images, shared with everything else through the texture registry
+        TextureRegistry textures = TextureRegistry.of(this);
+        PImage wall0 = textures.getWall(0);
+        PImage wall1 = textures.getWall(1);
+        PImage wall2 = textures.getWall(2);
+        PImage wall3 = textures.getWall(3);
+        PImage wall4 = textures.getWall(4);
+        PImage backgroundTile = textures.get("tile");
 
         if (wall0 == null || wall1 == null || wall2 == null || wall3 == null || wall4 == null || backgroundTile == null) {
-            println("Error: One or more images failed to load.");
+            Log.error("One or more images failed to load.");
+            Log.flush();
             exit();
         }
 
         try {
             // Initialise Game Elements
             this.levelIndex = 0;
-            level = new Level(this, config, levelIndex);
+            level = new Level(config, levelIndex);
             gameStateManager = new GameStateManager(this, level); 
             hud = new HUD(this, this.level); 
             board = new Board(this, BOARD_WIDTH, BOARD_HEIGHT, gameStateManager); 
             board.setLevel(this.level);
-            board.loadLevel(this, level); // Load the level layout
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        try {
-            for (int x = 0; x < BOARD_WIDTH; x++) {
-                for (int y = 0; y < BOARD_HEIGHT; y++) {
-                    Tile tile = board.getTile(x, y);
-                    tile.setWallImage(0, wall0);
-                    tile.setWallImage(1, wall1);
-                    tile.setWallImage(2, wall2);
-                    tile.setWallImage(3, wall3);
-                    tile.setWallImage(4, wall4);
-
-                    tile.setBackgroundTile(backgroundTile);
-                }
-            }
+            board.getSimulation().setSeed(sessionRandom.nextLong());
+            board.loadLevel(this, level); // Load the level layout, with the tile images
+            boardConfig = config;
+            boardLevelIndex = levelIndex;
+            simulation = board.getSimulation();
+            recordLevel(0, levelIndex);
+
+            // Start building the next level while this one is played
+            prefetcher = new LevelPrefetcher(this);
+            prefetcher.prefetch(config, levelIndex + 1, gameStateManager, sessionRandom.nextLong());
         } catch (Exception e) {
-            e.printStackTrace();
+            Log.error("Game elements could not be initialised: {}", e);
+            Log.flush();
         }
         // board.printTileProperties();
     }
@@ -134,13 +128,25 @@ public class App extends PApplet {
     public void keyPressed(KeyEvent event) {
         if (event.getKey() == 'r' || event.getKey() == 'R') {
             // Restart the game and reset the level
-            gameStateManager.restart(this, loadJSONObject("config.json"), this.levelIndex); 
+            if (recorder != null) {
+                recorder.restart(simulation.getTick());
+            }
+            gameStateManager.restart(this, config, this.levelIndex); 
         }
     
         if (event.getKey() == ' ') {
             // Pause/unpause the game
+            if (recorder != null) {
+                recorder.pause(simulation.getTick());
+            }
             gameStateManager.togglePause();
         }
+
+        if (event.getKey() == 'p' || event.getKey() == 'P') {
+            // Print the frame timings and start measuring again
+            Profiler.dump(System.out);
+            Profiler.reset();
+        }
     }
 
     /**
@@ -153,18 +159,20 @@ public class App extends PApplet {
     @Override
     public void mousePressed(MouseEvent e) {
         if (mouseButton == LEFT) {
-            lastX = e.getX();
-            lastY = e.getY();
-            currentLine = new Line();
+            currentLine = simulation.createLine();
+            currentLine.addPoint(e.getX(), e.getY());
             isDrawing = true;
+            if (recorder != null) {
+                recorder.press(simulation.getTick(), e.getX(), e.getY());
+            }
         }
 
-        if (mouseButton == RIGHT && lines.size() > 0) {
-            lines.remove(lines.size() - 1);
+        if (mouseButton == RIGHT) {
+            removeLastLine();
         }
 
         if (mouseButton == LEFT && (e.isControlDown())) {
-            lines.remove(lines.size() - 1);
+            removeLastLine();
         }
        
     }
@@ -176,29 +184,14 @@ public class App extends PApplet {
 
         if (currentY > TOPBAR) {
             if (isDrawing) {
-                // Create a new line segment from the last position to the current mouse position
-                LineSegment newSegment = new LineSegment(lastX, lastY, currentX, currentY);
-
-                // Add the new segment to the currently drawn line
+                // Add the mouse position to the currently drawn line, which stretches its last
+                // segment or starts a new one. Balls collide with it from the next tick
                 if (currentLine != null) {
-                    currentLine.addSegment(newSegment);
-
-                    // Check for collision with any ball during the drawing process
-                    for (Ball ball : board.getBalls()) {
-                        if (currentLine.isCollidingWithBall(ball)) {
-                            // If collision occurs, update trajectory and remove the entire line
-                            ball.updateTrajectory(currentLine.getSegments().get(0));
-                            lines.remove(currentLine);  // Remove the line
-                            currentLine = null;  // Clear the current line
-                            isDrawing = false;  // Stop drawing
-                            return;  // Exit immediately after collision
-                        }
+                    currentLine.addPoint(currentX, currentY);
+                    if (recorder != null) {
+                        recorder.point(simulation.getTick(), e.getX(), e.getY());
                     }
                 }
-
-                // Update the last known mouse position for the next segment
-                lastX = currentX;
-                lastY = currentY;
             }
         }
     }
@@ -210,8 +203,18 @@ public class App extends PApplet {
     public void mouseReleased(MouseEvent e) {
         isDrawing = false;
         if (currentLine != null) {
-            lines.add(currentLine);  // Only add the line if it wasn't removed due to collision
+            simulation.addLine(currentLine);  // Only add the line if it wasn't removed due to collision
             currentLine = null;
+            if (recorder != null) {
+                recorder.release(simulation.getTick());
+            }
+        }
+    }
+
+    private void removeLastLine() {
+        simulation.removeLastLine();
+        if (recorder != null) {
+            recorder.remove(simulation.getTick());
         }
     }
     
@@ -221,18 +224,20 @@ public class App extends PApplet {
      */
     @Override
     public void draw() {
+        long frameStart = Profiler.start();
         // Clear the background
         // background(0);
 
+        long start = Profiler.start();
         float timeToSpawn = board.getTimeToSpawn();
         hud.drawTopBar(gameStateManager.getScore(), gameStateManager.getRemainingTime(), timeToSpawn, gameStateManager.getState());
+        Profiler.stop(Profiler.HUD, start);
 
         if (gameStateManager.getState() == GameStateManager.GameState.GAMEOVER) {
             // Display the GAME OVER message in the middle of the top bar
             if (levelIndex < 2) {
                 levelIndex++;
-                level = new Level(this, loadJSONObject("config.json"), levelIndex);
-                gameStateManager.restart(this, loadJSONObject("config.json"), levelIndex);
+                gameStateManager.restart(this, config, levelIndex);
             } else {
                 fill(0); // White colour for text
                 textSize(15);
@@ -245,15 +250,8 @@ public class App extends PApplet {
             // Render the game as usual (board, balls, lines, etc.)
             board.draw(this);
 
-            // Render the lines
-            for (Line line : lines) {
-                line.draw(this);
-            }
-
-            // Render the current line being drawn (if any)
-            if (isDrawing && currentLine != null) {
-                currentLine.draw(this);
-            }
+            // Render the lines and the line being drawn (if any)
+            drawLines();
 
             // Display the PAUSED message in the middle of the top bar
             fill(0); // White colour for text
@@ -265,15 +263,8 @@ public class App extends PApplet {
             // Render the game as usual (board, balls, lines, etc.)
             board.draw(this);
 
-            // Render the lines
-            for (Line line : lines) {
-                line.draw(this);
-            }
-
-            // Render the current line being drawn (if any)
-            if (isDrawing && currentLine != null) {
-                currentLine.draw(this);
-            }
+            // Render the lines and the line being drawn (if any)
+            drawLines();
 
 
             // Display the PAUSED message in the middle of the top bar
@@ -284,58 +275,43 @@ public class App extends PApplet {
          }
     
         else if (gameStateManager.getState() == GameStateManager.GameState.PLAYING) {
-            // Game state logic (only update if the game is playing)
-            gameStateManager.updateTimer(1f / App.FPS);
-            int gameScore = gameStateManager.getScore();
-            gameStateManager.updateScore(gameScore);
-
-            // Draw the board and other game elements
-            board.draw(this);
-
-            if (board.checkWinCondition()) {
-                gameStateManager.addRemainingTimeToScore(1.0f / App.FPS);
-                if (gameStateManager.getRemainingTime().equals("0") && board.getBalls().isEmpty() && board.getSpawners().get(0).getBallsToSpawn().isEmpty()) {
-                    gameStateManager.setState(GameStateManager.GameState.GAMEOVER);
-                }
+            // Advance the game by one tick (only update if the game is playing)
+            simulation.step();
 
+            // A ball hit the line being drawn, so stop drawing it
+            if (currentLine != null && currentLine.isRemoved()) {
+                currentLine = null;
+                isDrawing = false;
             }
-            
-
-            // Check for ball collisions with all completed lines
-            for (Iterator<Line> iterator = lines.iterator(); iterator.hasNext();) {
-                Line line = iterator.next();
-
-                // Check collision for each ball with the current line
-                for (Ball ball : board.getBalls()) {
-                    if (line.isCollidingWithBall(ball)) {
-                        ball.updateTrajectory(line.getSegments().get(0)); // Update ball's trajectory based on the line's first segment
-                        iterator.remove(); // Remove the entire line
-                        break; // Stop checking once the line is removed
-                    }
-                }
-
-                // Draw the remaining lines
-                line.draw(this);
+            if (recorder != null && simulation.getTick() % InputRecorder.KEYFRAME_INTERVAL == 0) {
+                recorder.keyframe(simulation.getTick(), Keyframe.capture(simulation, currentLine));
             }
 
-            
-            if (gameScore < 0) {
-                levelIndex = 0;
-                gameStateManager.restart(this, loadJSONObject("config.json"), levelIndex); 
-            }
+            // Draw the board and other game elements
+            board.draw(this);
 
-            // Draw the current line being drawn (if the user is still drawing)
-            if (isDrawing && currentLine != null) {
-                currentLine.draw(this);
-            }
+            // Draw the remaining lines and the line being drawn (if the user is still drawing)
+            drawLines();
 
-            if (gameStateManager.getRemainingTime().equals("0") && (!board.getBalls().isEmpty() || !board.getSpawners().get(0).getBallsToSpawn().isEmpty())) {
-                gameStateManager.setState(GameStateManager.GameState.TIMESUP);
-            
+            if (gameStateManager.getScore() < 0) {
+                levelIndex = 0;
+                gameStateManager.restart(this, config, levelIndex); 
             }
+        }
+        Profiler.stop(Profiler.FRAME, frameStart);
+    }
 
-            
+    // Draws the finished lines and the line being drawn
+    private void drawLines() {
+        long start = Profiler.start();
+        board.drawLines(this);
+        if (isDrawing && currentLine != null) {
+            currentLine.draw(this);
         }
+        Profiler.stop(Profiler.LINES, start);
+
+        // The board has drawn everything for the frame by now
+        Profiler.count(Profiler.DRAW_CALLS, board.getDrawCalls());
     }
 
     
@@ -348,31 +324,89 @@ public class App extends PApplet {
 
 
     public void clearLines() {
-        lines.clear();
+        simulation.clearLines();
     }
 
-    public void initialiseLevel(JSONObject config, int levelIndex) {
-        // Load the level again
-        level = new Level(this, config, levelIndex);
-        board = new Board(this, BOARD_WIDTH, BOARD_HEIGHT, gameStateManager); 
-        board.setLevel(level);
-        board.loadLevel(this, level); // Reload the level layout
-        
-        // Reset all tiles to their initial state
-        for (int x = 0; x < BOARD_WIDTH; x++) {
-            for (int y = 0; y < BOARD_HEIGHT; y++) {
-                Tile tile = board.getTile(x, y);
-                tile.setWallImage(0, wall0);
-                tile.setWallImage(1, wall1);
-                tile.setWallImage(2, wall2);
-                tile.setWallImage(3, wall3);
-                tile.setWallImage(4, wall4);
-                tile.setBackgroundTile(backgroundTile);
+    // Seeds the session from -Dinkball.seed, or the clock, and starts recording
+    // the input to the file in -Dinkball.record if there is one
+    private void startSession() {
+        sessionSeed = Long.getLong("inkball.seed", System.nanoTime());
+        sessionRandom = new Random(sessionSeed);
+
+        String recording = System.getProperty("inkball.record");
+        if (recording != null && !recording.isEmpty()) {
+            try {
+                recorder = InputRecorder.open(new File(recording), sessionSeed);
+                recorder.closeOnExit();
+            } catch (IOException e) {
+                Log.error("Input could not be recorded to {}.", recording);
             }
         }
-    
-        // Clear any drawn lines
-        lines.clear();
+    }
+
+    // Records the seed of a level that was just loaded, and its state to seek to
+    private void recordLevel(int endTick, int levelIndex) {
+        if (recorder != null) {
+            recorder.level(endTick, levelIndex, simulation.getSeed());
+            recorder.keyframe(0, Keyframe.capture(simulation, null));
+        }
+    }
+
+    /**
+     * Read and parse the configuration file again. The new configuration is
+     * used from the next restart or level change.
+     * @return  True if the file was read, false if the old configuration was kept
+     */
+    public boolean reloadConfig() {
+        GameConfig reloaded = GameConfig.load(this);
+        if (reloaded == null) {
+            return false;
+        }
+        config = reloaded;
+
+        // The board being prepared was built from the old configuration
+        if (prefetcher != null) {
+            prefetcher.cancel();
+            prefetcher.prefetch(config, levelIndex + 1, gameStateManager, sessionRandom.nextLong());
+        }
+        return true;
+    }
+
+    /**
+     * Set up a level to be played. Restarting the level being played resets
+     * the board in place, otherwise the board prepared in the background is
+     * swapped in if there is one, or the board is built now.
+     * @param config        The parsed game configuration
+     * @param levelIndex    The index of the level
+     */
+    public void initialiseLevel(GameConfig config, int levelIndex) {
+        int endTick = simulation != null ? simulation.getTick() : 0;
+        boolean sameLevel = board != null && config == boardConfig && levelIndex == boardLevelIndex;
+        if (!sameLevel || !board.restart(sessionRandom.nextLong())) {
+            Board prepared = prefetcher != null ? prefetcher.take(config, levelIndex) : null;
+            if (prepared != null) {
+                board = prepared;
+                board.createLayers(this);
+            } else {
+                // Load the level again
+                board = new Board(this, BOARD_WIDTH, BOARD_HEIGHT, gameStateManager); 
+                board.setLevel(new Level(config, levelIndex));
+                board.getSimulation().setSeed(sessionRandom.nextLong());
+                board.loadLevel(this, board.getLevel()); // Reload the level layout
+            }
+            boardConfig = config;
+            boardLevelIndex = levelIndex;
+        }
+        level = board.getLevel();
+        simulation = board.getSimulation();
+        currentLine = null;
+        isDrawing = false;
+        recordLevel(endTick, levelIndex);
+
+        // Start building the level after this one
+        if (prefetcher != null) {
+            prefetcher.prefetch(config, levelIndex + 1, gameStateManager, sessionRandom.nextLong());
+        }
     
         // Update HUD to reflect the new balls to spawn for the new level
         hud.updateBallsToSpawn(level.getBalls());
@@ -1,13 +1,11 @@
 package inkball;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
-
 import processing.core.PApplet;
 import processing.core.PImage;
 import processing.core.PVector;
 
+import java.util.Random;
+
 /**
  * The ball class inherits from the abstract GameObject class. 
  * Ball class represents the ball object in the game. The ball object interacts
@@ -15,20 +13,36 @@ import processing.core.PVector;
  * spawner object. The ball object is responsible for moving, checking for 
  * collisions, reflecting off walls, and changing colour when colliding with
  * coloured walls.
+ *
+ * The position, velocity, scale and colour of a ball are kept in a BallStore,
+ * and the ball refers to them through a generational handle. A ball that is
+ * not in a store, because it was just created or has been removed from the
+ * board, keeps them in fields of its own. It only gets a one-ball store of its
+ * own if one of the physics methods is used on it outside the board.
  */
 public class Ball extends GameObject {
     private PImage ballImage;
     private boolean active;
-    private String ballColour;
-    private float scale;
-    private PVector position;
-    private PVector velocity;
+
+    // The store that holds the hot state of the ball, and the ball's handle in it
+    private BallStore store;
+    private int handle = BallStore.NO_HANDLE;
+
+    // The state of the ball while it is not in a store
+    private float posX;
+    private float posY;
+    private float velX;
+    private float velY;
+    private float scale = 1.0f;
+    private int colourId;
 
     private PApplet app;
+    private TextureRegistry textures;
 
-    private int lastCollisionFrame;  // Store the frame number of the last collision
-    private static final int COLLISION_COOLDOWN = 5; // Cooldown period in frames
+    public static final float RADIUS = App.CELLSIZE / 2;
 
+    // Random numbers for balls created without a seeded source
+    static final Random DEFAULT_RANDOM = new Random();
 
 
     // -------------------------- Constructor ----------------------------------
@@ -42,47 +56,136 @@ public class Ball extends GameObject {
      * @param ballColour    The colour of the ball
      */
     public Ball(int x, int y, PApplet app, String ballColour) {
+        this(x, y, app, ballColour, DEFAULT_RANDOM);
+    }
+
+    /**
+     * Constructor for the Ball object, with the direction of the ball taken
+     * from the given random numbers so a seeded level plays out the same way
+     * every time.
+     * @param x             The x-coordinate of the ball
+     * @param y             The y-coordinate of the ball
+     * @param app           The PApplet object
+     * @param ballColour    The colour of the ball
+     * @param random        The random numbers the velocity is chosen with
+     */
+    public Ball(int x, int y, PApplet app, String ballColour, Random random) {
+        this(x, y, app, checkColour(ballColour, app), random);
+    }
+
+    /**
+     * Constructor for the Ball object, for a colour that is already known,
+     * such as one taken from a spawn queue.
+     * @param x             The x-coordinate of the ball
+     * @param y             The y-coordinate of the ball
+     * @param app           The PApplet object
+     * @param colour        The colour of the ball
+     * @param random        The random numbers the velocity is chosen with
+     */
+    public Ball(int x, int y, PApplet app, BallColour colour, Random random) {
+        this(x, y, app, checkColour(colour), random);
+    }
+
+    private Ball(int x, int y, PApplet app, int colourId, Random random) {
         super(x, y);
-    
-        if (ballColour == null) {
-            throw new IllegalArgumentException("Error: ballColour is null!");
-        }
-    
-        this.ballColour = ballColour;
-    
+
         if (app != null) {
-            try {
-                // Check if the resource exists for the ball colour
-                if (this.getClass().getResource(ballColour + ".png") == null) {
-                    throw new IllegalArgumentException("Error: Ball image not found for colour " + ballColour);
-                }
-                this.ballImage = app.loadImage(URLDecoder.decode(this.getClass().getResource(ballColour + ".png").getPath(), StandardCharsets.UTF_8.name()));
-            } catch (UnsupportedEncodingException e) {
-                e.printStackTrace();
-            }
+            this.textures = TextureRegistry.of(app);
+            this.ballImage = textures.getBall(colourId);
         }
     
-        int randvx = (Math.random() < 0.5) ? -1 : 1;
-        int randvy = (Math.random() < 0.5) ? -1 : 1;
-        this.position = new PVector(x * App.CELLSIZE + (App.CELLSIZE / 2), y * App.CELLSIZE + App.TOPBAR + (App.CELLSIZE / 2));
-        this.velocity = new PVector(randvx, randvy);
+        int randvx = random.nextBoolean() ? -1 : 1;
+        int randvy = random.nextBoolean() ? -1 : 1;
         this.active = true;
-        this.scale = 1.0f;
-    
-        this.lastCollisionFrame = -1;
         this.app = app;
+
+        this.posX = x * App.CELLSIZE + (App.CELLSIZE / 2);
+        this.posY = y * App.CELLSIZE + App.TOPBAR + (App.CELLSIZE / 2);
+        this.velX = randvx;
+        this.velY = randvy;
+        this.colourId = colourId;
+    }
+
+    // The colour id of a sprite name such as "ball2", whose image has to exist if the ball is drawn
+    private static int checkColour(String ballColour, PApplet app) {
+        if (ballColour == null) {
+            throw new IllegalArgumentException("Error: ballColour is null!");
+        }
+        if (app != null && Ball.class.getResource(ballColour + ".png") == null) {
+            throw new IllegalArgumentException("Error: Ball image not found for colour " + ballColour);
+        }
+        return BallColour.toId(ballColour, "ball");
+    }
+
+    private static int checkColour(BallColour colour) {
+        if (colour == null) {
+            throw new IllegalArgumentException("Error: ballColour is null!");
+        }
+        return colour.getId();
     }
     
 
     // --------------------- Getters and Setters -------------------------------
 
+    // --- Store ---
+    /**
+     * Get the store that holds the state of the ball
+     * @return The ball store, or null if the ball is not in a store
+     */
+    public BallStore getStore() {
+        return store;
+    }
+
+    /**
+     * Get the handle of the ball in its store
+     * @return The handle of the ball, or NO_HANDLE if the ball is not in a store
+     */
+    public int getHandle() {
+        return handle;
+    }
+
+    /**
+     * Get the slot of the ball in its store, valid until a ball is removed
+     * from the store. A ball that is not in a store is given one of its own.
+     * @return The slot of the ball
+     */
+    public int getSlot() {
+        return attachedStore().getSlot(handle);
+    }
+
+    // The store of the ball, a ball that is not in a store is given one of its own
+    private BallStore attachedStore() {
+        if (store == null) {
+            new BallStore(1).add(this);
+        }
+        return store;
+    }
+
+    // Called by BallStore when the ball moves to another store
+    void bind(BallStore store, int handle) {
+        this.store = store;
+        this.handle = handle;
+    }
+
+    // Called by BallStore when the ball is removed, the ball keeps its state in its own fields
+    void detach(float x, float y, float vx, float vy, float scale, int colourId) {
+        this.posX = x;
+        this.posY = y;
+        this.velX = vx;
+        this.velY = vy;
+        this.scale = scale;
+        this.colourId = colourId;
+        this.store = null;
+        this.handle = BallStore.NO_HANDLE;
+    }
+
     // --- Position ---
     /**
      * Get the x-coordinate of the ball
      * @return The x-coordinate of the ball
      */
     public float getPosX() {
-        return position.x;
+        return store != null ? store.getPosX(getSlot()) : posX;
     }
 
     /**
@@ -90,7 +193,21 @@ public class Ball extends GameObject {
      * @return The y-coordinate of the ball
      */
     public float getPosY() {
-        return position.y;
+        return store != null ? store.getPosY(getSlot()) : posY;
+    }
+
+    /**
+     * Set the position of the ball
+     * @param x The x-coordinate of the ball
+     * @param y The y-coordinate of the ball
+     */
+    public void setPosition(float x, float y) {
+        if (store != null) {
+            store.setPosition(getSlot(), x, y);
+        } else {
+            posX = x;
+            posY = y;
+        }
     }
 
     /**
@@ -98,8 +215,7 @@ public class Ball extends GameObject {
      * @return futurePosition: The future position of the ball
      */
     public PVector getFuturePosition() {
-        PVector futurePosition = PVector.add(position, velocity);
-        return futurePosition;
+        return new PVector(getPosX() + getVelocityX(), getPosY() + getVelocityY());
     }
     
     
@@ -110,7 +226,7 @@ public class Ball extends GameObject {
      * @return The x-component of the velocity of the ball
      */
     public float getVelocityX() {
-        return velocity.x;
+        return store != null ? store.getVelocityX(getSlot()) : velX;
     }
 
     /**
@@ -118,7 +234,7 @@ public class Ball extends GameObject {
      * @return The y-component of the velocity of the ball
      */
     public float getVelocityY() {
-        return velocity.y;
+        return store != null ? store.getVelocityY(getSlot()) : velY;
     }
 
     /**
@@ -127,8 +243,12 @@ public class Ball extends GameObject {
      * @param vy The y-component of the velocity
      */
     public void setVelocity(float vx, float vy) {
-        this.velocity.x = vx;
-        this.velocity.y = vy;
+        if (store != null) {
+            store.setVelocity(getSlot(), vx, vy);
+        } else {
+            velX = vx;
+            velY = vy;
+        }
     }
 
     // --- Active ---
@@ -154,28 +274,37 @@ public class Ball extends GameObject {
      * @return The radius of the ball
      */
     public float getRadius() {
-        return App.CELLSIZE / 2;
+        return RADIUS;
     }
 
     // --- Colour ---
+    /**
+     * Get the sprite of the ball, shared with every ball of the same colour
+     * @return The image of the ball, or null if the ball is headless
+     */
+    public PImage getBallImage() {
+        return ballImage;
+    }
+
     /**
      * Get the colour of the ball
      * @return The colour of the ball
      */
     public String getColour() {
-        if (ballColour.equals("ball0")) {
-            return "grey";
-        } else if (ballColour.equals("ball1")) {
-            return "orange";
-        } else if (ballColour.equals("ball2")) {
-            return "blue";
-        } else if (ballColour.equals("ball3")) {
-            return "green";
-        } else if (ballColour.equals("ball4")) {
-            return "yellow";
-        } else {
+        BallColour colour = BallColour.fromId(getColourId());
+        if (colour == null) {
             return "Ball Colour not found";
         }
+        return colour.getName();
+    }
+
+    /**
+     * Get the colour id of the ball, 0 to 4 for grey, orange, blue, green and
+     * yellow
+     * @return The colour id of the ball, or -1 if the colour is unknown
+     */
+    public int getColourId() {
+        return store != null ? store.getColour(getSlot()) : colourId;
     }
 
     // --- Scale ---
@@ -183,7 +312,11 @@ public class Ball extends GameObject {
      * Set the scale of the ball
      */
     public void setScale(float scale) {
-        this.scale = scale;  
+        if (store != null) {
+            store.setScale(getSlot(), scale);
+        } else {
+            this.scale = scale;
+        }
     }
 
     /**
@@ -191,7 +324,7 @@ public class Ball extends GameObject {
      * @return The scale of the ball
      */
     public float getScale() {
-        return scale;
+        return store != null ? store.getScale(getSlot()) : scale;
     }
 
     // --- Apply Force ---
@@ -200,7 +333,21 @@ public class Ball extends GameObject {
      * @param force The force to be applied to the ball
      */
     public void applyForce(PVector force) {
-        velocity.add(force);  
+        applyForce(force.x, force.y);
+    }
+
+    /**
+     * Apply a force to the ball
+     * @param fx The x-component of the force
+     * @param fy The y-component of the force
+     */
+    public void applyForce(float fx, float fy) {
+        if (store != null) {
+            store.applyForce(getSlot(), fx, fy);
+        } else {
+            velX += fx;
+            velY += fy;
+        }
     }
 
     // -------------------------- Methods --------------------------------------
@@ -212,8 +359,7 @@ public class Ball extends GameObject {
      * the wall.
      */
     public void move() {
-        position.add(velocity);
-        checkBorderCollision();
+        attachedStore().move(getSlot());
     }
 
     // --- Check Border Collision ---
@@ -224,11 +370,13 @@ public class Ball extends GameObject {
      * of the velocity is reversed.
      */
     public void checkBorderCollision() {
-        if (position.x < 0 || position.x > App.WIDTH - (App.CELLSIZE)) {
-            velocity.x *= -1;
+        float x = getPosX();
+        float y = getPosY();
+        if (x < 0 || x > App.WIDTH - (App.CELLSIZE)) {
+            setVelocity(-getVelocityX(), getVelocityY());
         }
-        if (position.y < App.TOPBAR || position.y > App.HEIGHT - App.CELLSIZE) {
-            velocity.y *= -1;
+        if (y < App.TOPBAR || y > App.HEIGHT - App.CELLSIZE) {
+            setVelocity(getVelocityX(), -getVelocityY());
         }
     }
 
@@ -241,54 +389,62 @@ public class Ball extends GameObject {
      * @return True if the ball collides with the wall, false otherwise
      */
     public boolean checkCollisionWithWall(LineSegment[] hitbox, PApplet app) {
-        // Frame buffer to prevent multiple collisions in the same frame
-        if (lastCollisionFrame != -1 && (app.frameCount - lastCollisionFrame) < COLLISION_COOLDOWN) {
-            return false;
-        }
-
-        // Get the future position and radius of the ball
-        PVector futurePosition = getFuturePosition();
-        float radius = getRadius();
+        return checkCollisionWithWall(hitbox);
+    }
 
+    /**
+     * Check if the ball collides with the wall hitbox in its next position.
+     * The method checks each line segment of the wall hitbox and reflects the
+     * ball upon collision.
+     * @param hitbox The wall hitbox
+     * @return True if the ball collides with the wall, false otherwise
+     */
+    public boolean checkCollisionWithWall(LineSegment[] hitbox) {
         // Check each line segment of the wall hitbox
         for (LineSegment edge : hitbox) {
-            if (isCollidingWithLine(edge, futurePosition, radius)) {
-                updateTrajectory(edge);  // Reflect ball upon collision
-                lastCollisionFrame = app.frameCount;
+            if (checkCollisionWithEdge(edge)) {
                 return true;
             }
         }
         return false;
     }
+
+    /**
+     * Check if the ball collides with a single wall edge in its next
+     * position, and reflect the ball upon collision. A ball that is already
+     * moving away from the edge is not reflected again.
+     * @param edge   The wall edge
+     * @return True if the ball collides with the edge, false otherwise
+     */
+    public boolean checkCollisionWithEdge(LineSegment edge) {
+        return attachedStore().checkCollisionWithEdge(getSlot(), edge);
+    }
     
     // --- Collision with Line ---
     /**
-     * Check if the ball is colliding with a line segment. The method calculates the
-     * distance between the ball's predicted position in the next frame and the line
-     * segment. If the sum of the distances from the ball to the line segment's end
-     * points is less than the line segment's length plus the ball's radius, the ball
-     * is colliding with the line segment.
+     * Check if the ball is colliding with a line segment. The ball is colliding
+     * with the line segment if its predicted position in the next frame is within
+     * one radius of the closest point on the segment.
      * @param line The line segment to check for collision
      * @return     True if the ball is colliding with the line segment, false otherwise
      */
     public boolean isCollidingWithLine(LineSegment line) {
-        // Calculate the future position of the ball
-        PVector ballPosNext = PVector.add(position, velocity); 
+        return attachedStore().isCollidingWithLine(getSlot(), line);
+    }
 
-        // Get the start and end points of the line segment
-        PVector P1 = new PVector(line.startX, line.startY);
-        PVector P2 = new PVector(line.endX, line.endY);
-        
-        // Calculate the distances from the ball to the line segment's end points
-        float distanceP1ToBall = PVector.dist(ballPosNext, P1);
-        float distanceP2ToBall = PVector.dist(ballPosNext, P2);
-        float lineSegmentLength = PVector.dist(P1, P2);
-    
-        // Check if the ball is colliding with the line segment
-        if (distanceP1ToBall + distanceP2ToBall < lineSegmentLength + this.getRadius()) {
-            return true;
-        }
-        return false;
+    /**
+     * Check if a ball centred at the given point is colliding with a line
+     * segment. The squared distance from the point to the segment is compared
+     * against the squared radius, so the check takes no square roots and
+     * allocates nothing.
+     * @param line      The line segment to check for collision
+     * @param px        The x-coordinate of the ball centre
+     * @param py        The y-coordinate of the ball centre
+     * @param radius    The radius of the ball
+     * @return          True if the ball is colliding with the line segment, false otherwise
+     */
+    public boolean isCollidingWithLine(LineSegment line, float px, float py, float radius) {
+        return line.distanceSquaredTo(px, py) <= radius * radius;
     }
 
     // --- Reflect Ball From Line Segment---
@@ -301,15 +457,17 @@ public class Ball extends GameObject {
         // Extract the corners of the hitbox
         PVector topLeft = hitbox[0];
         PVector bottomRight = hitbox[2];
+        float x = getPosX();
+        float y = getPosY();
     
         // Reflect on the x-axis if the ball hits a vertical wall
-        if (position.x <= topLeft.x || position.x >= bottomRight.x) {
-            velocity.x *= -1;
+        if (x <= topLeft.x || x >= bottomRight.x) {
+            setVelocity(-getVelocityX(), getVelocityY());
         }
     
         // Reflect on the y-axis if the ball hits a horizontal wall
-        if (position.y <= topLeft.y || position.y >= bottomRight.y) {
-            velocity.y *= -1;
+        if (y <= topLeft.y || y >= bottomRight.y) {
+            setVelocity(getVelocityX(), -getVelocityY());
         }
     }
 
@@ -353,43 +511,45 @@ public class Ball extends GameObject {
      * @param wallTile  The wall tile the ball collides with
      */
     public void changeColour(Tile wallTile) {
-        // Check the wall tile type and match the ball colour
-        switch (wallTile.getType()) {
-            case WALL1: this.ballColour = "ball1"; break;
-            case WALL2: this.ballColour = "ball2"; break;
-            case WALL3: this.ballColour = "ball3"; break;
-            case WALL4: this.ballColour = "ball4"; break;
-            default: break;
+        // Check the wall tile type and match the ball colour, grey walls leave it unchanged
+        int colourId = getWallColourId(wallTile.getType());
+        if (colourId < 0) {
+            return;
+        }
+        if (store != null) {
+            store.setColour(getSlot(), colourId);
+        } else {
+            this.colourId = colourId;
         }
 
-        // Load the new ball image based on the colour
-        try {
-            this.ballImage = app.loadImage(URLDecoder.decode(this.getClass().getResource(ballColour + ".png").getPath(), StandardCharsets.UTF_8.name()));
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
+        // Swap to the shared sprite of the new colour, headless balls have no image
+        if (textures != null) {
+            this.ballImage = textures.getBall(colourId);
         }
     }
     
+    /**
+     * Get the colour id a wall tile gives to the balls that hit it
+     * @param type  The type of the wall tile
+     * @return      The colour id, or -1 if the wall does not change the colour
+     */
+    static int getWallColourId(Tile.TileType type) {
+        // WALL1 to WALL4 follow WALL0 in colour order, and grey walls change nothing
+        int id = type.ordinal() - Tile.TileType.WALL0.ordinal();
+        return id > BallColour.GREY.getId() && id < BallColour.COUNT ? id : -1;
+    }
+    
     // --- Check Collision with Line ---
     /**
-     * Check if the ball is colliding with a line segment. The method calculates the
+     * Check if the ball is colliding with a line segment at the given future
+     * position.
      * @param line              The line segment to check for collision
      * @param futurePosition    The future position of the ball
      * @param radius            The radius of the ball
      * @return                  True if the ball is colliding with the line segment, false otherwise
      */
     public boolean isCollidingWithLine(LineSegment line, PVector futurePosition, float radius) {
-        // Get the start and end points of the line segment
-        PVector P1 = new PVector(line.startX, line.startY);
-        PVector P2 = new PVector(line.endX, line.endY);
-    
-        // Calculate the distances from the ball to the line segment's end points
-        float distanceP1ToBall = PVector.dist(futurePosition, P1);
-        float distanceP2ToBall = PVector.dist(futurePosition, P2);
-        float lineSegmentLength = PVector.dist(P1, P2);
-    
-        // Check if the future position of the ball is close enough to the line segment
-        return distanceP1ToBall + distanceP2ToBall <= lineSegmentLength + this.getRadius();
+        return isCollidingWithLine(line, futurePosition.x, futurePosition.y, radius);
     }
     
 
@@ -401,45 +561,28 @@ public class Ball extends GameObject {
      * @return      The normal vector of the line segment
      */
     public PVector calculateNormalVector(LineSegment line) {
-        PVector P1 = new PVector(line.startX, line.startY);
-        PVector P2 = new PVector(line.endX, line.endY);
-    
-        float dx = P2.x - P1.x;
-        float dy = P2.y - P1.y;
-    
-        // Calculate two normals
-        PVector N1 = new PVector(-dy, dx);
-        PVector N2 = new PVector(dy, -dx);
-    
-        // Normalize the vectors (so their magnitude is 1)
-        N1.normalize();
-        N2.normalize();
-    
-        // Check which normal is closer to the ball
-        PVector midPoint = PVector.lerp(P1, P2, 0.5f); // Midpoint of the line segment
-        PVector ballPos = new PVector(this.getPosX(), this.getPosY());
-    
-        // Choose the normal that is closer to the ball
-        if (PVector.dist(PVector.add(midPoint, N1), ballPos) < PVector.dist(PVector.add(midPoint, N2), ballPos)) {
-            return N1;
+        float nx = line.getNormalX();
+        float ny = line.getNormalY();
+
+        // The normal points towards the ball if the ball is on its side of the midpoint
+        float midX = (line.startX + line.endX) / 2;
+        float midY = (line.startY + line.endY) / 2;
+        if (nx * (getPosX() - midX) + ny * (getPosY() - midY) > 0) {
+            return new PVector(nx, ny);
         } else {
-            return N2;
+            return new PVector(-nx, -ny);
         }
     }
 
     // --- Update Trajectory ---
     /**
-     * Update the ball's trajectory upon collision with the line segment. The method
+     * Update the ball's trajectory upon collision with the line segment. The
+     * velocity is reflected about the precomputed normal of the segment, which
+     * gives the same result whichever side of the segment the ball is on.
      * @param line  The line segment to reflect the ball from
      */
     public void updateTrajectory(LineSegment line) {
-        PVector normal = calculateNormalVector(line); // Get the closest normal vector
-    
-        // Calculate the reflection vector
-        PVector reflectedVelocity = PVector.sub(velocity, PVector.mult(normal, 2 * PVector.dot(velocity, normal)));
-    
-        // Update the ball's velocity
-        this.setVelocity(reflectedVelocity.x, reflectedVelocity.y);
+        attachedStore().updateTrajectory(getSlot(), line);
     }
     
         
@@ -450,10 +593,11 @@ public class Ball extends GameObject {
     public void draw(PApplet app) {
         if (active) {
             // Adjust the ball's rendering by shifting the Y position by half a cell size upwards
-            float adjustedY = position.y - (App.CELLSIZE / 2);
-            float adjustedX = position.x - (App.CELLSIZE / 2);
+            float adjustedY = getPosY() - (App.CELLSIZE / 2);
+            float adjustedX = getPosX() - (App.CELLSIZE / 2);
+            float scale = getScale();
             
-            app.image(ballImage, adjustedX, adjustedY, App.CELLSIZE * scale, App.CELLSIZE * scale);
+            Sprite.draw(app, ballImage, adjustedX, adjustedY, App.CELLSIZE * scale, App.CELLSIZE * scale);
         }
     }
     
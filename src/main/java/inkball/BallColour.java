@@ -0,0 +1,102 @@
+package inkball;
+
+/**
+ * The BallColour enum lists the colours of the balls, holes and coloured
+ * walls. The id of a colour is its ordinal, which is what the ball store,
+ * the wall geometry, the texture registry and the score matrix of a Level
+ * are indexed by. Names such as "grey" are only used by the configuration
+ * file, and sprite names such as "ball0" by the images, so a colour is
+ * turned into an id once when it is read and compared as an int after that.
+ */
+public enum BallColour {
+    GREY("grey"),
+    ORANGE("orange"),
+    BLUE("blue"),
+    GREEN("green"),
+    YELLOW("yellow");
+
+    public static final int COUNT = 5;
+
+    private static final BallColour[] VALUES = values();
+
+    private final String name;
+    private final String sprite;
+
+    BallColour(String name) {
+        this.name = name;
+        this.sprite = "ball" + ordinal();
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the id of the colour
+     * @return  The id, 0 to 4
+     */
+    public int getId() {
+        return ordinal();
+    }
+
+    /**
+     * Get the name of the colour as it is written in the configuration
+     * @return  The name, such as "grey"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the sprite name of a ball of the colour
+     * @return  The sprite name, such as "ball0"
+     */
+    public String getSprite() {
+        return sprite;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Check if a ball of this colour scores in a hole of another colour.
+     * Grey balls and grey holes match every colour.
+     * @param hole  The colour of the hole
+     * @return      True if the ball matches the hole
+     */
+    public boolean matches(BallColour hole) {
+        return this == GREY || hole == GREY || this == hole;
+    }
+
+    /**
+     * Get the colour of an id
+     * @param id    The id of the colour
+     * @return      The colour, or null if the id is not a colour
+     */
+    public static BallColour fromId(int id) {
+        return id >= 0 && id < COUNT ? VALUES[id] : null;
+    }
+
+    /**
+     * Get the colour of a name as it is written in the configuration
+     * @param name  The name, such as "grey"
+     * @return      The colour, or null if the name is not a colour
+     */
+    public static BallColour fromName(String name) {
+        for (BallColour colour : VALUES) {
+            if (colour.name.equals(name)) {
+                return colour;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the colour id of a sprite name such as "ball2" or "hole2"
+     * @param sprite    The sprite name
+     * @param prefix    The sprite prefix, such as "ball"
+     * @return          The colour id, or -1 if the name has no colour
+     */
+    public static int toId(String sprite, String prefix) {
+        if (sprite == null || sprite.length() != prefix.length() + 1 || !sprite.startsWith(prefix)) {
+            return -1;
+        }
+        int id = sprite.charAt(prefix.length()) - '0';
+        return id >= 0 && id < COUNT ? id : -1;
+    }
+}
@@ -0,0 +1,695 @@
+package inkball;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The BallStore class keeps the state of many balls in dense primitive
+ * arrays, one array per field, so that the per-tick physics runs over
+ * contiguous memory. Balls live in slots 0 to size() - 1. Removing a ball
+ * moves the last ball into its slot, so removal is O(1) and iteration never
+ * skips over holes.
+ *
+ * Because slots change when balls are removed, callers that need to keep
+ * hold of a ball use a handle instead. A handle packs an index into a handle
+ * table together with a generation number. The generation is bumped each
+ * time a handle index is freed, so a handle to a removed ball is detected as
+ * stale even after its index has been reused.
+ *
+ * A ball can also have a Ball object as a view. The view holds the cold data
+ * such as the sprite, and reads and writes its hot state through its handle.
+ * When a ball with a view is removed, its state is copied into the fields of
+ * the view, so removing or clearing balls allocates nothing.
+ */
+public class BallStore {
+    public static final int NO_HANDLE = -1;
+
+    // Handles are (generation << INDEX_BITS) | index, kept positive
+    private static final int INDEX_BITS = 20;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (31 - INDEX_BITS)) - 1;
+    public static final int MAX_BALLS = 1 << INDEX_BITS;
+
+    // Returned by timeOfImpact when the ball does not reach the segment
+    public static final float NO_IMPACT = -1;
+
+    // --- Dense per-ball data, indexed by slot ---
+    private float[] posX;
+    private float[] posY;
+    private float[] velX;
+    private float[] velY;
+    private float[] scale;
+    private byte[] colour;
+    private int[] handles;
+    private Ball[] views;
+    private int size;
+
+    // --- Handle table, indexed by handle index ---
+    private int[] slots;        // Slot of a live handle, or the next free index of a free one
+    private int[] generations;
+    private int handleCount;
+    private int freeHead;
+
+    private List<Ball> viewList;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the BallStore class, creates an empty store.
+     * @param capacity  The number of balls to allocate room for, the store
+     *                  grows past this when needed
+     */
+    public BallStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.posX = new float[capacity];
+        this.posY = new float[capacity];
+        this.velX = new float[capacity];
+        this.velY = new float[capacity];
+        this.scale = new float[capacity];
+        this.colour = new byte[capacity];
+        this.handles = new int[capacity];
+        this.views = new Ball[capacity];
+
+        this.slots = new int[capacity];
+        this.generations = new int[capacity];
+        this.freeHead = -1;
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the number of balls in the store
+     * @return  The number of balls
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if a handle still refers to a ball in the store
+     * @param handle    The handle to check
+     * @return          True if the ball has not been removed, false otherwise
+     */
+    public boolean isValid(int handle) {
+        if (handle < 0) {
+            return false;
+        }
+        int index = handle & INDEX_MASK;
+        return index < handleCount && generations[index] == (handle >>> INDEX_BITS);
+    }
+
+    /**
+     * Get the slot a ball currently occupies. The slot is only valid until the
+     * next ball is removed.
+     * @param handle    The handle of the ball
+     * @return          The slot of the ball
+     */
+    public int getSlot(int handle) {
+        if (!isValid(handle)) {
+            throw new IllegalArgumentException("Error: Ball handle " + handle + " is stale.");
+        }
+        return slots[handle & INDEX_MASK];
+    }
+
+    /**
+     * Get the handle of the ball in a slot
+     * @param slot  The slot of the ball
+     * @return      The handle of the ball
+     */
+    public int getHandle(int slot) {
+        return handles[slot];
+    }
+
+    /**
+     * Get the Ball view of the ball in a slot
+     * @param slot  The slot of the ball
+     * @return      The view, or null if the ball has none
+     */
+    public Ball getView(int slot) {
+        return views[slot];
+    }
+
+    /**
+     * Get a list of the Ball views in slot order. Adding a Ball to the list
+     * moves it into the store and removing it uses swap-remove, so the order
+     * of the list changes as balls are removed.
+     * @return  The list view of the store
+     */
+    public List<Ball> asList() {
+        if (viewList == null) {
+            viewList = new ViewList();
+        }
+        return viewList;
+    }
+
+    // --- Position ---
+    /**
+     * Get the x-coordinate of a ball
+     * @param slot  The slot of the ball
+     * @return      The x-coordinate of the ball centre
+     */
+    public float getPosX(int slot) {
+        return posX[slot];
+    }
+
+    /**
+     * Get the y-coordinate of a ball
+     * @param slot  The slot of the ball
+     * @return      The y-coordinate of the ball centre
+     */
+    public float getPosY(int slot) {
+        return posY[slot];
+    }
+
+    /**
+     * Set the position of a ball
+     * @param slot  The slot of the ball
+     * @param x     The x-coordinate of the ball centre
+     * @param y     The y-coordinate of the ball centre
+     */
+    public void setPosition(int slot, float x, float y) {
+        posX[slot] = x;
+        posY[slot] = y;
+    }
+
+    // --- Velocity ---
+    /**
+     * Get the x-component of the velocity of a ball
+     * @param slot  The slot of the ball
+     * @return      The x-component of the velocity
+     */
+    public float getVelocityX(int slot) {
+        return velX[slot];
+    }
+
+    /**
+     * Get the y-component of the velocity of a ball
+     * @param slot  The slot of the ball
+     * @return      The y-component of the velocity
+     */
+    public float getVelocityY(int slot) {
+        return velY[slot];
+    }
+
+    /**
+     * Set the velocity of a ball
+     * @param slot  The slot of the ball
+     * @param vx    The x-component of the velocity
+     * @param vy    The y-component of the velocity
+     */
+    public void setVelocity(int slot, float vx, float vy) {
+        velX[slot] = vx;
+        velY[slot] = vy;
+    }
+
+    // --- Scale ---
+    /**
+     * Get the scale a ball is drawn at
+     * @param slot  The slot of the ball
+     * @return      The scale of the ball
+     */
+    public float getScale(int slot) {
+        return scale[slot];
+    }
+
+    /**
+     * Set the scale a ball is drawn at
+     * @param slot  The slot of the ball
+     * @param s     The scale of the ball
+     */
+    public void setScale(int slot, float s) {
+        scale[slot] = s;
+    }
+
+    // --- Colour ---
+    /**
+     * Get the colour of a ball, 0 to 4 for grey, orange, blue, green and
+     * yellow, or -1 if the colour is unknown.
+     * @param slot  The slot of the ball
+     * @return      The colour of the ball
+     */
+    public int getColour(int slot) {
+        return colour[slot];
+    }
+
+    /**
+     * Set the colour of a ball
+     * @param slot  The slot of the ball
+     * @param c     The colour of the ball, 0 to 4 or -1
+     */
+    public void setColour(int slot, int c) {
+        colour[slot] = (byte) c;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Add a ball without a view to the store.
+     * @param x     The x-coordinate of the ball centre
+     * @param y     The y-coordinate of the ball centre
+     * @param vx    The x-component of the velocity
+     * @param vy    The y-component of the velocity
+     * @param c     The colour of the ball
+     * @return      The handle of the new ball
+     */
+    public int add(float x, float y, float vx, float vy, int c) {
+        return add(null, x, y, vx, vy, c);
+    }
+
+    /**
+     * Add a ball to the store, with a view that reads its state from the
+     * store.
+     * @param view  The Ball object of the ball, may be null
+     * @param x     The x-coordinate of the ball centre
+     * @param y     The y-coordinate of the ball centre
+     * @param vx    The x-component of the velocity
+     * @param vy    The y-component of the velocity
+     * @param c     The colour of the ball
+     * @return      The handle of the new ball
+     */
+    public int add(Ball view, float x, float y, float vx, float vy, int c) {
+        if (size == posX.length) {
+            grow();
+        }
+
+        int slot = size++;
+        int index = allocateHandleIndex();
+        int handle = (generations[index] << INDEX_BITS) | index;
+        slots[index] = slot;
+
+        posX[slot] = x;
+        posY[slot] = y;
+        velX[slot] = vx;
+        velY[slot] = vy;
+        scale[slot] = 1.0f;
+        colour[slot] = (byte) c;
+        handles[slot] = handle;
+        views[slot] = view;
+        return handle;
+    }
+
+    /**
+     * Move a Ball from the store it is in now, if any, into this store. The
+     * ball keeps its state but gets a new handle.
+     * @param ball  The ball to move
+     * @return      The handle of the ball in this store
+     */
+    public int add(Ball ball) {
+        BallStore from = ball.getStore();
+        if (from == this) {
+            return ball.getHandle();
+        }
+        if (from == null) {
+            int handle = add(ball, ball.getPosX(), ball.getPosY(), ball.getVelocityX(), ball.getVelocityY(), ball.getColourId());
+            scale[size - 1] = ball.getScale();
+            ball.bind(this, handle);
+            return handle;
+        }
+
+        int fromSlot = from.getSlot(ball.getHandle());
+        int handle = add(ball, from.posX[fromSlot], from.posY[fromSlot], from.velX[fromSlot], from.velY[fromSlot], from.colour[fromSlot]);
+        int slot = size - 1;
+        scale[slot] = from.scale[fromSlot];
+
+        from.removeSlot(fromSlot);
+        ball.bind(this, handle);
+        return handle;
+    }
+
+    /**
+     * Remove a ball from the store. The last ball is moved into its slot. A
+     * removed ball that has a view keeps its state in the view, so the Ball
+     * object can still be read afterwards.
+     * @param handle    The handle of the ball to remove
+     */
+    public void remove(int handle) {
+        int slot = getSlot(handle);
+        Ball view = views[slot];
+        if (view != null) {
+            view.detach(posX[slot], posY[slot], velX[slot], velY[slot], scale[slot], colour[slot]);
+        }
+        removeSlot(slot);
+    }
+
+    /**
+     * Remove every ball from the store
+     */
+    public void clear() {
+        while (size > 0) {
+            remove(handles[size - 1]);
+        }
+    }
+
+    // --- Physics kernels ---
+    /**
+     * Move a ball by its velocity and reflect it off the borders of the game
+     * window.
+     * @param slot  The slot of the ball
+     */
+    public void move(int slot) {
+        advance(slot, 1);
+        checkBorderCollision(slot);
+    }
+
+    /**
+     * Move a ball along its velocity for part of a tick, without checking
+     * for collisions.
+     * @param slot  The slot of the ball
+     * @param time  The fraction of a tick to move for
+     */
+    public void advance(int slot, float time) {
+        posX[slot] += velX[slot] * time;
+        posY[slot] += velY[slot] * time;
+    }
+
+    /**
+     * Reflect a ball that is outside the borders of the game window back
+     * towards the board.
+     * @param slot  The slot of the ball
+     */
+    public void checkBorderCollision(int slot) {
+        if (posX[slot] < 0 || posX[slot] > App.WIDTH - (App.CELLSIZE)) {
+            velX[slot] *= -1;
+        }
+        if (posY[slot] < App.TOPBAR || posY[slot] > App.HEIGHT - App.CELLSIZE) {
+            velY[slot] *= -1;
+        }
+    }
+
+    /**
+     * Apply a force to a ball
+     * @param slot  The slot of the ball
+     * @param fx    The x-component of the force
+     * @param fy    The y-component of the force
+     */
+    public void applyForce(int slot, float fx, float fy) {
+        velX[slot] += fx;
+        velY[slot] += fy;
+    }
+
+    /**
+     * Check if a ball will be within one radius of a line segment in its next
+     * position.
+     * @param slot  The slot of the ball
+     * @param line  The line segment to check for collision
+     * @return      True if the ball is colliding with the line segment, false otherwise
+     */
+    public boolean isCollidingWithLine(int slot, LineSegment line) {
+        float d2 = line.distanceSquaredTo(posX[slot] + velX[slot], posY[slot] + velY[slot]);
+        return d2 <= Ball.RADIUS * Ball.RADIUS;
+    }
+
+    /**
+     * Check if a ball collides with a wall edge in its next position, and
+     * reflect it upon collision. A ball that is already moving away from the
+     * edge does not collide with it, so it is not reflected twice.
+     * @param slot  The slot of the ball
+     * @param edge  The wall edge
+     * @return      True if the ball collides with the edge, false otherwise
+     */
+    public boolean checkCollisionWithEdge(int slot, LineSegment edge) {
+        float nextX = posX[slot] + velX[slot];
+        float nextY = posY[slot] + velY[slot];
+        if (edge.distanceSquaredTo(nextX, nextY) > Ball.RADIUS * Ball.RADIUS) {
+            return false;
+        }
+
+        // Direction from the closest point on the edge to the ball
+        float t = closestPointOn(edge, nextX, nextY);
+        float awayX = nextX - (edge.startX + t * (edge.endX - edge.startX));
+        float awayY = nextY - (edge.startY + t * (edge.endY - edge.startY));
+        if (awayX * velX[slot] + awayY * velY[slot] >= 0) {
+            return false;
+        }
+
+        updateTrajectory(slot, edge);
+        return true;
+    }
+
+    /**
+     * Find when a ball moving along its velocity first touches a line
+     * segment. The ball is swept as a circle, so it cannot pass through a
+     * segment however far it moves in one tick. A ball that already overlaps
+     * the segment and is moving towards it touches it straight away.
+     * @param slot      The slot of the ball
+     * @param line      The line segment
+     * @param maxTime   The fraction of a tick to search
+     * @return          The fraction of a tick until impact, or NO_IMPACT
+     */
+    public float timeOfImpact(int slot, LineSegment line, float maxTime) {
+        float px = posX[slot];
+        float py = posY[slot];
+        float vx = velX[slot];
+        float vy = velY[slot];
+
+        // The flat side of the segment, measured from the side the ball is on
+        if (line.getLength() > 0) {
+            float d = (px - line.startX) * line.getNormalX() + (py - line.startY) * line.getNormalY();
+            float vn = vx * line.getNormalX() + vy * line.getNormalY();
+            if (d < 0) {
+                d = -d;
+                vn = -vn;
+            }
+
+            if (vn < 0) {
+                float time = d <= Ball.RADIUS ? 0 : (d - Ball.RADIUS) / -vn;
+                if (time > maxTime) {
+                    return NO_IMPACT;
+                }
+
+                // Touching the flat side within the segment is the earliest possible impact
+                float t = projectOnto(line, px + vx * time, py + vy * time);
+                if (t >= 0 && t <= 1) {
+                    return time;
+                }
+            }
+        }
+
+        // Otherwise the ball can only touch one of the end points
+        float start = timeOfImpactWithPoint(px, py, vx, vy, line.startX, line.startY, maxTime);
+        float end = timeOfImpactWithPoint(px, py, vx, vy, line.endX, line.endY, maxTime);
+        if (start == NO_IMPACT) {
+            return end;
+        }
+        if (end == NO_IMPACT) {
+            return start;
+        }
+        return Math.min(start, end);
+    }
+
+    /**
+     * Reflect a ball that is touching a line segment. The velocity is
+     * reflected about the direction from the closest point on the segment to
+     * the ball, so a ball that hits an end point bounces off the corner.
+     * @param slot  The slot of the ball
+     * @param line  The line segment the ball is touching
+     */
+    public void reflectFromContact(int slot, LineSegment line) {
+        float t = closestPointOn(line, posX[slot], posY[slot]);
+        float nx = posX[slot] - (line.startX + t * (line.endX - line.startX));
+        float ny = posY[slot] - (line.startY + t * (line.endY - line.startY));
+        float length = (float) Math.sqrt(nx * nx + ny * ny);
+
+        // A ball centred on the segment has no contact direction, use the segment normal
+        if (length < 0.0001f) {
+            updateTrajectory(slot, line);
+            return;
+        }
+        nx /= length;
+        ny /= length;
+
+        float dot = velX[slot] * nx + velY[slot] * ny;
+        velX[slot] -= 2 * dot * nx;
+        velY[slot] -= 2 * dot * ny;
+    }
+
+    /**
+     * Reflect the velocity of a ball about the normal of a line segment
+     * @param slot  The slot of the ball
+     * @param line  The line segment to reflect the ball from
+     */
+    public void updateTrajectory(int slot, LineSegment line) {
+        float nx = line.getNormalX();
+        float ny = line.getNormalY();
+        float dot = velX[slot] * nx + velY[slot] * ny;
+
+        velX[slot] -= 2 * dot * nx;
+        velY[slot] -= 2 * dot * ny;
+    }
+
+    /**
+     * Check if two balls touch and bounce them off each other. The balls have
+     * equal mass, so an elastic collision swaps their velocity components
+     * along the line between their centres. Balls that overlap but are
+     * already moving apart are left alone, so they separate on their own.
+     * The radius of a ball shrinks with its scale.
+     * @param a The slot of the first ball
+     * @param b The slot of the second ball
+     * @return  True if the balls collided, false otherwise
+     */
+    public boolean collideBalls(int a, int b) {
+        float dx = posX[b] - posX[a];
+        float dy = posY[b] - posY[a];
+        float reach = Ball.RADIUS * (scale[a] + scale[b]);
+        float d2 = dx * dx + dy * dy;
+        if (d2 > reach * reach || d2 == 0) {
+            return false;
+        }
+
+        // Speed at which the balls close in on each other along the normal
+        float d = (float) Math.sqrt(d2);
+        float nx = dx / d;
+        float ny = dy / d;
+        float closing = (velX[a] - velX[b]) * nx + (velY[a] - velY[b]) * ny;
+        if (closing <= 0) {
+            return false;
+        }
+
+        velX[a] -= closing * nx;
+        velY[a] -= closing * ny;
+        velX[b] += closing * nx;
+        velY[b] += closing * ny;
+        return true;
+    }
+
+    // --- Sweep helpers ---
+    // Position of the closest point on the segment's line, 0 at the start and 1 at the end
+    private static float projectOnto(LineSegment line, float px, float py) {
+        float dx = line.endX - line.startX;
+        float dy = line.endY - line.startY;
+        return ((px - line.startX) * dx + (py - line.startY) * dy) / (dx * dx + dy * dy);
+    }
+
+    // Same as projectOnto, but clamped to the segment
+    private static float closestPointOn(LineSegment line, float px, float py) {
+        if (line.getLength() == 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(1, projectOnto(line, px, py)));
+    }
+
+    // Solves |p + v * time - e| = RADIUS for the first time the ball touches the point e
+    private static float timeOfImpactWithPoint(float px, float py, float vx, float vy, float ex, float ey, float maxTime) {
+        float fx = px - ex;
+        float fy = py - ey;
+        float b = fx * vx + fy * vy;
+        if (b >= 0) {
+            return NO_IMPACT;   // Moving away from the point
+        }
+
+        float c = fx * fx + fy * fy - Ball.RADIUS * Ball.RADIUS;
+        if (c <= 0) {
+            return 0;           // Already touching and moving closer
+        }
+
+        float a = vx * vx + vy * vy;
+        float discriminant = b * b - a * c;
+        if (discriminant < 0) {
+            return NO_IMPACT;
+        }
+
+        float time = (-b - (float) Math.sqrt(discriminant)) / a;
+        return time <= maxTime ? time : NO_IMPACT;
+    }
+
+    // --- Slot and handle bookkeeping ---
+    private void removeSlot(int slot) {
+        int index = handles[slot] & INDEX_MASK;
+        generations[index] = (generations[index] + 1) & GENERATION_MASK;
+        slots[index] = freeHead;
+        freeHead = index;
+
+        // Move the last ball into the freed slot
+        int last = --size;
+        if (slot != last) {
+            posX[slot] = posX[last];
+            posY[slot] = posY[last];
+            velX[slot] = velX[last];
+            velY[slot] = velY[last];
+            scale[slot] = scale[last];
+            colour[slot] = colour[last];
+            handles[slot] = handles[last];
+            views[slot] = views[last];
+            slots[handles[slot] & INDEX_MASK] = slot;
+        }
+        views[last] = null;
+    }
+
+    private int allocateHandleIndex() {
+        if (freeHead != -1) {
+            int index = freeHead;
+            freeHead = slots[index];
+            return index;
+        }
+        if (handleCount == MAX_BALLS) {
+            throw new IllegalStateException("Error: BallStore is full.");
+        }
+        if (handleCount == slots.length) {
+            int capacity = Math.min(MAX_BALLS, slots.length * 2);
+            slots = Arrays.copyOf(slots, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+        }
+        return handleCount++;
+    }
+
+    private void grow() {
+        int capacity = posX.length * 2;
+        posX = Arrays.copyOf(posX, capacity);
+        posY = Arrays.copyOf(posY, capacity);
+        velX = Arrays.copyOf(velX, capacity);
+        velY = Arrays.copyOf(velY, capacity);
+        scale = Arrays.copyOf(scale, capacity);
+        colour = Arrays.copyOf(colour, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+
+    // --- List view of the Ball objects ---
+    private class ViewList extends AbstractList<Ball> {
+        @Override
+        public Ball get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return views[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean add(Ball ball) {
+            BallStore.this.add(ball);
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public Ball remove(int index) {
+            Ball ball = get(index);
+            BallStore.this.remove(handles[index]);
+            modCount++;
+            return ball;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (o instanceof Ball && ((Ball) o).getStore() == BallStore.this) {
+                remove(getSlot(((Ball) o).getHandle()));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Ball && ((Ball) o).getStore() == BallStore.this;
+        }
+
+        @Override
+        public void clear() {
+            BallStore.this.clear();
+            modCount++;
+        }
+    }
+}
@@ -1,39 +1,30 @@
 package inkball;
 
 import processing.core.PApplet;
+import processing.core.PGraphics;
 import processing.core.PVector;
 import processing.core.PImage;
 
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Board class represents the game board and contains the tiles, balls, 
- * spawners, holes, and the game state manager.
+ * Board class is the view of the game board. It draws the tiles, balls,
+ * spawners and holes held by its Simulation, which owns the game state and
+ * advances it independently of rendering.
+ *
+ * The tiles and holes never move during a level, so they are rendered once
+ * into an offscreen static layer which is drawn with a single image call per
+ * frame. The layer is rendered again only after the level is loaded or a
+ * tile changes.
+ *
+ * Completed lines are rasterised into an ink layer in the same way. New lines
+ * are added to the layer as they are completed, and the layer is only
+ * rendered again from scratch after a line is removed.
  */
 public class Board {
-    // Tile Variables
-    private Tile[][] tiles;
-
-    // Level Variables
-    private Level level;
-
-    // Ball variables
-    private List<Ball> balls; 
-
-    // Game State Manager
-    private GameStateManager gameStateManager;
-
-    // Spawner variables
-    private List<Spawner> spawners;
-    private Spawner activeSpawner;
-    private int lastSpawnFrame = 0;
-    private float timeToSpawn = 0;
-
-    // Hole variables
-    private List<Hole> holes;
+    // Simulation that owns the game objects
+    private Simulation simulation;
 
     // Board Variables
     private int width;
@@ -49,6 +40,20 @@ public class Board {
     private float yellowTileTimer = 0;
     private PImage yellowTileImage;
 
+    // Static layer of the tiles and holes, null if offscreen drawing is unavailable
+    private PGraphics staticLayer;
+    private boolean staticLayerValid;
+    private int staticLayerBuilds;
+
+    // Ink layer of the completed lines, null if offscreen drawing is unavailable
+    private PGraphics inkLayer;
+    private boolean inkLayerValid;
+    private int inkLayerBuilds;
+    private int inkedLines;
+    private int inkedRemovals;
+
+    // Draw calls issued by the last frame
+    private int drawCalls;
 
 
     // -------------------------- Constructor ----------------------------------
@@ -62,21 +67,13 @@ public class Board {
     public Board(PApplet app, int width, int height, GameStateManager gameStateManager) {
         this.width = width;
         this.height = height;
-        this.tiles = new Tile[width][height];
-        this.balls = new ArrayList<>(); 
-        this.spawners = new ArrayList<>();
-        this.holes = new ArrayList<>();
-        
-        this.gameStateManager = gameStateManager;
+        this.simulation = new Simulation(app, width, height, gameStateManager);
 
-        try {
-            yellowTileImage = app.loadImage(URLDecoder.decode(this.getClass().getResource("wall4.png").getPath(), StandardCharsets.UTF_8.name()));
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (app != null) {
+            yellowTileImage = TextureRegistry.of(app).getWall(4);
         }
         
         initialiseBorderTiles();
-        initialiseBoard();
 
         yellowTile1X = 0;
         yellowTile1Y = 0;
@@ -86,6 +83,14 @@ public class Board {
     }
 
     // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the simulation that this board draws.
+     * @return  The Simulation object
+     */
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
     /**
      * Get the width of the board.
      * @param x The width of the board
@@ -93,10 +98,7 @@ public class Board {
      * @return  The width of the board
      */
     public Tile getTile(int x, int y) {
-        if (x >= 0 && x < width && y >= 0 && y < height) {
-            return tiles[x][y];
-        }
-        return null;
+        return simulation.getTile(x, y);
     }
 
     /**
@@ -104,7 +106,7 @@ public class Board {
      * @return  List of ball objects
      */
     public List<Ball> getBalls() {
-        return balls;
+        return simulation.getBalls();
     }
 
     /**
@@ -112,7 +114,7 @@ public class Board {
      * @return  The List of Spawner objects
      */
     public List<Spawner> getSpawners() {
-        return spawners;
+        return simulation.getSpawners();
     }
 
     /**
@@ -120,7 +122,7 @@ public class Board {
      * @return  The List of Hole objects
      */
     public List<Hole> getHoles() {
-        return holes;
+        return simulation.getHoles();
     }
 
     /**
@@ -128,7 +130,7 @@ public class Board {
      * @param level The level object
      */
     public void setLevel(Level level) {
-        this.level = level;
+        simulation.setLevel(level);
     }   
 
     /**
@@ -138,50 +140,19 @@ public class Board {
     public int getScore() {
         return score;
     }
-
-    private Tile.TileType getWallTileType(char tileChar) {
-        switch (tileChar) {
-            case 'X': return Tile.TileType.WALL0;
-            case '1': return Tile.TileType.WALL1;
-            case '2': return Tile.TileType.WALL2;
-            case '3': return Tile.TileType.WALL3;
-            case '4': return Tile.TileType.WALL4;
-            default: return Tile.TileType.EMPTY;
-        }
-    }
-
-    private void setHoleTiles(int x, int y, int holeIndex, PApplet app) {
-        // Mark the tiles for the 2x2 hole
-        tiles[x][y] = new Tile(x, y, Tile.TileType.valueOf("HOLE" + holeIndex), this);
-        tiles[x + 1][y] = new Tile(x + 1, y, Tile.TileType.valueOf("HOLE" + holeIndex), this);
-        tiles[x][y + 1] = new Tile(x, y + 1, Tile.TileType.valueOf("HOLE" + holeIndex), this);
-        tiles[x + 1][y + 1] = new Tile(x + 1, y + 1, Tile.TileType.valueOf("HOLE" + holeIndex), this);
-    
-        // Set the hole flag to true for these tiles
-        tiles[x][y].setHole(true);
-        tiles[x + 1][y].setHole(true);
-        tiles[x][y + 1].setHole(true);
-        tiles[x + 1][y + 1].setHole(true);
-    
-        // Set a debugging colour for the hole (red for example)
-        tiles[x][y].setDebugColour(app.color(255, 0, 0));        // Top-left tile
-        tiles[x + 1][y].setDebugColour(app.color(255, 0, 0));    // Top-right tile
-        tiles[x][y + 1].setDebugColour(app.color(255, 0, 0));    // Bottom-left tile
-        tiles[x + 1][y + 1].setDebugColour(app.color(255, 0, 0)); // Bottom-right tile
-    }
     
     /**
      * Clear all the balls from the game
      */
     public void clearBalls() {
-        balls.clear();
+        simulation.clearBalls();
     }
 
     /**
      * Clear all the spawners from the game
      */
     public void clearSpawners() {
-        spawners.clear();
+        simulation.clearSpawners();
     }
 
     /**
@@ -189,7 +160,7 @@ public class Board {
      * @return  The level object
      */
     public Level getLevel() {
-        return this.level;
+        return simulation.getLevel();
     }
 
     /**
@@ -197,20 +168,43 @@ public class Board {
      * @return  The time to spawn a ball
      */
     public float getTimeToSpawn() {
-        return timeToSpawn;
+        return simulation.getTimeToSpawn();
     }
-    // ----------------------------- Methods -----------------------------------
-    // --- Initialise the board ---
-    private void initialiseBoard() {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (tiles[x][y] == null) {
-                    tiles[x][y] = new Tile(x, y, Tile.TileType.EMPTY, this);
-                }
-            }
-        }
+
+    // --- Instrumentation ---
+    /**
+     * Get the number of draw calls the board issued for the last frame. App
+     * records it in the Profiler's DRAW_CALLS counter after drawing the lines.
+     * @return  The number of draw calls
+     */
+    public int getDrawCalls() {
+        return drawCalls;
     }
 
+    /**
+     * Get the number of times the static layer has been rendered
+     * @return  The number of static layer renders
+     */
+    public int getStaticLayerBuilds() {
+        return staticLayerBuilds;
+    }
+
+    /**
+     * Get the number of times the ink layer has been rendered from scratch
+     * @return  The number of ink layer renders
+     */
+    public int getInkLayerBuilds() {
+        return inkLayerBuilds;
+    }
+
+    /**
+     * Mark the static layer as out of date, so it is rendered again before
+     * the next frame. Called when the level or a tile changes.
+     */
+    public void invalidateStaticLayer() {
+        staticLayerValid = false;
+    }
+    // ----------------------------- Methods -----------------------------------
     // --- Initialise the border tiles ---
     /**
      * Initialise the border tiles of the board and place them into a list
@@ -236,212 +230,80 @@ public class Board {
      * @param level The level object
      */
     public void loadLevel(PApplet app, Level level) {
-        // Layout FIle
-        clearSpawners();
-        String layoutFIle = level.getLayoutFile();
-
-        // Spawner Metrics
-        int spawnInterval = level.getSpawnInterval();
-        List<String> ballsToSpawn = level.getBalls();
-
-        String[] lines = app.loadStrings(layoutFIle);
-        if (lines == null) {
-            System.out.println("Error: Level file not found or empty.");
-            return;
-        }
-
-        initialiseBorderTiles();
-
-        for (int y = 0; y < lines.length && y < height; y++) {
-            String line = lines[y];
-            for (int x = 0; x < line.length() && x < width; x++) {
-                char tileChar = line.charAt(x);
-
-                if (tiles[x][y].isHole()) {
-                    x++;
-                }
-
-                switch (tileChar) {
-                    // Wall tiles
-                    case 'X': case '1': case '2': case '3': case '4':
-                        if (x > 0 && (line.charAt(x - 1) == 'H' || line.charAt(x - 1) == 'B')) {
-                            break;
-                        }
-                        tiles[x][y] = new Tile(x, y, getWallTileType(tileChar), this);
-                        tiles[x][y].initialiseHitbox(); 
-                        break;
-                    
-                    // Hole tiles
-                    case 'H':
-                        // Initialise a hole object at this location
-                        if (x + 1 < line.length() && Character.isDigit(line.charAt(x + 1))) {
-                            int holeIndex = Character.getNumericValue(line.charAt(x + 1));
-                            String holeColour = "hole" + holeIndex;
-
-                            Hole hole = new Hole(x, y, app, holeColour, this);
-                            holes.add(hole);
-
-                            setHoleTiles(x, y, holeIndex, app);
-                            x++;
-                        }
-                        break;
-                    
-                    // Balls
-                    case 'B':
-                    // Create an empty tile at this location
-                    tiles[x][y] = new Tile(x, y, Tile.TileType.EMPTY, this);
-                    if (x + 1 < line.length() && Character.isDigit(line.charAt(x + 1))) {
-                        // Initialise a ball object at this location
-                        int ballIndex = Character.getNumericValue(line.charAt(x + 1));
-                        String ballColour = "ball" + ballIndex; 
-                        Ball ball = new Ball(x, y, app, ballColour);
-                        balls.add(ball);
-                        x++;  
-                    } else {
-                        System.err.println("Error: Invalid ball index.");
-                    }
-                    break;
-
-                    case 'S':
-                        // Initialise a spawner object at this location
-                        Spawner spawner = new Spawner(x, y, app, spawnInterval, ballsToSpawn, this);
-                        spawners.add(spawner);
-                        break;
-
-                    default:
-                        // Create an empty tile at this location
-                        tiles[x][y] = new Tile(x, y, Tile.TileType.EMPTY, this);
-                }
-            }
+        if (loadLayout(app, level)) {
+            createLayers(app);
         }
     }
 
-    // -- Check Line Collision with Ball ---
     /**
-     * Check if the ball is colliding with any of the lines
-     * @param ball  The ball object
-     * @param lines The list of LineSegment objects
+     * Read the layout of a level and build its tiles, balls, holes and
+     * spawners, with the tile images set. Nothing is drawn, so this may run on
+     * a background thread while another board is played.
+     * @param app   The PApplet object
+     * @param level The level object
+     * @return      True if the layout was read
      */
-    public void checkLineCollisions(Ball ball, List<LineSegment> lines) {
-        for (int i = 0; i < lines.size(); i++) {
-            LineSegment line = lines.get(i);
-            if (ball.isCollidingWithLine(line)) {
-                lines.remove(i);
-                break;  
-            }
+    public boolean loadLayout(PApplet app, Level level) {
+        String[] lines = app.loadStrings(level.getLayoutFile());
+        if (lines == null) {
+            Log.error("Level file not found or empty.");
+            return false;
         }
-    }
 
+        initialiseBorderTiles();
+        simulation.loadLevel(level, lines);
 
-    // --- Collision Handling ---
-    /**
-     * Check if the ball is colliding with any of the walls
-     * @param ball  The ball object
-     * @param app   The PApplet object
-     */
-    public void checkWallCollisions(Ball ball, PApplet app) {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                Tile tile = tiles[x][y];
-                if (tile.isWall()) {
-                    LineSegment[] hitbox = tile.getHitbox();
-                    if (ball.checkCollisionWithWall(hitbox, app)) {
-                        ball.changeColour(tile);  
-                        return;
-                    }
-                }
-            }
-        }
+        // Tiles tell the board when they change, and share one image per type
+        TileGrid tiles = simulation.getTileGrid();
+        tiles.setBoard(this);
+        tiles.setImages(TextureRegistry.of(app));
+        return true;
     }
-    
-    // --- Handle Ball Capture ---
+
     /**
-     * Handle the successful capture of a ball into a hole
-     * @param ball  The ball object
+     * Create the offscreen layers the board is drawn with. Graphics are only
+     * created on the animation thread, so a board whose layout was loaded in
+     * the background calls this when it is swapped in.
+     * @param app   The PApplet object
      */
-    public void handleSuccessfulCapture(Ball ball) {
-        // ERROR CHECKS
-        if (level == null) {
-            System.err.println("Error: Level is null.");
-            return;
+    public void createLayers(PApplet app) {
+        if (staticLayer == null) {
+            staticLayer = app.createGraphics(width * App.CELLSIZE, height * App.CELLSIZE);
         }
-
-        if (ball == null) {
-            System.err.println("Error: Ball is null.");
-            return;
-        }
-        
-        // Handle the capture
-        String ballColour = ball.getColour();
-        
-        if (level.getScoreIncreaseFromHole() == null) {
-            System.err.println("Error: ScoreIncreaseFromHole map is null.");
-            return;
-        }
-        
-        if (!level.getScoreIncreaseFromHole().containsKey(ballColour)) {
-            System.err.println("Error: Ball colour " + ballColour + " is not in ScoreIncreaseFromHole.");
-            return;
+        if (inkLayer == null) {
+            inkLayer = app.createGraphics(width * App.CELLSIZE, height * App.CELLSIZE + App.TOPBAR);
         }
-        
-        System.out.println("Ball Col: " + ballColour);
-        // Increment the score
-        float scoreIncrease = (level.getScoreIncreaseFromHole().get(ballColour) * level.getScoreIncreaseModifier());
-        gameStateManager.updateScore(gameStateManager.getScore() + (int) scoreIncrease);
-
-  
-        if (balls != null && balls.contains(ball)) {
-            balls.remove(ball);
-        } else {
-            System.err.println("Error: Ball list is null or ball not found in list.");
-        }
-        
+        invalidateStaticLayer();
+        inkLayerValid = false;
     }
 
+    // --- Restart the level ---
     /**
-     * Handle the situation where a ball goes into the wrong coloured hole
-     * @param ball
+     * Restart the loaded level in place. The tiles, their images and the
+     * static layer are kept, so only the balls, lines, spawners and the level
+     * end animation are reset.
+     * @param seed  The seed of the random numbers of the restarted level
+     * @return      True if the level was restarted, false if no level is loaded
      */
-    public void handleFailedCapture(Ball ball) {
-        String ballColour = ball.getColour();
-        float scorePenalty =  (level.getScoreDecreaseFromWrongHole().get(ballColour) * level.getScoreDecreaseModifier());
-        gameStateManager.updateScore(gameStateManager.getScore() - (int) scorePenalty);
-
-        if (!spawners.isEmpty() && spawners.get(0) != null) {
-            spawners.get(0).addBallToSpawnQueue(ballColour);
-        } else {
-            System.err.println("Error: No spawners available to spawn ball.");
+    public boolean restart(long seed) {
+        if (!simulation.restart(seed)) {
+            return false;
         }
-        balls.remove(ball);
+        yellowTile1X = 0;
+        yellowTile1Y = 0;
+        yellowTile2X = width - 1;
+        yellowTile2Y = height - 1;
+        yellowTileTimer = 0;
+        inkLayerValid = false;
+        return true;
     }
 
-    // --- Attract Balls to Holes ---
-    private void attractBallsToHoles() {
-        List<Ball> ballsCopy = new ArrayList<>(balls);  // Create a copy of the balls list
-        List<Ball> ballsToRemove = new ArrayList<>();  // Collect balls to remove after iteration
-    
-        for (Ball ball : ballsCopy) {  // Iterate over the copy
-            for (Hole hole : holes) {
-                hole.attractBall(ball);
-                
-                // Check if the ball should be captured
-                if (!ball.isActive()) {  
-                    ballsToRemove.add(ball); 
-                    break; 
-                }
-            }
-        }
-    
-        // Now, safely remove the captured balls after iteration
-        balls.removeAll(ballsToRemove);
-    }
-    
     /**
      * Check if the win condition has been met
      * @return  True if the win condition has been met, false otherwise
      */
     public boolean checkWinCondition() {
-        return getBalls().isEmpty() && getSpawners().get(0).getBallsToSpawn().isEmpty();
+        return simulation.checkWinCondition();
     }
    
     // --- Move Yellow Tiles ---
@@ -496,10 +358,11 @@ public class Board {
 
         // Draw the yellow tiles over the current board tiles
         if (yellowTileImage != null) {
-            app.image(yellowTileImage, x1, y1, App.CELLSIZE, App.CELLSIZE);
-            app.image(yellowTileImage, x2, y2, App.CELLSIZE, App.CELLSIZE);
+            Sprite.draw(app, yellowTileImage, x1, y1, App.CELLSIZE, App.CELLSIZE);
+            Sprite.draw(app, yellowTileImage, x2, y2, App.CELLSIZE, App.CELLSIZE);
+            drawCalls += 2;
         } else {
-            System.err.println("Error: Yellow tile image is not loaded.");
+            Log.error("Yellow tile image is not loaded.");
         }
     }
 
@@ -508,82 +371,40 @@ public class Board {
     
     // --- Draw the balls ---
     private void drawBalls(PApplet app) {
-        if (balls == null || balls.isEmpty()) {
-            return;
-        }
-
-        for (Ball ball : balls) {
+        for (Ball ball : simulation.getBalls()) {
+            // Balls added to the store without a view have nothing to draw
             if (ball == null) {
-                System.out.println("Null ball detected. Skipping.");
                 continue;
             }
-            if (gameStateManager.getState() == GameStateManager.GameState.PAUSED
-                    || gameStateManager.getState() == GameStateManager.GameState.GAMEOVER || gameStateManager.getState() == GameStateManager.GameState.TIMESUP) {
-                        ball.draw(app);
-                continue;
+            if (ball.isActive()) {
+                drawCalls++;
             }
             ball.draw(app);
-            ball.move();
-            checkWallCollisions(ball, app);
-            
         }
     }
 
     // --- Draw the Spawners ---
     private void drawSpawners(PApplet app) {
-        if (spawners == null && spawners.isEmpty()) {
-            return;
-        }
-
-        for (Spawner spawner : spawners) {
+        for (Spawner spawner : simulation.getSpawners()) {
             spawner.draw();
-        }
-
-        
-        // Spawn a ball from a random spawner
-        int spawnInterval = spawners.get(0).getSpawnInterval();
-
-        if (spawners.get(0).getBallsToSpawn().isEmpty()) {
-            timeToSpawn = 0;
-        } else {
-            timeToSpawn = (spawnInterval - (app.frameCount - lastSpawnFrame)) / (float) App.FPS;
-        }
-
-        if (gameStateManager.getState() == GameStateManager.GameState.PAUSED) {
-            lastSpawnFrame = app.frameCount;
-            return;
-        }
-
-        if (app.frameCount - lastSpawnFrame >= spawnInterval) { // You can adjust this interval
-            int randInt = App.random.nextInt(spawners.size());
-            activeSpawner = spawners.get(randInt);
-
-            if (gameStateManager.getState() == GameStateManager.GameState.TIMESUP) {
-                activeSpawner.setActive(false);
-            } else {
-                activeSpawner.setActive(true);  // Activate only this spawner
-                activeSpawner.spawnBall(balls, app);
-                activeSpawner.setActive(false);  // Deactivate after spawning
-    
-                lastSpawnFrame = app.frameCount;
-                timeToSpawn = 0;
-            }
-            
+            drawCalls++;
         }
     }
 
     // --- Draw the holes ---
     private void drawHoles(PApplet app) {
-        if (holes == null || holes.isEmpty()) {
-            System.out.println("Holes list is null or empty. Skipping hole drawing.");
+        List<Hole> holes = simulation.getHoles();
+        if (holes.isEmpty()) {
+            Log.warn("Holes list is null or empty. Skipping hole drawing.");
             return;
         }
     
         for (Hole hole : holes) {
             if (hole != null) {
                 hole.draw();  // Ensure only non-null holes are drawn
+                drawCalls += 4;
             } else {
-                System.out.println("Null hole detected. Skipping.");
+                Log.warn("Null hole detected. Skipping.");
             }
         }
     }
@@ -594,47 +415,135 @@ public class Board {
         app.pushMatrix();
         app.translate(0, App.TOPBAR);
         
+        TileGrid tiles = simulation.getTileGrid();
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
-                Tile tile = tiles[x][y];
-                if (tile != null) {
-                    tile.draw(app);
-                } else {
-                    System.err.println("Null tile detected at (" + x + ", " + y + "). Skipping.");
-                }
+                tiles.draw(app, x, y);
+                drawCalls++;
             }
         }
 
         app.popMatrix();
     }
 
+    // --- Render the tiles and holes into the static layer ---
+    private void renderStaticLayer() {
+        staticLayer.beginDraw();
+        staticLayer.clear();
+        TileGrid tiles = simulation.getTileGrid();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                tiles.draw(staticLayer, x, y);
+            }
+        }
+        for (Hole hole : simulation.getHoles()) {
+            if (hole != null) {
+                hole.draw(staticLayer);
+            }
+        }
+        staticLayer.endDraw();
+
+        staticLayerValid = true;
+        staticLayerBuilds++;
+    }
+
+    // --- Draw the tiles and holes ---
+    private void drawStaticLayer(PApplet app) {
+        if (staticLayer == null) {
+            // No offscreen layer, so draw every tile and hole
+            drawGameBoard(app);
+            drawHoles(app);
+            return;
+        }
+
+        if (!staticLayerValid) {
+            renderStaticLayer();
+        }
+        app.image(staticLayer, 0, App.TOPBAR);
+        drawCalls++;
+    }
+
+    // --- Render the completed lines into the ink layer ---
+    private void renderInkLayer(List<Line> lines) {
+        inkLayer.beginDraw();
+        inkLayer.clear();
+        for (Line line : lines) {
+            line.draw(inkLayer);
+        }
+        inkLayer.endDraw();
+
+        inkedLines = lines.size();
+        inkedRemovals = simulation.getLineRemovals();
+        inkLayerValid = true;
+        inkLayerBuilds++;
+    }
+
+    // --- Add the lines completed since the last frame to the ink layer ---
+    private void appendInkLayer(List<Line> lines) {
+        inkLayer.beginDraw();
+        for (int i = inkedLines; i < lines.size(); i++) {
+            lines.get(i).draw(inkLayer);
+        }
+        inkLayer.endDraw();
+
+        inkedLines = lines.size();
+    }
+
+    // --- Draw the completed lines ---
+    /**
+     * Draw the completed player-drawn lines. The line being drawn is not part
+     * of the ink layer and is drawn by the caller.
+     * @param app The PApplet object
+     */
+    public void drawLines(PApplet app) {
+        List<Line> lines = simulation.getLines();
+        if (inkLayer == null) {
+            // No offscreen layer, so draw every line
+            for (Line line : lines) {
+                line.draw(app);
+                drawCalls++;
+            }
+            return;
+        }
+
+        if (!inkLayerValid || inkedRemovals != simulation.getLineRemovals() || inkedLines > lines.size()) {
+            renderInkLayer(lines);
+        } else if (inkedLines < lines.size()) {
+            appendInkLayer(lines);
+        }
+        app.image(inkLayer, 0, 0);
+        drawCalls++;
+    }
+
     // --- Draw the board and all balls ---
     /**
-     * Draw the board and all its components
+     * Draw the board and all its components. The game state is advanced by
+     * the Simulation, not by drawing it.
      * @param app The PApplet object
      */
     public void draw(PApplet app) {
-        if (level == null) {
-            System.err.println("Error: Level is not set.");
+        if (simulation.getLevel() == null) {
+            Log.error("Level is not set.");
             return;  // Do not proceed if level is not set
         }
-        // Draw the game board
-        drawGameBoard(app);
+        drawCalls = 0;
+
+        // Draw the game board and the holes
+        long start = Profiler.start();
+        drawStaticLayer(app);
+        Profiler.stop(Profiler.BOARD, start);
 
         // Draw Spawners
+        start = Profiler.start();
         drawSpawners(app);
-
-        // Draw the holes
-        drawHoles(app);
+        Profiler.stop(Profiler.SPAWNERS, start);
 
         // Draw the balls
+        start = Profiler.start();
         drawBalls(app);
-
-        // Ball and Hole Attraction
-        attractBallsToHoles();
+        Profiler.stop(Profiler.BALL_DRAW, start);
 
         if (checkWinCondition()) {
-            gameStateManager.addRemainingTimeToScore(4.0f / App.FPS);
             moveYellowTiles(1f / App.FPS);
             drawYellowTiles(app);
         }
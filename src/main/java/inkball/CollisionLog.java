@@ -0,0 +1,96 @@
+package inkball;
+
+import java.util.Arrays;
+
+/**
+ * The CollisionLog class records what happened to balls during the ball
+ * update, so that it can be applied to the rest of the game afterwards. The
+ * ball update only changes the state of the balls themselves. Anything that
+ * touches shared state, such as removing a line, loading a new sprite or
+ * capturing a ball, is logged against the ball's handle and replayed in log
+ * order once every ball has moved. The arrays are kept between ticks, so a
+ * log only allocates when it grows.
+ */
+public class CollisionLog {
+    public static final byte WALL = 0;
+    public static final byte LINE = 1;
+    public static final byte CAPTURE = 2;
+
+    private int[] handles;
+    private byte[] types;
+    private Object[] targets;
+    private int size;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the CollisionLog class, creates an empty log.
+     */
+    public CollisionLog() {
+        this.handles = new int[16];
+        this.types = new byte[16];
+        this.targets = new Object[16];
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the number of entries in the log
+     * @return  The number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the handle of the ball an entry is about
+     * @param index The index of the entry
+     * @return      The handle of the ball
+     */
+    public int getHandle(int index) {
+        return handles[index];
+    }
+
+    /**
+     * Get the type of an entry, WALL, LINE or CAPTURE
+     * @param index The index of the entry
+     * @return      The type of the entry
+     */
+    public byte getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Get what the ball hit, the wall Tile, the Line or the Hole
+     * @param index The index of the entry
+     * @return      The target of the entry
+     */
+    public Object getTarget(int index) {
+        return targets[index];
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Add an entry to the end of the log
+     * @param handle    The handle of the ball
+     * @param type      The type of the entry
+     * @param target    What the ball hit
+     */
+    public void add(int handle, byte type, Object target) {
+        if (size == handles.length) {
+            handles = Arrays.copyOf(handles, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            targets = Arrays.copyOf(targets, size * 2);
+        }
+        handles[size] = handle;
+        types[size] = type;
+        targets[size] = target;
+        size++;
+    }
+
+    /**
+     * Remove every entry from the log
+     */
+    public void clear() {
+        Arrays.fill(targets, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,195 @@
+package inkball;
+
+import processing.core.PApplet;
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The GameConfig class is the parsed game configuration. The configuration
+ * file is read and parsed once, into an immutable record per level and score
+ * tables indexed by ball colour id, and the same object is handed to every
+ * Level and restart after that. The file is only read again when the game
+ * asks for it with load.
+ */
+public final class GameConfig {
+    public static final String FILE = "config.json";
+
+    private final List<LevelConfig> levels;
+
+    // Score tables indexed by colour id, 0 for colours the file leaves out
+    private final int[] scoreIncreaseById;
+    private final int[] scoreDecreaseById;
+
+    /**
+     * The LevelConfig class is the configuration of one level, as written in
+     * the configuration file.
+     */
+    public static final class LevelConfig {
+        private final String layoutFile;
+        private final int timeLimit;
+        private final int spawnInterval;
+        private final float scoreIncreaseModifier;
+        private final float scoreDecreaseModifier;
+        private final List<BallColour> balls;
+
+        private LevelConfig(JSONObject levelData) {
+            this.layoutFile = levelData.getString("layout");
+            this.timeLimit = levelData.getInt("time");
+            this.spawnInterval = levelData.getInt("spawn_interval");
+            this.scoreIncreaseModifier = levelData.getFloat("score_increase_from_hole_capture_modifier");
+            this.scoreDecreaseModifier = levelData.getFloat("score_decrease_from_wrong_hole_modifier");
+
+            // Load Ball Colours
+            JSONArray ballColoursArray = levelData.getJSONArray("balls");
+            List<BallColour> colours = new ArrayList<>();
+            for (int i = 0; i < ballColoursArray.size(); i++) {
+                String colour = ballColoursArray.getString(i);
+                BallColour ballColour = BallColour.fromName(colour);
+                if (ballColour != null) {
+                    colours.add(ballColour);
+                } else {
+                    Log.error("Invalid ball colour: {}", colour);
+                }
+            }
+            this.balls = Collections.unmodifiableList(colours);
+        }
+
+        /**
+         * Get the layout file of the level
+         * @return  The layout file of the level
+         */
+        public String getLayoutFile() {
+            return layoutFile;
+        }
+
+        /**
+         * Get the time limit of the level in seconds
+         * @return  The time limit of the level
+         */
+        public int getTimeLimit() {
+            return timeLimit;
+        }
+
+        /**
+         * Get the spawn interval of the level in seconds
+         * @return  The spawn interval of the level
+         */
+        public int getSpawnInterval() {
+            return spawnInterval;
+        }
+
+        /**
+         * Get the score increase modifier of the level
+         * @return  The score increase modifier of the level
+         */
+        public float getScoreIncreaseModifier() {
+            return scoreIncreaseModifier;
+        }
+
+        /**
+         * Get the score decrease modifier of the level
+         * @return  The score decrease modifier of the level
+         */
+        public float getScoreDecreaseModifier() {
+            return scoreDecreaseModifier;
+        }
+
+        /**
+         * Get the balls the level spawns, in order
+         * @return  The unmodifiable list of ball colours
+         */
+        public List<BallColour> getBalls() {
+            return balls;
+        }
+    }
+
+    // -------------------------- Constructor ----------------------------------
+    private GameConfig(JSONObject config) {
+        JSONArray levelsArray = config.getJSONArray("levels");
+        List<LevelConfig> parsed = new ArrayList<>();
+        for (int i = 0; i < levelsArray.size(); i++) {
+            parsed.add(new LevelConfig(levelsArray.getJSONObject(i)));
+        }
+        this.levels = Collections.unmodifiableList(parsed);
+
+        this.scoreIncreaseById = readScores(config.getJSONObject("score_increase_from_hole_capture"));
+        this.scoreDecreaseById = readScores(config.getJSONObject("score_decrease_from_wrong_hole"));
+    }
+
+    /**
+     * Parse a configuration that has already been read
+     * @param config    The configuration JSON object
+     * @return          The parsed configuration
+     */
+    public static GameConfig parse(JSONObject config) {
+        return new GameConfig(config);
+    }
+
+    /**
+     * Read and parse the configuration file. This reads the disk, so it is
+     * meant for start up and explicit reloads, not for the frame loop.
+     * @param app   The PApplet used to read the file
+     * @return      The parsed configuration, or null if the file could not be read
+     */
+    public static GameConfig load(PApplet app) {
+        JSONObject config = app.loadJSONObject(FILE);
+        if (config == null) {
+            Log.error("{} file not found.", FILE);
+            return null;
+        }
+        return parse(config);
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the number of levels
+     * @return  The number of levels in the configuration
+     */
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    /**
+     * Get the configuration of a level
+     * @param levelIndex    The index of the level
+     * @return              The level configuration, or null if there is no such level
+     */
+    public LevelConfig getLevel(int levelIndex) {
+        if (levelIndex < 0 || levelIndex >= levels.size()) {
+            return null;
+        }
+        return levels.get(levelIndex);
+    }
+
+    /**
+     * Get the score for capturing a ball
+     * @param colourId  The colour id of the ball, 0 to 4
+     * @return          The score, or 0 if the colour has none
+     */
+    public int getScoreIncrease(int colourId) {
+        return colourId >= 0 && colourId < scoreIncreaseById.length ? scoreIncreaseById[colourId] : 0;
+    }
+
+    /**
+     * Get the score lost for a ball in the wrong hole
+     * @param colourId  The colour id of the ball, 0 to 4
+     * @return          The score, or 0 if the colour has none
+     */
+    public int getScoreDecrease(int colourId) {
+        return colourId >= 0 && colourId < scoreDecreaseById.length ? scoreDecreaseById[colourId] : 0;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    // Reads a score table by colour name into one indexed by colour id
+    private static int[] readScores(JSONObject scores) {
+        int[] table = new int[BallColour.COUNT];
+        for (BallColour colour : BallColour.values()) {
+            table[colour.getId()] = scores.getInt(colour.getName(), 0);
+        }
+        return table;
+    }
+}
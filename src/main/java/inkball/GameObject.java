@@ -15,7 +15,7 @@ import processing.core.PImage;
 
 /**
  * Abstract class for all objects that are spawned on the board such as the ball,
- * tiles (walls), holes and spawners.
+ * holes and spawners.
  */
 public abstract class GameObject {
     protected int x, y;
@@ -81,6 +81,6 @@ public abstract class GameObject {
      * @param app
      */
     public void draw(PApplet app) {
-        app.image(sprite, x, y);
+        Sprite.draw(app, sprite, x, y);
     }
 }
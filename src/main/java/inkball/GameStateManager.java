@@ -1,7 +1,6 @@
 package inkball;
 
 import processing.core.PApplet;
-import processing.data.JSONObject;
 
 /**
  * This class manages the game state, including the current state of the game,
@@ -32,13 +31,13 @@ public class GameStateManager {
     // -------------------------- Constructor ----------------------------------
     /**
      * Constructor for the GameStateManager class.
-     * @param app   The PApplet object
+     * @param app   The PApplet object, or null when the game runs headless
      * @param level The current level
      */
     public GameStateManager(PApplet app, Level level) {
         this.app = app;
         currentState = GameState.PLAYING;
-        startFrame = app.frameCount;
+        startFrame = getFrameCount();
         this.preLevelScore = 0;
         this.score = preLevelScore;
         pausedDuration = 0;
@@ -95,6 +94,20 @@ public class GameStateManager {
         return String.format("%.0f", Math.max(0, remainingTime));
     }
 
+    /**
+     * Check if the remaining time has run out. This matches
+     * getRemainingTime() returning "0" without formatting a string.
+     * @return True if the remaining time rounds to zero seconds
+     */
+    public boolean isOutOfTime() {
+        return remainingTime < 0.5f;
+    }
+
+    // --- Frame Count ---
+    private int getFrameCount() {
+        return app != null ? app.frameCount : 0;
+    }
+
     // ----------------------------- Methods -----------------------------------
     /**
      * Update the timer.
@@ -121,7 +134,7 @@ public class GameStateManager {
         if (currentState == GameState.PAUSED) {
             framesElapsed = pauseFrame - startFrame - pausedDuration;
         } else {
-            framesElapsed = app.frameCount - startFrame - pausedDuration;
+            framesElapsed = getFrameCount() - startFrame - pausedDuration;
         }
         float framesToSecond = framesElapsed / (float) App.FPS; // Convert frames to seconds
         remainingTime = Math.max(0, timeLimit - Math.floor(framesToSecond)); // Update remaining time
@@ -133,7 +146,7 @@ public class GameStateManager {
      * @return The elapsed time
      */
     public float getElapsedTime() {
-        int framesElapsed = app.frameCount - startFrame - pausedDuration; // Subtract the pause time
+        int framesElapsed = getFrameCount() - startFrame - pausedDuration; // Subtract the pause time
         float framesToSecond = framesElapsed / (float) App.FPS; // Convert frames to seconds
         return framesToSecond;
     }
@@ -162,33 +175,44 @@ public class GameStateManager {
     public void togglePause() {
         if (currentState == GameState.PLAYING) {
             currentState = GameState.PAUSED;
-            pauseFrame = app.frameCount;
+            pauseFrame = getFrameCount();
         } else if (currentState == GameState.PAUSED) {
             currentState = GameState.PLAYING;
-            pausedDuration += app.frameCount - pauseFrame;
+            pausedDuration += getFrameCount() - pauseFrame;
         }
     }
 
     /**
      * Restart the game.
      * @param app           The PApplet object
-     * @param config        The configuration file
+     * @param config        The parsed game configuration
+     * @param levelIndex    The index of the level
+     */
+    public void restart(App app, GameConfig config, int levelIndex) {
+        startLevel(levelIndex, config.getLevel(levelIndex).getTimeLimit());  // initialise remaining time from config
+        app.initialiseLevel(config, levelIndex);
+    }
+
+    /**
+     * Reset the state, score and timer for the start of a level, without
+     * loading it. The first level starts from a score of 0, and every other
+     * level from the score the previous one ended with.
      * @param levelIndex    The index of the level
+     * @param timeLimit     The time limit of the level in seconds
      */
-    public void restart(App app, JSONObject config, int levelIndex) {
+    public void startLevel(int levelIndex, double timeLimit) {
         currentState = GameState.PLAYING;
         savePreLevelScore();
         updateScore(levelIndex == 0 ? 0 : preLevelScore);
         resetTimer();
-        remainingTime = config.getJSONArray("levels").getJSONObject(levelIndex).getFloat("time");  // initialise remaining time from config
-        app.initialiseLevel(config, levelIndex);
+        remainingTime = timeLimit;
     }
 
     /**
      * Resets the timer.
      */
     public void resetTimer() {
-        this.startFrame = app.frameCount;
+        this.startFrame = getFrameCount();
         this.pausedDuration = 0;
     }
 
@@ -198,4 +222,25 @@ public class GameStateManager {
     public void savePreLevelScore() {
         this.preLevelScore = this.score;
     }
+
+    // --- Saved and restored by Keyframe ---
+    int getPreLevelScore() {
+        return preLevelScore;
+    }
+
+    double getRemainingSeconds() {
+        return remainingTime;
+    }
+
+    float getAccumulatedTime() {
+        return accumulatedTime;
+    }
+
+    void restore(GameState state, int score, int preLevelScore, double remainingTime, float accumulatedTime) {
+        this.currentState = state;
+        this.score = score;
+        this.preLevelScore = preLevelScore;
+        this.remainingTime = remainingTime;
+        this.accumulatedTime = accumulatedTime;
+    }
 }
@@ -3,8 +3,6 @@ package inkball;
 import processing.core.PApplet;
 import processing.core.PImage;
 
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -19,8 +17,8 @@ public class HUD {
 
     Level level;
 
-    private List<String> ballsToSpawn;
-    private PImage greyBallImage, orangeBallImage, blueBallImage, greenBallImage, yellowBallImage;
+    private List<BallColour> ballsToSpawn;
+    private PImage[] ballImages = new PImage[BallColour.COUNT];
 
     // -------------------------- Constructor ----------------------------------
     /**
@@ -33,14 +31,11 @@ public class HUD {
         this.level = level; 
         this.ballsToSpawn = level.getBalls();
 
-        try {
-            this.greyBallImage = app.loadImage(URLDecoder.decode(this.getClass().getResource("ball0.png").getPath(), StandardCharsets.UTF_8.name()));
-            this.orangeBallImage = app.loadImage(URLDecoder.decode(this.getClass().getResource("ball1.png").getPath(), StandardCharsets.UTF_8.name()));
-            this.blueBallImage = app.loadImage(URLDecoder.decode(this.getClass().getResource("ball2.png").getPath(), StandardCharsets.UTF_8.name()));
-            this.greenBallImage = app.loadImage(URLDecoder.decode(this.getClass().getResource("ball3.png").getPath(), StandardCharsets.UTF_8.name()));
-            this.yellowBallImage = app.loadImage(URLDecoder.decode(this.getClass().getResource("ball4.png").getPath(), StandardCharsets.UTF_8.name()));
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (app != null) {
+            TextureRegistry textures = TextureRegistry.of(app);
+            for (int i = 0; i < ballImages.length; i++) {
+                ballImages[i] = textures.getBall(i);
+            }
         }
     }
 
@@ -49,43 +44,28 @@ public class HUD {
     /**
      * Get the image of the ball with the specified colour.
      * @param colour    The colour of the ball
-     * @return          The image of the ball
+     * @return          The image of the ball, or null if there is no colour
      */
-     public PImage getBallImage(String colour) {
-        switch (colour) {
-            case "ball0":
-            case "grey":
-                return greyBallImage;
-            case "ball1":
-            case "orange":
-                return orangeBallImage;
-            case "ball2":
-            case "blue":
-                return blueBallImage;
-            case "ball3":
-            case "green":
-                return greenBallImage;
-            case "ball4":
-            case "yellow":
-                return yellowBallImage;
-            default:
-                System.err.println("Error: Invalid ball colour: " + colour);
-                return null;
+    public PImage getBallImage(BallColour colour) {
+        if (colour == null) {
+            Log.error("Ball colour is null");
+            return null;
         }
+        return ballImages[colour.getId()];
     }
     
 
     // Add this to the HUD class
-    public List<String> getBallsToSpawn() {
+    public List<BallColour> getBallsToSpawn() {
         return ballsToSpawn;
     }
 
     // --------------------------- Methods ------------------------------------
     /**
      * Update the list of balls to spawn.
-     * @param ballsToSpawn The list strings of ball colours to spawn
+     * @param ballsToSpawn The list of ball colours to spawn
      */
-    public void updateBallsToSpawn(List<String> ballsToSpawn) {
+    public void updateBallsToSpawn(List<BallColour> ballsToSpawn) {
         this.ballsToSpawn = ballsToSpawn;
     }
     
@@ -128,13 +108,13 @@ public class HUD {
         int xPos = 25;
         int yPos = App.TOPBAR / 2 - 16; 
     
-        // Loop through each ball colour string and display the corresponding ball image
+        // Loop through each ball colour and display the corresponding ball image
         for (int i = 0; i < Math.min(ballsToSpawn.size(), 5); i++) {  
-            String ballColour = ballsToSpawn.get(i);
+            BallColour ballColour = ballsToSpawn.get(i);
             PImage ballImage = getBallImage(ballColour);
     
             if (ballImage != null) {
-                app.image(ballImage, xPos, yPos, App.CELLSIZE - 10, App.CELLSIZE - 10); 
+                Sprite.draw(app, ballImage, xPos, yPos, App.CELLSIZE - 10, App.CELLSIZE - 10); 
             }
             
             // Move the x position to the right for the next ball
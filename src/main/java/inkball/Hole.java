@@ -1,9 +1,7 @@
 package inkball;
 
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
-
 import processing.core.PApplet;
+import processing.core.PGraphics;
 import processing.core.PImage;
 import processing.core.PVector;
 
@@ -14,9 +12,9 @@ import processing.core.PVector;
 public class Hole extends GameObject {
     private PImage holeImage; 
     private PVector center;
-    private String holeColour;
+    private int colourId;
 
-    private Board board;
+    private Simulation simulation;
     private PApplet app;
 
     private static final float ATTRACTION_FORCE = 0.005f;
@@ -28,24 +26,24 @@ public class Hole extends GameObject {
      * @param y             y-coordinate of the hole 
      * @param app           PApplet object
      * @param holeColour    Colour of the hole
-     * @param board         Board object
+     * @param simulation    Simulation that handles captured balls
      */
-    public Hole(int x, int y, PApplet app, String holeColour, Board board) {
+    public Hole(int x, int y, PApplet app, String holeColour, Simulation simulation) {
         super(x, y);
         this.app = app;
-        this.board = board;
-        this.holeColour = holeColour;
+        this.simulation = simulation;
+        this.colourId = BallColour.toId(holeColour, "hole");
 
         // Calculate the center of the hole
         this.center = new PVector((x + 1) * App.CELLSIZE, (y + 1) * App.CELLSIZE + App.TOPBAR);
 
-        try {
-            this.holeImage = app.loadImage(URLDecoder.decode(this.getClass().getResource(holeColour + ".png").getPath(), StandardCharsets.UTF_8.name()));
-            if (holeImage == null) {
-                System.out.println("Hole Image not found: " + holeColour);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (app == null) {
+            return;
+        }
+
+        this.holeImage = TextureRegistry.of(app).get(holeColour);
+        if (holeImage == null) {
+            Log.error("Hole Image not found: {}", holeColour);
         }
     }
 
@@ -65,19 +63,20 @@ public class Hole extends GameObject {
      * @return String representing the colour of the hole
      */
     public String getColour() {
-        if (holeColour.equals("hole0")) {
-            return "grey";
-        } else if (holeColour.equals("hole1")) {
-            return "orange";
-        } else if (holeColour.equals("hole2")) {
-            return "blue";
-        } else if (holeColour.equals("hole3")) {
-            return "green";
-        } else if (holeColour.equals("hole4")) {
-            return "yellow";
-        } else {
+        BallColour colour = BallColour.fromId(colourId);
+        if (colour == null) {
             return "Ball Colour Not Found";
         }
+        return colour.getName();
+    }
+
+    /**
+     * Get the colour id of the hole, 0 to 4 for grey, orange, blue, green and
+     * yellow
+     * @return The colour id of the hole, or -1 if the colour is unknown
+     */
+    public int getColourId() {
+        return colourId;
     }
 
     // ----------------------------- Methods -----------------------------------
@@ -87,23 +86,56 @@ public class Hole extends GameObject {
      * @param ball Ball object to be attracted
      */
     public void attractBall(Ball ball) {
-        PVector ballPosition = new PVector(ball.getPosX(), ball.getPosY());
-        PVector forceDirection = PVector.sub(center, ballPosition);
-        float distanceToCenter = forceDirection.mag();
+        float dx = center.x - ball.getPosX();
+        float dy = center.y - ball.getPosY();
+        float distanceSquared = dx * dx + dy * dy;
+
+        // Most balls are nowhere near the hole, so skip the square root for them
+        if (distanceSquared > 32 * 32) {
+            return;
+        }
+        float distanceToCenter = (float) Math.sqrt(distanceSquared);
     
         if (distanceToCenter <= 32) {
-            forceDirection.normalize(); 
-            forceDirection.mult(ATTRACTION_FORCE * distanceToCenter);
-            ball.applyForce(forceDirection);
+            // The normalised direction scaled by the distance is the direction itself
+            ball.applyForce(dx * ATTRACTION_FORCE, dy * ATTRACTION_FORCE);
     
-            float newScale = PApplet.map(distanceToCenter, 0, App.CELLSIZE, 0, 1.0f);
-            ball.setScale(PApplet.constrain(newScale, 0.0f, 1.0f));
+            ball.setScale(getScaleAt(distanceToCenter));
     
             if (distanceToCenter <= ball.getRadius()) {
                 captureBall(ball);
             }
         }
     }
+
+    /**
+     * Apply the attraction to a ball in a ball store. Unlike attractBall(Ball)
+     * this does not capture the ball, the caller captures it when this returns
+     * true.
+     * @param store The store that holds the ball
+     * @param slot  The slot of the ball
+     * @return      True if the ball is close enough to be captured, false otherwise
+     */
+    public boolean attractBall(BallStore store, int slot) {
+        float dx = center.x - store.getPosX(slot);
+        float dy = center.y - store.getPosY(slot);
+        float distanceSquared = dx * dx + dy * dy;
+
+        if (distanceSquared > 32 * 32) {
+            return false;
+        }
+        float distanceToCenter = (float) Math.sqrt(distanceSquared);
+
+        store.applyForce(slot, dx * ATTRACTION_FORCE, dy * ATTRACTION_FORCE);
+        store.setScale(slot, getScaleAt(distanceToCenter));
+        return distanceToCenter <= Ball.RADIUS;
+    }
+
+    // Balls shrink as they get closer to the centre
+    private float getScaleAt(float distanceToCenter) {
+        float newScale = PApplet.map(distanceToCenter, 0, App.CELLSIZE, 0, 1.0f);
+        return PApplet.constrain(newScale, 0.0f, 1.0f);
+    }
     
 
     // --- Ball Capture ---
@@ -115,9 +147,9 @@ public class Hole extends GameObject {
         ball.setActive(false);
 
         if (isMatchingColour(ball)) {
-            board.handleSuccessfulCapture(ball);
+            simulation.handleSuccessfulCapture(ball, this);
         } else {
-            board.handleFailedCapture(ball);
+            simulation.handleFailedCapture(ball, this);
         }
     }
 
@@ -128,13 +160,20 @@ public class Hole extends GameObject {
      * @return boolean representing if the ball's colour matches the hole's colour
      */
     public boolean isMatchingColour(Ball ball) {
-      String ballColour = ball.getColour();
-      String holeColour = this.getColour();
+        return isMatchingColour(ball.getColourId());
+    }
 
-      if (ballColour.equals("grey") || holeColour.equals("grey")) {
-          return true;
-      }
-      return ballColour.equals(holeColour);
+    /**
+     * Check if a ball colour id matches the hole's colour. Grey balls and grey
+     * holes match every colour.
+     * @param ballColourId  The colour id of the ball
+     * @return boolean representing if the ball's colour matches the hole's colour
+     */
+    public boolean isMatchingColour(int ballColourId) {
+        if (ballColourId == BallColour.GREY.getId() || colourId == BallColour.GREY.getId()) {
+            return true;
+        }
+        return ballColourId >= 0 && ballColourId == colourId;
     }
 
 
@@ -149,15 +188,30 @@ public class Hole extends GameObject {
           int imgH = holeImage.height / 2; 
 
           // Top-left
-          app.image(holeImage, x * App.CELLSIZE, y * App.CELLSIZE + App.TOPBAR, App.CELLSIZE, App.CELLSIZE, 0, 0, imgW, imgH);
+          Sprite.draw(app, holeImage, x * App.CELLSIZE, y * App.CELLSIZE + App.TOPBAR, App.CELLSIZE, App.CELLSIZE, 0, 0, imgW, imgH);
           // Top-right
-          app.image(holeImage, (x + 1) * App.CELLSIZE, y * App.CELLSIZE + App.TOPBAR, App.CELLSIZE, App.CELLSIZE, imgW, 0, imgW * 2, imgH);
+          Sprite.draw(app, holeImage, (x + 1) * App.CELLSIZE, y * App.CELLSIZE + App.TOPBAR, App.CELLSIZE, App.CELLSIZE, imgW, 0, imgW * 2, imgH);
           // Bottom-left
-          app.image(holeImage, x * App.CELLSIZE, (y + 1) * App.CELLSIZE + App.TOPBAR, App.CELLSIZE, App.CELLSIZE, 0, imgH, imgW, imgH * 2);
+          Sprite.draw(app, holeImage, x * App.CELLSIZE, (y + 1) * App.CELLSIZE + App.TOPBAR, App.CELLSIZE, App.CELLSIZE, 0, imgH, imgW, imgH * 2);
           // Bottom-right
-          app.image(holeImage, (x + 1) * App.CELLSIZE, (y + 1) * App.CELLSIZE + App.TOPBAR, App.CELLSIZE, App.CELLSIZE, imgW, imgH, imgW * 2, imgH * 2);
+          Sprite.draw(app, holeImage, (x + 1) * App.CELLSIZE, (y + 1) * App.CELLSIZE + App.TOPBAR, App.CELLSIZE, App.CELLSIZE, imgW, imgH, imgW * 2, imgH * 2);
       } else {
-          System.out.println("Error: holeImage is null.");
+          Log.error("holeImage is null.");
       }
   }
+
+    /**
+     * Draw the hole into an offscreen layer of the board as a single image
+     * over its 2x2 tiles
+     * @param g The layer to draw into, with the board's top left at the origin
+     * @return  True if the hole was drawn
+     */
+    public boolean draw(PGraphics g) {
+        if (holeImage == null) {
+            Log.error("holeImage is null.");
+            return false;
+        }
+        Sprite.draw(g, holeImage, x * App.CELLSIZE, y * App.CELLSIZE, App.CELLSIZE * 2, App.CELLSIZE * 2);
+        return true;
+    }
 }
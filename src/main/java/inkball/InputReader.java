@@ -0,0 +1,239 @@
+package inkball;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The InputReader class reads back a recording made by the InputRecorder
+ * class, one event at a time. After next returns true the getters describe
+ * the event that was read, with ticks and points already decoded to absolute
+ * values. The tick of a level event is the tick the previous level ended at,
+ * and the events after it count from 0 again.
+ */
+public class InputReader {
+    private InputStream in;
+    private long sessionSeed;
+
+    // The event that was read last
+    private int type = -1;
+    private int tick;
+    private int lastTick;
+    private int x;
+    private int y;
+    private int levelIndex = -1;
+    private long seed;
+    private Keyframe keyframe;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the InputReader class, reads the header of the
+     * recording
+     * @param in            The stream the recording is read from
+     * @throws IOException  If the stream is not a recording this reader understands
+     */
+    public InputReader(InputStream in) throws IOException {
+        this.in = in;
+        for (byte expected : InputRecorder.MAGIC) {
+            if (in.read() != expected) {
+                throw new IOException("Not an input recording");
+            }
+        }
+        int version = readVarint();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported input recording version " + version);
+        }
+        sessionSeed = unzigzag(readVarlong());
+    }
+
+    /**
+     * Open a recording file
+     * @param file          The file to read
+     * @return              The reader
+     * @throws IOException  If the file cannot be read or is not a recording
+     */
+    public static InputReader open(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return new InputReader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the seed of the session the recording was made in
+     * @return  The session seed
+     */
+    public long getSessionSeed() {
+        return sessionSeed;
+    }
+
+    /**
+     * Get the type of the event, such as InputRecorder.POINT
+     * @return  The event type
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Get the tick of the level the event happened at
+     * @return  The tick, counted from the start of the level
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Get the x-coordinate of the point of a press or point event
+     * @return  The x-coordinate
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Get the y-coordinate of the point of a press or point event
+     * @return  The y-coordinate
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Get the index of the level being played
+     * @return  The level index, or -1 before the first level event
+     */
+    public int getLevelIndex() {
+        return levelIndex;
+    }
+
+    /**
+     * Get the seed of the level being played
+     * @return  The seed the level was loaded with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the state of the level of a keyframe event
+     * @return  The keyframe, or null if the event is not a keyframe
+     */
+    public Keyframe getKeyframe() {
+        return keyframe;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Read the next event
+     * @return              True if an event was read, false at the end of the recording
+     * @throws IOException  If the recording cannot be read or ends inside an event
+     */
+    public boolean next() throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return false;
+        }
+        int header = readVarint(first);
+        type = header & ((1 << InputRecorder.TYPE_BITS) - 1);
+        lastTick += header >>> InputRecorder.TYPE_BITS;
+        tick = lastTick;
+        keyframe = null;
+
+        switch (type) {
+            case InputRecorder.LEVEL:
+                levelIndex = readVarint();
+                seed = unzigzag(readVarlong());
+                lastTick = 0;
+                break;
+            case InputRecorder.PRESS:
+            case InputRecorder.POINT:
+                x += unzigzag(readVarint());
+                y += unzigzag(readVarint());
+                break;
+            case InputRecorder.RELEASE:
+            case InputRecorder.REMOVE:
+            case InputRecorder.PAUSE:
+            case InputRecorder.RESTART:
+                break;
+            case InputRecorder.KEYFRAME:
+                byte[] state = new byte[readVarint()];
+                readFully(state);
+                keyframe = new Keyframe(state);
+                break;
+            default:
+                throw new IOException("Unknown input event type " + type);
+        }
+        return true;
+    }
+
+    /**
+     * Close the recording
+     * @throws IOException  If the stream cannot be closed
+     */
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Input recording ends inside an event");
+        }
+        return b;
+    }
+
+    private void readFully(byte[] bytes) throws IOException {
+        int read = 0;
+        while (read < bytes.length) {
+            int count = in.read(bytes, read, bytes.length - read);
+            if (count < 0) {
+                throw new EOFException("Input recording ends inside an event");
+            }
+            read += count;
+        }
+    }
+
+    private int readVarint() throws IOException {
+        return readVarint(readByte());
+    }
+
+    private int readVarint(int first) throws IOException {
+        int value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0) {
+            b = readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private long readVarlong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,357 @@
+package inkball;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The InputRecorder class records the input of a game session so it can be
+ * replayed. Together with the seed of each level, the input is all a level
+ * needs to play out the same way again.
+ *
+ * Events are stamped with the simulation tick of their level and encoded in
+ * a compact binary format. Each event starts with a varint holding the ticks
+ * since the previous event and the event type in its low TYPE_BITS bits.
+ * Points are stored as zigzag varints of the distance from the previous
+ * point, so a point of a line being drawn usually takes three bytes. A level
+ * event is stamped with the tick the previous level ended at, holds the level
+ * index and seed, and resets the tick to 0. A keyframe event holds the state
+ * of the level as a Keyframe, and is recorded every KEYFRAME_INTERVAL ticks
+ * and at the start of each level so a replay can seek without simulating the
+ * level from its start. The file starts with MAGIC, the format VERSION and
+ * the seed of the session.
+ *
+ * Events are encoded into chunks on the thread that records them, and full
+ * chunks are written out by a background thread so recording never waits on
+ * the disk.
+ */
+public class InputRecorder {
+    public static final byte[] MAGIC = {'I', 'N', 'K', 'R'};
+    public static final int VERSION = 4;
+
+    // Event types
+    public static final int LEVEL = 0;
+    public static final int PRESS = 1;
+    public static final int POINT = 2;
+    public static final int RELEASE = 3;
+    public static final int REMOVE = 4;
+    public static final int PAUSE = 5;
+    public static final int RESTART = 6;
+    public static final int KEYFRAME = 7;
+    static final int TYPE_BITS = 3;
+
+    // Ticks between keyframes, the most a replay has to simulate to seek to a frame
+    public static final int KEYFRAME_INTERVAL = 5 * App.FPS;
+
+    // Size of the chunks handed to the writer thread
+    private static final int CHUNK_SIZE = 4096;
+    // Longest an event can be, a level event with a 10 byte seed
+    private static final int MAX_EVENT_SIZE = 32;
+
+    private OutputStream out;
+    private ExecutorService writer;
+    private Future<?> lastWrite;
+    private Thread closeHook;
+
+    private byte[] chunk = new byte[CHUNK_SIZE];
+    private int length;
+
+    // What the next event is encoded relative to
+    private int lastTick;
+    private int lastX;
+    private int lastY;
+
+    private long eventCount;
+    private long byteCount;
+    private boolean closed;
+    private volatile boolean failed;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the InputRecorder class, writes the header of the
+     * recording
+     * @param out           The stream the recording is written to
+     * @param sessionSeed   The seed of the session
+     */
+    public InputRecorder(OutputStream out, long sessionSeed) {
+        this.out = out;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "input-recorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        System.arraycopy(MAGIC, 0, chunk, 0, MAGIC.length);
+        length = MAGIC.length;
+        writeVarint(VERSION);
+        writeVarlong(zigzag(sessionSeed));
+    }
+
+    /**
+     * Start recording to a file, replacing it
+     * @param file          The file to record to
+     * @param sessionSeed   The seed of the session
+     * @return              The recorder
+     * @throws IOException  If the file cannot be created
+     */
+    public static InputRecorder open(File file, long sessionSeed) throws IOException {
+        return new InputRecorder(new BufferedOutputStream(new FileOutputStream(file)), sessionSeed);
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the number of events recorded
+     * @return  The number of events
+     */
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Get the size of the recording so far, including what has not been
+     * written out yet
+     * @return  The size in bytes
+     */
+    public synchronized long getByteCount() {
+        return byteCount + length;
+    }
+
+    // ----------------------------- Events ------------------------------------
+    /**
+     * Record the start of a level. The ticks of the events after this one
+     * count from the start of the level.
+     * @param tick          The tick the previous level ended at, 0 for the first level
+     * @param levelIndex    The index of the level
+     * @param seed          The seed the level was loaded with
+     */
+    public synchronized void level(int tick, int levelIndex, long seed) {
+        if (begin(tick, LEVEL)) {
+            writeVarint(levelIndex);
+            writeVarlong(zigzag(seed));
+            lastTick = 0;
+        }
+    }
+
+    /**
+     * Record the start of a line at a point
+     * @param tick  The tick of the level
+     * @param x     The x-coordinate of the point
+     * @param y     The y-coordinate of the point
+     */
+    public synchronized void press(int tick, int x, int y) {
+        if (begin(tick, PRESS)) {
+            writePoint(x, y);
+        }
+    }
+
+    /**
+     * Record a point added to the line being drawn
+     * @param tick  The tick of the level
+     * @param x     The x-coordinate of the point
+     * @param y     The y-coordinate of the point
+     */
+    public synchronized void point(int tick, int x, int y) {
+        if (begin(tick, POINT)) {
+            writePoint(x, y);
+        }
+    }
+
+    /**
+     * Record the end of the line being drawn
+     * @param tick  The tick of the level
+     */
+    public synchronized void release(int tick) {
+        begin(tick, RELEASE);
+    }
+
+    /**
+     * Record the removal of the last line
+     * @param tick  The tick of the level
+     */
+    public synchronized void remove(int tick) {
+        begin(tick, REMOVE);
+    }
+
+    /**
+     * Record the game being paused or unpaused
+     * @param tick  The tick of the level
+     */
+    public synchronized void pause(int tick) {
+        begin(tick, PAUSE);
+    }
+
+    /**
+     * Record a restart of the level
+     * @param tick  The tick of the level
+     */
+    public synchronized void restart(int tick) {
+        begin(tick, RESTART);
+    }
+
+    /**
+     * Record the state of the level
+     * @param tick      The tick of the level
+     * @param keyframe  The state, captured at the tick
+     */
+    public synchronized void keyframe(int tick, Keyframe keyframe) {
+        if (begin(tick, KEYFRAME)) {
+            byte[] state = keyframe.getBytes();
+            writeVarint(state.length);
+            for (int written = 0; written < state.length; ) {
+                if (length == CHUNK_SIZE) {
+                    handOff(false);
+                }
+                int count = Math.min(state.length - written, CHUNK_SIZE - length);
+                System.arraycopy(state, written, chunk, length, count);
+                length += count;
+                written += count;
+            }
+        }
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Write out everything recorded so far, without waiting for it
+     */
+    public synchronized void flush() {
+        if (!closed) {
+            handOff(true);
+        }
+    }
+
+    /**
+     * Write out everything recorded so far and close the recording. Waits
+     * for the writer thread to finish.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        handOff(false);
+        closed = true;
+
+        OutputStream stream = out;
+        lastWrite = writer.submit(() -> {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+        waitForWriter();
+        writer.shutdown();
+
+        if (closeHook != null && Thread.currentThread() != closeHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(closeHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down
+            }
+        }
+    }
+
+    /**
+     * Close the recording when the game exits
+     */
+    public synchronized void closeOnExit() {
+        if (closeHook == null && !closed) {
+            closeHook = new Thread(this::close, "input-recorder-close");
+            Runtime.getRuntime().addShutdownHook(closeHook);
+        }
+    }
+
+    // Starts an event, returns false if the recording is closed
+    private boolean begin(int tick, int type) {
+        if (closed) {
+            return false;
+        }
+        if (length + MAX_EVENT_SIZE > CHUNK_SIZE) {
+            handOff(false);
+        }
+        writeVarint((Math.max(0, tick - lastTick) << TYPE_BITS) | type);
+        lastTick = Math.max(lastTick, tick);
+        eventCount++;
+        return true;
+    }
+
+    private void writePoint(int x, int y) {
+        writeVarint(zigzag(x - lastX));
+        writeVarint(zigzag(y - lastY));
+        lastX = x;
+        lastY = y;
+    }
+
+    // Gives the current chunk to the writer thread and starts a new one
+    private void handOff(boolean flushStream) {
+        if (length == 0 && !flushStream) {
+            return;
+        }
+        byte[] full = chunk;
+        int fullLength = length;
+        byteCount += length;
+        chunk = new byte[CHUNK_SIZE];
+        length = 0;
+
+        OutputStream stream = out;
+        lastWrite = writer.submit(() -> {
+            if (failed) {
+                return;
+            }
+            try {
+                stream.write(full, 0, fullLength);
+                if (flushStream) {
+                    stream.flush();
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+    }
+
+    private void waitForWriter() {
+        try {
+            lastWrite.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            fail(e.getCause());
+        }
+    }
+
+    private void fail(Throwable e) {
+        if (!failed) {
+            failed = true;
+            Log.error("Input recording could not be written: {}", e.getMessage());
+        }
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            chunk[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        chunk[length++] = (byte) value;
+    }
+
+    private void writeVarlong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            chunk[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        chunk[length++] = (byte) value;
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,250 @@
+package inkball;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The Keyframe class is the state of a level at one tick, saved so a replay
+ * can start from it instead of from the start of the level. It holds the
+ * balls, the lines and the line being drawn, the spawners and their queue,
+ * the score and timer of the GameStateManager, and the simulation clock and
+ * random numbers. The tiles, holes and spawner positions come from the level
+ * layout, so a keyframe is restored into a Simulation that has the same
+ * level loaded.
+ *
+ * Balls are saved in slot order and lines in the order they were drawn, so
+ * the restored ball store and line index are in the same order as the
+ * original and the level plays on exactly as it did. The state is kept
+ * encoded, which is also how it is stored in a recording.
+ */
+public final class Keyframe {
+    private final int tick;
+    private final byte[] state;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the Keyframe class, from the state written by capture
+     * @param state         The encoded state
+     * @throws IOException  If the state is too short to be a keyframe
+     */
+    public Keyframe(byte[] state) throws IOException {
+        this(new DataInputStream(new ByteArrayInputStream(state)).readInt(), state);
+    }
+
+    private Keyframe(int tick, byte[] state) {
+        this.tick = tick;
+        this.state = state;
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the tick of the level the keyframe was captured at
+     * @return  The tick, counted from the start of the level
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Get the size of the encoded state
+     * @return  The size in bytes
+     */
+    public int getSize() {
+        return state.length;
+    }
+
+    // The encoded state, not copied, so it must not be changed
+    byte[] getBytes() {
+        return state;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Save the state of a simulation
+     * @param simulation    The simulation
+     * @param currentLine   The line being drawn, or null
+     * @return              The keyframe
+     */
+    public static Keyframe capture(Simulation simulation, Line currentLine) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            // Clock and random numbers
+            out.writeInt(simulation.getTick());
+            out.writeInt(simulation.getLastSpawnTick());
+            out.writeFloat(simulation.getTimeToSpawn());
+            out.writeFloat(simulation.getAccumulator());
+            out.writeLong(simulation.getRandom().getState());
+
+            // Score and timer
+            GameStateManager gameStateManager = simulation.getGameStateManager();
+            out.writeByte(gameStateManager.getState().ordinal());
+            out.writeInt(gameStateManager.getScore());
+            out.writeInt(gameStateManager.getPreLevelScore());
+            out.writeDouble(gameStateManager.getRemainingSeconds());
+            out.writeFloat(gameStateManager.getAccumulatedTime());
+
+            // Balls, in slot order
+            BallStore store = simulation.getBallStore();
+            out.writeInt(store.size());
+            for (int slot = 0; slot < store.size(); slot++) {
+                out.writeFloat(store.getPosX(slot));
+                out.writeFloat(store.getPosY(slot));
+                out.writeFloat(store.getVelocityX(slot));
+                out.writeFloat(store.getVelocityY(slot));
+                out.writeFloat(store.getScale(slot));
+                out.writeByte(store.getColour(slot));
+                out.writeBoolean(store.getView(slot) != null);
+            }
+
+            // Spawners and the balls waiting to be spawned
+            List<Spawner> spawners = simulation.getSpawners();
+            out.writeInt(spawners.size());
+            for (Spawner spawner : spawners) {
+                out.writeInt(spawner.getSpawnFrameCounter());
+                out.writeBoolean(spawner.isActive());
+                List<BallColour> queue = spawner.getBallsToSpawn();
+                out.writeInt(queue.size());
+                for (BallColour colour : queue) {
+                    out.writeByte(colour.getId());
+                }
+            }
+
+            // Lines, in the order they were drawn, then the line being drawn
+            List<Line> lines = simulation.getLines();
+            out.writeInt(lines.size());
+            for (Line line : lines) {
+                line.write(out, false);
+            }
+            boolean drawing = currentLine != null && !currentLine.isRemoved();
+            out.writeBoolean(drawing);
+            if (drawing) {
+                currentLine.write(out, true);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // A ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return new Keyframe(simulation.getTick(), bytes.toByteArray());
+    }
+
+    /**
+     * Put a simulation back in the saved state. The simulation must have the
+     * level the keyframe was captured in loaded.
+     * @param simulation    The simulation
+     * @return              The line that was being drawn, or null
+     * @throws IOException  If the state cannot be decoded or does not fit the loaded level
+     */
+    public Line restore(Simulation simulation) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+
+        // Clock and random numbers
+        int savedTick = in.readInt();
+        int lastSpawnTick = in.readInt();
+        float timeToSpawn = in.readFloat();
+        float accumulator = in.readFloat();
+        long randomState = in.readLong();
+
+        // Score and timer
+        GameStateManager.GameState[] states = GameStateManager.GameState.values();
+        int stateIndex = in.readUnsignedByte();
+        if (stateIndex >= states.length) {
+            throw new IOException("Unknown game state " + stateIndex);
+        }
+        GameStateManager.GameState gameState = states[stateIndex];
+        int score = in.readInt();
+        int preLevelScore = in.readInt();
+        double remainingTime = in.readDouble();
+        float accumulatedTime = in.readFloat();
+
+        // Balls, added back in slot order
+        simulation.clearBalls();
+        BallStore store = simulation.getBallStore();
+        int ballCount = in.readInt();
+        for (int i = 0; i < ballCount; i++) {
+            float x = in.readFloat();
+            float y = in.readFloat();
+            float vx = in.readFloat();
+            float vy = in.readFloat();
+            float scale = in.readFloat();
+            int colourId = in.readByte();
+            if (in.readBoolean()) {
+                Ball view = new Ball(0, 0, simulation.getApp(), BallColour.fromId(Math.max(0, colourId)), Ball.DEFAULT_RANDOM);
+                simulation.getBalls().add(view);
+            } else {
+                store.add(x, y, vx, vy, colourId);
+            }
+            int slot = store.size() - 1;
+            store.setPosition(slot, x, y);
+            store.setVelocity(slot, vx, vy);
+            store.setScale(slot, scale);
+            store.setColour(slot, colourId);
+        }
+
+        // Spawners, which share one queue in a loaded level
+        List<Spawner> spawners = simulation.getSpawners();
+        int spawnerCount = in.readInt();
+        if (spawnerCount != spawners.size()) {
+            throw new IOException("Keyframe has " + spawnerCount + " spawners, the level has " + spawners.size());
+        }
+        for (Spawner spawner : spawners) {
+            spawner.setSpawnFrameCounter(in.readInt());
+            spawner.setActive(in.readBoolean());
+            List<BallColour> queue = spawner.getBallsToSpawn();
+            queue.clear();
+            int queued = in.readInt();
+            for (int i = 0; i < queued; i++) {
+                BallColour colour = BallColour.fromId(in.readByte());
+                if (colour == null) {
+                    throw new IOException("Keyframe has a ball of no colour in the spawn queue");
+                }
+                queue.add(colour);
+            }
+        }
+
+        // Lines, inserted into the index in the order they were drawn
+        simulation.clearLines();
+        int lineCount = in.readInt();
+        for (int i = 0; i < lineCount; i++) {
+            simulation.addLine(Line.read(in, simulation.getLineIndex(), false));
+        }
+        Line currentLine = in.readBoolean() ? Line.read(in, simulation.getLineIndex(), true) : null;
+
+        simulation.restoreClock(savedTick, lastSpawnTick, timeToSpawn, accumulator);
+        simulation.getRandom().setState(randomState);
+        simulation.getGameStateManager().restore(gameState, score, preLevelScore, remainingTime, accumulatedTime);
+        return currentLine;
+    }
+
+    // --- Varints ---
+    // Writes a non-negative int in as few bytes as it needs, seven bits to a byte
+    static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 28) {
+                throw new IOException("Varint is too long");
+            }
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
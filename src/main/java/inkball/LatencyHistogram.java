@@ -0,0 +1,121 @@
+package inkball;
+
+import java.util.Arrays;
+
+/**
+ * The LatencyHistogram class counts durations in nanoseconds into a fixed
+ * set of log-scaled buckets. Every power of two is split into eight buckets,
+ * so a percentile is off by at most one eighth of its value, and recording a
+ * value is a few shifts and an array increment. The buckets cover every
+ * positive long, so nothing is allocated once the histogram is created.
+ *
+ * A histogram is not thread safe, it is meant to be recorded to and read by
+ * the animation thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    public static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long total;
+    private long max;
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Record a duration. Negative durations are counted as 0.
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Forget every recorded duration
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * Get the number of recorded durations
+     * @return  The number of durations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the longest recorded duration
+     * @return  The longest duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Get the mean of the recorded durations
+     * @return  The mean duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Get a percentile of the recorded durations, as the upper end of the
+     * bucket it falls in and never more than the longest duration
+     * @param percentile    The percentile, from 0 to 100
+     * @return              The duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    // Values below SUB_BUCKETS have a bucket each, larger ones share a bucket with
+    // the values that have the same top SUB_BITS + 1 bits
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // The largest value that falls in a bucket
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -2,17 +2,19 @@ package inkball;
 
 import processing.core.PApplet;
 import processing.data.JSONObject;
-import processing.data.JSONArray;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.HashMap;
 
 /**
- * The Level class represents a game level. It loads the configuration for each level
- * from a JSON file, including layout, time limit, spawn intervals, ball colours, 
- * and score modifiers.
+ * The Level class represents a game level. It takes the configuration of the level
+ * from the parsed GameConfig, including layout, time limit, spawn intervals, ball colours,
+ * and score modifiers. The list of balls to spawn is the level's own copy, and is used
+ * up as the level is played.
+ *
+ * The score of a capture only depends on the colour of the ball and the colour
+ * of the hole, so it is worked out for every pair when the level is created,
+ * with the modifiers already applied, and looked up by colour id after that.
  */
 public class Level {
   private String layoutFile;
@@ -20,76 +22,56 @@ public class Level {
   private int spawnInterval;
   private float scoreIncreaseModifier;
   private float scoreDecreaseModifier;
-  private List<String> balls;
-  private Map<String, Integer> scoreIncreaseFromHole;
-  private Map<String, Integer> scoreDecreaseFromWrongHole;
-
-  // Map ball colour to resource filename
-  private static final Map<String, String> colourToResourceMap = new HashMap<>();
-  static {
-    colourToResourceMap.put("grey", "ball0");
-    colourToResourceMap.put("orange", "ball1");
-    colourToResourceMap.put("blue", "ball2");
-    colourToResourceMap.put("green", "ball3");
-    colourToResourceMap.put("yellow", "ball4");
-}
+  private List<BallColour> balls;
+  private int[][] captureScores = new int[BallColour.COUNT][BallColour.COUNT];
 
 
   // -------------------------- Constructor ----------------------------------
   /**
-   * Constructor for the Level class. It reads the level configuration from a JSON file.
-   * @param app         The PApplet object
-   * @param config      The .json file containing the configuration
+   * Constructor for the Level class. It takes the level configuration from the parsed
+   * game configuration, without reading the configuration file.
+   * @param config      The parsed game configuration
    * @param levelIndex  The index of the level to load
    */
-  public Level(PApplet app, JSONObject config, int levelIndex) {
-    // Load the level configuration
-    JSONArray levels = config.getJSONArray("levels");
-
-    if (levelIndex >= levels.size()) {
-      System.out.println("Error: Level index out of bounds.");
+  public Level(GameConfig config, int levelIndex) {
+    GameConfig.LevelConfig levelConfig = config.getLevel(levelIndex);
+    if (levelConfig == null) {
+      Log.error("Level index out of bounds.");
       return;
     }
 
     // Load Level and score Data
-    JSONObject levelData = levels.getJSONObject(levelIndex);
-    this.layoutFile = levelData.getString("layout");
-    this.timeLimit = levelData.getInt("time");
-    this.spawnInterval = levelData.getInt("spawn_interval");
-    this.scoreIncreaseModifier = levelData.getFloat("score_increase_from_hole_capture_modifier");
-    this.scoreDecreaseModifier = levelData.getFloat("score_decrease_from_wrong_hole_modifier");
-
-    // Load Ball Colours
-    JSONArray ballColoursArray = levelData.getJSONArray("balls");
-    this.balls = new ArrayList<>();
-    for (int i = 0; i < ballColoursArray.size(); i++) {
-        String colour = ballColoursArray.getString(i);
-        String ballResource = colourToResourceMap.get(colour);  // Convert colour to resource (e.g., "ball0")
-        if (ballResource != null) {
-            this.balls.add(ballResource);
+    this.layoutFile = levelConfig.getLayoutFile();
+    this.timeLimit = levelConfig.getTimeLimit();
+    this.spawnInterval = levelConfig.getSpawnInterval();
+    this.scoreIncreaseModifier = levelConfig.getScoreIncreaseModifier();
+    this.scoreDecreaseModifier = levelConfig.getScoreDecreaseModifier();
+
+    // The spawners take balls off this list, so the level gets a copy of its own
+    this.balls = new ArrayList<>(levelConfig.getBalls());
+
+    // Matching holes add the increase, wrong holes take off the penalty
+    for (BallColour ball : BallColour.values()) {
+      for (BallColour hole : BallColour.values()) {
+        int score;
+        if (ball.matches(hole)) {
+          score = (int) (config.getScoreIncrease(ball.getId()) * scoreIncreaseModifier);
         } else {
-            System.err.println("Error: Invalid ball colour: " + colour);
+          score = -(int) (config.getScoreDecrease(ball.getId()) * scoreDecreaseModifier);
         }
+        captureScores[ball.getId()][hole.getId()] = score;
+      }
     }
+  }
 
-    // Read Score Values
-    this.scoreIncreaseFromHole = new HashMap<>();
-    this.scoreDecreaseFromWrongHole = new HashMap<>();
-
-    JSONObject scoreIncreaseJSON = config.getJSONObject("score_increase_from_hole_capture");
-    JSONObject scoreDecreaseJSON = config.getJSONObject("score_decrease_from_wrong_hole");
-
-    for (Object key : scoreIncreaseJSON.keys()) {
-      String colour = (String) key;
-      int score = scoreIncreaseJSON.getInt(colour);
-      this.scoreIncreaseFromHole.put(colour, score);
-    }
-
-    for (Object key : scoreDecreaseJSON.keys()) {
-      String colour = (String) key;
-      int score = scoreDecreaseJSON.getInt(colour);
-      this.scoreDecreaseFromWrongHole.put(colour, score);
-    }
+  /**
+   * Constructor for the Level class. It parses the configuration and reads the level from it.
+   * @param app         The PApplet object
+   * @param config      The .json file containing the configuration
+   * @param levelIndex  The index of the level to load
+   */
+  public Level(PApplet app, JSONObject config, int levelIndex) {
+    this(GameConfig.parse(config), levelIndex);
   }
 
   // --------------------- Getters and Setters -------------------------------
@@ -135,26 +117,21 @@ public class Level {
 
   /**
    * Get the list of balls for the level.
-   * @return  The list strings of balls for the level
+   * @return  The list of ball colours for the level
    */
-  public List<String> getBalls() {
+  public List<BallColour> getBalls() {
       return balls;
   }
 
   /**
-   * Get the score increase from hole for the level.
-   * @return  The score increase from hole for the level
-   */
-  public Map<String, Integer> getScoreIncreaseFromHole() {
-      return scoreIncreaseFromHole;
-  }
-
-  /**
-   * Get the score decrease from wrong hole for the level.
-   * @return  The score decrease from wrong hole for the level
+   * Get the change in score when a ball is captured by a hole, with the
+   * level's modifiers applied. A wrong hole gives a negative change.
+   * @param ballColourId  The colour id of the ball
+   * @param holeColourId  The colour id of the hole
+   * @return              The change in score
    */
-  public Map<String, Integer> getScoreDecreaseFromWrongHole() {
-      return scoreDecreaseFromWrongHole;
+  public int getCaptureScore(int ballColourId, int holeColourId) {
+      return captureScores[ballColourId][holeColourId];
   }
 
 }
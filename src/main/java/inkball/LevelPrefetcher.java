@@ -0,0 +1,180 @@
+package inkball;
+
+import processing.core.PApplet;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The LevelPrefetcher class builds the board of the next level on a
+ * background thread while the current level is played. The layout is read,
+ * the tiles, balls, holes and spawners are created and the tile images are
+ * set in the background, so a level transition only takes the finished
+ * board and creates its offscreen layers.
+ *
+ * One board is prepared at a time. A board is only handed out for the same
+ * configuration and level index it was prepared for, and a board that is
+ * still being built when it is asked for is waited on rather than built a
+ * second time.
+ */
+public class LevelPrefetcher {
+    private PApplet app;
+    private ExecutorService executor;
+
+    // The board being prepared, and what it is being prepared for
+    private Future<Board> pending;
+    private GameConfig pendingConfig;
+    private int pendingIndex = -1;
+
+    private int hits;
+    private int misses;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the LevelPrefetcher class
+     * @param app   The PApplet the boards are built for
+     */
+    public LevelPrefetcher(PApplet app) {
+        this.app = app;
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Check if a board is being prepared or is ready for a level
+     * @param config        The configuration of the level
+     * @param levelIndex    The index of the level
+     * @return              True if a board is prepared for the level
+     */
+    public synchronized boolean isPrefetching(GameConfig config, int levelIndex) {
+        return pending != null && pendingConfig == config && pendingIndex == levelIndex;
+    }
+
+    /**
+     * Get the number of level changes that took a prepared board
+     * @return  The number of hits
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of level changes that had no prepared board
+     * @return  The number of misses
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Start preparing the board of a level in the background. Does nothing if
+     * the level is already being prepared or does not exist.
+     * @param config            The configuration of the level
+     * @param levelIndex        The index of the level
+     * @param gameStateManager  The GameStateManager the board reports to
+     * @param seed              The seed of the random numbers of the level
+     */
+    public synchronized void prefetch(GameConfig config, int levelIndex, GameStateManager gameStateManager, long seed) {
+        if (config == null || config.getLevel(levelIndex) == null || isPrefetching(config, levelIndex)) {
+            return;
+        }
+        cancel();
+
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "level-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        pendingConfig = config;
+        pendingIndex = levelIndex;
+        pending = executor.submit(() -> build(app, config, levelIndex, gameStateManager, seed));
+    }
+
+    /**
+     * Take the prepared board of a level, waiting for it if it is still being
+     * built. The board still needs its layers created on the animation thread.
+     * @param config        The configuration of the level
+     * @param levelIndex    The index of the level
+     * @return              The prepared board, or null if none was prepared for the level
+     */
+    public Board take(GameConfig config, int levelIndex) {
+        Future<Board> future;
+        synchronized (this) {
+            if (!isPrefetching(config, levelIndex)) {
+                misses++;
+                return null;
+            }
+            future = pending;
+            pending = null;
+            pendingConfig = null;
+            pendingIndex = -1;
+        }
+
+        try {
+            Board board = future.get();
+            synchronized (this) {
+                if (board != null) {
+                    hits++;
+                } else {
+                    misses++;
+                }
+            }
+            return board;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.error("Level {} could not be prepared: {}", levelIndex, e.getCause());
+        }
+        synchronized (this) {
+            misses++;
+        }
+        return null;
+    }
+
+    /**
+     * Drop the board being prepared, if there is one
+     */
+    public synchronized void cancel() {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = null;
+        pendingConfig = null;
+        pendingIndex = -1;
+    }
+
+    /**
+     * Drop the board being prepared and stop the background thread
+     */
+    public synchronized void shutdown() {
+        cancel();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Build the board of a level, without creating its layers
+     * @param app               The PApplet the board is built for
+     * @param config            The configuration of the level
+     * @param levelIndex        The index of the level
+     * @param gameStateManager  The GameStateManager the board reports to
+     * @param seed              The seed of the random numbers of the level
+     * @return                  The board, or null if the layout could not be read
+     */
+    public static Board build(PApplet app, GameConfig config, int levelIndex, GameStateManager gameStateManager, long seed) {
+        Level level = new Level(config, levelIndex);
+        Board board = new Board(app, App.BOARD_WIDTH, App.BOARD_HEIGHT, gameStateManager);
+        board.setLevel(level);
+        board.getSimulation().setSeed(seed);
+        if (!board.loadLayout(app, level)) {
+            return null;
+        }
+        return board;
+    }
+}
@@ -2,15 +2,42 @@ package inkball;
 
 import java.util.List;
 import processing.core.PApplet;
+import processing.core.PGraphics;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
  * The Line class represents a user-drawn line in the game. A line is composed of multiple
  * line segments and is drawn on the screen using these segments. Lines can interact with
  * balls in the game, and can be removed upon collision with a ball.
+ *
+ * A line built from the raw mouse path with addPoint is simplified as it is drawn. The
+ * last segment is stretched over each new point for as long as every raw point since
+ * the segment's start stays within the tolerance of it, and a new segment is only
+ * started when one would not. Every raw point stays within the tolerance of the stored
+ * path, and a stroke of many short mouse moves is stored as a few long segments.
  */
 public class Line {
     private List<LineSegment> segments; // List to store all segments of the line
+    private LineIndex index; // Spatial index the segments are inserted into, may be null
+    private boolean removed; // Set once the line has been hit or deleted
+
+    // Largest distance in pixels of a raw mouse point from the stored path
+    public static final float DEFAULT_TOLERANCE = 2f;
+    // Most raw points the last segment is stretched over, bounds the cost of a mouse move
+    private static final int MAX_SPAN = 64;
+
+    // Stroke simplification
+    private float tolerance = DEFAULT_TOLERANCE;
+    private boolean started;
+    private float anchorX, anchorY; // Start of the last segment
+    private float endX, endY; // Last raw point
+    private float[] span = new float[MAX_SPAN * 2]; // Raw points inside the last segment
+    private int spanSize;
+    private boolean spanOpen; // True if the last segment may still be stretched
+    private int rawSegments;
 
     // -------------------------- Constructor ----------------------------------
     /**
@@ -21,13 +48,311 @@ public class Line {
         segments = new ArrayList<>();
     }
 
+    /**
+     * Constructor to create a new empty line whose segments are inserted into a spatial
+     * index as they are added, so balls can collide with the line while it is drawn.
+     * @param index The index of live line segments
+     */
+    public Line(LineIndex index) {
+        this();
+        this.index = index;
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the tolerance of the stroke simplification
+     * @return The largest distance in pixels of a raw point from the stored path
+     */
+    public float getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Set the tolerance of the stroke simplification, 0 keeps every raw point
+     * @param tolerance The largest distance in pixels of a raw point from the stored path
+     */
+    public void setTolerance(float tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance must not be negative: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Get the number of segments the line was drawn with, before simplification
+     * @return The number of raw segments
+     */
+    public int getRawSegmentCount() {
+        return rawSegments;
+    }
+
+    /**
+     * Get how many raw segments each stored segment stands for on average
+     * @return The number of raw segments over the number of stored segments, or 1 for an empty line
+     */
+    public float getReductionRatio() {
+        if (segments.isEmpty()) {
+            return 1;
+        }
+        return (float) rawSegments / segments.size();
+    }
+
     // ----------------------------- Methods -----------------------------------
     /**
      * Adds a new segment to the line. Segments represent individual parts of the line.
      * @param segment The line segment to be added to the line.
      */
     public void addSegment(LineSegment segment) {
+        if (removed) {
+            return;
+        }
+        rawSegments++;
+        appendSegment(segment);
+
+        // Points added after this carry on from the end of the segment
+        started = true;
+        spanOpen = false;
+        anchorX = segment.getEndX();
+        anchorY = segment.getEndY();
+        endX = anchorX;
+        endY = anchorY;
+    }
+
+    /**
+     * Adds a point of the raw mouse path to the line. The first point starts the line,
+     * and each further point either stretches the last segment to it or starts a new one.
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     */
+    public void addPoint(float x, float y) {
+        if (removed) {
+            return;
+        }
+        if (!started) {
+            started = true;
+            anchorX = x;
+            anchorY = y;
+            endX = x;
+            endY = y;
+            return;
+        }
+        if (x == endX && y == endY) {
+            return;
+        }
+        rawSegments++;
+
+        if (spanOpen && spanSize < MAX_SPAN) {
+            LineSegment stretched = new LineSegment(anchorX, anchorY, x, y);
+            if (covers(stretched)) {
+                span[spanSize * 2] = endX;
+                span[spanSize * 2 + 1] = endY;
+                spanSize++;
+                replaceLastSegment(stretched);
+                endX = x;
+                endY = y;
+                return;
+            }
+        }
+
+        // The last segment ends at the previous point, start a new one from there
+        if (spanOpen) {
+            anchorX = endX;
+            anchorY = endY;
+        }
+        spanSize = 0;
+        spanOpen = true;
+        appendSegment(new LineSegment(anchorX, anchorY, x, y));
+        endX = x;
+        endY = y;
+    }
+
+    // Check that the old end and every raw point inside the last segment are within tolerance
+    private boolean covers(LineSegment segment) {
+        float limit = tolerance * tolerance;
+        if (segment.distanceSquaredTo(endX, endY) > limit) {
+            return false;
+        }
+        for (int i = 0; i < spanSize; i++) {
+            if (segment.distanceSquaredTo(span[i * 2], span[i * 2 + 1]) > limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendSegment(LineSegment segment) {
         segments.add(segment);
+        segment.setLine(this);
+        if (index != null) {
+            index.insert(segment);
+        }
+    }
+
+    private void replaceLastSegment(LineSegment segment) {
+        LineSegment last = segments.set(segments.size() - 1, segment);
+        segment.setLine(this);
+        if (index != null) {
+            index.remove(last);
+            index.insert(segment);
+        }
+    }
+
+    /**
+     * Removes the line's segments from the spatial index. A removed line takes no
+     * further segments.
+     */
+    public void remove() {
+        if (!removed && index != null) {
+            index.remove(this);
+        }
+        removed = true;
+    }
+
+    /**
+     * Check if the line has been removed by a collision or by the player.
+     * @return True if the line has been removed, false otherwise.
+     */
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    /**
+     * Writes the segments of the line. A line that is still being drawn also has the
+     * state of its stroke simplification written, so a line read back with read can
+     * carry on being drawn the same way. Segments whose coordinates are whole pixels,
+     * as they are when drawn with the mouse, are written as zigzag varints of the
+     * distance from the previous point, and a segment that starts where the last one
+     * ended only has its end written.
+     * @param out           The stream to write to.
+     * @param drawing       True if the line is still being drawn.
+     * @throws IOException  If the stream cannot be written.
+     */
+    void write(DataOutput out, boolean drawing) throws IOException {
+        Keyframe.writeVarint(out, rawSegments);
+        if (drawing) {
+            out.writeFloat(tolerance);
+            out.writeBoolean(started);
+            out.writeFloat(anchorX);
+            out.writeFloat(anchorY);
+            out.writeFloat(endX);
+            out.writeFloat(endY);
+            out.writeBoolean(spanOpen);
+            Keyframe.writeVarint(out, spanSize);
+            for (int i = 0; i < spanSize * 2; i++) {
+                out.writeFloat(span[i]);
+            }
+        }
+
+        Keyframe.writeVarint(out, segments.size());
+        boolean whole = isWhole();
+        out.writeBoolean(whole);
+        int lastX = 0;
+        int lastY = 0;
+        for (LineSegment segment : segments) {
+            if (whole) {
+                // The low bit of the first varint is set if the segment starts where the last one ended
+                int fromX = (int) segment.getStartX();
+                int fromY = (int) segment.getStartY();
+                int toX = (int) segment.getEndX();
+                int toY = (int) segment.getEndY();
+                if (fromX == lastX && fromY == lastY) {
+                    Keyframe.writeVarint(out, InputRecorder.zigzag(toX - fromX) << 1 | 1);
+                } else {
+                    Keyframe.writeVarint(out, InputRecorder.zigzag(fromX - lastX) << 1);
+                    Keyframe.writeVarint(out, InputRecorder.zigzag(fromY - lastY));
+                    Keyframe.writeVarint(out, InputRecorder.zigzag(toX - fromX));
+                }
+                Keyframe.writeVarint(out, InputRecorder.zigzag(toY - fromY));
+                lastX = toX;
+                lastY = toY;
+            } else {
+                out.writeFloat(segment.getStartX());
+                out.writeFloat(segment.getStartY());
+                out.writeFloat(segment.getEndX());
+                out.writeFloat(segment.getEndY());
+            }
+        }
+    }
+
+    /**
+     * Reads a line written by write. The segments are inserted into the index in the
+     * order they were written. A line that is no longer being drawn carries on from
+     * the end of its last segment, as if it was built with addSegment.
+     * @param in            The stream to read from.
+     * @param index         The index of live line segments, may be null.
+     * @param drawing       True if the line was written while it was being drawn.
+     * @return              The line.
+     * @throws IOException  If the stream cannot be read.
+     */
+    static Line read(DataInput in, LineIndex index, boolean drawing) throws IOException {
+        Line line = new Line(index);
+        line.rawSegments = Keyframe.readVarint(in);
+        if (drawing) {
+            line.tolerance = in.readFloat();
+            line.started = in.readBoolean();
+            line.anchorX = in.readFloat();
+            line.anchorY = in.readFloat();
+            line.endX = in.readFloat();
+            line.endY = in.readFloat();
+            line.spanOpen = in.readBoolean();
+            line.spanSize = Keyframe.readVarint(in);
+            if (line.spanSize < 0 || line.spanSize > MAX_SPAN) {
+                throw new IOException("Invalid line span size " + line.spanSize);
+            }
+            for (int i = 0; i < line.spanSize * 2; i++) {
+                line.span[i] = in.readFloat();
+            }
+        }
+
+        int count = Keyframe.readVarint(in);
+        boolean whole = in.readBoolean();
+        int lastX = 0;
+        int lastY = 0;
+        for (int i = 0; i < count; i++) {
+            if (whole) {
+                int first = Keyframe.readVarint(in);
+                int fromX = lastX;
+                int fromY = lastY;
+                int dx;
+                if ((first & 1) != 0) {
+                    dx = InputReader.unzigzag(first >>> 1);
+                } else {
+                    fromX += InputReader.unzigzag(first >>> 1);
+                    fromY += InputReader.unzigzag(Keyframe.readVarint(in));
+                    dx = InputReader.unzigzag(Keyframe.readVarint(in));
+                }
+                lastX = fromX + dx;
+                lastY = fromY + InputReader.unzigzag(Keyframe.readVarint(in));
+                line.appendSegment(new LineSegment(fromX, fromY, lastX, lastY));
+            } else {
+                line.appendSegment(new LineSegment(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat()));
+            }
+        }
+
+        if (!drawing && count > 0) {
+            LineSegment last = line.segments.get(count - 1);
+            line.started = true;
+            line.anchorX = last.getEndX();
+            line.anchorY = last.getEndY();
+            line.endX = line.anchorX;
+            line.endY = line.anchorY;
+        }
+        return line;
+    }
+
+    // Check that every coordinate is a whole pixel that the varint deltas hold exactly
+    private boolean isWhole() {
+        for (LineSegment segment : segments) {
+            if (!isWhole(segment.getStartX()) || !isWhole(segment.getStartY())
+                    || !isWhole(segment.getEndX()) || !isWhole(segment.getEndY())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhole(float value) {
+        return value == (int) value && Math.abs(value) <= 1 << 24;
     }
 
     /**
@@ -44,13 +369,26 @@ public class Line {
      * @param app The PApplet object used to draw the line.
      */
     public void draw(PApplet app) {
+        app.stroke(0); // Black colour for the line
+        app.strokeWeight(10); // Set line thickness
         for (LineSegment segment : segments) {
-            app.stroke(0); // Black colour for the line
-            app.strokeWeight(10); // Set line thickness
             app.line(segment.getStartX(), segment.getStartY(), segment.getEndX(), segment.getEndY());
         }
     }
 
+    /**
+     * Draws the entire line into an offscreen layer, the same way as it is drawn on
+     * the screen.
+     * @param g The layer to draw into, with the window's top left at the origin.
+     */
+    public void draw(PGraphics g) {
+        g.stroke(0);
+        g.strokeWeight(10);
+        for (LineSegment segment : segments) {
+            g.line(segment.getStartX(), segment.getStartY(), segment.getEndX(), segment.getEndY());
+        }
+    }
+
     /**
      * Check if the line is colliding with the ball.
      * @param ball  The ball to check for collision with the line.
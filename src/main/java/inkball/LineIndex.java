@@ -0,0 +1,264 @@
+package inkball;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The LineIndex class is a spatial hash over the live segments of
+ * player-drawn lines. The board is split into cells the size of a tile, and
+ * every segment is registered in each cell a ball centre could be in while
+ * touching it. Segments are inserted as a line is drawn and removed together
+ * with their line, so a collision query only tests the segments near a ball
+ * instead of every segment of every line.
+ *
+ * Only the cells that segments have been inserted into are kept, in an
+ * open-addressing table keyed by cell index, so an index over a large board
+ * with few lines stays small.
+ */
+public class LineIndex {
+    // Furthest distance from a segment at which BallStore.isCollidingWithLine can report a hit
+    private static final float REACH = Ball.RADIUS + 1;
+
+    // Starting number of slots in the cell table, a power of two
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int width;
+    private int height;
+    private int size;
+
+    // Cell table, slot i holds the segments of cell cellKeys[i] - 1, or nothing if the key is 0
+    private int[] cellKeys;
+    private List<LineSegment>[] cellSegments;
+    private int cellCount;
+    private int shift;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the LineIndex class, creates an empty index.
+     * @param width     The width of the board in tiles
+     * @param height    The height of the board in tiles
+     */
+    public LineIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        allocateCells(INITIAL_CAPACITY);
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the number of segments in the index
+     * @return  The number of live segments
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the segments registered in the cell that contains a point
+     * @param px    The x-coordinate of the point in pixels
+     * @param py    The y-coordinate of the point in pixels
+     * @return      The segments registered in the cell
+     */
+    public List<LineSegment> getCandidates(float px, float py) {
+        return getCell(toCellX(px) + toCellY(py) * width);
+    }
+
+    /**
+     * Get the column of the cell that contains an x-coordinate, clamped to
+     * the board
+     * @param px    The x-coordinate in pixels
+     * @return      The column of the cell
+     */
+    public int getColumn(float px) {
+        return toCellX(px);
+    }
+
+    /**
+     * Get the row of the cell that contains a y-coordinate, clamped to the
+     * board
+     * @param py    The y-coordinate in pixels
+     * @return      The row of the cell
+     */
+    public int getRow(float py) {
+        return toCellY(py);
+    }
+
+    /**
+     * Get the segments registered in the cell at a column and row
+     * @param column    The column of the cell
+     * @param row       The row of the cell
+     * @return          The segments registered in the cell
+     */
+    public List<LineSegment> getCandidatesAt(int column, int row) {
+        return getCell(column + row * width);
+    }
+
+    /**
+     * Get the number of cells segments have been inserted into
+     * @return  The number of cells the index keeps
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Add a segment to every cell a ball centre could be in while touching it
+     * @param segment   The segment to add
+     */
+    public void insert(LineSegment segment) {
+        forEachCell(segment, true);
+        size++;
+    }
+
+    /**
+     * Remove a segment from the index
+     * @param segment   The segment to remove
+     */
+    public void remove(LineSegment segment) {
+        forEachCell(segment, false);
+        size--;
+    }
+
+    /**
+     * Remove every segment of a line from the index
+     * @param line  The line to remove
+     */
+    public void remove(Line line) {
+        for (LineSegment segment : line.getSegments()) {
+            remove(segment);
+        }
+    }
+
+    /**
+     * Remove every segment from the index
+     */
+    public void clear() {
+        for (List<LineSegment> cell : cellSegments) {
+            if (cell != null) {
+                cell.clear();
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Find the first live segment the ball will collide with in its next
+     * position.
+     * @param ball  The ball to check
+     * @return      The segment that was hit, or null if there is none
+     */
+    public LineSegment query(Ball ball) {
+        // Taking the slot first gives a ball that is not in a store one of its own
+        int slot = ball.getSlot();
+        return query(ball.getStore(), slot);
+    }
+
+    /**
+     * Find the first live segment a ball in a ball store will collide with in
+     * its next position.
+     * @param store The store that holds the ball
+     * @param slot  The slot of the ball
+     * @return      The segment that was hit, or null if there is none
+     */
+    public LineSegment query(BallStore store, int slot) {
+        float nextX = store.getPosX(slot) + store.getVelocityX(slot);
+        float nextY = store.getPosY(slot) + store.getVelocityY(slot);
+        List<LineSegment> candidates = getCandidates(nextX, nextY);
+        for (int i = 0; i < candidates.size(); i++) {
+            LineSegment segment = candidates.get(i);
+            if (store.isCollidingWithLine(slot, segment)) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    // --- Cells covered by a segment ---
+    private void forEachCell(LineSegment segment, boolean add) {
+        int minCx = toCellX(Math.min(segment.startX, segment.endX) - REACH);
+        int maxCx = toCellX(Math.max(segment.startX, segment.endX) + REACH);
+        int minCy = toCellY(Math.min(segment.startY, segment.endY) - REACH);
+        int maxCy = toCellY(Math.max(segment.startY, segment.endY) + REACH);
+
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                if (add) {
+                    getOrCreateCell(cx + cy * width).add(segment);
+                } else {
+                    getCell(cx + cy * width).remove(segment);
+                }
+            }
+        }
+    }
+
+    // --- Cell table ---
+    // The segments of a cell, or an empty list if none were ever inserted into it
+    private List<LineSegment> getCell(int cell) {
+        int key = cell + 1;
+        for (int i = slotOf(cell); ; i = (i + 1) & (cellKeys.length - 1)) {
+            if (cellKeys[i] == key) {
+                return cellSegments[i];
+            }
+            if (cellKeys[i] == 0) {
+                return Collections.emptyList();
+            }
+        }
+    }
+
+    private List<LineSegment> getOrCreateCell(int cell) {
+        int key = cell + 1;
+        for (int i = slotOf(cell); ; i = (i + 1) & (cellKeys.length - 1)) {
+            if (cellKeys[i] == key) {
+                return cellSegments[i];
+            }
+            if (cellKeys[i] == 0) {
+                // Keep the table at most half full so probes stay short
+                if (2 * (cellCount + 1) > cellKeys.length) {
+                    grow();
+                    return getOrCreateCell(cell);
+                }
+                cellKeys[i] = key;
+                cellSegments[i] = new ArrayList<>();
+                cellCount++;
+                return cellSegments[i];
+            }
+        }
+    }
+
+    private void grow() {
+        int[] oldKeys = cellKeys;
+        List<LineSegment>[] oldSegments = cellSegments;
+        allocateCells(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slotOf(oldKeys[i] - 1);
+                while (cellKeys[slot] != 0) {
+                    slot = (slot + 1) & (cellKeys.length - 1);
+                }
+                cellKeys[slot] = oldKeys[i];
+                cellSegments[slot] = oldSegments[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocateCells(int capacity) {
+        cellKeys = new int[capacity];
+        cellSegments = new List[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int slotOf(int cell) {
+        return (cell * 0x9E3779B9) >>> shift;
+    }
+
+    private int toCellX(float px) {
+        return Math.max(0, Math.min(width - 1, (int) Math.floor(px / App.CELLSIZE)));
+    }
+
+    private int toCellY(float py) {
+        return Math.max(0, Math.min(height - 1, (int) Math.floor((py - App.TOPBAR) / App.CELLSIZE)));
+    }
+}
@@ -7,11 +7,22 @@ import processing.core.PApplet;
  * This class represents a line segment in the game. Line segments are used to
  * draw player-drawn lines, create hitboxes for wall tiles, and check for
  * collisions with the ball. Each segment has a starting and ending point 
- * defined by its coordinates.
+ * defined by its coordinates. The length and unit normal of a segment are
+ * computed once on construction so that collision checks against it do not
+ * allocate or take square roots.
  */
 public class LineSegment {
     float startX, startY, endX, endY;
 
+    // Precomputed geometry used by the collision kernel
+    private final float dx, dy;
+    private final float lengthSquared;
+    private final float length;
+    private final float normalX, normalY;
+
+    // The player-drawn line this segment belongs to, null for wall edges
+    private Line line;
+
     // -------------------------- Constructor ----------------------------------
     /**
      * Constructor for the LineSegment class, constructs a LineSegment object
@@ -25,6 +36,20 @@ public class LineSegment {
         this.startY = startY;
         this.endX = endX;
         this.endY = endY;
+
+        this.dx = endX - startX;
+        this.dy = endY - startY;
+        this.lengthSquared = dx * dx + dy * dy;
+        this.length = (float) Math.sqrt(lengthSquared);
+
+        // Left-hand normal (-dy, dx), a zero-length segment has no normal
+        if (length > 0) {
+            this.normalX = -dy / length;
+            this.normalY = dx / length;
+        } else {
+            this.normalX = 0;
+            this.normalY = 0;
+        }
     }
 
     // --------------------- Getters and Setters -------------------------------
@@ -60,6 +85,75 @@ public class LineSegment {
         return endY;
     }
     
+    /**
+     * Get the length of the line segment
+     * @return The length of the line segment
+     */
+    public float getLength() {
+        return length;
+    }
+
+    /**
+     * Get the x-component of the unit normal (-dy, dx) of the line segment
+     * @return The x-component of the normal, 0 for a zero-length segment
+     */
+    public float getNormalX() {
+        return normalX;
+    }
+
+    /**
+     * Get the y-component of the unit normal (-dy, dx) of the line segment
+     * @return The y-component of the normal, 0 for a zero-length segment
+     */
+    public float getNormalY() {
+        return normalY;
+    }
+
+    /**
+     * Get the player-drawn line this segment belongs to
+     * @return The owning line, or null if the segment is not part of a line
+     */
+    public Line getLine() {
+        return line;
+    }
+
+    /**
+     * Set the player-drawn line this segment belongs to
+     * @param line The owning line
+     */
+    public void setLine(Line line) {
+        this.line = line;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Get the squared distance from a point to the closest point on the line
+     * segment. The point is projected onto the segment and the projection is
+     * clamped to its end points.
+     * @param px    The x-coordinate of the point
+     * @param py    The y-coordinate of the point
+     * @return      The squared distance from the point to the line segment
+     */
+    public float distanceSquaredTo(float px, float py) {
+        float ox = px - startX;
+        float oy = py - startY;
+
+        if (lengthSquared == 0) {
+            return ox * ox + oy * oy;
+        }
+
+        float t = (ox * dx + oy * dy) / lengthSquared;
+        if (t < 0) {
+            t = 0;
+        } else if (t > 1) {
+            t = 1;
+        }
+
+        float cx = ox - t * dx;
+        float cy = oy - t * dy;
+        return cx * cx + cy * cy;
+    }
+
     // ----------------------------- Drawing -----------------------------------
     /**
      * Draw the line segment on the game window. The line is drawn with a stroke
@@ -0,0 +1,439 @@
+package inkball;
+
+import java.io.PrintStream;
+
+/**
+ * The Log class is the levelled logger of the game. Messages are written
+ * into a preallocated ring buffer and printed by a background writer thread,
+ * so logging from the frame loop never waits on the console.
+ *
+ * Messages take a format with {} placeholders and up to two arguments, which
+ * are only turned into text by the writer. Arguments should be values that
+ * do not change after they are logged. If the last argument is a Throwable,
+ * its stack trace is printed after the message. A message below the log
+ * level returns before doing anything else, so disabled messages cost a
+ * comparison. Each format is printed at most RATE_LIMIT times a second, and
+ * the repeats over that are counted and reported once the second is over. If
+ * the buffer is full the message is dropped and counted rather than blocking
+ * the caller.
+ *
+ * The level is read from the inkball.log system property, such as
+ * -Dinkball.log=debug, and is INFO by default.
+ */
+public final class Log {
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    public static final int ERROR = 3;
+    public static final int OFF = 4;
+    private static final String[] NAMES = {"DEBUG", "INFO", "WARN", "ERROR"};
+
+    // Size of the ring buffer, a power of two
+    public static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+
+    // Most times a format is printed in one window
+    public static final int RATE_LIMIT = 10;
+    private static final long RATE_WINDOW = 1_000_000_000L;
+    private static final int RATE_SLOTS = 64;
+
+    // How long the writer sleeps when the buffer is quiet
+    private static final long DRAIN_INTERVAL = 100;
+    private static final String SUPPRESSED = "{} repeats of \"{}\" were suppressed";
+
+    private static volatile int threshold = parseLevel(System.getProperty("inkball.log"), INFO);
+    private static volatile PrintStream output;
+
+    // Ring buffer, guarded by LOCK
+    private static final Object LOCK = new Object();
+    private static final int[] levels = new int[CAPACITY];
+    private static final String[] formats = new String[CAPACITY];
+    private static final Object[] firstArgs = new Object[CAPACITY];
+    private static final Object[] secondArgs = new Object[CAPACITY];
+    private static long head;
+    private static long tail;
+    private static long dropped;
+    private static long suppressed;
+
+    // Rate limit windows by format, guarded by LOCK
+    private static final String[] rateFormats = new String[RATE_SLOTS];
+    private static final int[] rateLevels = new int[RATE_SLOTS];
+    private static final long[] rateStarts = new long[RATE_SLOTS];
+    private static final int[] rateCounts = new int[RATE_SLOTS];
+    private static final int[] rateSuppressed = new int[RATE_SLOTS];
+
+    // Entries taken off the buffer, guarded by WRITE_LOCK
+    private static final Object WRITE_LOCK = new Object();
+    private static final int[] batchLevels = new int[CAPACITY];
+    private static final String[] batchFormats = new String[CAPACITY];
+    private static final Object[] batchFirstArgs = new Object[CAPACITY];
+    private static final Object[] batchSecondArgs = new Object[CAPACITY];
+    private static final StringBuilder line = new StringBuilder();
+
+    private static volatile Thread writer;
+
+    private Log() {
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the lowest level that is logged
+     * @return  The log level, DEBUG to OFF
+     */
+    public static int getLevel() {
+        return threshold;
+    }
+
+    /**
+     * Set the lowest level that is logged
+     * @param level The log level, DEBUG to OFF
+     */
+    public static void setLevel(int level) {
+        if (level < DEBUG || level > OFF) {
+            throw new IllegalArgumentException("Invalid log level: " + level);
+        }
+        threshold = level;
+    }
+
+    /**
+     * Check if messages of a level are logged, to skip building arguments
+     * that are expensive to compute
+     * @param level The log level
+     * @return      True if messages of the level are logged
+     */
+    public static boolean isEnabled(int level) {
+        return level >= threshold;
+    }
+
+    /**
+     * Set the stream every message is printed to
+     * @param stream    The stream, or null to print warnings and errors to
+     *                  System.err and everything else to System.out
+     */
+    public static void setOutput(PrintStream stream) {
+        output = stream;
+    }
+
+    /**
+     * Get the number of messages dropped because the buffer was full
+     * @return  The number of dropped messages
+     */
+    public static long getDropped() {
+        synchronized (LOCK) {
+            return dropped;
+        }
+    }
+
+    /**
+     * Get the number of messages held back by the rate limit
+     * @return  The number of suppressed messages
+     */
+    public static long getSuppressed() {
+        synchronized (LOCK) {
+            return suppressed;
+        }
+    }
+
+    // ----------------------------- Logging -----------------------------------
+    /**
+     * Log a debug message
+     * @param format    The message
+     */
+    public static void debug(String format) {
+        if (DEBUG >= threshold) {
+            append(DEBUG, format, null, null);
+        }
+    }
+
+    /**
+     * Log a debug message
+     * @param format    The message, with {} in place of the argument
+     * @param arg       The argument
+     */
+    public static void debug(String format, Object arg) {
+        if (DEBUG >= threshold) {
+            append(DEBUG, format, arg, null);
+        }
+    }
+
+    /**
+     * Log a debug message
+     * @param format    The message, with {} in place of each argument
+     * @param first     The first argument
+     * @param second    The second argument
+     */
+    public static void debug(String format, Object first, Object second) {
+        if (DEBUG >= threshold) {
+            append(DEBUG, format, first, second);
+        }
+    }
+
+    /**
+     * Log an info message
+     * @param format    The message
+     */
+    public static void info(String format) {
+        if (INFO >= threshold) {
+            append(INFO, format, null, null);
+        }
+    }
+
+    /**
+     * Log an info message
+     * @param format    The message, with {} in place of the argument
+     * @param arg       The argument
+     */
+    public static void info(String format, Object arg) {
+        if (INFO >= threshold) {
+            append(INFO, format, arg, null);
+        }
+    }
+
+    /**
+     * Log an info message
+     * @param format    The message, with {} in place of each argument
+     * @param first     The first argument
+     * @param second    The second argument
+     */
+    public static void info(String format, Object first, Object second) {
+        if (INFO >= threshold) {
+            append(INFO, format, first, second);
+        }
+    }
+
+    /**
+     * Log a warning
+     * @param format    The message
+     */
+    public static void warn(String format) {
+        if (WARN >= threshold) {
+            append(WARN, format, null, null);
+        }
+    }
+
+    /**
+     * Log a warning
+     * @param format    The message, with {} in place of the argument
+     * @param arg       The argument
+     */
+    public static void warn(String format, Object arg) {
+        if (WARN >= threshold) {
+            append(WARN, format, arg, null);
+        }
+    }
+
+    /**
+     * Log a warning
+     * @param format    The message, with {} in place of each argument
+     * @param first     The first argument
+     * @param second    The second argument
+     */
+    public static void warn(String format, Object first, Object second) {
+        if (WARN >= threshold) {
+            append(WARN, format, first, second);
+        }
+    }
+
+    /**
+     * Log an error
+     * @param format    The message
+     */
+    public static void error(String format) {
+        if (ERROR >= threshold) {
+            append(ERROR, format, null, null);
+        }
+    }
+
+    /**
+     * Log an error
+     * @param format    The message, with {} in place of the argument
+     * @param arg       The argument
+     */
+    public static void error(String format, Object arg) {
+        if (ERROR >= threshold) {
+            append(ERROR, format, arg, null);
+        }
+    }
+
+    /**
+     * Log an error
+     * @param format    The message, with {} in place of each argument
+     * @param first     The first argument
+     * @param second    The second argument
+     */
+    public static void error(String format, Object first, Object second) {
+        if (ERROR >= threshold) {
+            append(ERROR, format, first, second);
+        }
+    }
+
+    /**
+     * Print every message in the buffer now, on the calling thread
+     */
+    public static void flush() {
+        while (drain() > 0) {
+            // Keep going until the buffer is empty
+        }
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    private static void append(int level, String format, Object first, Object second) {
+        boolean wake;
+        synchronized (LOCK) {
+            if (isRateLimited(level, format)) {
+                return;
+            }
+            enqueue(level, format, first, second);
+            wake = tail - head == CAPACITY / 2;
+        }
+        if (writer == null) {
+            startWriter();
+        } else if (wake) {
+            synchronized (LOCK) {
+                LOCK.notify();
+            }
+        }
+    }
+
+    // Called with LOCK held
+    private static void enqueue(int level, String format, Object first, Object second) {
+        if (tail - head >= CAPACITY) {
+            dropped++;
+            return;
+        }
+        int index = (int) (tail & MASK);
+        levels[index] = level;
+        formats[index] = format;
+        firstArgs[index] = first;
+        secondArgs[index] = second;
+        tail++;
+    }
+
+    // Called with LOCK held, counts the message against its format's window
+    private static boolean isRateLimited(int level, String format) {
+        int slot = (System.identityHashCode(format) * 0x9E3779B9 >>> 26) & (RATE_SLOTS - 1);
+        long now = System.nanoTime();
+
+        if (rateFormats[slot] != format || now - rateStarts[slot] >= RATE_WINDOW) {
+            reportSuppressed(slot);
+            rateFormats[slot] = format;
+            rateLevels[slot] = level;
+            rateStarts[slot] = now;
+            rateCounts[slot] = 0;
+        }
+
+        if (rateCounts[slot] >= RATE_LIMIT) {
+            rateSuppressed[slot]++;
+            suppressed++;
+            return true;
+        }
+        rateCounts[slot]++;
+        return false;
+    }
+
+    // Called with LOCK held
+    private static void reportSuppressed(int slot) {
+        if (rateSuppressed[slot] > 0) {
+            enqueue(rateLevels[slot], SUPPRESSED, rateSuppressed[slot], rateFormats[slot]);
+            rateSuppressed[slot] = 0;
+        }
+    }
+
+    private static synchronized void startWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(Log::run, "inkball-log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "inkball-log-flush"));
+    }
+
+    private static void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (drain() == 0) {
+                synchronized (LOCK) {
+                    try {
+                        if (tail == head) {
+                            LOCK.wait(DRAIN_INTERVAL);
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // Takes what is in the buffer off it and prints it, returns how many messages were printed
+    private static int drain() {
+        synchronized (WRITE_LOCK) {
+            int count;
+            synchronized (LOCK) {
+                count = (int) (tail - head);
+                for (int i = 0; i < count; i++) {
+                    int index = (int) ((head + i) & MASK);
+                    batchLevels[i] = levels[index];
+                    batchFormats[i] = formats[index];
+                    batchFirstArgs[i] = firstArgs[index];
+                    batchSecondArgs[i] = secondArgs[index];
+                    formats[index] = null;
+                    firstArgs[index] = null;
+                    secondArgs[index] = null;
+                }
+                head = tail;
+            }
+
+            for (int i = 0; i < count; i++) {
+                print(batchLevels[i], batchFormats[i], batchFirstArgs[i], batchSecondArgs[i]);
+                batchFormats[i] = null;
+                batchFirstArgs[i] = null;
+                batchSecondArgs[i] = null;
+            }
+            return count;
+        }
+    }
+
+    // Called with WRITE_LOCK held
+    private static void print(int level, String format, Object first, Object second) {
+        line.setLength(0);
+        line.append('[').append(NAMES[level]).append("] ");
+
+        int start = 0;
+        int argument = 0;
+        int placeholder;
+        while (argument < 2 && (placeholder = format.indexOf("{}", start)) >= 0) {
+            line.append(format, start, placeholder);
+            line.append(argument == 0 ? first : second);
+            argument++;
+            start = placeholder + 2;
+        }
+        line.append(format, start, format.length());
+
+        PrintStream stream = output;
+        if (stream == null) {
+            stream = level >= WARN ? System.err : System.out;
+        }
+        stream.println(line);
+
+        // An exception passed last also has its stack trace printed, as in SLF4J
+        Object last = second != null ? second : first;
+        if (last instanceof Throwable) {
+            ((Throwable) last).printStackTrace(stream);
+        }
+    }
+
+    private static int parseLevel(String name, int fallback) {
+        if (name != null) {
+            for (int i = 0; i < NAMES.length; i++) {
+                if (NAMES[i].equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+            if ("off".equalsIgnoreCase(name)) {
+                return OFF;
+            }
+        }
+        return fallback;
+    }
+}
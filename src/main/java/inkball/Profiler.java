@@ -0,0 +1,237 @@
+package inkball;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+
+/**
+ * The Profiler class times the phases of a frame. Each phase has a
+ * LatencyHistogram, and a phase is timed by taking a start time before it
+ * and passing it to stop after it:
+ *
+ *     long start = Profiler.start();
+ *     hud.drawTopBar(...);
+ *     Profiler.stop(Profiler.HUD, start);
+ *
+ * Timing is on by default and costs two System.nanoTime calls per phase. It
+ * can be turned off with -Dinkball.profile=off, and -Dinkball.profile=FILE
+ * writes the table of every phase to FILE when the game exits. Phases are
+ * recorded and read on the animation thread.
+ *
+ * Counters record a number once a frame, such as the draw calls of the board,
+ * in the same kind of histogram. They are printed after the phases.
+ */
+public final class Profiler {
+    // The whole of App.draw
+    public static final int FRAME = 0;
+    // Drawing the top bar
+    public static final int HUD = 1;
+    // Counting down the level timer
+    public static final int TIMER = 2;
+    // Updating the spawners and spawning balls
+    public static final int SPAWN = 3;
+    // Moving the balls, attracting them to holes and colliding them with walls and lines
+    public static final int BALLS = 4;
+    // Colliding the balls with each other
+    public static final int BALL_COLLISION = 5;
+    // Drawing the tiles and holes
+    public static final int BOARD = 6;
+    // Drawing the spawners
+    public static final int SPAWNERS = 7;
+    // Drawing the balls
+    public static final int BALL_DRAW = 8;
+    // Drawing the finished lines and the line being drawn
+    public static final int LINES = 9;
+
+    private static final String[] NAMES = {
+        "frame", "hud", "timer", "spawn", "balls", "ball-collision",
+        "board", "spawners", "ball-draw", "lines"
+    };
+    public static final int PHASES = NAMES.length;
+
+    // The draw calls the board issued for a frame
+    public static final int DRAW_CALLS = 0;
+
+    private static final String[] COUNTER_NAMES = {
+        "draw-calls"
+    };
+    public static final int COUNTERS = COUNTER_NAMES.length;
+
+    private static final LatencyHistogram[] histograms = new LatencyHistogram[PHASES];
+    private static final LatencyHistogram[] counters = new LatencyHistogram[COUNTERS];
+    static {
+        for (int i = 0; i < PHASES; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < COUNTERS; i++) {
+            counters[i] = new LatencyHistogram();
+        }
+    }
+
+    private static final String SETTING = System.getProperty("inkball.profile");
+    private static volatile boolean enabled = !"off".equalsIgnoreCase(SETTING);
+    private static Thread dumpHook;
+
+    private Profiler() {
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Check if phases are being timed
+     * @return  True if phases are timed
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn timing on or off
+     * @param enabled   True to time phases
+     */
+    public static void setEnabled(boolean enabled) {
+        Profiler.enabled = enabled;
+    }
+
+    /**
+     * Get the name of a phase
+     * @param phase The phase, FRAME to LINES
+     * @return      The name of the phase
+     */
+    public static String getName(int phase) {
+        return NAMES[phase];
+    }
+
+    /**
+     * Get the timings of a phase
+     * @param phase The phase, FRAME to LINES
+     * @return      The histogram of the phase
+     */
+    public static LatencyHistogram getHistogram(int phase) {
+        return histograms[phase];
+    }
+
+    /**
+     * Get the name of a counter
+     * @param counter   The counter, such as DRAW_CALLS
+     * @return          The name of the counter
+     */
+    public static String getCounterName(int counter) {
+        return COUNTER_NAMES[counter];
+    }
+
+    /**
+     * Get the values recorded by a counter
+     * @param counter   The counter, such as DRAW_CALLS
+     * @return          The histogram of the counter
+     */
+    public static LatencyHistogram getCounter(int counter) {
+        return counters[counter];
+    }
+
+    /**
+     * Get the file the timings are written to on exit
+     * @return  The file, or null if they are not written
+     */
+    public static File getDumpFile() {
+        if (SETTING == null || SETTING.isEmpty() || "off".equalsIgnoreCase(SETTING)
+                || "on".equalsIgnoreCase(SETTING)) {
+            return null;
+        }
+        return new File(SETTING);
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Get the start time of a phase
+     * @return  The current time in nanoseconds, or 0 if timing is off
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the time since the start of a phase
+     * @param phase The phase, FRAME to LINES
+     * @param start The time returned by start
+     */
+    public static void stop(int phase, long start) {
+        if (enabled && start != 0) {
+            histograms[phase].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record the value of a counter for a frame
+     * @param counter   The counter, such as DRAW_CALLS
+     * @param value     The value for the frame
+     */
+    public static void count(int counter, long value) {
+        if (enabled) {
+            counters[counter].record(value);
+        }
+    }
+
+    /**
+     * Forget the timings of every phase and the values of every counter
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        for (LatencyHistogram counter : counters) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Write a table of the timings of every phase, in microseconds, followed
+     * by a table of the values of every counter
+     * @param out   The stream to write to
+     */
+    public static void dump(PrintStream out) {
+        out.printf("%-16s %10s %10s %10s %10s %10s%n", "phase", "count", "mean", "p50", "p99", "max");
+        for (int i = 0; i < PHASES; i++) {
+            LatencyHistogram histogram = histograms[i];
+            out.printf("%-16s %10d %10.1f %10.1f %10.1f %10.1f%n", NAMES[i], histogram.getCount(),
+                    histogram.getMean() / 1000, histogram.getPercentile(50) / 1000.0,
+                    histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0);
+        }
+
+        out.printf("%-16s %10s %10s %10s %10s %10s%n", "counter", "count", "mean", "p50", "p99", "max");
+        for (int i = 0; i < COUNTERS; i++) {
+            LatencyHistogram counter = counters[i];
+            out.printf("%-16s %10d %10.1f %10d %10d %10d%n", COUNTER_NAMES[i], counter.getCount(),
+                    counter.getMean(), counter.getPercentile(50), counter.getPercentile(99), counter.getMax());
+        }
+    }
+
+    /**
+     * Write the table of timings to the dump file when the game exits. Does
+     * nothing if no dump file is set or this was already called.
+     */
+    public static synchronized void dumpOnExit() {
+        File file = getDumpFile();
+        if (file == null || dumpHook != null) {
+            return;
+        }
+        dumpHook = new Thread(() -> dump(file), "inkball-profile-dump");
+        Runtime.getRuntime().addShutdownHook(dumpHook);
+    }
+
+    /**
+     * Write the table of timings to a file, replacing it
+     * @param file  The file to write to
+     * @return      True if the file was written
+     */
+    public static boolean dump(File file) {
+        try (PrintStream out = new PrintStream(file)) {
+            dump(out);
+            return !out.checkError();
+        } catch (FileNotFoundException e) {
+            // Called from a shutdown hook, so the message is printed straight away
+            Log.error("Profile could not be written to {}.", file);
+            Log.flush();
+            return false;
+        }
+    }
+}
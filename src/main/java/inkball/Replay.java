@@ -0,0 +1,428 @@
+package inkball;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import processing.core.PApplet;
+import processing.data.JSONObject;
+
+/**
+ * The Replay class plays a recording made by the InputRecorder class back
+ * headless. Each level is loaded with its recorded seed and the recorded
+ * input is applied at the tick it was made at, so the replay plays out
+ * exactly as the session did. Nothing is drawn, so a replay runs as fast as
+ * the simulation, hundreds of times faster than the game.
+ *
+ * Frames are counted over the whole recording, one per simulation tick, and
+ * the state of a frame includes the input recorded at it. The whole
+ * recording is read into memory up front, together with its keyframes. To
+ * show a frame, seek restores the last keyframe before it and simulates the
+ * rest of the way, so no frame is more than InputRecorder.KEYFRAME_INTERVAL
+ * ticks of simulation away. play only hands the frames it is asked for to a
+ * FrameListener, which can draw them.
+ */
+public class Replay {
+
+    /**
+     * Receives the frames a replay is asked to show
+     */
+    public interface FrameListener {
+        /**
+         * Called when the replay reaches a requested frame
+         * @param frame     The frame, counted from the start of the recording
+         * @param replay    The replay, holding the state of the frame
+         */
+        void onFrame(int frame, Replay replay);
+    }
+
+    private GameConfig config;
+    // Used only to load sprites for the balls, may be null when running headless
+    private PApplet app;
+
+    // The recorded events, with their ticks turned into frames
+    private long sessionSeed;
+    private int eventCount;
+    private int[] types = new int[256];
+    private int[] frames = new int[256];
+    private int[] xs = new int[256];
+    private int[] ys = new int[256];
+    private int[] levelEvents = new int[256]; // The level event each event belongs to
+    private int[] levelIndexes = new int[256];
+    private long[] seeds = new long[256];
+    private Keyframe[] keyframes = new Keyframe[256];
+    private String[][] layouts;
+
+    // Events that hold keyframes, in frame order
+    private int[] keyframeEvents = new int[16];
+    private int keyframeCount;
+
+    // Playback state
+    private int next; // The next event to apply
+    private int frame;
+    private GameStateManager gameStateManager;
+    private Simulation simulation;
+    private int levelIndex = -1;
+    private Line currentLine;
+    private long simulatedTicks;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the Replay class, reads the whole recording
+     * @param config        The configuration the recording was made with
+     * @param reader        The recording, read to the end but not closed
+     * @param app           The PApplet used to load ball sprites, or null to run headless
+     * @throws IOException  If the recording cannot be read
+     */
+    public Replay(GameConfig config, InputReader reader, PApplet app) throws IOException {
+        this.config = config;
+        this.app = app;
+        this.sessionSeed = reader.getSessionSeed();
+        this.layouts = new String[config.getLevelCount()][];
+
+        int levelEvent = -1;
+        int levelStart = 0;
+        while (reader.next()) {
+            int event = addEvent(reader.getType(), levelStart + reader.getTick());
+            xs[event] = reader.getX();
+            ys[event] = reader.getY();
+
+            if (reader.getType() == InputRecorder.LEVEL) {
+                levelEvent = event;
+                levelStart = frames[event];
+                levelIndexes[event] = reader.getLevelIndex();
+                seeds[event] = reader.getSeed();
+            }
+            levelEvents[event] = levelEvent;
+
+            if (reader.getType() == InputRecorder.KEYFRAME && levelEvent >= 0) {
+                keyframes[event] = reader.getKeyframe();
+                if (keyframeCount == keyframeEvents.length) {
+                    keyframeEvents = Arrays.copyOf(keyframeEvents, keyframeCount * 2);
+                }
+                keyframeEvents[keyframeCount++] = event;
+            }
+        }
+    }
+
+    /**
+     * Constructor for the Replay class, reads the whole recording to play it
+     * back headless
+     * @param config        The configuration the recording was made with
+     * @param reader        The recording, read to the end but not closed
+     * @throws IOException  If the recording cannot be read
+     */
+    public Replay(GameConfig config, InputReader reader) throws IOException {
+        this(config, reader, null);
+    }
+
+    /**
+     * Read a recording file to play it back headless
+     * @param config        The configuration the recording was made with
+     * @param file          The recording
+     * @return              The replay
+     * @throws IOException  If the file cannot be read or is not a recording
+     */
+    public static Replay open(GameConfig config, File file) throws IOException {
+        InputReader reader = InputReader.open(file);
+        try {
+            return new Replay(config, reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the seed of the session the recording was made in
+     * @return  The session seed
+     */
+    public long getSessionSeed() {
+        return sessionSeed;
+    }
+
+    /**
+     * Get the number of frames up to the last recorded event. Frames after it
+     * play on without input.
+     * @return  The frame of the last event
+     */
+    public int getFrameCount() {
+        return eventCount == 0 ? 0 : frames[eventCount - 1];
+    }
+
+    /**
+     * Get the number of keyframes in the recording
+     * @return  The number of keyframes
+     */
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+
+    /**
+     * Get the frame the replay is at
+     * @return  The frame, counted from the start of the recording
+     */
+    public int getFrame() {
+        return frame;
+    }
+
+    /**
+     * Get the index of the level being played
+     * @return  The level index, or -1 before the first frame is played
+     */
+    public int getLevelIndex() {
+        return levelIndex;
+    }
+
+    /**
+     * Get the simulation of the level being played
+     * @return  The simulation, or null before the first frame is played
+     */
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    /**
+     * Get the score and timer of the replay
+     * @return  The GameStateManager object, or null before the first frame is played
+     */
+    public GameStateManager getGameStateManager() {
+        return gameStateManager;
+    }
+
+    /**
+     * Get the line the player was drawing
+     * @return  The line being drawn, or null
+     */
+    public Line getCurrentLine() {
+        return currentLine;
+    }
+
+    /**
+     * Get the number of ticks simulated since the replay was created
+     * @return  The number of ticks
+     */
+    public long getSimulatedTicks() {
+        return simulatedTicks;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Move the replay to a frame. The replay simulates on from where it is if
+     * the frame is no more than a keyframe interval ahead or there is no
+     * keyframe in between, and otherwise starts from the last keyframe
+     * before the frame.
+     * @param target    The frame, counted from the start of the recording
+     */
+    public void seek(int target) {
+        if (target < 0) {
+            throw new IllegalArgumentException("Error: frame must not be negative: " + target);
+        }
+        int keyframe = findKeyframe(target);
+        boolean ahead = simulation != null && target >= frame
+                && (keyframe < next || target - frame <= InputRecorder.KEYFRAME_INTERVAL);
+        if (!ahead) {
+            if (keyframe >= 0) {
+                restore(keyframe);
+            } else {
+                rewind();
+            }
+        }
+        advance(target);
+    }
+
+    /**
+     * Play the replay through a list of frames, handing each to a listener.
+     * Nothing is drawn for the frames in between.
+     * @param targets   The frames to show, in the order to show them
+     * @param listener  The listener the frames are handed to
+     */
+    public void play(int[] targets, FrameListener listener) {
+        for (int target : targets) {
+            seek(target);
+            listener.onFrame(target, this);
+        }
+    }
+
+    // Starts the replay over from the first event
+    private void rewind() {
+        gameStateManager = null;
+        simulation = null;
+        levelIndex = -1;
+        currentLine = null;
+        frame = 0;
+        next = 0;
+    }
+
+    // Loads the level of a keyframe and puts it in the saved state
+    private void restore(int event) {
+        loadLevel(levelEvents[event]);
+        try {
+            currentLine = keyframes[event].restore(simulation);
+            frame = frames[event];
+            next = event + 1;
+        } catch (IOException e) {
+            Log.error("Keyframe at frame {} could not be restored: {}", frames[event], e.getMessage());
+            rewind();
+        }
+    }
+
+    // Applies the events and steps the simulation until the target frame, or the replay can go no further
+    private void advance(int target) {
+        while (true) {
+            while (next < eventCount && frames[next] <= frame) {
+                apply(next++);
+            }
+            if (frame >= target || simulation == null) {
+                return;
+            }
+
+            // A paused or finished level does not move until more input comes
+            int tick = simulation.getTick();
+            simulation.step();
+            if (simulation.getTick() == tick) {
+                return;
+            }
+            frame++;
+            simulatedTicks++;
+
+            // A ball hit the line being drawn, so stop drawing it
+            if (currentLine != null && currentLine.isRemoved()) {
+                currentLine = null;
+            }
+        }
+    }
+
+    // Applies an event the way the game's input handlers do
+    private void apply(int event) {
+        switch (types[event]) {
+            case InputRecorder.LEVEL:
+                if (gameStateManager != null) {
+                    gameStateManager.startLevel(levelIndexes[event], config.getLevel(levelIndexes[event]).getTimeLimit());
+                }
+                loadLevel(event);
+                break;
+            case InputRecorder.PRESS:
+                currentLine = simulation.createLine();
+                currentLine.addPoint(xs[event], ys[event]);
+                break;
+            case InputRecorder.POINT:
+                if (currentLine != null) {
+                    currentLine.addPoint(xs[event], ys[event]);
+                }
+                break;
+            case InputRecorder.RELEASE:
+                if (currentLine != null) {
+                    simulation.addLine(currentLine);
+                    currentLine = null;
+                }
+                break;
+            case InputRecorder.REMOVE:
+                simulation.removeLastLine();
+                break;
+            case InputRecorder.PAUSE:
+                gameStateManager.togglePause();
+                break;
+            default:
+                // A restart is followed by the level event that reloads the level
+                break;
+        }
+    }
+
+    // Loads the level of a level event with its seed, restarting it in place if it is already loaded
+    private void loadLevel(int event) {
+        boolean sameLevel = simulation != null && levelIndexes[event] == levelIndex;
+        currentLine = null;
+        if (sameLevel && simulation.restart(seeds[event])) {
+            return;
+        }
+        levelIndex = levelIndexes[event];
+        Level level = new Level(config, levelIndex);
+        if (gameStateManager == null) {
+            gameStateManager = new GameStateManager(null, level);
+        }
+        if (simulation == null) {
+            simulation = new Simulation(app, App.BOARD_WIDTH, App.BOARD_HEIGHT, gameStateManager);
+        }
+        if (layouts[levelIndex] == null) {
+            layouts[levelIndex] = Simulation.readLayout(level.getLayoutFile());
+        }
+        simulation.setSeed(seeds[event]);
+        simulation.loadLevel(level, layouts[levelIndex]);
+    }
+
+    // Returns the last keyframe event at or before a frame, or -1 if there is none
+    private int findKeyframe(int target) {
+        int low = 0;
+        int high = keyframeCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (frames[keyframeEvents[mid]] <= target) {
+                found = keyframeEvents[mid];
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private int addEvent(int type, int eventFrame) {
+        if (eventCount == types.length) {
+            int capacity = eventCount * 2;
+            types = Arrays.copyOf(types, capacity);
+            frames = Arrays.copyOf(frames, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            levelEvents = Arrays.copyOf(levelEvents, capacity);
+            levelIndexes = Arrays.copyOf(levelIndexes, capacity);
+            seeds = Arrays.copyOf(seeds, capacity);
+            keyframes = Arrays.copyOf(keyframes, capacity);
+        }
+        types[eventCount] = type;
+        frames[eventCount] = eventFrame;
+        return eventCount++;
+    }
+
+    /**
+     * Play a recording back headless and print the state at the given frames,
+     * or at the last recorded frame if none are given.
+     * Usage: Replay RECORDING [FRAME...]
+     * @param args          The recording file, then the frames to print
+     * @throws IOException  If the configuration or the recording cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: Replay RECORDING [FRAME...]");
+            System.exit(1);
+        }
+        byte[] bytes = Files.readAllBytes(Paths.get(GameConfig.FILE));
+        GameConfig config = GameConfig.parse(JSONObject.parse(new String(bytes, StandardCharsets.UTF_8)));
+        Replay replay = open(config, new File(args[0]));
+        if (replay.getFrameCount() == 0 && replay.getKeyframeCount() == 0) {
+            System.err.println("Error: " + args[0] + " has no levels to replay.");
+            System.exit(1);
+        }
+
+        int[] targets = new int[Math.max(1, args.length - 1)];
+        targets[0] = replay.getFrameCount();
+        for (int i = 1; i < args.length; i++) {
+            targets[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        long start = System.nanoTime();
+        replay.play(targets, (frame, shown) -> System.out.printf("frame %8d  level %d  score %6d  time %4s  balls %4d  lines %4d%n",
+                frame, shown.getLevelIndex() + 1, shown.getGameStateManager().getScore(),
+                shown.getGameStateManager().getRemainingTime(), shown.getSimulation().getBalls().size(),
+                shown.getSimulation().getLines().size()));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Simulated %d ticks in %.1f ms, %.0f times real time, %d keyframes%n",
+                replay.getSimulatedTicks(), seconds * 1000,
+                replay.getSimulatedTicks() / (double) App.FPS / Math.max(seconds, 1e-9), replay.getKeyframeCount());
+    }
+}
@@ -0,0 +1,979 @@
+package inkball;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import processing.core.PApplet;
+
+/**
+ * The Simulation class is the headless core of the game. It owns the tiles,
+ * balls, holes, spawners and player-drawn lines of a level and advances them
+ * in fixed timesteps of one frame, independently of the Processing render
+ * loop. The Board class is a view that draws the state held here, so a level
+ * can be run without a window and stepped faster than the frame rate.
+ */
+public class Simulation {
+    // Length of one simulation tick in seconds
+    public static final float TIMESTEP = 1.0f / App.FPS;
+
+    // Remaining time is converted to score at this multiple of real time once the level is won
+    private static final float TIME_TO_SCORE_RATE = 5.0f;
+
+    // Used only to load sprites for the objects created here, may be null when running headless
+    private PApplet app;
+
+    // Tile Variables
+    private TileGrid tiles;
+    private WallGrid wallGrid;
+    private int width;
+    private int height;
+
+    // Level Variables
+    private Level level;
+    private GameStateManager gameStateManager;
+
+    // Game Objects, the ball list is a view of the ball store
+    private BallStore ballStore;
+    private List<Ball> balls;
+    private List<Spawner> spawners;
+    private List<Hole> holes;
+    private List<Line> lines;
+    private LineIndex lineIndex;
+    private SweepAndPrune sweepAndPrune;
+
+    // Counts the times lines were taken off the board, so views can tell their copy is stale
+    private int lineRemovals;
+
+    // Most impacts a ball can resolve in one tick
+    public static final int DEFAULT_MAX_SUB_STEPS = 8;
+    private int maxSubSteps = DEFAULT_MAX_SUB_STEPS;
+
+    // Parallel ball update, smaller boards are cheaper to update on one thread
+    public static final int PARALLEL_THRESHOLD = 4096;
+    private static final int RANGES_PER_THREAD = 4;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool;
+    private BallRange[] ranges;
+    private CollisionLog[] logs = {new CollisionLog()};
+
+    // Ball directions and spawner choices, restarted from the seed when a level is loaded
+    private long seed = new Random().nextLong();
+    private StatefulRandom random = new StatefulRandom(seed);
+
+    // The balls and queue the loaded level started with, null until a level is loaded
+    private LevelStart levelStart;
+
+    // Timing Variables
+    private int tick = 0;
+    private int lastSpawnTick = 0;
+    private float timeToSpawn = 0;
+    private float accumulator = 0;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the Simulation class.
+     * @param app               The PApplet used to load sprites, or null to run headless
+     * @param width             The width of the board in tiles
+     * @param height            The height of the board in tiles
+     * @param gameStateManager  The GameStateManager object
+     */
+    public Simulation(PApplet app, int width, int height, GameStateManager gameStateManager) {
+        this.app = app;
+        this.width = width;
+        this.height = height;
+        this.tiles = new TileGrid(width, height);
+        this.ballStore = new BallStore(64);
+        this.balls = ballStore.asList();
+        this.spawners = new ArrayList<>();
+        this.holes = new ArrayList<>();
+        this.lines = new ArrayList<>();
+        this.lineIndex = new LineIndex(width, height);
+        this.sweepAndPrune = new SweepAndPrune();
+        this.gameStateManager = gameStateManager;
+
+        this.wallGrid = new WallGrid(tiles);
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get a view of the tile at the given board position.
+     * @param x The x-coordinate of the tile
+     * @param y The y-coordinate of the tile
+     * @return  The tile, or null if the position is outside the board
+     */
+    public Tile getTile(int x, int y) {
+        return tiles.getTile(x, y);
+    }
+
+    /**
+     * Get the grid the tiles of the board are stored in
+     * @return  The TileGrid object
+     */
+    public TileGrid getTileGrid() {
+        return tiles;
+    }
+
+    /**
+     * Get the width of the board in tiles.
+     * @return  The width of the board
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the board in tiles.
+     * @return  The height of the board
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the broad phase used for wall collisions.
+     * @return  The WallGrid built for the current level
+     */
+    public WallGrid getWallGrid() {
+        return wallGrid;
+    }
+
+    /**
+     * Get list of balls on the board.
+     * @return  List of ball objects
+     */
+    public List<Ball> getBalls() {
+        return balls;
+    }
+
+    /**
+     * Get the most wall and line impacts a ball can resolve in one tick.
+     * @return  The maximum number of sub-steps per tick
+     */
+    public int getMaxSubSteps() {
+        return maxSubSteps;
+    }
+
+    /**
+     * Set the most wall and line impacts a ball can resolve in one tick.
+     * Faster balls may need more sub-steps to bounce through tight corners.
+     * @param maxSubSteps   The maximum number of sub-steps per tick, at least 1
+     */
+    public void setMaxSubSteps(int maxSubSteps) {
+        if (maxSubSteps < 1) {
+            throw new IllegalArgumentException("Error: maxSubSteps must be at least 1.");
+        }
+        this.maxSubSteps = maxSubSteps;
+    }
+
+    /**
+     * Get the number of threads used to update the balls on large boards.
+     * @return  The parallelism of the ball update
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of threads used to update the balls. Boards with fewer
+     * than PARALLEL_THRESHOLD balls are always updated on the calling thread.
+     * The result of a tick is the same for every parallelism.
+     * @param parallelism   The number of threads, 1 to update on the calling thread only
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Error: parallelism must be at least 1.");
+        }
+        if (parallelism != this.parallelism && pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get the seed of the random numbers of the level
+     * @return  The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the seed of the random numbers of the level. The same level loaded
+     * with the same seed and given the same input plays out the same way.
+     * @param seed  The seed, used from the next time a level is loaded
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.random.setSeed(seed);
+    }
+
+    /**
+     * Get the store that holds the state of the balls on the board.
+     * @return  The ball store
+     */
+    public BallStore getBallStore() {
+        return ballStore;
+    }
+
+    /**
+     * Get the List of spawners on the board
+     * @return  The List of Spawner objects
+     */
+    public List<Spawner> getSpawners() {
+        return spawners;
+    }
+
+    /**
+     * Get the List of holes on the board
+     * @return  The List of Hole objects
+     */
+    public List<Hole> getHoles() {
+        return holes;
+    }
+
+    /**
+     * Get the List of completed player-drawn lines
+     * @return  The List of Line objects
+     */
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Get the number of times lines have been removed from the board. New
+     * lines are only ever appended, so a view that has drawn the first n lines
+     * only needs to start over when this changes.
+     * @return  The number of line removals
+     */
+    public int getLineRemovals() {
+        return lineRemovals;
+    }
+
+    /**
+     * Set the level being simulated
+     * @param level The level object
+     */
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Get the level being simulated
+     * @return  The level object
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the game state manager that receives score and timer updates
+     * @return  The GameStateManager object
+     */
+    public GameStateManager getGameStateManager() {
+        return gameStateManager;
+    }
+
+    /**
+     * Get the number of ticks simulated since the level was loaded
+     * @return  The current tick
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Get the time until the next ball is spawned
+     * @return  The time to spawn a ball in seconds
+     */
+    public float getTimeToSpawn() {
+        return timeToSpawn;
+    }
+
+    // --- Clock and random numbers, saved and restored by Keyframe ---
+    PApplet getApp() {
+        return app;
+    }
+
+    int getLastSpawnTick() {
+        return lastSpawnTick;
+    }
+
+    float getAccumulator() {
+        return accumulator;
+    }
+
+    StatefulRandom getRandom() {
+        return random;
+    }
+
+    void restoreClock(int tick, int lastSpawnTick, float timeToSpawn, float accumulator) {
+        this.tick = tick;
+        this.lastSpawnTick = lastSpawnTick;
+        this.timeToSpawn = timeToSpawn;
+        this.accumulator = accumulator;
+    }
+
+    /**
+     * Get the spatial index of live line segments
+     * @return  The LineIndex object
+     */
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    /**
+     * Get the broad phase for ball to ball collisions
+     * @return  The SweepAndPrune object
+     */
+    public SweepAndPrune getSweepAndPrune() {
+        return sweepAndPrune;
+    }
+
+    /**
+     * Create a new line whose segments collide with balls as soon as they are added
+     * @return  The new empty line
+     */
+    public Line createLine() {
+        return new Line(lineIndex);
+    }
+
+    /**
+     * Add a completed line to the board
+     * @param line  The line drawn by the player
+     */
+    public void addLine(Line line) {
+        if (!line.isRemoved()) {
+            lines.add(line);
+        }
+    }
+
+    /**
+     * Remove the most recently drawn line, if there is one
+     */
+    public void removeLastLine() {
+        if (!lines.isEmpty()) {
+            lines.remove(lines.size() - 1).remove();
+            lineRemovals++;
+        }
+    }
+
+    /**
+     * Clear all the lines from the board
+     */
+    public void clearLines() {
+        for (Line line : lines) {
+            line.remove();
+        }
+        if (!lines.isEmpty()) {
+            lineRemovals++;
+        }
+        lines.clear();
+        lineIndex.clear();
+    }
+
+    /**
+     * Clear all the balls from the game
+     */
+    public void clearBalls() {
+        balls.clear();
+    }
+
+    /**
+     * Clear all the spawners from the game
+     */
+    public void clearSpawners() {
+        spawners.clear();
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    static Tile.TileType getWallTileType(char tileChar) {
+        switch (tileChar) {
+            case 'X': return Tile.TileType.WALL0;
+            case '1': return Tile.TileType.WALL1;
+            case '2': return Tile.TileType.WALL2;
+            case '3': return Tile.TileType.WALL3;
+            case '4': return Tile.TileType.WALL4;
+            default: return Tile.TileType.EMPTY;
+        }
+    }
+
+    private void setHoleTiles(int x, int y, int holeIndex) {
+        // Mark the tiles for the 2x2 hole
+        for (int dx = 0; dx < 2; dx++) {
+            for (int dy = 0; dy < 2; dy++) {
+                tiles.setType(x + dx, y + dy, Tile.TileType.valueOf("HOLE" + holeIndex));
+            }
+        }
+    }
+
+    // --- Read a layout file ---
+    /**
+     * Read a level layout from the filesystem without going through Processing.
+     * @param path  The path of the layout file
+     * @return      The lines of the layout, or null if the file cannot be read
+     */
+    public static String[] readLayout(String path) {
+        try {
+            return Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8).toArray(new String[0]);
+        } catch (IOException e) {
+            Log.error("Level file {} could not be read.", path);
+            return null;
+        }
+    }
+
+    // --- Load a level ---
+    /**
+     * Load a level from its layout, replacing any objects from a previous
+     * level and resetting the simulation clock
+     * @param level     The level object
+     * @param layout    The lines of the level layout file
+     */
+    public void loadLevel(Level level, String[] layout) {
+        this.level = level;
+        tiles.clear();
+        clearBalls();
+        clearSpawners();
+        holes.clear();
+        clearLines();
+        tick = 0;
+        lastSpawnTick = 0;
+        timeToSpawn = 0;
+        accumulator = 0;
+        random.setSeed(seed);
+        levelStart = null;
+
+        if (layout == null) {
+            Log.error("Level file not found or empty.");
+            wallGrid = new WallGrid(tiles);
+            return;
+        }
+
+        // Spawner Metrics
+        int spawnInterval = level.getSpawnInterval();
+        List<BallColour> ballsToSpawn = level.getBalls();
+        List<int[]> startTiles = new ArrayList<>();
+        List<BallColour> startColours = new ArrayList<>();
+
+        for (int y = 0; y < layout.length && y < height; y++) {
+            String line = layout[y];
+            for (int x = 0; x < line.length() && x < width; x++) {
+                char tileChar = line.charAt(x);
+
+                if (tiles.isHole(x, y)) {
+                    x++;
+                }
+
+                switch (tileChar) {
+                    // Wall tiles
+                    case 'X': case '1': case '2': case '3': case '4':
+                        if (x > 0 && (line.charAt(x - 1) == 'H' || line.charAt(x - 1) == 'B')) {
+                            break;
+                        }
+                        tiles.setType(x, y, getWallTileType(tileChar));
+                        break;
+
+                    // Hole tiles
+                    case 'H':
+                        // Initialise a hole object at this location
+                        if (x + 1 < line.length() && Character.isDigit(line.charAt(x + 1))) {
+                            int holeIndex = Character.getNumericValue(line.charAt(x + 1));
+                            String holeColour = "hole" + holeIndex;
+
+                            Hole hole = new Hole(x, y, app, holeColour, this);
+                            holes.add(hole);
+
+                            setHoleTiles(x, y, holeIndex);
+                            x++;
+                        }
+                        break;
+
+                    // Balls
+                    case 'B':
+                        // Create an empty tile at this location
+                        tiles.setType(x, y, Tile.TileType.EMPTY);
+                        if (x + 1 < line.length() && Character.isDigit(line.charAt(x + 1))) {
+                            // Initialise a ball object at this location
+                            int ballIndex = Character.getNumericValue(line.charAt(x + 1));
+                            BallColour ballColour = BallColour.fromId(ballIndex);
+                            if (ballColour != null) {
+                                Ball ball = new Ball(x, y, app, ballColour, random);
+                                balls.add(ball);
+                                startTiles.add(new int[] {x, y});
+                                startColours.add(ballColour);
+                            } else {
+                                Log.error("Invalid ball index.");
+                            }
+                            x++;
+                        } else {
+                            Log.error("Invalid ball index.");
+                        }
+                        break;
+
+                    case 'S':
+                        // Initialise a spawner object at this location
+                        Spawner spawner = new Spawner(x, y, app, spawnInterval, ballsToSpawn, null);
+                        spawners.add(spawner);
+                        break;
+
+                    default:
+                        // Create an empty tile at this location
+                        tiles.setType(x, y, Tile.TileType.EMPTY);
+                }
+            }
+        }
+
+        // Build the wall broad phase once the layout is known
+        wallGrid = new WallGrid(tiles);
+        levelStart = new LevelStart(startTiles, startColours, ballsToSpawn);
+    }
+
+    // --- Restart the level ---
+    /**
+     * Put the loaded level back the way it was loaded, without reading the
+     * layout again. The tiles, holes, spawners and wall grid never change
+     * during a level, so they are kept, and only the balls, lines, spawner
+     * queue and clock are reset. The layout balls take their directions from
+     * the new seed in layout order, so the level plays out exactly as if it
+     * was loaded again with that seed.
+     * @param seed  The seed of the random numbers of the restarted level
+     * @return      True if the level was restarted, false if no level is loaded
+     */
+    public boolean restart(long seed) {
+        if (levelStart == null) {
+            return false;
+        }
+        clearBalls();
+        clearLines();
+        tick = 0;
+        lastSpawnTick = 0;
+        timeToSpawn = 0;
+        accumulator = 0;
+        setSeed(seed);
+
+        for (Spawner spawner : spawners) {
+            spawner.setSpawnFrameCounter(0);
+            spawner.setActive(false);
+        }
+        levelStart.refillQueue();
+        for (int i = 0; i < levelStart.ballX.length; i++) {
+            balls.add(new Ball(levelStart.ballX[i], levelStart.ballY[i], app, levelStart.ballColours[i], random));
+        }
+        return true;
+    }
+
+    // The balls of a level's layout and the balls it spawns, as they were when it was loaded
+    private static final class LevelStart {
+        private final int[] ballX;
+        private final int[] ballY;
+        private final BallColour[] ballColours;
+        private final BallColour[] ballsToSpawn;
+        private final List<BallColour> queue; // Shared by all the spawners of the level
+
+        private LevelStart(List<int[]> tiles, List<BallColour> colours, List<BallColour> ballsToSpawn) {
+            this.ballX = new int[tiles.size()];
+            this.ballY = new int[tiles.size()];
+            for (int i = 0; i < tiles.size(); i++) {
+                ballX[i] = tiles.get(i)[0];
+                ballY[i] = tiles.get(i)[1];
+            }
+            this.ballColours = colours.toArray(new BallColour[0]);
+            this.ballsToSpawn = ballsToSpawn.toArray(new BallColour[0]);
+            this.queue = ballsToSpawn;
+        }
+
+        // Refills the queue in place, since the spawners hold it
+        private void refillQueue() {
+            queue.clear();
+            for (BallColour ballColour : ballsToSpawn) {
+                queue.add(ballColour);
+            }
+        }
+    }
+
+    // --- Advance the simulation ---
+    /**
+     * Advance the simulation by a span of real time. Time is accumulated and
+     * consumed in whole fixed ticks, so the result does not depend on how the
+     * span is split across calls.
+     * @param dt    The elapsed time in seconds
+     * @return      The number of ticks that were simulated
+     */
+    public int step(float dt) {
+        accumulator += dt;
+        int ticks = 0;
+        while (accumulator >= TIMESTEP) {
+            accumulator -= TIMESTEP;
+            step();
+            ticks++;
+        }
+        return ticks;
+    }
+
+    /**
+     * Advance the simulation by a number of ticks.
+     * @param frames    The number of ticks to simulate
+     */
+    public void stepN(int frames) {
+        for (int i = 0; i < frames; i++) {
+            step();
+        }
+    }
+
+    /**
+     * Advance the simulation by a single tick. Nothing moves unless the game
+     * is being played, so a paused or finished level keeps its state.
+     */
+    public void step() {
+        if (level == null || gameStateManager.getState() != GameStateManager.GameState.PLAYING) {
+            return;
+        }
+        tick++;
+
+        long start = Profiler.start();
+        gameStateManager.updateTimer(TIMESTEP);
+        Profiler.stop(Profiler.TIMER, start);
+
+        start = Profiler.start();
+        updateSpawners();
+        Profiler.stop(Profiler.SPAWN, start);
+
+        start = Profiler.start();
+        updateBalls();
+        Profiler.stop(Profiler.BALLS, start);
+
+        start = Profiler.start();
+        sweepAndPrune.collide(ballStore);
+        Profiler.stop(Profiler.BALL_COLLISION, start);
+
+        if (checkWinCondition()) {
+            gameStateManager.addRemainingTimeToScore(TIME_TO_SCORE_RATE * TIMESTEP);
+            if (gameStateManager.isOutOfTime()) {
+                gameStateManager.setState(GameStateManager.GameState.GAMEOVER);
+            }
+        } else if (gameStateManager.isOutOfTime()) {
+            gameStateManager.setState(GameStateManager.GameState.TIMESUP);
+        }
+    }
+
+    // --- Spawn balls ---
+    private void updateSpawners() {
+        if (spawners.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < spawners.size(); i++) {
+            spawners.get(i).update();
+        }
+
+        int spawnInterval = spawners.get(0).getSpawnInterval();
+
+        if (spawners.get(0).getBallsToSpawn().isEmpty()) {
+            timeToSpawn = 0;
+        } else {
+            timeToSpawn = (spawnInterval - (tick - lastSpawnTick)) / (float) App.FPS;
+        }
+
+        if (tick - lastSpawnTick >= spawnInterval
+                && gameStateManager.getState() != GameStateManager.GameState.TIMESUP) {
+            // Spawn a ball from a random spawner
+            Spawner activeSpawner = spawners.get(random.nextInt(spawners.size()));
+            activeSpawner.setActive(true);
+            activeSpawner.spawnBall(balls, app, random);
+            activeSpawner.setActive(false);
+
+            lastSpawnTick = tick;
+            timeToSpawn = 0;
+        }
+    }
+
+    // --- Move balls ---
+    // Every ball is moved and attracted to the holes on its own, in parallel on large
+    // boards, and the collision logs are then applied in slot order on this thread
+    private void updateBalls() {
+        int count = ballStore.size();
+        int used = 1;
+
+        if (parallelism > 1 && count >= PARALLEL_THRESHOLD) {
+            used = updateBallsInParallel(count);
+        } else {
+            logs[0].clear();
+            updateBallRange(0, count, logs[0]);
+        }
+
+        for (int i = 0; i < used; i++) {
+            applyCollisionLog(logs[i]);
+        }
+    }
+
+    private void updateBallRange(int from, int to, CollisionLog log) {
+        for (int slot = from; slot < to; slot++) {
+            moveBall(slot, log);
+
+            for (int h = 0; h < holes.size(); h++) {
+                Hole hole = holes.get(h);
+                if (hole.attractBall(ballStore, slot)) {
+                    log.add(ballStore.getHandle(slot), CollisionLog.CAPTURE, hole);
+                    break;
+                }
+            }
+        }
+    }
+
+    // Splits the balls into fixed ranges so the logs come out in slot order whichever thread runs them
+    private int updateBallsInParallel(int count) {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+            ranges = new BallRange[parallelism * RANGES_PER_THREAD];
+            logs = new CollisionLog[ranges.length];
+            for (int i = 0; i < ranges.length; i++) {
+                ranges[i] = new BallRange();
+                logs[i] = new CollisionLog();
+            }
+        }
+
+        for (int i = 0; i < ranges.length; i++) {
+            ranges[i].reinitialize();
+            ranges[i].from = (int) ((long) count * i / ranges.length);
+            ranges[i].to = (int) ((long) count * (i + 1) / ranges.length);
+            ranges[i].log = logs[i];
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(ranges);
+            }
+        });
+        return ranges.length;
+    }
+
+    // One range of ball slots for the parallel update
+    private class BallRange extends RecursiveAction {
+        private int from;
+        private int to;
+        private CollisionLog log;
+
+        @Override
+        protected void compute() {
+            log.clear();
+            updateBallRange(from, to, log);
+        }
+    }
+
+    // Applies what the balls hit to the rest of the game, in the order it was logged
+    private void applyCollisionLog(CollisionLog log) {
+        for (int i = 0; i < log.size(); i++) {
+            int handle = log.getHandle(i);
+            switch (log.getType(i)) {
+                case CollisionLog.WALL:
+                    if (ballStore.isValid(handle)) {
+                        ballStore.getView(ballStore.getSlot(handle)).changeColour((Tile) log.getTarget(i));
+                    }
+                    break;
+                case CollisionLog.LINE:
+                    Line line = (Line) log.getTarget(i);
+                    line.remove();
+                    if (lines.remove(line)) {
+                        lineRemovals++;
+                    }
+                    break;
+                case CollisionLog.CAPTURE:
+                    if (ballStore.isValid(handle)) {
+                        captureBall(ballStore.getSlot(handle), (Hole) log.getTarget(i));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        log.clear();
+    }
+
+    // --- Collision Handling ---
+    /**
+     * Move a ball through one tick with continuous collision detection. The
+     * ball is swept along its velocity against the nearby wall edges and line
+     * segments, moved to the earliest impact, reflected, and swept again for
+     * the rest of the tick. A ball that hits a wall takes its colour, and a
+     * line that is hit is logged to be removed from the board once every ball
+     * has moved. After maxSubSteps impacts the ball moves for the rest of the
+     * tick without further checks. Only the ball's own slot is written, so
+     * balls can be moved on different threads.
+     * @param slot  The slot of the ball in the ball store
+     * @param log   The log to record wall colour changes and line hits in
+     */
+    private void moveBall(int slot, CollisionLog log) {
+        float remaining = 1;
+
+        for (int subStep = 0; subStep < maxSubSteps && remaining > 0; subStep++) {
+            float x = ballStore.getPosX(slot);
+            float y = ballStore.getPosY(slot);
+            float endX = x + ballStore.getVelocityX(slot) * remaining;
+            float endY = y + ballStore.getVelocityY(slot) * remaining;
+
+            // Every edge the swept ball can touch is registered in a cell under its path
+            float impact = BallStore.NO_IMPACT;
+            int wallHit = -1;
+            LineSegment lineHit = null;
+
+            int minColumn = wallGrid.getColumn(Math.min(x, endX));
+            int maxColumn = wallGrid.getColumn(Math.max(x, endX));
+            int minRow = wallGrid.getRow(Math.min(y, endY));
+            int maxRow = wallGrid.getRow(Math.max(y, endY));
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    int cell = wallGrid.getCellAt(column, row);
+                    for (int i = wallGrid.getCellStart(cell); i < wallGrid.getCellEnd(cell); i++) {
+                        float time = ballStore.timeOfImpact(slot, wallGrid.getEdge(i), impact == BallStore.NO_IMPACT ? remaining : impact);
+                        if (time != BallStore.NO_IMPACT && (impact == BallStore.NO_IMPACT || time < impact)) {
+                            impact = time;
+                            wallHit = i;
+                        }
+                    }
+
+                    List<LineSegment> segments = lineIndex.getCandidatesAt(column, row);
+                    for (int i = 0; i < segments.size(); i++) {
+                        float time = ballStore.timeOfImpact(slot, segments.get(i), impact == BallStore.NO_IMPACT ? remaining : impact);
+                        if (time != BallStore.NO_IMPACT && (impact == BallStore.NO_IMPACT || time < impact)) {
+                            impact = time;
+                            wallHit = -1;
+                            lineHit = segments.get(i);
+                        }
+                    }
+                }
+            }
+
+            if (impact == BallStore.NO_IMPACT) {
+                break;
+            }
+
+            ballStore.advance(slot, impact);
+            remaining -= impact;
+
+            if (wallHit >= 0) {
+                ballStore.reflectFromContact(slot, wallGrid.getEdge(wallHit));
+                changeColour(slot, wallHit, log);
+            } else {
+                ballStore.reflectFromContact(slot, lineHit);
+                log.add(ballStore.getHandle(slot), CollisionLog.LINE, lineHit.getLine());
+            }
+        }
+
+        ballStore.advance(slot, remaining);
+        ballStore.checkBorderCollision(slot);
+    }
+
+    // The colour id changes straight away, a Ball view reloads its sprite when the log is applied
+    private void changeColour(int slot, int wallHit, CollisionLog log) {
+        int colourId = wallGrid.getColourId(wallHit);
+        if (colourId < 0) {
+            return;
+        }
+        ballStore.setColour(slot, colourId);
+        if (ballStore.getView(slot) != null) {
+            log.add(ballStore.getHandle(slot), CollisionLog.WALL, wallGrid.getOwner(wallHit));
+        }
+    }
+
+    // --- Handle Ball Capture ---
+    /**
+     * Handle the successful capture of a ball into a hole
+     * @param ball  The ball object
+     * @param hole  The hole that captured the ball
+     */
+    public void handleSuccessfulCapture(Ball ball, Hole hole) {
+        // ERROR CHECKS
+        if (level == null) {
+            Log.error("Level is null.");
+            return;
+        }
+
+        if (ball == null) {
+            Log.error("Ball is null.");
+            return;
+        }
+
+        if (!scoreCapture(ball.getColourId(), hole)) {
+            return;
+        }
+
+        if (ball.getStore() == ballStore) {
+            ballStore.remove(ball.getHandle());
+        } else {
+            Log.error("Ball list is null or ball not found in list.");
+        }
+    }
+
+    /**
+     * Handle the situation where a ball goes into the wrong coloured hole
+     * @param ball  The ball object
+     * @param hole  The hole that captured the ball
+     */
+    public void handleFailedCapture(Ball ball, Hole hole) {
+        if (level == null) {
+            Log.error("Level is null.");
+            return;
+        }
+
+        scoreCapture(ball.getColourId(), hole);
+        if (ball.getStore() == ballStore) {
+            ballStore.remove(ball.getHandle());
+        }
+    }
+
+    // Captures a ball in the store, going through the Hole when the ball has a view
+    private void captureBall(int slot, Hole hole) {
+        int handle = ballStore.getHandle(slot);
+        Ball view = ballStore.getView(slot);
+        if (view != null) {
+            hole.captureBall(view);
+        } else if (level != null) {
+            scoreCapture(ballStore.getColour(slot), hole);
+        }
+
+        // A captured ball leaves the board even if its score could not be counted
+        if (ballStore.isValid(handle)) {
+            ballStore.remove(handle);
+        }
+    }
+
+    // Adds the capture score from the level's score matrix, and puts a ball
+    // captured by the wrong hole back in the spawn queue. Returns false if
+    // either colour is unknown, in which case the ball stays on the board
+    private boolean scoreCapture(int ballColourId, Hole hole) {
+        BallColour ballColour = BallColour.fromId(ballColourId);
+        if (ballColour == null || BallColour.fromId(hole.getColourId()) == null) {
+            Log.error("Ball colour {} or hole colour {} is not a colour.", ballColourId, hole.getColourId());
+            return false;
+        }
+
+        Log.debug("Ball Col: {}", ballColour.getName());
+        int score = level.getCaptureScore(ballColourId, hole.getColourId());
+        gameStateManager.updateScore(gameStateManager.getScore() + score);
+
+        if (!hole.isMatchingColour(ballColourId)) {
+            if (!spawners.isEmpty() && spawners.get(0) != null) {
+                spawners.get(0).addBallToSpawnQueue(ballColour);
+            } else {
+                Log.error("No spawners available to spawn ball.");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the win condition has been met
+     * @return  True if the win condition has been met, false otherwise
+     */
+    public boolean checkWinCondition() {
+        return balls.isEmpty() && (spawners.isEmpty() || spawners.get(0).getBallsToSpawn().isEmpty());
+    }
+}
@@ -1,10 +1,7 @@
 package inkball;
 
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
-
-import java.io.UnsupportedEncodingException;
+import java.util.Random;
 
 import processing.core.PApplet;
 import processing.core.PImage;
@@ -22,7 +19,7 @@ public class Spawner extends GameObject {
     private int spawnFrameCounter;
     private boolean active;
 
-    private List<String> ballsToSpawn;
+    private List<BallColour> ballsToSpawn;
 
     private PApplet app;
 
@@ -35,13 +32,11 @@ public class Spawner extends GameObject {
      * @param spawnInterval     interval at which the spawner spawns balls
      * @param ballsToSpawn      list of balls to spawn
      */
-    public Spawner(int x, int y, PApplet app, int spawnInterval, List<String> ballsToSpawn, Board board) {
+    public Spawner(int x, int y, PApplet app, int spawnInterval, List<BallColour> ballsToSpawn, Board board) {
         super(x, y);
 
-        try {
-            this.spawnerImage = app.loadImage(URLDecoder.decode(this.getClass().getResource("entrypoint.png").getPath(), StandardCharsets.UTF_8.name()));
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
+        if (app != null) {
+            this.spawnerImage = TextureRegistry.of(app).get("entrypoint");
         }
 
         this.spawnInterval = spawnInterval * App.FPS;
@@ -90,12 +85,20 @@ public class Spawner extends GameObject {
     
     /**
      * Method to get the list of balls to spawn
-     * @return list of strings of balls to spawn
+     * @return list of colours of balls to spawn
      */
-    public List<String> getBallsToSpawn() {
+    public List<BallColour> getBallsToSpawn() {
         return ballsToSpawn;
     }
 
+    /**
+     * Method to get the frame counter of the spawner
+     * @return integer value of the frame counter
+     */
+    public int getSpawnFrameCounter() {
+        return spawnFrameCounter;
+    }
+
     /**
      * Method to set frame counter of the spawner
      * @param spawnFrameCounter integer value of the frame counter
@@ -123,9 +126,19 @@ public class Spawner extends GameObject {
      * @param app PApplet object
      */
     public void spawnBall(List<Ball> balls, PApplet app) {
+        spawnBall(balls, app, Ball.DEFAULT_RANDOM);
+    }
+
+    /**
+     * Method to spawn a ball
+     * @param balls     list of balls
+     * @param app       PApplet object
+     * @param random    random numbers the direction of the ball is chosen with
+     */
+    public void spawnBall(List<Ball> balls, PApplet app, Random random) {
         // Check if ballsToSpawn list is empty
         if (ballsToSpawn.isEmpty()) {
-            System.err.println("ballsToSpawn is null, Cannot spawn ball");
+            Log.warn("ballsToSpawn is null, Cannot spawn ball");
             spawnFrameCounter = 0;
             return;
         }
@@ -136,29 +149,29 @@ public class Spawner extends GameObject {
                 this.active = false;
                 return;
             }
-            System.out.println("Spawning ball");
-            String ballToSpawn = ballsToSpawn.remove(0);
-            if (ballToSpawn.equals("grey")) {
-                ballToSpawn = "ball0";
-            } else if (ballToSpawn.equals("orange")) {
-                ballToSpawn = "ball1";
-            } else if (ballToSpawn.equals("blue")) {
-                ballToSpawn = "ball2";
-            } else if (ballToSpawn.equals("green")) {
-                ballToSpawn = "ball3";
-            } else if (ballToSpawn.equals("yellow")) {
-                ballToSpawn = "ball4";
-            }
-            balls.add(new Ball(x, y, app, ballToSpawn)); 
+            Log.debug("Spawning ball");
+            BallColour colour = ballsToSpawn.remove(0);
+            balls.add(new Ball(x, y, app, colour, random));
+            spawnFrameCounter = 0;
+        }
+    }
+
+    /**
+     * Method to advance the spawner by one simulation tick
+     */
+    public void update() {
+        spawnFrameCounter++;
+
+        if (active) {
             spawnFrameCounter = 0;
         }
     }
 
     /**
      * Method to add a ball to the spawn queue
-     * @param ballColour string of the ball colour
+     * @param ballColour colour of the ball
      */
-    public void addBallToSpawnQueue(String ballColour) {
+    public void addBallToSpawnQueue(BallColour ballColour) {
         ballsToSpawn.add(ballColour);
     }
 
@@ -167,12 +180,6 @@ public class Spawner extends GameObject {
      * Method to draw the spawner
      */
     public void draw() {
-        app.image(spawnerImage, x * App.CELLSIZE, y * App.CELLSIZE + App.TOPBAR);
-
-        spawnFrameCounter++;
-
-        if (active) {
-            spawnFrameCounter = 0;
-        }
+        Sprite.draw(app, spawnerImage, x * App.CELLSIZE, y * App.CELLSIZE + App.TOPBAR);
     }
 }
@@ -0,0 +1,194 @@
+package inkball;
+
+import processing.core.PApplet;
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+/**
+ * The Sprite class is a region of the sprite sheet. It has the width and
+ * height of the region but no pixels of its own, so it is always drawn by
+ * copying its region out of the shared sheet image with the draw methods
+ * here rather than with PApplet.image directly. Every sprite of the game is
+ * drawn from the same source image, so the renderer only ever binds one
+ * texture for them. The PGraphics overloads draw into an offscreen layer
+ * instead of the screen.
+ */
+public class Sprite extends PImage {
+    private PImage sheet;
+    private int u;
+    private int v;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the Sprite class, describes a region of a sheet
+     * @param sheet     The sheet image the sprite is cut from
+     * @param u         The x-coordinate of the region in the sheet
+     * @param v         The y-coordinate of the region in the sheet
+     * @param width     The width of the region
+     * @param height    The height of the region
+     */
+    public Sprite(PImage sheet, int u, int v, int width, int height) {
+        super();
+        this.sheet = sheet;
+        this.u = u;
+        this.v = v;
+        this.width = width;
+        this.height = height;
+        this.pixelWidth = width;
+        this.pixelHeight = height;
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the sheet image the sprite is cut from
+     * @return  The sheet image
+     */
+    public PImage getSheet() {
+        return sheet;
+    }
+
+    /**
+     * Get the x-coordinate of the sprite in the sheet
+     * @return  The x-coordinate in pixels
+     */
+    public int getU() {
+        return u;
+    }
+
+    /**
+     * Get the y-coordinate of the sprite in the sheet
+     * @return  The y-coordinate in pixels
+     */
+    public int getV() {
+        return v;
+    }
+
+    // ----------------------------- Drawing -----------------------------------
+    /**
+     * Draw the sprite scaled to a rectangle
+     * @param app   The PApplet to draw with
+     * @param x     The x-coordinate of the top left corner
+     * @param y     The y-coordinate of the top left corner
+     * @param w     The width to draw
+     * @param h     The height to draw
+     */
+    public void draw(PApplet app, float x, float y, float w, float h) {
+        app.image(sheet, x, y, w, h, u, v, u + width, v + height);
+    }
+
+    /**
+     * Draw part of the sprite scaled to a rectangle
+     * @param app   The PApplet to draw with
+     * @param x     The x-coordinate of the top left corner
+     * @param y     The y-coordinate of the top left corner
+     * @param w     The width to draw
+     * @param h     The height to draw
+     * @param u1    The left of the part, relative to the sprite
+     * @param v1    The top of the part, relative to the sprite
+     * @param u2    The right of the part, relative to the sprite
+     * @param v2    The bottom of the part, relative to the sprite
+     */
+    public void draw(PApplet app, float x, float y, float w, float h, int u1, int v1, int u2, int v2) {
+        app.image(sheet, x, y, w, h, u + u1, v + v1, u + u2, v + v2);
+    }
+
+    /**
+     * Draw the sprite scaled to a rectangle of an offscreen layer
+     * @param g     The layer to draw into
+     * @param x     The x-coordinate of the top left corner
+     * @param y     The y-coordinate of the top left corner
+     * @param w     The width to draw
+     * @param h     The height to draw
+     */
+    public void draw(PGraphics g, float x, float y, float w, float h) {
+        g.image(sheet, x, y, w, h, u, v, u + width, v + height);
+    }
+
+    /**
+     * Draw an image at its own size, from the sheet if it is a sprite
+     * @param app   The PApplet to draw with
+     * @param image The sprite or plain image
+     * @param x     The x-coordinate of the top left corner
+     * @param y     The y-coordinate of the top left corner
+     */
+    public static void draw(PApplet app, PImage image, float x, float y) {
+        if (image instanceof Sprite) {
+            ((Sprite) image).draw(app, x, y, image.width, image.height);
+        } else {
+            app.image(image, x, y);
+        }
+    }
+
+    /**
+     * Draw an image scaled to a rectangle, from the sheet if it is a sprite
+     * @param app   The PApplet to draw with
+     * @param image The sprite or plain image
+     * @param x     The x-coordinate of the top left corner
+     * @param y     The y-coordinate of the top left corner
+     * @param w     The width to draw
+     * @param h     The height to draw
+     */
+    public static void draw(PApplet app, PImage image, float x, float y, float w, float h) {
+        if (image instanceof Sprite) {
+            ((Sprite) image).draw(app, x, y, w, h);
+        } else {
+            app.image(image, x, y, w, h);
+        }
+    }
+
+    /**
+     * Draw part of an image scaled to a rectangle, from the sheet if it is a
+     * sprite
+     * @param app   The PApplet to draw with
+     * @param image The sprite or plain image
+     * @param x     The x-coordinate of the top left corner
+     * @param y     The y-coordinate of the top left corner
+     * @param w     The width to draw
+     * @param h     The height to draw
+     * @param u1    The left of the part, relative to the image
+     * @param v1    The top of the part, relative to the image
+     * @param u2    The right of the part, relative to the image
+     * @param v2    The bottom of the part, relative to the image
+     */
+    public static void draw(PApplet app, PImage image, float x, float y, float w, float h, int u1, int v1, int u2, int v2) {
+        if (image instanceof Sprite) {
+            ((Sprite) image).draw(app, x, y, w, h, u1, v1, u2, v2);
+        } else {
+            app.image(image, x, y, w, h, u1, v1, u2, v2);
+        }
+    }
+
+    /**
+     * Draw an image at its own size into an offscreen layer, from the sheet if
+     * it is a sprite
+     * @param g     The layer to draw into
+     * @param image The sprite or plain image
+     * @param x     The x-coordinate of the top left corner
+     * @param y     The y-coordinate of the top left corner
+     */
+    public static void draw(PGraphics g, PImage image, float x, float y) {
+        if (image instanceof Sprite) {
+            ((Sprite) image).draw(g, x, y, image.width, image.height);
+        } else {
+            g.image(image, x, y);
+        }
+    }
+
+    /**
+     * Draw an image scaled to a rectangle of an offscreen layer, from the
+     * sheet if it is a sprite
+     * @param g     The layer to draw into
+     * @param image The sprite or plain image
+     * @param x     The x-coordinate of the top left corner
+     * @param y     The y-coordinate of the top left corner
+     * @param w     The width to draw
+     * @param h     The height to draw
+     */
+    public static void draw(PGraphics g, PImage image, float x, float y, float w, float h) {
+        if (image instanceof Sprite) {
+            ((Sprite) image).draw(g, x, y, w, h);
+        } else {
+            g.image(image, x, y, w, h);
+        }
+    }
+}
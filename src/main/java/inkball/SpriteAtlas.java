@@ -0,0 +1,169 @@
+package inkball;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+/**
+ * The SpriteAtlas class cuts the sprites of the game out of a single sheet
+ * image. The regions are listed in a metadata file next to the sheet, one
+ * sprite per line as "name x y width height", with lines starting with # as
+ * comments. The metadata is read when the atlas is created, and the sheet is
+ * decoded the first time a sprite is asked for, and again on the next request
+ * if it failed to load. Pixels of the colour key are made transparent once
+ * the sheet is loaded.
+ */
+public class SpriteAtlas {
+    public static final String SHEET = "inkball_spritesheet.png";
+    public static final String METADATA = "inkball_spritesheet.txt";
+
+    // Background colour of the sheet behind round sprites
+    private static final int COLOUR_KEY = 0xFFFF00FF;
+
+    private PApplet app;
+    private String sheetName;
+    private Map<String, int[]> regions;
+    private Map<String, Sprite> sprites;
+    private boolean loaded;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the SpriteAtlas class, reads the regions of the game's
+     * sprite sheet.
+     * @param app   The PApplet used to decode the sheet
+     */
+    public SpriteAtlas(PApplet app) {
+        this(app, SHEET, METADATA);
+    }
+
+    /**
+     * Constructor for the SpriteAtlas class, reads the regions of a sprite
+     * sheet.
+     * @param app       The PApplet used to decode the sheet
+     * @param sheet     The resource name of the sheet image
+     * @param metadata  The resource name of the metadata file
+     */
+    public SpriteAtlas(PApplet app, String sheet, String metadata) {
+        this.app = app;
+        this.sheetName = sheet;
+        this.regions = readMetadata(metadata);
+        this.sprites = new HashMap<>();
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Check if the atlas has a sprite, without decoding the sheet
+     * @param name  The name of the sprite
+     * @return      True if the metadata lists the sprite
+     */
+    public boolean contains(String name) {
+        return regions.containsKey(name);
+    }
+
+    /**
+     * Get the number of sprites in the atlas
+     * @return  The number of sprites listed in the metadata
+     */
+    public int size() {
+        return regions.size();
+    }
+
+    /**
+     * Get a sprite, decoding the sheet on first use
+     * @param name  The name of the sprite
+     * @return      The sprite, or null if it is not listed or the sheet could not be loaded
+     */
+    public Sprite getSprite(String name) {
+        if (!loaded) {
+            loadSheet();
+        }
+        return sprites.get(name);
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    private void loadSheet() {
+        URL resource = getClass().getResource(sheetName);
+        if (resource == null) {
+            Log.error("Sprite sheet {} not found.", sheetName);
+            return;
+        }
+
+        PImage sheet;
+        try {
+            sheet = app.loadImage(URLDecoder.decode(resource.getPath(), StandardCharsets.UTF_8.name()));
+        } catch (UnsupportedEncodingException e) {
+            Log.error("Sprite sheet {} could not be loaded: {}", sheetName, e);
+            return;
+        }
+        if (sheet == null) {
+            Log.error("Sprite sheet {} could not be decoded.", sheetName);
+            return;
+        }
+        applyColourKey(sheet);
+        loaded = true;
+
+        for (Map.Entry<String, int[]> entry : regions.entrySet()) {
+            int[] r = entry.getValue();
+            sprites.put(entry.getKey(), new Sprite(sheet, r[0], r[1], r[2], r[3]));
+        }
+    }
+
+    private static void applyColourKey(PImage sheet) {
+        sheet.loadPixels();
+        if (sheet.pixels == null) {
+            return;
+        }
+        for (int i = 0; i < sheet.pixels.length; i++) {
+            if (sheet.pixels[i] == COLOUR_KEY) {
+                sheet.pixels[i] = 0;
+            }
+        }
+        sheet.updatePixels();
+    }
+
+    // Reads "name x y width height" lines, skipping blank lines and comments
+    private Map<String, int[]> readMetadata(String metadata) {
+        Map<String, int[]> result = new HashMap<>();
+        InputStream in = getClass().getResourceAsStream(metadata);
+        if (in == null) {
+            Log.error("Sprite metadata {} not found.", metadata);
+            return result;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length != 5) {
+                    Log.error("Invalid sprite metadata line: {}", line);
+                    continue;
+                }
+                try {
+                    result.put(parts[0], new int[] {
+                        Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                        Integer.parseInt(parts[3]), Integer.parseInt(parts[4])
+                    });
+                } catch (NumberFormatException e) {
+                    Log.error("Invalid sprite metadata line: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            Log.error("Sprite metadata {} could not be read: {}", metadata, e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package inkball;
+
+import java.util.Random;
+
+/**
+ * The StatefulRandom class gives the same numbers as java.util.Random for the
+ * same seed, but its state can be read and set again. A level's random
+ * numbers are saved in a keyframe this way, so a replay restored from the
+ * keyframe spawns and bounces the same balls as the original.
+ *
+ * nextGaussian keeps a second value between calls that is not part of the
+ * state, and is not used by the game.
+ */
+public class StatefulRandom extends Random {
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the StatefulRandom class
+     * @param seed  The initial seed
+     */
+    public StatefulRandom(long seed) {
+        super(seed);
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the state of the generator
+     * @return  The 48 bit state
+     */
+    public synchronized long getState() {
+        return state;
+    }
+
+    /**
+     * Set the state of the generator, as returned by getState
+     * @param state The 48 bit state
+     */
+    public synchronized void setState(long state) {
+        this.state = state & MASK;
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        // Called by the Random constructor too, scrambled the same way it is there
+        this.state = (seed ^ MULTIPLIER) & MASK;
+        super.setSeed(seed);
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    @Override
+    protected synchronized int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+}
@@ -0,0 +1,121 @@
+package inkball;
+
+import java.util.Arrays;
+
+/**
+ * The SweepAndPrune class is the broad phase for ball to ball collisions.
+ * Balls are sorted by the x-coordinate of their centre, and each ball is only
+ * tested against the balls after it whose centres are less than a diameter
+ * further along, instead of against every other ball.
+ *
+ * The sort keys are kept between ticks. Balls move only a little each tick,
+ * so last tick's order is nearly sorted and an insertion sort puts it back
+ * in order in close to linear time. The buffers only grow, so a tick with
+ * the same number of balls does not allocate.
+ */
+public class SweepAndPrune {
+    // Widest gap between two centres that can still touch
+    private static final float DIAMETER = Ball.RADIUS * 2;
+    private static final long SLOT_MASK = 0xFFFFFFFFL;
+
+    // Sort key of each ball, the sortable bits of its x-coordinate above its slot
+    private long[] keys;
+    private int size;
+    private int pairTests;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the SweepAndPrune class, creates an empty broad phase.
+     */
+    public SweepAndPrune() {
+        this.keys = new long[64];
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the number of ball pairs passed to the narrow phase in the last call
+     * to collide
+     * @return  The number of pairs tested
+     */
+    public int getPairTests() {
+        return pairTests;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Bounce every pair of touching balls in a store off each other. Pairs
+     * are resolved in x order, so the result does not depend on how many
+     * threads moved the balls.
+     * @param store The store holding the balls
+     * @return      The number of collisions
+     */
+    public int collide(BallStore store) {
+        sort(store);
+
+        int collisions = 0;
+        pairTests = 0;
+        for (int i = 0; i < size; i++) {
+            int a = (int) (keys[i] & SLOT_MASK);
+            float limit = store.getPosX(a) + DIAMETER;
+            for (int j = i + 1; j < size; j++) {
+                int b = (int) (keys[j] & SLOT_MASK);
+                if (store.getPosX(b) > limit) {
+                    break;
+                }
+                pairTests++;
+                if (store.collideBalls(a, b)) {
+                    collisions++;
+                }
+            }
+        }
+        return collisions;
+    }
+
+    // Re-keys last tick's order with the new positions and sorts it again
+    private void sort(BallStore store) {
+        int count = store.size();
+        if (keys.length < count) {
+            keys = Arrays.copyOf(keys, Math.max(count, keys.length * 2));
+        }
+
+        // Slots are always 0 to count - 1, so drop the slots that are gone and append the new ones
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = (int) (keys[i] & SLOT_MASK);
+            if (slot < count) {
+                keys[kept++] = toKey(store.getPosX(slot), slot);
+            }
+        }
+        int added = count - kept;
+        for (int slot = kept; slot < count; slot++) {
+            keys[slot] = toKey(store.getPosX(slot), slot);
+        }
+        size = count;
+
+        // A mostly new order is quicker to sort from scratch
+        if (added > count / 4) {
+            Arrays.sort(keys, 0, size);
+        } else {
+            insertionSort();
+        }
+    }
+
+    private void insertionSort() {
+        for (int i = 1; i < size; i++) {
+            long key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            keys[j + 1] = key;
+        }
+    }
+
+    // Flips the bits of negative floats so the keys compare in the same order as the coordinates
+    private static long toKey(float x, int slot) {
+        int bits = Float.floatToIntBits(x);
+        bits ^= (bits >> 31) & 0x7FFFFFFF;
+        return ((long) bits << 32) | slot;
+    }
+}
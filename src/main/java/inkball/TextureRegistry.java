@@ -0,0 +1,203 @@
+package inkball;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+/**
+ * The TextureRegistry class decodes every sprite of the game once and hands
+ * out the same PImage to everything that draws it. There is one registry per
+ * PApplet. Balls, holes and walls look their sprites up by colour id, so a
+ * ball that changes colour on a wall only swaps a reference and never
+ * touches the disk. The images are shared and must not be modified.
+ *
+ * Sprites listed in the SpriteAtlas are cut from the single sprite sheet and
+ * must be drawn with the Sprite draw methods. Any other image, or every
+ * image if the sheet cannot be loaded, is decoded from its own PNG file.
+ *
+ * Hits and misses are counted so the cache can be checked at runtime. A miss
+ * is the first lookup of an image, which cuts it from the sheet or decodes
+ * its file. An image that fails to load is not cached, and is tried again on
+ * the next lookup.
+ *
+ * Boards are built on the prefetch thread as well as the animation thread, so
+ * the registry is shared between threads. The ball, hole and wall sprites are
+ * loaded when the registry is created and never written again, so looking a
+ * sprite up by colour id takes no lock. Lookups by name share one lock.
+ */
+public class TextureRegistry {
+    private static final Map<PApplet, TextureRegistry> REGISTRIES = new WeakHashMap<>();
+
+    private PApplet app;
+    private SpriteAtlas atlas;
+    private Map<String, PImage> images;
+
+    // Sprites by colour id, filled in by the constructor
+    private final PImage[] balls;
+    private final PImage[] holes;
+    private final PImage[] walls;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the TextureRegistry class, loads the sprites of every
+     * colour. Use TextureRegistry.of to share the registry of a PApplet.
+     * @param app   The PApplet used to decode the images
+     */
+    public TextureRegistry(PApplet app) {
+        this.app = app;
+        this.atlas = new SpriteAtlas(app);
+        this.images = new HashMap<>();
+        this.balls = loadColours("ball");
+        this.holes = loadColours("hole");
+        this.walls = loadColours("wall");
+    }
+
+    /**
+     * Get the shared registry of a PApplet, creating it on first use
+     * @param app   The PApplet
+     * @return      The registry of the PApplet
+     */
+    public static synchronized TextureRegistry of(PApplet app) {
+        TextureRegistry registry = REGISTRIES.get(app);
+        if (registry == null) {
+            registry = new TextureRegistry(app);
+            REGISTRIES.put(app, registry);
+        }
+        return registry;
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the sprite atlas the registry cuts its sprites from
+     * @return  The SpriteAtlas object
+     */
+    public SpriteAtlas getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * Get the number of lookups that were served from the registry
+     * @return  The number of hits
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of lookups that had to decode an image
+     * @return  The number of misses
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Reset the hit and miss counters
+     */
+    public void resetCounters() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    // --- Sprites by colour id ---
+    /**
+     * Get the sprite of a ball colour
+     * @param colourId  The colour id, 0 to 4
+     * @return          The image, or null if it could not be loaded
+     */
+    public PImage getBall(int colourId) {
+        return get(balls, colourId, "ball");
+    }
+
+    /**
+     * Get the sprite of a hole colour
+     * @param colourId  The colour id, 0 to 4
+     * @return          The image, or null if it could not be loaded
+     */
+    public PImage getHole(int colourId) {
+        return get(holes, colourId, "hole");
+    }
+
+    /**
+     * Get the sprite of a wall colour
+     * @param colourId  The colour id, 0 to 4
+     * @return          The image, or null if it could not be loaded
+     */
+    public PImage getWall(int colourId) {
+        return get(walls, colourId, "wall");
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Get an image by the name of its resource, without the .png extension
+     * @param name  The name of the image
+     * @return      The image, or null if it could not be loaded
+     */
+    public synchronized PImage get(String name) {
+        PImage image = images.get(name);
+        if (image != null) {
+            hits.incrementAndGet();
+            return image;
+        }
+
+        misses.incrementAndGet();
+        image = load(name);
+        if (image != null) {
+            images.put(name, image);
+        }
+        return image;
+    }
+
+    // A sprite that failed to load is looked up by name again, which tries to load it
+    private PImage get(PImage[] sprites, int colourId, String prefix) {
+        if (colourId < 0 || colourId >= BallColour.COUNT) {
+            return null;
+        }
+        PImage image = sprites[colourId];
+        if (image != null) {
+            hits.incrementAndGet();
+            return image;
+        }
+        return get(prefix + colourId);
+    }
+
+    private PImage[] loadColours(String prefix) {
+        PImage[] sprites = new PImage[BallColour.COUNT];
+        for (int i = 0; i < sprites.length; i++) {
+            sprites[i] = get(prefix + i);
+        }
+        return sprites;
+    }
+
+    private PImage load(String name) {
+        if (atlas.contains(name)) {
+            Sprite sprite = atlas.getSprite(name);
+            if (sprite != null) {
+                return sprite;
+            }
+        }
+
+        URL resource = getClass().getResource(name + ".png");
+        if (resource == null) {
+            Log.error("Image {}.png not found.", name);
+            return null;
+        }
+        try {
+            return app.loadImage(URLDecoder.decode(resource.getPath(), StandardCharsets.UTF_8.name()));
+        } catch (UnsupportedEncodingException e) {
+            Log.error("Image {}.png could not be loaded: {}", name, e);
+            return null;
+        }
+    }
+}
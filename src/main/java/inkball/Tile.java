@@ -1,7 +1,6 @@
 package inkball;
 
-import processing.core.PImage;
-import processing.core.PVector;
+import processing.core.PGraphics;
 import processing.core.PApplet;
 
 /**
@@ -9,12 +8,14 @@ import processing.core.PApplet;
  * Tiles can be walls, holes, or empty spaces and contain properties such as
  * their type (wall, hole, or empty) and methods for interacting with other
  * game objects (e.g., drawing and collision detection).
+ *
+ * The tiles themselves are stored in the board's TileGrid, one byte each, so
+ * a Tile is only a view of one cell of the grid. Two views of the same cell
+ * are equal, and a change made through one is seen by all of them.
  */
 
 
-public class Tile extends GameObject {
-
-    Board board;
+public class Tile {
 
     // Enum for tile types
     public enum TileType {
@@ -30,85 +31,48 @@ public class Tile extends GameObject {
         HOLE3,
         HOLE4
     }
-    
-    private TileType type;
-
-    // For Wall Tiles
-    LineSegment[] hitbox;
-    private PImage[] walls;
-    private boolean isWall;
-
-    // For Empty Tiles
-    private PImage backgroundTile;
 
-    // For holes
-    private boolean isHole;
-    private int debugColour;
-
-    // For ball tiles
-    private String ballColour;  
+    private TileGrid grid;
+    private int x;
+    private int y;
 
 
     // -------------------------- Constructor ----------------------------------
     /**
      * Constructor for the Tile class
-     * @param x         x coordinate of the tile 
-     * @param y         y coordinate of the tile
-     * @param type      type of the tile (WALL, HOLE or EMPTY)
-     * @param board     Reference to game board in which the tile is a part of
+     * @param grid  The grid that stores the tile
+     * @param x     x coordinate of the tile
+     * @param y     y coordinate of the tile
     */
-    public Tile(int x, int y, TileType type, Board board) {
-        super(x, y);
-        walls = new PImage[5];
-        this.isWall = false;
-        this.type = type;
-        this.board = board;
-
-
-        initialiseTileProperties(type);
-
-        if (isWall) {
-            initialiseHitbox();
-        }
-    
+    Tile(TileGrid grid, int x, int y) {
+        this.grid = grid;
+        this.x = x;
+        this.y = y;
     }
 
     // --------------------- Getters and Setters -------------------------------
     /**
-     * Gets the type of the tile
-     * @return  The TileType of the tile
-     */
-    public TileType getType() {
-        return this.type;
-    }
-
-    /**
-     * Sets the image of the background tiles
-     * 
-     * @param backgroundTile  The image to be set as the background tile
+     * Get the x-coordinate of the tile
+     * @return  x-coordinate of the tile
      */
-    public void setBackgroundTile(PImage backgroundTile) {
-        this.backgroundTile = backgroundTile;
+    public int getX() {
+        return x;
     }
 
     /**
-     * Sets the Wall Image for the tile
-     * @param index Index of the wall image to set (0-4)
-     * @param wall  The image to be set as the wall
+     * Get the y-coordinate of the tile
+     * @return  y-coordinate of the tile
      */
-    public void setWallImage(int index, PImage wall) {
-        if (index >= 0 && index < walls.length) {
-            walls[index] = wall;
-        }
+    public int getY() {
+        return y;
     }
 
     /**
-     * Gets the color of the ball currently on this tile (if any).
-     * @return The color of the ball on the tile.
+     * Gets the type of the tile
+     * @return  The TileType of the tile
      */
-
-    public String getBallColour() {
-        return this.ballColour;
+    public TileType getType() {
+        return grid.getType(x, y);
     }
 
     /**
@@ -116,7 +80,7 @@ public class Tile extends GameObject {
      * @param isHole    Boolean to indicate if the tile is a hole
      */
     public void setHole(boolean isHole) {
-        this.isHole = isHole;
+        grid.setHole(x, y, isHole);
     }
 
     /**
@@ -124,7 +88,7 @@ public class Tile extends GameObject {
      * @return  Boolean indicating if the tile is a hole
      */
     public boolean isHole() {
-        return this.isHole;
+        return grid.isHole(x, y);
     }
 
     /**
@@ -132,7 +96,7 @@ public class Tile extends GameObject {
      * @return  Boolean indicating if the tile is a wall
      */
     public boolean isWall() {
-        return this.isWall;
+        return grid.isWall(x, y);
     }
 
     /**
@@ -140,149 +104,59 @@ public class Tile extends GameObject {
      * @param isWall    Boolean indicating if the tile is a wall
      */
     public void setIsWall(boolean isWall) {
-        this.isWall = isWall;
+        grid.setWall(x, y, isWall);
     }
 
     /**
-     * Gets the hitbox for this tile (only applicable for wall tiles).
-     * @return The hitbox of the tile (an array of line segments).
+     * Gets the hitbox for this tile (only applicable for wall tiles). The
+     * simulation collides with the merged WallGeometry instead, so the hitbox
+     * is built from the shared template each time it is asked for.
+     * @return The hitbox of the tile (an array of line segments), or null if the tile is not a wall.
      */
     public LineSegment[] getHitbox() {
-        return this.hitbox;
+        return grid.getHitbox(x, y);
     }
 
     /**
-     * Sets a colour to help debug hole tiles
-     * @param colour    The colour to set for debugging
-     */
-    public void setDebugColour(int colour) {
-        this.debugColour = colour;
-    }
-
-    /**
-     * Sets the the type of the tile
+     * Sets the the type of the tile, keeping whether it is a wall or a hole
      * @param type The TileType of the tile (WALL, HOLE or EMPTY)
      */
     public void setTileType(TileType type) {
-        this.type = type;
+        grid.changeType(x, y, type);
     }
-    // --------------------------- Methods -------------------------------------
-    // --- Initialisation of tile properties ---   
-    private void initialiseTileProperties(TileType type) {
-        // Set flags based on tile type
-        switch (type) {
-            case WALL0:
-            case WALL1:
-            case WALL2:
-            case WALL3:
-            case WALL4:
-                this.isWall = true;
-                this.isHole = false;
-                break;
-
-            case HOLE0:
-            case HOLE1:
-            case HOLE2:
-            case HOLE3:
-            case HOLE4:
-                this.isHole = true;
-                this.isWall = false;
-                break;
 
-    
-            case EMPTY:
-            default:
-                this.isWall = false;
-                this.isHole = false;
-                break;
+    // ----------------------------- Methods -----------------------------------
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Tile)) {
+            return false;
         }
+        Tile tile = (Tile) other;
+        return grid == tile.grid && x == tile.x && y == tile.y;
     }
 
-    /**
-     * Initializes the hitbox for wall tiles. The hitbox consists of the four edges
-     * of the tile, represented as line segments.
-     */
-
-    public void initialiseHitbox() {
-        PVector topLeft = new PVector(x * App.CELLSIZE - 2, y * App.CELLSIZE + App.TOPBAR - 2);
-        PVector topRight = new PVector((x + 1) * App.CELLSIZE + 2, y * App.CELLSIZE + App.TOPBAR - 2);
-        PVector bottomRight = new PVector((x + 1) * App.CELLSIZE + 2, (y + 1) * App.CELLSIZE + App.TOPBAR + 2);
-        PVector bottomLeft = new PVector(x * App.CELLSIZE - 2, (y + 1) * App.CELLSIZE + App.TOPBAR + 2);
-
-        hitbox = new LineSegment[4];
-        hitbox[0] = new LineSegment(topLeft.x, topLeft.y, topRight.x, topRight.y);   // Top edge
-        hitbox[1] = new LineSegment(bottomLeft.x, bottomLeft.y, bottomRight.x, bottomRight.y); // Bottom edge
-        hitbox[2] = new LineSegment(topLeft.x, topLeft.y, bottomLeft.x, bottomLeft.y);   // Left edge
-        hitbox[3] = new LineSegment(topRight.x, topRight.y, bottomRight.x, bottomRight.y); // Right edge
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(grid) * 31 + x + y * grid.getWidth();
     }
-    
 
     // ----------------------------- Drawing -----------------------------------
-
     /**
      * Draws the tile on the game board. The rendering depends on the type of tile
      * (e.g., wall, hole, or empty) and the associated images or colors.
      * @param app  The PApplet used to render the tile.
      */
     public void draw(PApplet app) {
-        int drawX = x * App.CELLSIZE;
-        int drawY = y * App.CELLSIZE;
-
-        // Draw different tile types based on the type
-        switch (type) {
-            case EMPTY:
-            if (backgroundTile != null && !isHole && !isWall) {
-                app.image(backgroundTile, drawX, y * App.CELLSIZE);
-            }
-            break;
-            
-            case WALL0:
-            if (walls[0] != null && isWall) {
-                setIsWall(true);
-                app.image(walls[0], drawX, drawY);
-            }
-            break;
+        grid.draw(app, x, y);
+    }
 
-            case WALL1:
-            if (walls[1] != null && isWall) {
-                app.image(walls[1], drawX, drawY);
-            }
-            break;
-            
-            case WALL2:
-            if (walls[2] != null && isWall) {
-                app.image(walls[2], drawX, drawY);
-            }
-            break;
-            
-            case WALL3:
-            if (walls[3] != null && isWall) {
-                app.image(walls[3], drawX, drawY);
-            }
-            break;
-            
-            case WALL4:
-            if (walls[4] != null && isWall) {
-                app.image(walls[4], drawX, drawY);
-            }
-            break;
-            
-            case HOLE0:
-            case HOLE1:
-            case HOLE2:
-            case HOLE3:
-            case HOLE4:
-                if (debugColour != 0 && isHole) {
-                    app.fill(debugColour);
-                    app.rect(drawX, drawY, App.CELLSIZE, App.CELLSIZE);
-                }
-                break;
-            
-            default:
-            if (backgroundTile != null) {
-                app.image(backgroundTile, drawX, drawY);
-            }
-            break;
-        }
+    /**
+     * Draws the tile into an offscreen layer of the board, the same way as it
+     * is drawn on the screen.
+     * @param g  The layer to draw into, with the board's top left at the origin
+     * @return   True if the tile drew anything
+     */
+    public boolean draw(PGraphics g) {
+        return grid.draw(g, x, y);
     }
 }
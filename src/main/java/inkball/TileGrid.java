@@ -0,0 +1,335 @@
+package inkball;
+
+import java.util.Arrays;
+
+import processing.core.PApplet;
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+/**
+ * The TileGrid class holds the tiles of a board as one byte per cell. The
+ * low bits of a cell are the ordinal of its TileType, and two flag bits mark
+ * it as a wall or a hole. Everything else a tile needs is the same for every
+ * tile of a type, so the images are kept once per type and the hitbox of a
+ * wall is built from one shared template when it is asked for. A 1000x1000
+ * board takes a megabyte.
+ *
+ * Cells are indexed x + y * width, the same way as the cells of WallGrid.
+ * Tile objects are only views onto a cell, created when they are asked for.
+ */
+public class TileGrid {
+    // Layout of a cell
+    public static final int TYPE_MASK = 0x0F;
+    public static final int WALL = 0x10;
+    public static final int HOLE = 0x20;
+
+    // Hole tiles are drawn in this colour when the hole has no image over them
+    public static final int HOLE_DEBUG_COLOUR = 0xFFFF0000;
+
+    private static final Tile.TileType[] TYPES = Tile.TileType.values();
+
+    // The four sides of a wall tile, as x1, y1, x2, y2 in cells, grown by HITBOX_MARGIN pixels
+    private static final int[][] HITBOX_TEMPLATE = {
+        {0, 0, 1, 0},   // Top edge
+        {0, 1, 1, 1},   // Bottom edge
+        {0, 0, 0, 1},   // Left edge
+        {1, 0, 1, 1}    // Right edge
+    };
+    private static final int HITBOX_MARGIN = 2;
+
+    private int width;
+    private int height;
+    private byte[] cells;
+
+    // Images shared by every tile of a type, indexed by the type ordinal
+    private PImage[] images = new PImage[TYPES.length];
+
+    // Told when a tile changes, so its static layer is drawn again
+    private Board board;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the TileGrid class, with every tile empty
+     * @param width     The width of the board in tiles
+     * @param height    The height of the board in tiles
+     */
+    public TileGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the width of the grid
+     * @return  The width in tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the grid
+     * @return  The height in tiles
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Check if a position is on the grid
+     * @param x The x-coordinate of the tile
+     * @param y The y-coordinate of the tile
+     * @return  True if the position is on the grid
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Get the type of a tile
+     * @param x The x-coordinate of the tile
+     * @param y The y-coordinate of the tile
+     * @return  The TileType of the tile
+     */
+    public Tile.TileType getType(int x, int y) {
+        return TYPES[cells[x + y * width] & TYPE_MASK];
+    }
+
+    /**
+     * Set the type of a tile, which also makes it a wall, a hole or neither
+     * @param x     The x-coordinate of the tile
+     * @param y     The y-coordinate of the tile
+     * @param type  The TileType of the tile
+     */
+    public void setType(int x, int y, Tile.TileType type) {
+        cells[x + y * width] = (byte) (type.ordinal() | flagsOf(type));
+        invalidate();
+    }
+
+    /**
+     * Change the type of a tile and keep its wall and hole flags
+     * @param x     The x-coordinate of the tile
+     * @param y     The y-coordinate of the tile
+     * @param type  The TileType of the tile
+     */
+    public void changeType(int x, int y, Tile.TileType type) {
+        int index = x + y * width;
+        cells[index] = (byte) ((cells[index] & ~TYPE_MASK) | type.ordinal());
+        invalidate();
+    }
+
+    /**
+     * Check if a tile is a wall
+     * @param x The x-coordinate of the tile
+     * @param y The y-coordinate of the tile
+     * @return  True if the tile is a wall
+     */
+    public boolean isWall(int x, int y) {
+        return (cells[x + y * width] & WALL) != 0;
+    }
+
+    /**
+     * Mark a tile as a wall or not
+     * @param x     The x-coordinate of the tile
+     * @param y     The y-coordinate of the tile
+     * @param wall  True if the tile is a wall
+     */
+    public void setWall(int x, int y, boolean wall) {
+        setFlag(x + y * width, WALL, wall);
+    }
+
+    /**
+     * Check if a tile is a hole
+     * @param x The x-coordinate of the tile
+     * @param y The y-coordinate of the tile
+     * @return  True if the tile is a hole
+     */
+    public boolean isHole(int x, int y) {
+        return (cells[x + y * width] & HOLE) != 0;
+    }
+
+    /**
+     * Mark a tile as a hole or not
+     * @param x     The x-coordinate of the tile
+     * @param y     The y-coordinate of the tile
+     * @param hole  True if the tile is a hole
+     */
+    public void setHole(int x, int y, boolean hole) {
+        setFlag(x + y * width, HOLE, hole);
+    }
+
+    /**
+     * Get a view of a tile
+     * @param x The x-coordinate of the tile
+     * @param y The y-coordinate of the tile
+     * @return  The tile, or null if the position is outside the grid
+     */
+    public Tile getTile(int x, int y) {
+        return contains(x, y) ? new Tile(this, x, y) : null;
+    }
+
+    /**
+     * Set the image every tile of a type is drawn with
+     * @param type  The TileType
+     * @param image The image
+     */
+    public void setImage(Tile.TileType type, PImage image) {
+        images[type.ordinal()] = image;
+        invalidate();
+    }
+
+    /**
+     * Set the wall and background images of every type from a texture registry
+     * @param textures  The texture registry of the app
+     */
+    public void setImages(TextureRegistry textures) {
+        for (int i = 0; i < BallColour.COUNT; i++) {
+            images[Tile.TileType.WALL0.ordinal() + i] = textures.getWall(i);
+        }
+        images[Tile.TileType.EMPTY.ordinal()] = textures.get("tile");
+        invalidate();
+    }
+
+    /**
+     * Get the number of bytes the tiles take up
+     * @return  The size of the cell array in bytes
+     */
+    public int getByteSize() {
+        return cells.length;
+    }
+
+    // Called by Board when it loads the level the grid belongs to
+    void setBoard(Board board) {
+        this.board = board;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    /**
+     * Make every tile empty again
+     */
+    public void clear() {
+        Arrays.fill(cells, (byte) 0);
+        invalidate();
+    }
+
+    /**
+     * Build the hitbox of a wall tile, the four sides of the tile grown by two
+     * pixels
+     * @param x The x-coordinate of the tile
+     * @param y The y-coordinate of the tile
+     * @return  The four sides of the tile, or null if the tile is not a wall
+     */
+    public LineSegment[] getHitbox(int x, int y) {
+        if (!isWall(x, y)) {
+            return null;
+        }
+        LineSegment[] hitbox = new LineSegment[HITBOX_TEMPLATE.length];
+        for (int i = 0; i < hitbox.length; i++) {
+            int[] side = HITBOX_TEMPLATE[i];
+            hitbox[i] = new LineSegment(
+                    toHitboxX(x + side[0], side[0]), toHitboxY(y + side[1], side[1]),
+                    toHitboxX(x + side[2], side[2]), toHitboxY(y + side[3], side[3]));
+        }
+        return hitbox;
+    }
+
+    private static float toHitboxX(int cellX, int far) {
+        return cellX * App.CELLSIZE + (far == 0 ? -HITBOX_MARGIN : HITBOX_MARGIN);
+    }
+
+    private static float toHitboxY(int cellY, int far) {
+        return cellY * App.CELLSIZE + App.TOPBAR + (far == 0 ? -HITBOX_MARGIN : HITBOX_MARGIN);
+    }
+
+    private static int flagsOf(Tile.TileType type) {
+        if (type.ordinal() >= Tile.TileType.HOLE0.ordinal()) {
+            return HOLE;
+        }
+        if (type.ordinal() >= Tile.TileType.WALL0.ordinal()) {
+            return WALL;
+        }
+        return 0;
+    }
+
+    private void setFlag(int index, int flag, boolean set) {
+        cells[index] = (byte) (set ? cells[index] | flag : cells[index] & ~flag);
+        invalidate();
+    }
+
+    // --- Tell the board its static layer is out of date ---
+    private void invalidate() {
+        if (board != null) {
+            board.invalidateStaticLayer();
+        }
+    }
+
+    // ----------------------------- Drawing -----------------------------------
+    // --- Image of a tile, empty tiles show the background and walls their colour ---
+    private PImage getImage(int cell) {
+        Tile.TileType type = TYPES[cell & TYPE_MASK];
+        switch (type) {
+            case EMPTY:
+                return (cell & (WALL | HOLE)) == 0 ? images[type.ordinal()] : null;
+
+            case WALL0:
+            case WALL1:
+            case WALL2:
+            case WALL3:
+            case WALL4:
+                return (cell & WALL) != 0 ? images[type.ordinal()] : null;
+
+            default:
+                return null;
+        }
+    }
+
+    private static boolean hasDebugColour(int cell) {
+        return (cell & HOLE) != 0 && (cell & TYPE_MASK) >= Tile.TileType.HOLE0.ordinal();
+    }
+
+    /**
+     * Draw a tile on the game board
+     * @param app   The PApplet used to render the tile
+     * @param x     The x-coordinate of the tile
+     * @param y     The y-coordinate of the tile
+     */
+    public void draw(PApplet app, int x, int y) {
+        int cell = cells[x + y * width];
+        int drawX = x * App.CELLSIZE;
+        int drawY = y * App.CELLSIZE;
+
+        PImage image = getImage(cell);
+        if (image != null) {
+            Sprite.draw(app, image, drawX, drawY);
+        } else if (hasDebugColour(cell)) {
+            app.fill(HOLE_DEBUG_COLOUR);
+            app.rect(drawX, drawY, App.CELLSIZE, App.CELLSIZE);
+        }
+    }
+
+    /**
+     * Draw a tile into an offscreen layer of the board, the same way as it is
+     * drawn on the screen
+     * @param g     The layer to draw into, with the board's top left at the origin
+     * @param x     The x-coordinate of the tile
+     * @param y     The y-coordinate of the tile
+     * @return      True if the tile drew anything
+     */
+    public boolean draw(PGraphics g, int x, int y) {
+        int cell = cells[x + y * width];
+        int drawX = x * App.CELLSIZE;
+        int drawY = y * App.CELLSIZE;
+
+        PImage image = getImage(cell);
+        if (image != null) {
+            Sprite.draw(g, image, drawX, drawY);
+            return true;
+        } else if (hasDebugColour(cell)) {
+            g.fill(HOLE_DEBUG_COLOUR);
+            g.rect(drawX, drawY, App.CELLSIZE, App.CELLSIZE);
+            return true;
+        }
+        return false;
+    }
+}
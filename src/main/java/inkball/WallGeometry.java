@@ -0,0 +1,142 @@
+package inkball;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The WallGeometry class compiles the wall tiles of a level into the edges a
+ * ball can actually hit. It is built once when a level is loaded. Only tile
+ * sides that face a non-wall tile are kept, since the sides two walls share
+ * can never be reached. Neighbouring sides along the same row or column are
+ * merged into one edge as long as their tiles have the same colour, so a
+ * straight run of wall is a single segment with no seams for a ball to
+ * catch on.
+ *
+ * Edges lie exactly on the tile boundaries and wind clockwise around each
+ * wall, so the normal of every edge points out of the wall. Each edge keeps
+ * the first tile of its run as its owner, together with the colour id a ball
+ * takes when it hits it. Cells outside the board count as wall, so the outer
+ * sides of the border are dropped as well.
+ */
+public class WallGeometry {
+    private LineSegment[] edges;
+    private Tile[] owners;
+    private byte[] colourIds;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the WallGeometry class, compiles the edges of the wall
+     * tiles of a board.
+     * @param tiles     The tiles of the board
+     */
+    public WallGeometry(TileGrid tiles) {
+        int width = tiles.getWidth();
+        int height = tiles.getHeight();
+        List<LineSegment> edgeList = new ArrayList<>();
+        List<Tile> ownerList = new ArrayList<>();
+
+        // Top and bottom sides, merged along each row
+        for (int y = 0; y < height; y++) {
+            for (int side = -1; side <= 1; side += 2) {
+                int x = 0;
+                while (x < width) {
+                    if (!isExterior(tiles, x, y, 0, side)) {
+                        x++;
+                        continue;
+                    }
+                    int start = x;
+                    Tile.TileType type = tiles.getType(x, y);
+                    while (x < width && isExterior(tiles, x, y, 0, side) && tiles.getType(x, y) == type) {
+                        x++;
+                    }
+
+                    float left = start * App.CELLSIZE;
+                    float right = x * App.CELLSIZE;
+                    float py = (side < 0 ? y : y + 1) * App.CELLSIZE + App.TOPBAR;
+                    edgeList.add(side < 0 ? new LineSegment(right, py, left, py) : new LineSegment(left, py, right, py));
+                    ownerList.add(tiles.getTile(start, y));
+                }
+            }
+        }
+
+        // Left and right sides, merged along each column
+        for (int x = 0; x < width; x++) {
+            for (int side = -1; side <= 1; side += 2) {
+                int y = 0;
+                while (y < height) {
+                    if (!isExterior(tiles, x, y, side, 0)) {
+                        y++;
+                        continue;
+                    }
+                    int start = y;
+                    Tile.TileType type = tiles.getType(x, y);
+                    while (y < height && isExterior(tiles, x, y, side, 0) && tiles.getType(x, y) == type) {
+                        y++;
+                    }
+
+                    float top = start * App.CELLSIZE + App.TOPBAR;
+                    float bottom = y * App.CELLSIZE + App.TOPBAR;
+                    float px = (side < 0 ? x : x + 1) * App.CELLSIZE;
+                    edgeList.add(side < 0 ? new LineSegment(px, top, px, bottom) : new LineSegment(px, bottom, px, top));
+                    ownerList.add(tiles.getTile(x, start));
+                }
+            }
+        }
+
+        this.edges = edgeList.toArray(new LineSegment[0]);
+        this.owners = ownerList.toArray(new Tile[0]);
+        this.colourIds = new byte[edges.length];
+        for (int i = 0; i < owners.length; i++) {
+            colourIds[i] = (byte) Ball.getWallColourId(owners[i].getType());
+        }
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the number of edges
+     * @return  The number of edges
+     */
+    public int size() {
+        return edges.length;
+    }
+
+    /**
+     * Get an edge
+     * @param index The index of the edge
+     * @return      The line segment of the edge
+     */
+    public LineSegment getEdge(int index) {
+        return edges[index];
+    }
+
+    /**
+     * Get the first wall tile of the run an edge was merged from
+     * @param index The index of the edge
+     * @return      The wall tile
+     */
+    public Tile getOwner(int index) {
+        return owners[index];
+    }
+
+    /**
+     * Get the colour id a ball takes when it hits an edge
+     * @param index The index of the edge
+     * @return      The colour id, or -1 if the wall leaves the colour unchanged
+     */
+    public int getColourId(int index) {
+        return colourIds[index];
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    // A side of a wall tile is exterior when the cell next to it is on the board and not a wall
+    private static boolean isExterior(TileGrid tiles, int x, int y, int dx, int dy) {
+        return isWall(tiles, x, y, false) && !isWall(tiles, x + dx, y + dy, true);
+    }
+
+    private static boolean isWall(TileGrid tiles, int x, int y, boolean outside) {
+        if (!tiles.contains(x, y)) {
+            return outside;
+        }
+        return tiles.isWall(x, y);
+    }
+}
@@ -0,0 +1,200 @@
+package inkball;
+
+/**
+ * The WallGrid class is a uniform-grid broad phase for wall collisions. It is
+ * built once when a level is loaded and maps every board cell to the merged
+ * wall edges of the level's WallGeometry that a ball centred in that cell
+ * could touch. Because every edge is only registered in the cells along it,
+ * a ball only tests the walls near its position instead of every wall on the
+ * board. The edges of each cell are stored contiguously.
+ */
+public class WallGrid {
+    // Distance from an edge within which a ball centre may collide with it. This is the
+    // ball radius plus a pixel of slack for rounding in Ball.isCollidingWithLine
+    public static final float QUERY_MARGIN = Ball.RADIUS + 1;
+
+    private int width;
+    private int height;
+    private WallGeometry geometry;
+
+    // Edges of cell i are geometry edges edgeIndex[cellStart[i]] to edgeIndex[cellStart[i + 1] - 1]
+    private int[] cellStart;
+    private int[] edgeIndex;
+
+    // -------------------------- Constructor ----------------------------------
+    /**
+     * Constructor for the WallGrid class, compiles the wall tiles of a board
+     * and builds the grid from their edges.
+     * @param tiles     The tiles of the board
+     */
+    public WallGrid(TileGrid tiles) {
+        this(new WallGeometry(tiles), tiles.getWidth(), tiles.getHeight());
+    }
+
+    /**
+     * Constructor for the WallGrid class, builds the grid from compiled wall
+     * edges.
+     * @param geometry  The wall edges of the board
+     * @param width     The width of the board in tiles
+     * @param height    The height of the board in tiles
+     */
+    public WallGrid(WallGeometry geometry, int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.geometry = geometry;
+        this.cellStart = new int[width * height + 1];
+
+        // First pass counts the edges of each cell, second pass fills them in
+        int[] counts = new int[width * height];
+        forEachRegistration(counts, null);
+
+        for (int i = 0; i < counts.length; i++) {
+            cellStart[i + 1] = cellStart[i] + counts[i];
+        }
+        this.edgeIndex = new int[cellStart[counts.length]];
+
+        int[] next = new int[width * height];
+        System.arraycopy(cellStart, 0, next, 0, next.length);
+        forEachRegistration(null, next);
+    }
+
+    // --------------------- Getters and Setters -------------------------------
+    /**
+     * Get the cell that contains a point on the screen. Points outside the
+     * board are clamped to the nearest border cell.
+     * @param px    The x-coordinate of the point in pixels
+     * @param py    The y-coordinate of the point in pixels
+     * @return      The index of the cell
+     */
+    public int getCell(float px, float py) {
+        int cx = (int) Math.floor(px / App.CELLSIZE);
+        int cy = (int) Math.floor((py - App.TOPBAR) / App.CELLSIZE);
+        cx = Math.max(0, Math.min(width - 1, cx));
+        cy = Math.max(0, Math.min(height - 1, cy));
+        return cx + cy * width;
+    }
+
+    /**
+     * Get the column of the cell that contains an x-coordinate, clamped to
+     * the board
+     * @param px    The x-coordinate in pixels
+     * @return      The column of the cell
+     */
+    public int getColumn(float px) {
+        return toCellX(px);
+    }
+
+    /**
+     * Get the row of the cell that contains a y-coordinate, clamped to the
+     * board
+     * @param py    The y-coordinate in pixels
+     * @return      The row of the cell
+     */
+    public int getRow(float py) {
+        return toCellY(py);
+    }
+
+    /**
+     * Get the cell at a column and row of the board
+     * @param column    The column of the cell
+     * @param row       The row of the cell
+     * @return          The index of the cell
+     */
+    public int getCellAt(int column, int row) {
+        return column + row * width;
+    }
+
+    /**
+     * Get the index of the first edge registered in a cell
+     * @param cell  The index of the cell
+     * @return      The index of the first edge
+     */
+    public int getCellStart(int cell) {
+        return cellStart[cell];
+    }
+
+    /**
+     * Get the index one past the last edge registered in a cell
+     * @param cell  The index of the cell
+     * @return      The end index of the cell's edges
+     */
+    public int getCellEnd(int cell) {
+        return cellStart[cell + 1];
+    }
+
+    /**
+     * Get a registered edge
+     * @param index The index of the registration
+     * @return      The line segment of the edge
+     */
+    public LineSegment getEdge(int index) {
+        return geometry.getEdge(edgeIndex[index]);
+    }
+
+    /**
+     * Get the wall tile that a registered edge belongs to
+     * @param index The index of the registration
+     * @return      The wall tile
+     */
+    public Tile getOwner(int index) {
+        return geometry.getOwner(edgeIndex[index]);
+    }
+
+    /**
+     * Get the colour id a ball takes when it hits a registered edge
+     * @param index The index of the registration
+     * @return      The colour id, or -1 if the wall leaves the colour unchanged
+     */
+    public int getColourId(int index) {
+        return geometry.getColourId(edgeIndex[index]);
+    }
+
+    /**
+     * Get the compiled wall edges the grid was built from
+     * @return  The WallGeometry object
+     */
+    public WallGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Get the total number of edge registrations across all cells
+     * @return  The number of registrations
+     */
+    public int getRegistrationCount() {
+        return edgeIndex.length;
+    }
+
+    // ----------------------------- Methods -----------------------------------
+    // --- Register wall edges ---
+    // Walks every wall edge and the cells its margin overlaps, either counting or storing it
+    private void forEachRegistration(int[] counts, int[] next) {
+        for (int i = 0; i < geometry.size(); i++) {
+            LineSegment edge = geometry.getEdge(i);
+            int minCx = toCellX(Math.min(edge.startX, edge.endX) - QUERY_MARGIN);
+            int maxCx = toCellX(Math.max(edge.startX, edge.endX) + QUERY_MARGIN);
+            int minCy = toCellY(Math.min(edge.startY, edge.endY) - QUERY_MARGIN);
+            int maxCy = toCellY(Math.max(edge.startY, edge.endY) + QUERY_MARGIN);
+
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                for (int cx = minCx; cx <= maxCx; cx++) {
+                    int cell = cx + cy * width;
+                    if (counts != null) {
+                        counts[cell]++;
+                    } else {
+                        edgeIndex[next[cell]] = i;
+                        next[cell]++;
+                    }
+                }
+            }
+        }
+    }
+
+    private int toCellX(float px) {
+        return Math.max(0, Math.min(width - 1, (int) Math.floor(px / App.CELLSIZE)));
+    }
+
+    private int toCellY(float py) {
+        return Math.max(0, Math.min(height - 1, (int) Math.floor((py - App.TOPBAR) / App.CELLSIZE)));
+    }
+}
@@ -0,0 +1,49 @@
+package inkball;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Assumptions;
+
+/**
+ * Test helper that measures how many bytes the current thread allocates
+ * while running a piece of code. Used by the allocation tests of the hot
+ * simulation paths.
+ */
+final class Allocations {
+    private static final int WARMUP_RUNS = 20000;
+
+    private Allocations() {
+    }
+
+    /**
+     * Run the code a number of times to warm it up, then measure the bytes
+     * allocated by one more batch of runs. Tests are skipped on JVMs that
+     * cannot measure thread allocation.
+     * @param runs  The number of runs to measure
+     * @param code  The code to measure
+     * @return      The number of bytes allocated by the measured runs
+     */
+    static long measure(int runs, Runnable code) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean,
+                "Thread allocation measurement is not supported on this JVM");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            code.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < runs; i++) {
+            code.run();
+        }
+        long after = threads.getThreadAllocatedBytes(threadId);
+
+        // Calibrate out anything the measurement itself allocates
+        long overhead = threads.getThreadAllocatedBytes(threadId) - after;
+        return Math.max(0, after - before - overhead);
+    }
+}
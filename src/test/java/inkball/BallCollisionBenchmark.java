@@ -0,0 +1,80 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Benchmark for ball to ball collisions. Balls are scattered over boards
+ * that grow with the ball count, so every board is as crowded as 100 balls
+ * on a level, and the cost of one collision pass is compared between the
+ * SweepAndPrune broad phase and testing every pair. Run with
+ * "gradle benchmark".
+ */
+@Tag("benchmark")
+public class BallCollisionBenchmark {
+
+    private static final int ROUNDS = 20;
+    private static final float BOARD_SIZE = App.BOARD_WIDTH * App.CELLSIZE;
+
+    @Test
+    public void benchmarkBroadPhaseAgainstBruteForce() {
+        int[] counts = {100, 1000, 10000};
+        double[] sweepMicros = new double[counts.length];
+        double[] bruteMicros = new double[counts.length];
+
+        // Warm up the JIT before timing anything
+        measure(counts[1]);
+
+        for (int c = 0; c < counts.length; c++) {
+            double[] result = measure(counts[c]);
+            sweepMicros[c] = result[0];
+            bruteMicros[c] = result[1];
+            System.out.printf("balls=%6d  sweep and prune us/pass=%10.1f  brute force us/pass=%12.1f%n",
+                    counts[c], result[0], result[1]);
+        }
+
+        // The broad phase pulls further ahead as the ball count grows
+        assertTrue(sweepMicros[counts.length - 1] < bruteMicros[counts.length - 1]);
+    }
+
+    // Returns {sweep and prune us per pass, brute force us per pass}
+    private double[] measure(int count) {
+        float side = BOARD_SIZE * (float) Math.sqrt(count / 100.0);
+        Random random = new Random(7);
+        BallStore store = new BallStore(count);
+        for (int i = 0; i < count; i++) {
+            store.add(random.nextFloat() * side, random.nextFloat() * side, random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2, 0);
+        }
+
+        SweepAndPrune sweepAndPrune = new SweepAndPrune();
+        sweepAndPrune.collide(store);
+
+        // Take the best of a few repetitions to filter out GC pauses
+        double sweep = Double.MAX_VALUE;
+        for (int repeat = 0; repeat < 5; repeat++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < ROUNDS; r++) {
+                sweepAndPrune.collide(store);
+            }
+            sweep = Math.min(sweep, (System.nanoTime() - start) / (ROUNDS * 1e3));
+        }
+
+        // Brute force is slow enough on large boards that one repetition will do
+        int bruteRounds = Math.max(1, ROUNDS * 100 / count);
+        long start = System.nanoTime();
+        for (int r = 0; r < bruteRounds; r++) {
+            for (int a = 0; a < store.size(); a++) {
+                for (int b = a + 1; b < store.size(); b++) {
+                    store.collideBalls(a, b);
+                }
+            }
+        }
+        double brute = (System.nanoTime() - start) / (bruteRounds * 1e3);
+
+        return new double[] {sweep, brute};
+    }
+}
@@ -0,0 +1,62 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the BallColour enum
+ */
+public class BallColourTest {
+
+    @Test
+    public void testIdsMatchTheSprites() {
+        assertEquals(BallColour.COUNT, BallColour.values().length);
+        for (BallColour colour : BallColour.values()) {
+            assertEquals(colour, BallColour.fromId(colour.getId()));
+            assertEquals("ball" + colour.getId(), colour.getSprite());
+            assertEquals(colour.getId(), BallColour.toId(colour.getSprite(), "ball"));
+            assertEquals(colour.getId(), BallColour.toId("hole" + colour.getId(), "hole"));
+        }
+        assertNull(BallColour.fromId(-1));
+        assertNull(BallColour.fromId(BallColour.COUNT));
+    }
+
+    @Test
+    public void testNamesFromTheConfiguration() {
+        assertEquals(BallColour.GREY, BallColour.fromName("grey"));
+        assertEquals(BallColour.YELLOW, BallColour.fromName("yellow"));
+        assertEquals("blue", BallColour.BLUE.getName());
+        assertNull(BallColour.fromName("purple"));
+        assertNull(BallColour.fromName(null));
+    }
+
+    @Test
+    public void testSpriteNamesWithoutAColour() {
+        assertEquals(-1, BallColour.toId("ball5", "ball"));
+        assertEquals(-1, BallColour.toId("hole2", "ball"));
+        assertEquals(-1, BallColour.toId("ball22", "ball"));
+        assertEquals(-1, BallColour.toId("blue", "ball"));
+        assertEquals(-1, BallColour.toId(null, "ball"));
+    }
+
+    @Test
+    public void testWallsGiveTheirColourToBalls() {
+        assertEquals(BallColour.ORANGE.getId(), Ball.getWallColourId(Tile.TileType.WALL1));
+        assertEquals(BallColour.YELLOW.getId(), Ball.getWallColourId(Tile.TileType.WALL4));
+        assertEquals(-1, Ball.getWallColourId(Tile.TileType.WALL0));
+        assertEquals(-1, Ball.getWallColourId(Tile.TileType.EMPTY));
+        assertEquals(-1, Ball.getWallColourId(Tile.TileType.HOLE1));
+    }
+
+    @Test
+    public void testGreyMatchesEveryColour() {
+        for (BallColour colour : BallColour.values()) {
+            assertTrue(BallColour.GREY.matches(colour));
+            assertTrue(colour.matches(BallColour.GREY));
+            assertTrue(colour.matches(colour));
+        }
+        assertFalse(BallColour.ORANGE.matches(BallColour.BLUE));
+        assertFalse(BallColour.GREEN.matches(BallColour.YELLOW));
+    }
+}
@@ -0,0 +1,210 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the BallStore class
+ */
+public class BallStoreTest {
+
+    private BallStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new BallStore(4);
+    }
+
+    @Test
+    public void testAddStoresState() {
+        int handle = store.add(100, 200, 1, -1, 2);
+        int slot = store.getSlot(handle);
+
+        assertEquals(1, store.size());
+        assertEquals(100, store.getPosX(slot), 0.0001);
+        assertEquals(200, store.getPosY(slot), 0.0001);
+        assertEquals(1, store.getVelocityX(slot), 0.0001);
+        assertEquals(-1, store.getVelocityY(slot), 0.0001);
+        assertEquals(1.0f, store.getScale(slot), 0.0001);
+        assertEquals(2, store.getColour(slot));
+        assertNull(store.getView(slot));
+    }
+
+    @Test
+    public void testSwapRemoveKeepsOtherHandlesValid() {
+        int first = store.add(1, 1, 0, 0, 0);
+        int second = store.add(2, 2, 0, 0, 1);
+        int third = store.add(3, 3, 0, 0, 2);
+
+        store.remove(first);
+
+        assertEquals(2, store.size());
+        assertFalse(store.isValid(first));
+        assertEquals(2, store.getPosX(store.getSlot(second)), 0.0001);
+        assertEquals(3, store.getPosX(store.getSlot(third)), 0.0001);
+
+        // The last ball was moved into the freed slot
+        assertEquals(0, store.getSlot(third));
+    }
+
+    @Test
+    public void testStaleHandleIsDetectedAfterReuse() {
+        int old = store.add(1, 1, 0, 0, 0);
+        store.remove(old);
+        int reused = store.add(2, 2, 0, 0, 0);
+
+        assertNotEquals(old, reused);
+        assertFalse(store.isValid(old));
+        assertTrue(store.isValid(reused));
+        assertFalse(store.isValid(BallStore.NO_HANDLE));
+        assertThrows(IllegalArgumentException.class, () -> store.getSlot(old));
+    }
+
+    @Test
+    public void testBallMovesIntoStore() {
+        Ball ball = new Ball(5, 5, null, "ball3");
+        ball.setVelocity(2, 3);
+        ball.setScale(0.5f);
+
+        store.asList().add(ball);
+
+        assertSame(store, ball.getStore());
+        assertEquals(1, store.size());
+        assertSame(ball, store.getView(ball.getSlot()));
+        assertEquals(2, ball.getVelocityX(), 0.0001);
+        assertEquals(3, ball.getVelocityY(), 0.0001);
+        assertEquals(0.5f, ball.getScale(), 0.0001);
+        assertEquals("green", ball.getColour());
+    }
+
+    @Test
+    public void testRemovedBallKeepsItsState() {
+        Ball ball = new Ball(5, 5, null, "ball1");
+        List<Ball> balls = store.asList();
+        balls.add(ball);
+        float x = ball.getPosX();
+
+        assertTrue(balls.remove(ball));
+
+        assertEquals(0, store.size());
+        assertNotSame(store, ball.getStore());
+        assertEquals(x, ball.getPosX(), 0.0001);
+        assertEquals("orange", ball.getColour());
+        assertFalse(balls.contains(ball));
+    }
+
+    @Test
+    public void testNewBallIsNotInAStore() {
+        Ball ball = new Ball(5, 5, null, "ball2");
+        ball.setVelocity(1, -1);
+
+        assertNull(ball.getStore());
+        assertEquals(BallStore.NO_HANDLE, ball.getHandle());
+        assertEquals(1, ball.getVelocityX(), 0.0001);
+        assertEquals(1.0f, ball.getScale(), 0.0001);
+
+        // Bouncing off the border of the window keeps the state in the ball
+        ball.setPosition(-1, 100);
+        ball.checkBorderCollision();
+        assertNull(ball.getStore());
+        assertEquals(-1, ball.getVelocityX(), 0.0001);
+
+        // A physics method gives the ball a store of its own
+        ball.move();
+        assertNotNull(ball.getStore());
+        assertEquals(1, ball.getStore().size());
+    }
+
+    @Test
+    public void testAddingAndClearingViewsDoesNotAllocate() {
+        Ball[] views = new Ball[100];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = new Ball(i % 10 + 1, i / 10 + 1, null, "ball" + (i % 5));
+        }
+
+        long bytes = Allocations.measure(200, () -> {
+            for (Ball view : views) {
+                store.add(view);
+            }
+            store.clear();
+        });
+        assertEquals(0, bytes);
+        assertNull(views[0].getStore());
+    }
+
+    @Test
+    public void testListViewIteratorRemove() {
+        List<Ball> balls = store.asList();
+        for (int i = 0; i < 6; i++) {
+            balls.add(new Ball(i + 1, 1, null, "ball" + (i % 5)));
+        }
+
+        // Remove every orange and blue ball while iterating
+        balls.removeIf(ball -> ball.getColour().equals("orange") || ball.getColour().equals("blue"));
+
+        assertEquals(4, balls.size());
+        for (Ball ball : balls) {
+            assertNotEquals("orange", ball.getColour());
+            assertNotEquals("blue", ball.getColour());
+        }
+    }
+
+    @Test
+    public void testMoveReflectsOffBorders() {
+        int handle = store.add(1, App.TOPBAR + 1, -2, -2, 0);
+        store.move(store.getSlot(handle));
+
+        int slot = store.getSlot(handle);
+        assertEquals(2, store.getVelocityX(slot), 0.0001);
+        assertEquals(2, store.getVelocityY(slot), 0.0001);
+    }
+
+    @Test
+    public void testScalesToManyBalls() {
+        int count = 100000;
+        int[] handles = new int[count];
+        for (int i = 0; i < count; i++) {
+            handles[i] = store.add(i, -i, 0, 0, i % 5);
+        }
+
+        // Remove a random half of the balls
+        Random random = new Random(7);
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (random.nextBoolean()) {
+                store.remove(handles[i]);
+            } else {
+                kept.add(i);
+            }
+        }
+
+        assertEquals(kept.size(), store.size());
+        for (int i : kept) {
+            int slot = store.getSlot(handles[i]);
+            assertEquals(i, store.getPosX(slot), 0.0001);
+            assertEquals(-i, store.getPosY(slot), 0.0001);
+            assertEquals(i % 5, store.getColour(slot));
+            assertEquals(handles[i], store.getHandle(slot));
+        }
+    }
+
+    @Test
+    public void testIterationDoesNotAllocate() {
+        for (int i = 0; i < 1000; i++) {
+            store.add(100 + i % 300, 100 + i % 400, 1, 1, 0);
+        }
+
+        long bytes = Allocations.measure(200, () -> {
+            for (int slot = 0; slot < store.size(); slot++) {
+                store.move(slot);
+            }
+        });
+        assertEquals(0, bytes);
+    }
+}
@@ -336,8 +336,9 @@ class BallTest {
         // Simulate drawing
         ball.draw(appMock);
 
-        // Verify that the PApplet `image` method was called with the correct parameters
-        Mockito.verify(appMock).image(Mockito.any(PImage.class), Mockito.anyFloat(), Mockito.anyFloat(), Mockito.anyFloat(), Mockito.anyFloat());
+        // Verify that the ball was drawn from its region of the sprite sheet
+        Mockito.verify(appMock).image(Mockito.any(PImage.class), Mockito.anyFloat(), Mockito.anyFloat(), Mockito.anyFloat(), Mockito.anyFloat(),
+                Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt());
     }
 
 
@@ -368,4 +369,47 @@ class BallTest {
         assertEquals(expectedX, futurePosition.x, 0.01);
         assertEquals(expectedY, futurePosition.y, 0.01);
     }
+
+    @Test
+    // Test that the collision check measures the exact distance to the segment
+    public void testIsCollidingWithLineUsesDistanceToSegment() {
+        Ball ball = new Ball(10, 10, null, "ball0");
+        LineSegment line = new LineSegment(0, 0, 100, 0);
+
+        // Within one radius of the middle of the segment
+        assertTrue(ball.isCollidingWithLine(line, 50, 15.9f, ball.getRadius()));
+        assertFalse(ball.isCollidingWithLine(line, 50, 16.1f, ball.getRadius()));
+
+        // Beyond the end of the segment the distance is to the end point
+        assertTrue(ball.isCollidingWithLine(line, 109, 12, ball.getRadius()));
+        assertFalse(ball.isCollidingWithLine(line, 110, 13, ball.getRadius()));
+    }
+
+    @Test
+    // Test that reflection does not depend on which side of the line the ball is
+    public void testUpdateTrajectoryFromEitherSide() {
+        Ball ball = new Ball(10, 10, null, "ball0");
+        ball.setVelocity(1, 1);
+        ball.updateTrajectory(new LineSegment(0, 0, 10, 0));
+        assertEquals(1, ball.getVelocityX(), 0.0001);
+        assertEquals(-1, ball.getVelocityY(), 0.0001);
+
+        ball.updateTrajectory(new LineSegment(10, 0, 0, 0));
+        assertEquals(1, ball.getVelocityX(), 0.0001);
+        assertEquals(1, ball.getVelocityY(), 0.0001);
+    }
+
+    @Test
+    // Test that checking for and reflecting off a wall edge allocates nothing
+    public void testEdgeCollisionDoesNotAllocate() {
+        Ball ball = new Ball(10, 10, null, "ball0");
+        LineSegment edge = new LineSegment(ball.getPosX() + 10, 0, ball.getPosX() + 10, App.HEIGHT);
+
+        long bytes = Allocations.measure(100000, () -> {
+            ball.checkCollisionWithEdge(edge);
+            ball.isCollidingWithLine(edge);
+            ball.updateTrajectory(edge);
+        });
+        assertEquals(0, bytes);
+    }
 }
@@ -0,0 +1,386 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import processing.core.PApplet;
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+/**
+ * Test class for the Board class. A PApplet that counts its image calls, and
+ * an offscreen layer that counts the calls drawn into it, stand in for the
+ * real ones.
+ */
+public class BoardTest {
+
+    // An 18x18 board with a border, one spawner and one hole
+    private static final String[] LAYOUT = {
+        "XXXXXXXXXXXXXXXXXX",
+        "X                X",
+        "X            S   X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X          H1    X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "XXXXXXXXXXXXXXXXXX"
+    };
+
+    private CountingApp app;
+    private Board board;
+
+    // Counts the calls drawn into the layer
+    private static class CountingGraphics extends PGraphics {
+        private int renders;
+        private int images;
+        private int lines;
+
+        @Override
+        public void beginDraw() {
+            renders++;
+        }
+
+        @Override
+        public void endDraw() {
+        }
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public void fill(int rgb) {
+        }
+
+        @Override
+        public void rect(float a, float b, float c, float d) {
+        }
+
+        @Override
+        public void stroke(int rgb) {
+        }
+
+        @Override
+        public void strokeWeight(float weight) {
+        }
+
+        @Override
+        public void line(float x1, float y1, float x2, float y2) {
+            lines++;
+        }
+
+        @Override
+        public void image(PImage image, float x, float y) {
+            images++;
+        }
+
+        @Override
+        public void image(PImage image, float x, float y, float w, float h) {
+            images++;
+        }
+
+        @Override
+        public void image(PImage image, float a, float b, float c, float d, int u1, int v1, int u2, int v2) {
+            images++;
+        }
+    }
+
+    // Hands out blank images and the test layout, and counts its image and line calls
+    private static class CountingApp extends PApplet {
+        private List<CountingGraphics> layers = new ArrayList<>();
+        private boolean offscreen = true;
+        private int images;
+        private int lines;
+        private int layoutReads;
+
+        @Override
+        public PImage loadImage(String path) {
+            if (path.endsWith(SpriteAtlas.SHEET)) {
+                return new PImage(381, 400);
+            }
+            return new PImage(32, 32);
+        }
+
+        @Override
+        public String[] loadStrings(String path) {
+            layoutReads++;
+            return LAYOUT;
+        }
+
+        @Override
+        public PGraphics createGraphics(int w, int h) {
+            if (!offscreen) {
+                return null;
+            }
+            CountingGraphics layer = new CountingGraphics();
+            layers.add(layer);
+            return layer;
+        }
+
+        // The static layer is created first, then the ink layer
+        private CountingGraphics staticLayer() {
+            return layers.get(0);
+        }
+
+        private CountingGraphics inkLayer() {
+            return layers.get(1);
+        }
+
+        @Override
+        public void image(PImage image, float x, float y) {
+            images++;
+        }
+
+        @Override
+        public void image(PImage image, float x, float y, float w, float h) {
+            images++;
+        }
+
+        @Override
+        public void image(PImage image, float a, float b, float c, float d, int u1, int v1, int u2, int v2) {
+            images++;
+        }
+
+        @Override
+        public void fill(int rgb) {
+        }
+
+        @Override
+        public void rect(float a, float b, float c, float d) {
+        }
+
+        @Override
+        public void stroke(int rgb) {
+        }
+
+        @Override
+        public void strokeWeight(float weight) {
+        }
+
+        @Override
+        public void line(float x1, float y1, float x2, float y2) {
+            lines++;
+        }
+
+        @Override
+        public void pushMatrix() {
+        }
+
+        @Override
+        public void popMatrix() {
+        }
+
+        @Override
+        public void translate(float x, float y) {
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        app = new CountingApp();
+    }
+
+    private Board createBoard() {
+        Level level = TestFixtures.level("level1.txt", 120, 10, "grey");
+        board = new Board(app, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+        board.setLevel(level);
+        board.loadLevel(app, level);
+        return board;
+    }
+
+    // A completed line of the given number of segments
+    private Line addLine(int segments) {
+        Simulation simulation = board.getSimulation();
+        Line line = simulation.createLine();
+        for (int i = 0; i < segments; i++) {
+            line.addSegment(new LineSegment(100 + i * 10, 200, 110 + i * 10, 210));
+        }
+        simulation.addLine(line);
+        return line;
+    }
+
+    @Test
+    public void testStaticLayerIsRenderedOnce() {
+        createBoard();
+
+        for (int frame = 0; frame < 10; frame++) {
+            board.draw(app);
+        }
+
+        assertEquals(1, board.getStaticLayerBuilds());
+        assertEquals(1, app.staticLayer().renders);
+
+        // Every tile but the hole tiles, and one image for the hole, drawn into the layer once
+        int images = 1;
+        for (int x = 0; x < App.BOARD_WIDTH; x++) {
+            for (int y = 0; y < App.BOARD_HEIGHT; y++) {
+                if (!board.getTile(x, y).isHole()) {
+                    images++;
+                }
+            }
+        }
+        assertEquals(images, app.staticLayer().images);
+    }
+
+    @Test
+    public void testDrawCallsPerFrame() {
+        createBoard();
+        board.draw(app);
+        int images = app.images;
+        board.draw(app);
+
+        // The static layer and the spawner
+        assertEquals(2, board.getDrawCalls());
+        assertEquals(2, app.images - images);
+    }
+
+    @Test
+    public void testTileChangeInvalidatesStaticLayer() {
+        createBoard();
+        board.draw(app);
+        board.draw(app);
+        assertEquals(1, board.getStaticLayerBuilds());
+
+        board.getTile(5, 5).setTileType(Tile.TileType.WALL2);
+        board.getTile(5, 5).setIsWall(true);
+        board.draw(app);
+        board.draw(app);
+
+        assertEquals(2, board.getStaticLayerBuilds());
+    }
+
+    @Test
+    public void testLoadLevelInvalidatesStaticLayer() {
+        createBoard();
+        board.draw(app);
+
+        board.loadLevel(app, board.getLevel());
+        board.draw(app);
+
+        assertEquals(2, board.getStaticLayerBuilds());
+    }
+
+    @Test
+    public void testRestartKeepsLayoutAndStaticLayer() {
+        createBoard();
+        board.draw(app);
+        addLine(5);
+        board.drawLines(app);
+        board.getSimulation().stepN(30);
+
+        assertTrue(board.restart(4));
+        board.draw(app);
+        board.drawLines(app);
+
+        assertEquals(1, app.layoutReads);
+        assertEquals(1, board.getStaticLayerBuilds());
+        assertEquals(2, board.getInkLayerBuilds());
+        assertEquals(0, board.getSimulation().getTick());
+        assertTrue(board.getSimulation().getLines().isEmpty());
+        assertTrue(board.getTile(12, 12).isHole());
+    }
+
+    @Test
+    public void testDrawsEveryTileWithoutOffscreenLayer() {
+        app.offscreen = false;
+        createBoard();
+        board.draw(app);
+
+        // Every tile, four quarters of the hole and the spawner
+        int tiles = App.BOARD_WIDTH * App.BOARD_HEIGHT;
+        assertEquals(tiles + 4 + 1, board.getDrawCalls());
+        assertEquals(0, board.getStaticLayerBuilds());
+    }
+
+    @Test
+    public void testCompletedLinesAreInkedOnce() {
+        createBoard();
+        addLine(5);
+        addLine(3);
+
+        for (int frame = 0; frame < 10; frame++) {
+            board.draw(app);
+            board.drawLines(app);
+        }
+
+        assertEquals(1, board.getInkLayerBuilds());
+        assertEquals(8, app.inkLayer().lines);
+        assertEquals(0, app.lines);
+    }
+
+    @Test
+    public void testNewLineIsAddedToInkLayer() {
+        createBoard();
+        addLine(5);
+        board.drawLines(app);
+
+        addLine(3);
+        board.drawLines(app);
+
+        // Only the new line is drawn, the layer is not started over
+        assertEquals(1, board.getInkLayerBuilds());
+        assertEquals(8, app.inkLayer().lines);
+    }
+
+    @Test
+    public void testRemovedLineRebuildsInkLayer() {
+        createBoard();
+        addLine(5);
+        addLine(3);
+        board.drawLines(app);
+
+        board.getSimulation().removeLastLine();
+        board.drawLines(app);
+
+        assertEquals(2, board.getInkLayerBuilds());
+        assertEquals(8 + 5, app.inkLayer().lines);
+    }
+
+    @Test
+    public void testDrawCallsDoNotGrowWithInk() {
+        createBoard();
+        board.draw(app);
+        board.drawLines(app);
+        int calls = board.getDrawCalls();
+
+        for (int i = 0; i < 50; i++) {
+            addLine(20);
+        }
+        board.draw(app);
+        board.drawLines(app);
+
+        assertEquals(calls, board.getDrawCalls());
+    }
+
+    @Test
+    public void testLoadLayoutSetsTileImagesWithoutLayers() {
+        Level level = TestFixtures.level("level1.txt", 120, 10, "grey");
+        board = new Board(app, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+        board.setLevel(level);
+
+        assertTrue(board.loadLayout(app, level));
+        assertTrue(app.layers.isEmpty());
+
+        board.createLayers(app);
+        board.draw(app);
+
+        // Every tile already had its image when the layer was rendered
+        assertEquals(1, board.getStaticLayerBuilds());
+        assertTrue(app.staticLayer().images > App.BOARD_WIDTH * App.BOARD_HEIGHT / 2);
+    }
+}
@@ -0,0 +1,140 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import processing.core.PApplet;
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+/**
+ * Test class for the GameConfig class
+ */
+public class GameConfigTest {
+
+    private JSONObject json;
+    private GameConfig config;
+
+    // Hands out the test configuration and counts the reads
+    private static class ConfigApp extends PApplet {
+        private JSONObject json;
+        private int reads;
+
+        @Override
+        public JSONObject loadJSONObject(String filename) {
+            reads++;
+            return json;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        json = new JSONObject();
+        JSONArray levels = new JSONArray();
+        levels.append(createLevel("level1.txt", 120, "grey", "blue", "purple"));
+        levels.append(createLevel("level2.txt", 180, "yellow"));
+        json.put("levels", levels);
+
+        JSONObject scoreIncrease = new JSONObject();
+        scoreIncrease.put("grey", 70);
+        scoreIncrease.put("blue", 50);
+        json.put("score_increase_from_hole_capture", scoreIncrease);
+
+        JSONObject scoreDecrease = new JSONObject();
+        scoreDecrease.put("blue", 25);
+        json.put("score_decrease_from_wrong_hole", scoreDecrease);
+
+        config = GameConfig.parse(json);
+    }
+
+    private JSONObject createLevel(String layout, int time, String... balls) {
+        JSONObject levelData = new JSONObject();
+        levelData.put("layout", layout);
+        levelData.put("time", time);
+        levelData.put("spawn_interval", 10);
+        levelData.put("score_increase_from_hole_capture_modifier", 1.2);
+        levelData.put("score_decrease_from_wrong_hole_modifier", 1.1);
+        JSONArray ballsArray = new JSONArray();
+        for (String ball : balls) {
+            ballsArray.append(ball);
+        }
+        levelData.put("balls", ballsArray);
+        return levelData;
+    }
+
+    @Test
+    public void testLevelsAreParsed() {
+        assertEquals(2, config.getLevelCount());
+
+        GameConfig.LevelConfig first = config.getLevel(0);
+        assertEquals("level1.txt", first.getLayoutFile());
+        assertEquals(120, first.getTimeLimit());
+        assertEquals(10, first.getSpawnInterval());
+        assertEquals(1.2f, first.getScoreIncreaseModifier(), 0.001f);
+        assertEquals(1.1f, first.getScoreDecreaseModifier(), 0.001f);
+
+        // Invalid colours are left out
+        assertEquals(Arrays.asList(BallColour.GREY, BallColour.BLUE), first.getBalls());
+        assertEquals("level2.txt", config.getLevel(1).getLayoutFile());
+        assertNull(config.getLevel(2));
+        assertNull(config.getLevel(-1));
+    }
+
+    @Test
+    public void testScoreTablesByColourId() {
+        assertEquals(70, config.getScoreIncrease(0));
+        assertEquals(50, config.getScoreIncrease(2));
+        assertEquals(0, config.getScoreIncrease(1));
+        assertEquals(25, config.getScoreDecrease(2));
+        assertEquals(0, config.getScoreDecrease(0));
+        assertEquals(0, config.getScoreIncrease(-1));
+        assertEquals(0, config.getScoreIncrease(BallColour.COUNT));
+    }
+
+    @Test
+    public void testConfigIsImmutable() {
+        assertThrows(UnsupportedOperationException.class, () -> config.getLevel(0).getBalls().remove(0));
+
+        // Changing the JSON after parsing does not change the configuration
+        json.getJSONArray("levels").getJSONObject(0).setInt("time", 5);
+        json.getJSONObject("score_increase_from_hole_capture").setInt("grey", 0);
+        assertEquals(120, config.getLevel(0).getTimeLimit());
+        assertEquals(70, config.getScoreIncrease(0));
+    }
+
+    @Test
+    public void testLevelsUseTheirOwnBallList() {
+        Level level = new Level(config, 0);
+        level.getBalls().remove(0);
+
+        assertEquals(1, level.getBalls().size());
+        assertEquals(2, config.getLevel(0).getBalls().size());
+        assertEquals(2, new Level(config, 0).getBalls().size());
+        // The grey score of 70 with the level's increase modifier of 1.2
+        assertEquals(84, level.getCaptureScore(BallColour.GREY.getId(), BallColour.GREY.getId()));
+    }
+
+    @Test
+    public void testFileIsOnlyReadWhenLoaded() {
+        ConfigApp app = new ConfigApp();
+        app.json = json;
+
+        GameConfig loaded = GameConfig.load(app);
+        for (int i = 0; i < 10; i++) {
+            new Level(loaded, i % 2);
+        }
+
+        assertEquals(1, app.reads);
+        assertEquals(2, loaded.getLevelCount());
+    }
+
+    @Test
+    public void testMissingFileLoadsNothing() {
+        ConfigApp app = new ConfigApp();
+        assertNull(GameConfig.load(app));
+    }
+}
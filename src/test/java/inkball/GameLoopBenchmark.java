@@ -0,0 +1,234 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import processing.data.JSONObject;
+
+/**
+ * End to end benchmark of the game loop. Each level in config.json is loaded
+ * headless, filled with balls, and played for a number of ticks as fast as
+ * it runs, with a scripted player drawing lines through the same calls the
+ * mouse handlers make. Spawning, movement, collisions, captures and line
+ * removal all run as in the game, only nothing is drawn.
+ *
+ * Scenarios start from a baseline and change one of ball count, line count
+ * and board size at a time. A larger board repeats the level layout in both
+ * directions. Every scenario reports ticks per second, the allocation rate
+ * and the garbage collections during the run. The tick count can be set with
+ * -Dinkball.benchmark.ticks. Run with "gradle benchmark".
+ */
+@Tag("benchmark")
+public class GameLoopBenchmark {
+
+    private static final int TICKS = Integer.getInteger("inkball.benchmark.ticks", 3000);
+    private static final long SEED = 7;
+
+    // Baseline scenario, and the values each dimension is swept over
+    private static final int BALLS = 100;
+    private static final int LINES = 10;
+    private static final int SCALE = 1;
+    private static final int[] BALL_COUNTS = {10, 100, 1000};
+    private static final int[] LINE_COUNTS = {0, 10, 50};
+    private static final int[] SCALES = {1, 2, 4};
+
+    // The scripted player draws a line every this many ticks while it has fewer than it wants
+    private static final int DRAW_INTERVAL = 6;
+    private static final int POINTS_PER_LINE = 12;
+
+    @Test
+    public void benchmarkTicksPerSecond() throws IOException {
+        GameConfig config = loadConfig();
+
+        // Warm up the JIT on the largest scenario before timing anything
+        run(config, config.getLevelCount() - 1, BALL_COUNTS[BALL_COUNTS.length - 1], LINES, SCALE, TICKS / 2);
+
+        System.out.printf("%-10s %6s %6s %6s %12s %10s %10s %8s %8s%n",
+                "level", "balls", "lines", "size", "ticks/s", "MB/s", "B/tick", "GCs", "GC ms");
+        for (int levelIndex = 0; levelIndex < config.getLevelCount(); levelIndex++) {
+            for (int balls : BALL_COUNTS) {
+                report(config, levelIndex, balls, LINES, SCALE);
+            }
+            for (int lines : LINE_COUNTS) {
+                if (lines != LINES) {
+                    report(config, levelIndex, BALLS, lines, SCALE);
+                }
+            }
+            for (int scale : SCALES) {
+                if (scale != SCALE) {
+                    report(config, levelIndex, BALLS, LINES, scale);
+                }
+            }
+        }
+    }
+
+    private void report(GameConfig config, int levelIndex, int balls, int lines, int scale) {
+        Result result = run(config, levelIndex, balls, lines, scale, TICKS);
+        double seconds = result.nanos / 1e9;
+        System.out.printf("%-10s %6d %6d %6s %12.0f %10.1f %10.0f %8d %8d%n",
+                "level" + (levelIndex + 1), balls, lines,
+                App.BOARD_WIDTH * scale + "x" + App.BOARD_HEIGHT * scale,
+                TICKS / seconds, result.allocatedBytes / seconds / (1024 * 1024),
+                result.allocatedBytes / (double) TICKS, result.gcCount, result.gcMillis);
+        assertTrue(result.nanos > 0);
+    }
+
+    // The measurements of one scenario
+    private static class Result {
+        private long nanos;
+        private long allocatedBytes;
+        private long gcCount;
+        private long gcMillis;
+    }
+
+    private Result run(GameConfig config, int levelIndex, int balls, int lines, int scale, int ticks) {
+        int width = App.BOARD_WIDTH * scale;
+        int height = App.BOARD_HEIGHT * scale;
+
+        // Balls bounce off the window border, so the window grows with the board
+        int windowWidth = App.WIDTH;
+        int windowHeight = App.HEIGHT;
+        App.WIDTH = width * App.CELLSIZE;
+        App.HEIGHT = height * App.CELLSIZE + App.TOPBAR;
+        try {
+            Level level = new Level(config, levelIndex);
+            GameStateManager gameStateManager = new GameStateManager(null, level);
+            Simulation simulation = new Simulation(null, width, height, gameStateManager);
+            simulation.loadLevel(level, tile(Simulation.readLayout(level.getLayoutFile()), scale));
+
+            Random random = new Random(SEED);
+            addBalls(simulation, balls, random);
+            return measure(simulation, gameStateManager, level, lines, ticks, random);
+        } finally {
+            App.WIDTH = windowWidth;
+            App.HEIGHT = windowHeight;
+        }
+    }
+
+    private Result measure(Simulation simulation, GameStateManager gameStateManager, Level level,
+                           int lines, int ticks, Random random) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long allocatedBefore = allocatedBytes(threads);
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+
+        Result result = new Result();
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            if (tick % DRAW_INTERVAL == 0 && simulation.getLines().size() < lines) {
+                drawLine(simulation, random);
+            }
+            simulation.step();
+
+            // Keep playing when the level times out or is won, like a restart would
+            if (gameStateManager.getState() != GameStateManager.GameState.PLAYING) {
+                gameStateManager.setRemainingTime(level.getTimeLimit());
+                gameStateManager.setState(GameStateManager.GameState.PLAYING);
+            }
+        }
+        result.nanos = System.nanoTime() - start;
+
+        result.allocatedBytes = allocatedBytes(threads) - allocatedBefore;
+        result.gcCount = gcCount() - gcCountBefore;
+        result.gcMillis = gcMillis() - gcMillisBefore;
+        return result;
+    }
+
+    // Draws a line the way the mouse handlers do: press, drag through a few points, release
+    private void drawLine(Simulation simulation, Random random) {
+        float x = App.CELLSIZE + random.nextFloat() * (App.WIDTH - 2 * App.CELLSIZE);
+        float y = App.TOPBAR + App.CELLSIZE + random.nextFloat() * (App.HEIGHT - App.TOPBAR - 2 * App.CELLSIZE);
+        float angle = random.nextFloat() * (float) (2 * Math.PI);
+
+        Line line = simulation.createLine();
+        line.addPoint(x, y);
+        for (int i = 0; i < POINTS_PER_LINE; i++) {
+            angle += (random.nextFloat() - 0.5f) * 0.6f;
+            x += (float) Math.cos(angle) * 8;
+            y += (float) Math.sin(angle) * 8;
+            line.addPoint(x, y);
+        }
+        simulation.addLine(line);
+    }
+
+    // Puts balls in the middle of random empty tiles, moving in random directions
+    private void addBalls(Simulation simulation, int count, Random random) {
+        BallStore store = simulation.getBallStore();
+        int added = 0;
+        while (added < count) {
+            int x = random.nextInt(simulation.getWidth());
+            int y = random.nextInt(simulation.getHeight());
+            Tile tile = simulation.getTile(x, y);
+            if (tile == null || tile.isWall() || tile.isHole()) {
+                continue;
+            }
+            float px = x * App.CELLSIZE + App.CELLSIZE / 2f;
+            float py = y * App.CELLSIZE + App.TOPBAR + App.CELLSIZE / 2f;
+            store.add(px, py, random.nextBoolean() ? 2 : -2, random.nextBoolean() ? 2 : -2, added % BallColour.COUNT);
+            added++;
+        }
+    }
+
+    // Repeats a layout scale times in both directions
+    private String[] tile(String[] layout, int scale) {
+        String[] tiled = new String[layout.length * scale];
+        for (int y = 0; y < tiled.length; y++) {
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < scale; i++) {
+                row.append(layout[y % layout.length]);
+            }
+            tiled[y] = row.toString();
+        }
+        return tiled;
+    }
+
+    private GameConfig loadConfig() throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(GameConfig.FILE));
+        return GameConfig.parse(JSONObject.parse(new String(bytes, StandardCharsets.UTF_8)));
+    }
+
+    // Bytes allocated so far by every live thread, so the parallel update is counted too
+    private long allocatedBytes(ThreadMXBean threads) {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean counters = (com.sun.management.ThreadMXBean) threads;
+        if (!counters.isThreadAllocatedMemorySupported()) {
+            return 0;
+        }
+        counters.setThreadAllocatedMemoryEnabled(true);
+
+        long total = 0;
+        for (long bytes : counters.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    private long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -5,7 +5,6 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import processing.core.PApplet;
-import processing.data.JSONObject;
 
 /**
  * Test class for GameStateManager
@@ -15,14 +14,14 @@ public class GameStateManagerTest {
     private GameStateManager gameStateManager;
     private PApplet appMock;
     private Level levelMock;
-    private JSONObject configMock;
+    private GameConfig config;
 
     @BeforeEach
     public void setUp() {
-        // Mock the PApplet, Level, and JSONObject
+        // Mock the PApplet and Level, and parse a configuration with one level
         appMock = mock(PApplet.class);
         levelMock = mock(Level.class);
-        configMock = mock(JSONObject.class);
+        config = TestFixtures.config(TestFixtures.levelJson("level1.txt", 100, 10));
 
         // Mocking the getTimeLimit() method to return an integer value instead of a float
         when(levelMock.getTimeLimit()).thenReturn(100); // Changed to return Integer instead of float
@@ -62,12 +61,13 @@ public class GameStateManagerTest {
         // Use a mock for App instead of PApplet
         App appInstance = mock(App.class);  // Changed to App instead of PApplet
 
-        // Mock the config to return a level with time set to 100
-        when(configMock.getJSONArray("levels").getJSONObject(0).getFloat("time")).thenReturn(100f);
-
         // Call restart and check the state
-        gameStateManager.restart(appInstance, configMock, 0);
+        gameStateManager.restart(appInstance, config, 0);
         assertEquals(GameStateManager.GameState.PLAYING, gameStateManager.getState());
+
+        // The remaining time comes from the parsed configuration, and the level is set up from it
+        assertEquals("100", gameStateManager.getRemainingTime());
+        verify(appInstance).initialiseLevel(config, 0);
     }
 
     @Test
@@ -29,7 +29,7 @@ public class HUDTest {
         levelMock = mock(Level.class);
 
         // Mock the getBalls() method of the level to return some sample balls
-        when(levelMock.getBalls()).thenReturn(Arrays.asList("ball0", "ball1", "ball2"));
+        when(levelMock.getBalls()).thenReturn(Arrays.asList(BallColour.GREY, BallColour.ORANGE, BallColour.BLUE));
 
         // Mock the image loading in HUD constructor
         when(appMock.loadImage(anyString())).thenReturn(mock(PImage.class));
@@ -47,7 +47,7 @@ public class HUDTest {
     @Test
     public void testUpdateBallsToSpawn() {
         // Test updating the ball queue
-        List<String> newBalls = Arrays.asList("ball3", "ball4");
+        List<BallColour> newBalls = Arrays.asList(BallColour.GREEN, BallColour.YELLOW);
         hud.updateBallsToSpawn(newBalls);
 
         // Verify that the balls to spawn were updated correctly
@@ -57,21 +57,19 @@ public class HUDTest {
     @Test
     public void testGetBallImageValidColour() {
         // Test retrieving the correct image for a valid ball colour
-        PImage ballImage = hud.getBallImage("ball1");
+        PImage ballImage = hud.getBallImage(BallColour.ORANGE);
         assertNotNull(ballImage);
 
                 // Test all valid colours for balls
-        assertNotNull(hud.getBallImage("ball0"));
-        assertNotNull(hud.getBallImage("ball1"));
-        assertNotNull(hud.getBallImage("ball2"));
-        assertNotNull(hud.getBallImage("ball3"));
-        assertNotNull(hud.getBallImage("ball4"));
+        for (BallColour colour : BallColour.values()) {
+            assertNotNull(hud.getBallImage(colour));
+        }
     }
     
     @Test
     public void testGetBallImageInvalidColour() {
-        // Test retrieving an image for an invalid ball colour (should return null)
-        PImage ballImage = hud.getBallImage("invalidColour");
+        // Test retrieving an image for a missing ball colour (should return null)
+        PImage ballImage = hud.getBallImage(null);
         assertNull(ballImage);
     }
 
@@ -112,6 +110,6 @@ public class HUDTest {
     public void testDrawBallQueue() {
         // Call drawBallQueue and verify that it calls app.image with the correct parameters
         hud.drawTopBar(100, "1:00", 5.5f, GameStateManager.GameState.PLAYING);
-        verify(appMock, times(3)).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
+        verify(appMock, times(3)).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat(), anyInt(), anyInt(), anyInt(), anyInt());
     }
 }
@@ -20,17 +20,17 @@ public class HoleTest {
 
     private Hole hole;
     private PApplet appMock;
-    private Board boardMock;
+    private Simulation simulationMock;
     private Ball ballMock;
 
     @BeforeEach
     public void setUp() {
-        // Mock PApplet and Board
+        // Mock PApplet and Simulation
         appMock = mock(PApplet.class);
-        boardMock = mock(Board.class);
+        simulationMock = mock(Simulation.class);
 
         // Create the hole object (ignore draw functionality for now)
-        hole = new Hole(10, 10, appMock, "hole1", boardMock);
+        hole = new Hole(10, 10, appMock, "hole1", simulationMock);
 
         // Mock a ball object for testing
         ballMock = mock(Ball.class);
@@ -50,30 +50,30 @@ public class HoleTest {
         assertEquals("orange", hole.getColour());
 
         // Create another hole with different color
-        Hole hole2 = new Hole(10, 10, appMock, "hole0", boardMock);
+        Hole hole2 = new Hole(10, 10, appMock, "hole0", simulationMock);
         assertEquals("grey", hole2.getColour());
 
         // Test invalid color (since it will default to the else branch)
-        Hole holeInvalid = new Hole(10, 10, appMock, "invalidColor", boardMock);
+        Hole holeInvalid = new Hole(10, 10, appMock, "invalidColor", simulationMock);
         assertEquals("Ball Colour Not Found", holeInvalid.getColour());
     }
 
     @Test
     public void testGetColourWithInvalidColour() {
-        Hole invalidColourHole = new Hole(10, 10, appMock, "invalidHoleColour", boardMock);
+        Hole invalidColourHole = new Hole(10, 10, appMock, "invalidHoleColour", simulationMock);
         assertEquals("Ball Colour Not Found", invalidColourHole.getColour());
     }
 
     @Test
     public void testIsMatchingColour() {
         // Test ball matching with hole
-        when(ballMock.getColour()).thenReturn("orange");  // Ball color matches hole
+        when(ballMock.getColourId()).thenReturn(BallColour.ORANGE.getId());  // Ball color matches hole
         assertTrue(hole.isMatchingColour(ballMock));
 
-        when(ballMock.getColour()).thenReturn("grey");  // Grey ball should match any hole
+        when(ballMock.getColourId()).thenReturn(BallColour.GREY.getId());  // Grey ball should match any hole
         assertTrue(hole.isMatchingColour(ballMock));
 
-        when(ballMock.getColour()).thenReturn("blue");  // Mismatch color
+        when(ballMock.getColourId()).thenReturn(BallColour.BLUE.getId());  // Mismatch color
         assertFalse(hole.isMatchingColour(ballMock));
     }
 
@@ -88,7 +88,7 @@ public class HoleTest {
         hole.attractBall(ballMock);
 
         // Verify that the ball is being applied a force
-        verify(ballMock).applyForce(any(PVector.class));
+        verify(ballMock).applyForce(anyFloat(), anyFloat());
 
         // Verify that the ball's scale changes
         verify(ballMock).setScale(anyFloat());
@@ -104,29 +104,29 @@ public class HoleTest {
         hole.attractBall(ballMock);
 
         // Verify that applyForce was never called
-        verify(ballMock, never()).applyForce(any(PVector.class));
+        verify(ballMock, never()).applyForce(anyFloat(), anyFloat());
     }
 
     @Test
     public void testCaptureBallSuccessful() {
         // Simulate successful capture with matching color
-        when(ballMock.getColour()).thenReturn("orange");
+        when(ballMock.getColourId()).thenReturn(BallColour.ORANGE.getId());
         hole.captureBall(ballMock);
 
         // Verify the ball is deactivated and a successful capture is handled
         verify(ballMock).setActive(false);
-        verify(boardMock).handleSuccessfulCapture(ballMock);
+        verify(simulationMock).handleSuccessfulCapture(ballMock, hole);
     }
 
     @Test
     public void testCaptureBallFailed() {
         // Simulate failed capture with mismatching color
-        when(ballMock.getColour()).thenReturn("blue");
+        when(ballMock.getColourId()).thenReturn(BallColour.BLUE.getId());
         hole.captureBall(ballMock);
 
         // Verify the ball is deactivated and a failed capture is handled
         verify(ballMock).setActive(false);
-        verify(boardMock).handleFailedCapture(ballMock);
+        verify(simulationMock).handleFailedCapture(ballMock, hole);
     }
 
     @Test
@@ -134,7 +134,7 @@ public class HoleTest {
         // Mock the hole image loading to simulate a non-null image
         PImage mockImage = mock(PImage.class);
         when(appMock.loadImage(anyString())).thenReturn(mockImage);
-        hole = new Hole(10, 10, appMock, "hole1", boardMock);  // Reinitialize to load image
+        hole = new Hole(10, 10, appMock, "hole1", simulationMock);  // Reinitialize to load image
 
         // Call draw to verify it works
         hole.draw();
@@ -147,7 +147,7 @@ public class HoleTest {
     public void testDrawWithNullImage() {
         // Ensure the hole image is null
         when(appMock.loadImage(anyString())).thenReturn(null);
-        hole = new Hole(10, 10, appMock, "hole1", boardMock);  // Reinitialize with null image
+        hole = new Hole(10, 10, appMock, "hole1", simulationMock);  // Reinitialize with null image
 
         // Capture console output if needed, or just verify that it doesn't throw exceptions
         assertDoesNotThrow(() -> hole.draw());
@@ -163,12 +163,12 @@ public class HoleTest {
 
         // Call attractBall and verify that attraction is applied
         hole.attractBall(ballMock);
-        verify(ballMock).applyForce(any(PVector.class));
+        verify(ballMock).applyForce(anyFloat(), anyFloat());
 
         // Verify that scale is adjusted, but the ball isn't captured yet (as it's still at the edge)
         verify(ballMock).setScale(anyFloat());
-        verify(boardMock, never()).handleSuccessfulCapture(ballMock);
-        verify(boardMock, never()).handleFailedCapture(ballMock);
+        verify(simulationMock, never()).handleSuccessfulCapture(ballMock, hole);
+        verify(simulationMock, never()).handleFailedCapture(ballMock, hole);
     }
 
     @Test
@@ -180,7 +180,21 @@ public class HoleTest {
 
         // Call attractBall and ensure capture happens
         hole.attractBall(ballMock);
-        verify(boardMock).handleSuccessfulCapture(ballMock);  // Should be captured
+        verify(simulationMock).handleSuccessfulCapture(ballMock, hole);  // Should be captured
     }
 
+
+    @Test
+    public void testAttractBallDoesNotAllocate() {
+        Ball ball = new Ball(0, 0, null, "ball1");
+        float x = hole.getCenter().x - 20;
+        float y = hole.getCenter().y - 20;
+
+        long bytes = Allocations.measure(100000, () -> {
+            ball.setPosition(x, y);
+            ball.setVelocity(1, 1);
+            hole.attractBall(ball);
+        });
+        assertEquals(0, bytes);
+    }
 }
@@ -0,0 +1,299 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the InputRecorder and InputReader classes. Recordings are
+ * made into memory and read back.
+ */
+public class InputRecorderTest {
+
+    private RecordingStream bytes;
+    private InputRecorder recorder;
+
+    // Remembers the thread that wrote to it and whether it was closed
+    private static class RecordingStream extends ByteArrayOutputStream {
+        private volatile Thread writer;
+        private volatile boolean closed;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writer = Thread.currentThread();
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        bytes = new RecordingStream();
+        recorder = new InputRecorder(bytes, -12345L);
+    }
+
+    private InputReader read() throws IOException {
+        return new InputReader(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void testEventsAreReadBack() throws IOException {
+        recorder.level(0, 2, Long.MIN_VALUE);
+        recorder.press(10, 100, 300);
+        recorder.point(11, 96, 310);
+        recorder.point(11, 500, 90);
+        recorder.release(12);
+        recorder.remove(40);
+        recorder.pause(41);
+        recorder.pause(41);
+        recorder.restart(900);
+        recorder.level(950, 2, 7);
+        recorder.press(3, 20, 20);
+        recorder.close();
+
+        InputReader reader = read();
+        assertEquals(-12345L, reader.getSessionSeed());
+
+        assertTrue(reader.next());
+        assertEquals(InputRecorder.LEVEL, reader.getType());
+        assertEquals(2, reader.getLevelIndex());
+        assertEquals(Long.MIN_VALUE, reader.getSeed());
+
+        assertTrue(reader.next());
+        assertEquals(InputRecorder.PRESS, reader.getType());
+        assertEquals(10, reader.getTick());
+        assertEquals(100, reader.getX());
+        assertEquals(300, reader.getY());
+
+        assertTrue(reader.next());
+        assertEquals(InputRecorder.POINT, reader.getType());
+        assertEquals(96, reader.getX());
+        assertEquals(310, reader.getY());
+
+        assertTrue(reader.next());
+        assertEquals(11, reader.getTick());
+        assertEquals(500, reader.getX());
+        assertEquals(90, reader.getY());
+
+        int[] types = {InputRecorder.RELEASE, InputRecorder.REMOVE, InputRecorder.PAUSE, InputRecorder.PAUSE, InputRecorder.RESTART};
+        int[] ticks = {12, 40, 41, 41, 900};
+        for (int i = 0; i < types.length; i++) {
+            assertTrue(reader.next());
+            assertEquals(types[i], reader.getType());
+            assertEquals(ticks[i], reader.getTick());
+        }
+
+        // A level event is stamped with the end of the previous level, and starts the ticks over
+        assertTrue(reader.next());
+        assertEquals(InputRecorder.LEVEL, reader.getType());
+        assertEquals(950, reader.getTick());
+        assertEquals(7, reader.getSeed());
+        assertTrue(reader.next());
+        assertEquals(3, reader.getTick());
+        assertEquals(20, reader.getX());
+
+        assertFalse(reader.next());
+        assertEquals(11, recorder.getEventCount());
+    }
+
+    @Test
+    public void testAnHourOfDrawingIsCompact() throws IOException {
+        int ticks = 60 * 60 * App.FPS;
+        recorder.level(0, 0, 1);
+
+        // A line every two seconds, dragged for one of them
+        int x = 300;
+        int y = 300;
+        for (int tick = 0; tick < ticks; tick++) {
+            int phase = tick % (2 * App.FPS);
+            if (phase == 0) {
+                recorder.press(tick, x, y);
+            } else if (phase < App.FPS) {
+                x = 100 + (x - 100 + 7) % 400;
+                y = 100 + (y - 100 + 3) % 400;
+                recorder.point(tick, x, y);
+            } else if (phase == App.FPS) {
+                recorder.release(tick);
+            }
+        }
+        recorder.close();
+
+        // About three bytes a point
+        assertTrue(bytes.size() < 400 * 1024, "recording was " + bytes.size() + " bytes");
+        assertEquals(recorder.getByteCount(), bytes.size());
+
+        InputReader reader = read();
+        int events = 0;
+        while (reader.next()) {
+            events++;
+        }
+        assertEquals(recorder.getEventCount(), events);
+        assertEquals(ticks / (2 * App.FPS) * (App.FPS + 1) + 1, events);
+    }
+
+    @Test
+    public void testAnHourOfPlayWithKeyframesIsCompact() throws IOException {
+        int ticks = 60 * 60 * App.FPS;
+        Level level = TestFixtures.level("level1.txt", 120, 2, "grey", "orange", "blue", "green", "yellow");
+        GameStateManager gameStateManager = new GameStateManager(null, level);
+        Simulation simulation = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, gameStateManager);
+        simulation.setSeed(1);
+        simulation.loadLevel(level, Simulation.readLayout(level.getLayoutFile()));
+        recorder.level(0, 0, simulation.getSeed());
+        recorder.keyframe(0, Keyframe.capture(simulation, null));
+
+        // Played like App plays it, a bent line every two seconds and never more than ten on
+        // the board, with the level started again whenever it ends
+        Line currentLine = null;
+        int keyframes = 1;
+        long keyframeBytes = 0;
+        long lastFingerprint = 0;
+        for (int i = 0; i < ticks; i++) {
+            if (gameStateManager.getState() != GameStateManager.GameState.PLAYING) {
+                int tick = simulation.getTick();
+                recorder.restart(tick);
+                gameStateManager.startLevel(0, level.getTimeLimit());
+                simulation.restart(i);
+                currentLine = null;
+                recorder.level(tick, 0, simulation.getSeed());
+                recorder.keyframe(0, Keyframe.capture(simulation, null));
+                keyframes++;
+            }
+
+            int tick = simulation.getTick();
+            int phase = i % (2 * App.FPS);
+            int x = 100 + (i / (2 * App.FPS) * 37) % 300 + phase * 4;
+            int y = App.TOPBAR + 150 + (phase / 10 % 2) * 12 + (i / (2 * App.FPS) * 23) % 200;
+            if (phase == 0) {
+                if (simulation.getLines().size() >= 10) {
+                    simulation.removeLastLine();
+                    recorder.remove(tick);
+                }
+                currentLine = simulation.createLine();
+                currentLine.addPoint(x, y);
+                recorder.press(tick, x, y);
+            } else if (phase < App.FPS && currentLine != null) {
+                currentLine.addPoint(x, y);
+                recorder.point(tick, x, y);
+            } else if (phase == App.FPS && currentLine != null) {
+                simulation.addLine(currentLine);
+                currentLine = null;
+                recorder.release(tick);
+            }
+
+            simulation.step();
+            if (currentLine != null && currentLine.isRemoved()) {
+                currentLine = null;
+            }
+            if (simulation.getTick() % InputRecorder.KEYFRAME_INTERVAL == 0) {
+                Keyframe keyframe = Keyframe.capture(simulation, currentLine);
+                recorder.keyframe(simulation.getTick(), keyframe);
+                keyframes++;
+                keyframeBytes += keyframe.getSize();
+                lastFingerprint = TestFixtures.fingerprint(simulation, currentLine);
+            }
+        }
+        recorder.close();
+
+        // About three bytes a point and a stored segment, so a few hundred kilobytes with the keyframes
+        assertTrue(keyframes > ticks / InputRecorder.KEYFRAME_INTERVAL, keyframes + " keyframes");
+        assertTrue(keyframeBytes < 320 * 1024, "keyframes were " + keyframeBytes + " bytes");
+        assertTrue(bytes.size() < 640 * 1024, "recording was " + bytes.size() + " bytes");
+
+        // The last keyframe puts the lines back on the board
+        InputReader reader = read();
+        Keyframe last = null;
+        while (reader.next()) {
+            if (reader.getType() == InputRecorder.KEYFRAME) {
+                last = reader.getKeyframe();
+            }
+        }
+        Simulation restored = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+        restored.loadLevel(level, Simulation.readLayout(level.getLayoutFile()));
+        Line restoredLine = last.restore(restored);
+        assertFalse(restored.getLines().isEmpty());
+        assertEquals(lastFingerprint, TestFixtures.fingerprint(restored, restoredLine));
+    }
+
+    @Test
+    public void testKeyframesLargerThanAChunkAreReadBack() throws IOException {
+        // The state starts with the tick it was captured at
+        byte[] state = new byte[10000];
+        for (int i = 4; i < state.length; i++) {
+            state[i] = (byte) (i * 31);
+        }
+        state[2] = 1;
+        state[3] = 44;
+
+        recorder.press(10, 5, 5);
+        recorder.keyframe(300, new Keyframe(state));
+        recorder.release(301);
+        recorder.close();
+
+        InputReader reader = read();
+        assertTrue(reader.next());
+        assertNull(reader.getKeyframe());
+        assertTrue(reader.next());
+        assertEquals(InputRecorder.KEYFRAME, reader.getType());
+        assertEquals(300, reader.getTick());
+        assertEquals(300, reader.getKeyframe().getTick());
+        assertArrayEquals(state, reader.getKeyframe().getBytes());
+        assertTrue(reader.next());
+        assertEquals(InputRecorder.RELEASE, reader.getType());
+        assertEquals(301, reader.getTick());
+        assertNull(reader.getKeyframe());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void testRecordingIsWrittenInTheBackground() {
+        recorder.press(0, 1, 2);
+        recorder.close();
+
+        assertNotNull(bytes.writer);
+        assertNotSame(Thread.currentThread(), bytes.writer);
+        assertTrue(bytes.closed);
+    }
+
+    @Test
+    public void testFlushWritesWithoutClosing() throws IOException {
+        recorder.press(0, 1, 2);
+        recorder.flush();
+        recorder.press(5, 1, 2);
+
+        // The writer thread may still be busy, closing waits for it
+        recorder.close();
+        recorder.release(6);
+
+        InputReader reader = read();
+        assertTrue(reader.next());
+        assertTrue(reader.next());
+        assertEquals(5, reader.getTick());
+        assertFalse(reader.next());
+        assertEquals(2, recorder.getEventCount());
+    }
+
+    @Test
+    public void testOtherFilesAreRejected() {
+        byte[] notRecording = {'P', 'N', 'G', 0, 1};
+        assertThrows(IOException.class, () -> new InputReader(new ByteArrayInputStream(notRecording)));
+
+        byte[] oldVersion = {'I', 'N', 'K', 'R', 1, 0};
+        assertThrows(IOException.class, () -> new InputReader(new ByteArrayInputStream(oldVersion)));
+
+        byte[] truncated = {'I', 'N', 'K', 'R', InputRecorder.VERSION, 0, 1 << InputRecorder.TYPE_BITS | InputRecorder.PRESS};
+        assertThrows(IOException.class, () -> {
+            InputReader reader = new InputReader(new ByteArrayInputStream(truncated));
+            reader.next();
+        });
+    }
+}
@@ -0,0 +1,164 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the Keyframe class. Every test runs headless, without a
+ * PApplet.
+ */
+public class KeyframeTest {
+
+    // An 18x18 board with a border, two balls, two spawners and two holes
+    private static final String[] LAYOUT = {
+        "XXXXXXXXXXXXXXXXXX",
+        "X                X",
+        "X  B1        S   X",
+        "X                X",
+        "X                X",
+        "X     2222       X",
+        "X                X",
+        "X                X",
+        "X   S            X",
+        "X                X",
+        "X                X",
+        "X         B2     X",
+        "X          H1    X",
+        "X                X",
+        "X  H2            X",
+        "X                X",
+        "X                X",
+        "XXXXXXXXXXXXXXXXXX"
+    };
+
+    private Simulation simulation;
+
+    @BeforeEach
+    public void setUp() {
+        simulation = createSimulation(3);
+    }
+
+    private Simulation createSimulation(long seed) {
+        Level level = TestFixtures.level("level1.txt", 120, 1, "grey", "orange", "blue", "green", "yellow");
+        Simulation created = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+        created.setSeed(seed);
+        created.loadLevel(level, LAYOUT);
+        return created;
+    }
+
+    // Draws a few lines and starts another, which is returned unfinished
+    private Line drawLines(Simulation drawn, Random random) {
+        Line line = null;
+        for (int i = 0; i < 4; i++) {
+            line = drawn.createLine();
+            for (int point = 0; point < 8; point++) {
+                line.addPoint(100 + random.nextInt(400), 150 + random.nextInt(400));
+            }
+            if (i < 3) {
+                drawn.addLine(line);
+            }
+        }
+        return line;
+    }
+
+    @Test
+    public void testRestoredStateIsCapturedTheSame() throws IOException {
+        simulation.stepN(180);
+        Line currentLine = drawLines(simulation, new Random(1));
+        Keyframe keyframe = Keyframe.capture(simulation, currentLine);
+        assertEquals(180, keyframe.getTick());
+
+        // Another seed plays the level differently until the keyframe is restored
+        Simulation restored = createSimulation(99);
+        restored.stepN(400);
+        Line restoredLine = keyframe.restore(restored);
+
+        assertNotNull(restoredLine);
+        assertEquals(180, restored.getTick());
+        assertEquals(simulation.getLines().size(), restored.getLines().size());
+        assertEquals(simulation.getLineIndex().size(), restored.getLineIndex().size());
+        assertEquals(simulation.getSpawners().get(0).getBallsToSpawn(), restored.getSpawners().get(0).getBallsToSpawn());
+        assertEquals(simulation.getGameStateManager().getScore(), restored.getGameStateManager().getScore());
+        assertArrayEquals(TestFixtures.ballState(simulation), TestFixtures.ballState(restored));
+        assertArrayEquals(keyframe.getBytes(), Keyframe.capture(restored, restoredLine).getBytes());
+    }
+
+    @Test
+    public void testRestoredStatePlaysOnTheSame() throws IOException {
+        simulation.stepN(100);
+        Line currentLine = drawLines(simulation, new Random(2));
+        Keyframe keyframe = Keyframe.capture(simulation, currentLine);
+
+        Simulation restored = createSimulation(7);
+        Line restoredLine = keyframe.restore(restored);
+
+        // The unfinished line carries on being drawn the same way
+        Random points = new Random(4);
+        for (int i = 0; i < 20; i++) {
+            float x = 100 + points.nextInt(400);
+            float y = 150 + points.nextInt(400);
+            currentLine.addPoint(x, y);
+            restoredLine.addPoint(x, y);
+        }
+        assertEquals(currentLine.getSegments().size(), restoredLine.getSegments().size());
+        simulation.addLine(currentLine);
+        restored.addLine(restoredLine);
+
+        // Spawns, bounces, captures and line hits all come out the same
+        for (int i = 0; i < 20; i++) {
+            simulation.stepN(25);
+            restored.stepN(25);
+            assertArrayEquals(TestFixtures.ballState(simulation), TestFixtures.ballState(restored));
+            assertEquals(simulation.getLines().size(), restored.getLines().size());
+            assertEquals(simulation.getGameStateManager().getScore(), restored.getGameStateManager().getScore());
+        }
+        assertArrayEquals(Keyframe.capture(simulation, null).getBytes(), Keyframe.capture(restored, null).getBytes());
+    }
+
+    @Test
+    public void testLinesAreStoredCompactly() throws IOException {
+        Line whole = simulation.createLine();
+        Line fractional = simulation.createLine();
+        for (int i = 0; i < 20; i++) {
+            whole.addPoint(100 + i * 10, 200 + (i % 2) * 30);
+            fractional.addPoint(100.5f + i * 10, 300 + (i % 2) * 30);
+        }
+        int segments = whole.getSegments().size();
+        byte[] drawing = Keyframe.capture(simulation, whole).getBytes();
+        simulation.addLine(whole);
+        byte[] finished = Keyframe.capture(simulation, null).getBytes();
+
+        // A finished line of whole pixels takes a few bytes a segment and leaves out its raw points
+        assertTrue(finished.length < drawing.length);
+        assertTrue(finished.length - Keyframe.capture(createSimulation(3), null).getBytes().length < 8 + 3 * segments);
+
+        // Segments that are not on whole pixels are kept exactly
+        simulation.addLine(fractional);
+        Keyframe keyframe = Keyframe.capture(simulation, null);
+        Simulation restored = createSimulation(7);
+        keyframe.restore(restored);
+        List<LineSegment> restoredSegments = restored.getLines().get(1).getSegments();
+        for (int i = 0; i < fractional.getSegments().size(); i++) {
+            assertEquals(fractional.getSegments().get(i).getStartX(), restoredSegments.get(i).getStartX());
+            assertEquals(fractional.getSegments().get(i).getEndY(), restoredSegments.get(i).getEndY());
+        }
+        assertArrayEquals(keyframe.getBytes(), Keyframe.capture(restored, null).getBytes());
+    }
+
+    @Test
+    public void testKeyframeOfAnotherLevelIsRejected() throws IOException {
+        Keyframe keyframe = Keyframe.capture(simulation, null);
+
+        Level level = TestFixtures.level("level1.txt", 120, 1, "grey", "orange", "blue", "green", "yellow");
+        Simulation other = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+        other.loadLevel(level, new String[] {"XXXX", "X  X", "XXXX"});
+        assertThrows(IOException.class, () -> keyframe.restore(other));
+        assertThrows(IOException.class, () -> new Keyframe(new byte[2]));
+    }
+}
@@ -0,0 +1,87 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the LatencyHistogram class
+ */
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @BeforeEach
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getPercentile(50));
+        assertEquals(10, histogram.getPercentile(99));
+        assertEquals(10, histogram.getMax());
+        assertEquals(5.5, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void testPercentilesAreWithinAnEighth() {
+        // 1 ms to 100 ms in 1 ms steps
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000_000L);
+        }
+
+        long p50 = histogram.getPercentile(50);
+        long p99 = histogram.getPercentile(99);
+        assertTrue(p50 >= 50_000_000L && p50 <= 50_000_000L * 9 / 8, "p50 was " + p50);
+        assertTrue(p99 >= 99_000_000L && p99 <= 100_000_000L, "p99 was " + p99);
+        assertEquals(100_000_000L, histogram.getPercentile(100));
+        assertEquals(100_000_000L, histogram.getMax());
+    }
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        long[] values = {0, 7, 8, 15, 16, 1000, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= 0 && bucket < LatencyHistogram.BUCKETS);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    public void testReset() {
+        histogram.record(500);
+        histogram.record(-3);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+    }
+
+    @Test
+    public void testRecordingDoesNotAllocate() {
+        long[] value = {0};
+        long bytes = Allocations.measure(100000, () -> histogram.record(value[0]++ * 37));
+        assertEquals(0, bytes);
+    }
+}
@@ -0,0 +1,148 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+/**
+ * Test class for the LevelPrefetcher class. A PApplet that hands out the test
+ * layout and records the thread that read it stands in for the real one.
+ */
+public class LevelPrefetcherTest {
+
+    // An 18x18 board with a border, one spawner and one hole
+    private static final String[] LAYOUT = {
+        "XXXXXXXXXXXXXXXXXX",
+        "X                X",
+        "X            S   X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X          H1    X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "XXXXXXXXXXXXXXXXXX"
+    };
+
+    private static final long SEED = 42;
+
+    private LayoutApp app;
+    private GameConfig config;
+    private GameStateManager gameStateManager;
+    private LevelPrefetcher prefetcher;
+
+    // Hands out blank images and the test layout, and records who read it
+    private static class LayoutApp extends PApplet {
+        private volatile Thread reader;
+        private volatile int reads;
+
+        @Override
+        public PImage loadImage(String path) {
+            if (path.endsWith(SpriteAtlas.SHEET)) {
+                return new PImage(381, 400);
+            }
+            return new PImage(32, 32);
+        }
+
+        @Override
+        public String[] loadStrings(String path) {
+            reader = Thread.currentThread();
+            reads++;
+            return LAYOUT;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        app = new LayoutApp();
+        config = createConfig();
+        gameStateManager = new GameStateManager(null, new Level(config, 0));
+        prefetcher = new LevelPrefetcher(app);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        prefetcher.shutdown();
+    }
+
+    private GameConfig createConfig() {
+        return TestFixtures.config(TestFixtures.levelJson("level1.txt", 120, 10, "grey"),
+                TestFixtures.levelJson("level2.txt", 120, 10, "grey"));
+    }
+
+    @Test
+    public void testBoardIsBuiltInTheBackground() {
+        prefetcher.prefetch(config, 1, gameStateManager, SEED);
+        Board board = prefetcher.take(config, 1);
+
+        assertNotNull(board);
+        assertNotSame(Thread.currentThread(), app.reader);
+        assertEquals("level2.txt", board.getLevel().getLayoutFile());
+        assertEquals(1, board.getSpawners().size());
+        assertEquals(1, board.getHoles().size());
+        assertEquals(SEED, board.getSimulation().getSeed());
+        assertEquals(1, prefetcher.getHits());
+        assertFalse(prefetcher.isPrefetching(config, 1));
+    }
+
+    @Test
+    public void testPrefetchingTheSameLevelTwiceBuildsOnce() {
+        prefetcher.prefetch(config, 1, gameStateManager, SEED);
+        prefetcher.prefetch(config, 1, gameStateManager, SEED);
+
+        assertNotNull(prefetcher.take(config, 1));
+        assertEquals(1, app.reads);
+    }
+
+    @Test
+    public void testOtherLevelIsNotHandedOut() {
+        prefetcher.prefetch(config, 1, gameStateManager, SEED);
+
+        // Restarting the current level keeps the next level prepared
+        assertNull(prefetcher.take(config, 0));
+        assertTrue(prefetcher.isPrefetching(config, 1));
+        assertNotNull(prefetcher.take(config, 1));
+
+        assertEquals(1, prefetcher.getHits());
+        assertEquals(1, prefetcher.getMisses());
+    }
+
+    @Test
+    public void testReloadedConfigIsNotHandedOut() {
+        prefetcher.prefetch(config, 1, gameStateManager, SEED);
+
+        assertNull(prefetcher.take(createConfig(), 1));
+    }
+
+    @Test
+    public void testMissingLevelIsNotPrefetched() {
+        prefetcher.prefetch(config, 2, gameStateManager, SEED);
+
+        assertFalse(prefetcher.isPrefetching(config, 2));
+        assertNull(prefetcher.take(config, 2));
+    }
+
+    @Test
+    public void testPreparedBoardsAreNotShared() {
+        prefetcher.prefetch(config, 1, gameStateManager, SEED);
+        Board first = prefetcher.take(config, 1);
+        prefetcher.prefetch(config, 1, gameStateManager, SEED);
+        Board second = prefetcher.take(config, 1);
+
+        assertNotSame(first, second);
+        assertNotSame(first.getLevel().getBalls(), second.getLevel().getBalls());
+    }
+}
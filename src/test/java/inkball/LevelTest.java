@@ -3,7 +3,6 @@ package inkball;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
-import java.util.Map;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -69,11 +68,11 @@ class LevelTest {
         assertEquals(1.5, level.getScoreIncreaseModifier());
         assertEquals(-2.0, level.getScoreDecreaseModifier());
         
-        List<String> balls = level.getBalls();
+        List<BallColour> balls = level.getBalls();
         assertEquals(3, balls.size());
-        assertEquals("ball0", balls.get(0)); // grey -> ball0
-        assertEquals("ball1", balls.get(1)); // orange -> ball1
-        assertEquals("ball2", balls.get(2)); // blue -> ball2
+        assertEquals(BallColour.GREY, balls.get(0));
+        assertEquals(BallColour.ORANGE, balls.get(1));
+        assertEquals(BallColour.BLUE, balls.get(2));
     }
 
     @Test
@@ -86,29 +85,31 @@ class LevelTest {
         Level level = new Level(appMock, configMock, 0);
 
         // Ensure the invalid colour is not added to the balls list
-        List<String> balls = level.getBalls();
+        List<BallColour> balls = level.getBalls();
         assertEquals(3, balls.size()); // Should not include "invalid"
-        assertEquals("ball0", balls.get(0));
-        assertEquals("ball1", balls.get(1));
-        assertEquals("ball2", balls.get(2));
+        assertEquals(BallColour.GREY, balls.get(0));
+        assertEquals(BallColour.ORANGE, balls.get(1));
+        assertEquals(BallColour.BLUE, balls.get(2));
     }
 
     @Test
-    public void testScoreIncreaseFromHole() {
+    public void testCaptureScoreForMatchingHole() {
         Level level = new Level(appMock, configMock, 0);
-        
-        Map<String, Integer> scoreIncrease = level.getScoreIncreaseFromHole();
-        assertEquals(10, scoreIncrease.get("grey"));
-        assertEquals(20, scoreIncrease.get("orange"));
+
+        // Score increase times the modifier of 1.5, grey matches every hole
+        assertEquals(15, level.getCaptureScore(BallColour.GREY.getId(), BallColour.GREEN.getId()));
+        assertEquals(30, level.getCaptureScore(BallColour.ORANGE.getId(), BallColour.ORANGE.getId()));
+        assertEquals(30, level.getCaptureScore(BallColour.ORANGE.getId(), BallColour.GREY.getId()));
+        assertEquals(0, level.getCaptureScore(BallColour.BLUE.getId(), BallColour.BLUE.getId()));
     }
 
     @Test
-    public void testScoreDecreaseFromWrongHole() {
+    public void testCaptureScoreForWrongHole() {
         Level level = new Level(appMock, configMock, 0);
 
-        Map<String, Integer> scoreDecrease = level.getScoreDecreaseFromWrongHole();
-        assertEquals(-5, scoreDecrease.get("grey"));
-        assertEquals(-10, scoreDecrease.get("orange"));
+        // Score decrease times the modifier of -2.0, taken off the score
+        assertEquals(-20, level.getCaptureScore(BallColour.ORANGE.getId(), BallColour.BLUE.getId()));
+        assertEquals(0, level.getCaptureScore(BallColour.BLUE.getId(), BallColour.ORANGE.getId()));
     }
 
     @Test
@@ -0,0 +1,111 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the LineIndex spatial hash
+ */
+public class LineIndexTest {
+
+    private LineIndex index;
+    private Ball ball;
+
+    @BeforeEach
+    public void setUp() {
+        index = new LineIndex(App.BOARD_WIDTH, App.BOARD_HEIGHT);
+
+        // Ball centred at (336, 400) moving right
+        ball = new Ball(10, 10, null, "ball0");
+        ball.setVelocity(1, 0);
+    }
+
+    @Test
+    public void testAddSegmentInsertsIntoIndex() {
+        Line line = new Line(index);
+        line.addSegment(new LineSegment(100, 100, 120, 100));
+        line.addSegment(new LineSegment(120, 100, 140, 100));
+
+        assertEquals(2, index.size());
+        assertSame(line, line.getSegments().get(0).getLine());
+    }
+
+    @Test
+    public void testQueryReturnsSegmentThatWasHit() {
+        Line line = new Line(index);
+        LineSegment far = new LineSegment(100, 300, 150, 300);
+        LineSegment near = new LineSegment(350, 380, 350, 420);
+        line.addSegment(far);
+        line.addSegment(near);
+
+        assertSame(near, index.query(ball));
+    }
+
+    @Test
+    public void testQueryIgnoresDistantSegments() {
+        Line line = new Line(index);
+        line.addSegment(new LineSegment(100, 600, 150, 600));
+
+        assertNull(index.query(ball));
+        assertTrue(index.getCandidates(ball.getPosX(), ball.getPosY()).isEmpty());
+    }
+
+    @Test
+    public void testRemovedLineNoLongerCollides() {
+        Line line = new Line(index);
+        line.addSegment(new LineSegment(350, 380, 350, 420));
+        line.remove();
+
+        assertTrue(line.isRemoved());
+        assertEquals(0, index.size());
+        assertNull(index.query(ball));
+
+        // A removed line takes no further segments
+        line.addSegment(new LineSegment(350, 380, 350, 420));
+        assertNull(index.query(ball));
+    }
+
+    @Test
+    public void testLongSegmentIsFoundAlongItsLength() {
+        Line line = new Line(index);
+        LineSegment diagonal = new LineSegment(70, 100, 500, 600);
+        line.addSegment(diagonal);
+
+        // Every point along the segment has it as a candidate
+        for (float t = 0; t <= 1; t += 0.05f) {
+            float px = 70 + (500 - 70) * t;
+            float py = 100 + (600 - 100) * t;
+            assertTrue(index.getCandidates(px, py).contains(diagonal));
+        }
+    }
+
+    @Test
+    public void testClearEmptiesIndex() {
+        Line line = new Line(index);
+        line.addSegment(new LineSegment(350, 380, 350, 420));
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertNull(index.query(ball));
+    }
+
+    @Test
+    public void testOnlyCellsWithSegmentsAreKept() {
+        LineIndex large = new LineIndex(1000, 1000);
+        assertEquals(0, large.getCellCount());
+        assertTrue(large.getCandidatesAt(999, 999).isEmpty());
+
+        // Enough cells to grow the table a few times, each still found afterwards
+        Line line = new Line(large);
+        for (int i = 0; i < 200; i++) {
+            line.addSegment(new LineSegment(i * App.CELLSIZE, App.TOPBAR + 500, i * App.CELLSIZE + 1, App.TOPBAR + 500));
+        }
+        assertTrue(large.getCellCount() < 1000);
+        for (int i = 0; i < 200; i++) {
+            assertFalse(large.getCandidates(i * App.CELLSIZE + 1, App.TOPBAR + 500).isEmpty());
+        }
+        assertTrue(large.getCandidates(500 * App.CELLSIZE, App.TOPBAR + 500).isEmpty());
+    }
+}
@@ -66,4 +66,47 @@ public class LineSegmentTest {
         verify(appMock).strokeWeight(10);  // Ensure stroke weight is set to 10
         verify(appMock).line(10, 20, 30, 40);  // Ensure line is drawn from (10, 20) to (30, 40)
     }
+
+    @Test
+    public void testPrecomputedLengthAndNormal() {
+        LineSegment horizontal = new LineSegment(0, 0, 10, 0);
+        assertEquals(10, horizontal.getLength(), 0.0001);
+        assertEquals(0, horizontal.getNormalX(), 0.0001);
+        assertEquals(1, horizontal.getNormalY(), 0.0001);
+
+        // Normal has unit length
+        float nx = lineSegment.getNormalX();
+        float ny = lineSegment.getNormalY();
+        assertEquals(1, nx * nx + ny * ny, 0.0001);
+    }
+
+    @Test
+    public void testDistanceSquaredToInterior() {
+        LineSegment horizontal = new LineSegment(0, 0, 10, 0);
+        assertEquals(9, horizontal.distanceSquaredTo(5, 3), 0.0001);
+        assertEquals(0, horizontal.distanceSquaredTo(5, 0), 0.0001);
+    }
+
+    @Test
+    public void testDistanceSquaredToIsClampedToEndPoints() {
+        LineSegment horizontal = new LineSegment(0, 0, 10, 0);
+        assertEquals(25, horizontal.distanceSquaredTo(-3, 4), 0.0001);
+        assertEquals(25, horizontal.distanceSquaredTo(13, -4), 0.0001);
+    }
+
+    @Test
+    public void testDistanceSquaredToZeroLengthSegment() {
+        LineSegment point = new LineSegment(5, 5, 5, 5);
+        assertEquals(0, point.getLength(), 0.0001);
+        assertEquals(0, point.getNormalX(), 0.0001);
+        assertEquals(0, point.getNormalY(), 0.0001);
+        assertEquals(25, point.distanceSquaredTo(8, 9), 0.0001);
+    }
+
+    @Test
+    public void testDistanceSquaredToDoesNotAllocate() {
+        float[] sum = new float[1];
+        long bytes = Allocations.measure(100000, () -> sum[0] += lineSegment.distanceSquaredTo(sum[0] % 50, 25));
+        assertEquals(0, bytes);
+    }
 }
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import processing.core.PApplet;
+import processing.core.PGraphics;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -69,6 +70,123 @@ class LineTest {
         Mockito.verify(appMock).line(segment.getStartX(), segment.getStartY(), segment.getEndX(), segment.getEndY());
     }
 
+    @Test
+    public void testDrawSetsStrokeOncePerLine() {
+        // Add three segments to the line
+        line.addSegment(new LineSegment(0, 0, 100, 100));
+        line.addSegment(new LineSegment(100, 100, 200, 100));
+        line.addSegment(new LineSegment(200, 100, 200, 200));
+
+        // Draw the line into an offscreen layer
+        PGraphics layerMock = mock(PGraphics.class);
+        line.draw(layerMock);
+
+        // The stroke is set once, and each segment is drawn
+        Mockito.verify(layerMock).stroke(0);
+        Mockito.verify(layerMock).strokeWeight(10);
+        Mockito.verify(layerMock, Mockito.times(3)).line(Mockito.anyFloat(), Mockito.anyFloat(), Mockito.anyFloat(), Mockito.anyFloat());
+    }
+
+
+    @Test
+    public void testStraightStrokeIsStoredAsOneSegment() {
+        // A slow horizontal drag, one pixel per mouse event
+        for (int i = 0; i <= 40; i++) {
+            line.addPoint(100 + i, 200);
+        }
+
+        assertEquals(1, line.getSegments().size());
+        assertEquals(40, line.getRawSegmentCount());
+        assertEquals(40f, line.getReductionRatio(), 0.001f);
+
+        LineSegment segment = line.getSegments().get(0);
+        assertEquals(100, segment.getStartX(), 0.001f);
+        assertEquals(140, segment.getEndX(), 0.001f);
+    }
+
+    @Test
+    public void testLongStrokeIsSplitIntoBoundedSpans() {
+        // Each segment is stretched over a bounded number of mouse events
+        for (int i = 0; i <= 1000; i++) {
+            line.addPoint(i * 0.5f, 200);
+        }
+
+        assertTrue(line.getSegments().size() > 1);
+        assertTrue(line.getReductionRatio() >= 10, "Expected a 10x cut, got " + line.getReductionRatio());
+    }
+
+    @Test
+    public void testCornerIsKept() {
+        // Drag right, then down
+        for (int i = 0; i <= 50; i++) {
+            line.addPoint(100 + i, 200);
+        }
+        for (int i = 1; i <= 50; i++) {
+            line.addPoint(150, 200 + i);
+        }
+
+        // The bend is moved by no more than the tolerance
+        List<LineSegment> segments = line.getSegments();
+        assertEquals(2, segments.size());
+        assertTrue(segments.get(0).distanceSquaredTo(150, 200) <= Line.DEFAULT_TOLERANCE * Line.DEFAULT_TOLERANCE);
+        assertEquals(150, segments.get(1).getEndX(), 0.001f);
+        assertEquals(250, segments.get(1).getEndY(), 0.001f);
+    }
+
+    @Test
+    public void testSimplifiedStrokeStaysWithinTolerance() {
+        // A shaky circle drawn with a high polling rate mouse
+        int points = 1000;
+        float[] xs = new float[points];
+        float[] ys = new float[points];
+        for (int i = 0; i < points; i++) {
+            double angle = 2 * Math.PI * i / points;
+            float jitter = (i % 3 - 1) * 0.4f;
+            xs[i] = 288 + (float) Math.cos(angle) * (150 + jitter);
+            ys[i] = 352 + (float) Math.sin(angle) * (150 + jitter);
+            line.addPoint(xs[i], ys[i]);
+        }
+
+        List<LineSegment> segments = line.getSegments();
+        assertEquals(points - 1, line.getRawSegmentCount());
+        assertTrue(line.getReductionRatio() >= 10, "Expected a 10x cut, got " + line.getReductionRatio());
+
+        // The stored path is connected and every raw point is close to it
+        for (int i = 1; i < segments.size(); i++) {
+            assertEquals(segments.get(i - 1).getEndX(), segments.get(i).getStartX(), 0.001f);
+            assertEquals(segments.get(i - 1).getEndY(), segments.get(i).getStartY(), 0.001f);
+        }
+        float limit = Line.DEFAULT_TOLERANCE * Line.DEFAULT_TOLERANCE + 0.001f;
+        for (int i = 0; i < points; i++) {
+            float closest = Float.MAX_VALUE;
+            for (LineSegment segment : segments) {
+                closest = Math.min(closest, segment.distanceSquaredTo(xs[i], ys[i]));
+            }
+            assertTrue(closest <= limit, "Point " + i + " is " + Math.sqrt(closest) + " pixels from the stroke");
+        }
+    }
+
+    @Test
+    public void testSimplifiedSegmentsAreIndexed() {
+        LineIndex index = new LineIndex(App.BOARD_WIDTH, App.BOARD_HEIGHT);
+        Line indexed = new Line(index);
+        for (int i = 0; i <= 200; i++) {
+            indexed.addPoint(100 + i, 200 + (i / 50) * 20);
+        }
+
+        assertEquals(indexed.getSegments().size(), index.size());
+        for (LineSegment segment : indexed.getSegments()) {
+            assertSame(indexed, segment.getLine());
+        }
+
+        indexed.remove();
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testNegativeToleranceIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> line.setTolerance(-1));
+    }
 
     @Test
     public void testIsCollidingWithBall_True() {
@@ -0,0 +1,141 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the Log class. Every test flushes the log into its own
+ * stream, and uses its own message formats so the rate limit of one test does
+ * not carry over to the next.
+ */
+public class LogTest {
+
+    private ByteArrayOutputStream bytes;
+    private int previousLevel;
+
+    @BeforeEach
+    public void setUp() {
+        Log.flush();
+        bytes = new ByteArrayOutputStream();
+        Log.setOutput(new PrintStream(bytes, true));
+        previousLevel = Log.getLevel();
+        Log.setLevel(Log.DEBUG);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Log.flush();
+        Log.setOutput(null);
+        Log.setLevel(previousLevel);
+    }
+
+    // Flushes the log and returns the lines that contain some text
+    private int countLines(String text) {
+        Log.flush();
+        int count = 0;
+        for (String line : bytes.toString().split("\\R")) {
+            if (line.contains(text)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testMessageIsFormatted() {
+        Log.warn("Null tile detected at ({}, {}). Skipping.", 3, 7);
+        Log.flush();
+
+        assertEquals("[WARN] Null tile detected at (3, 7). Skipping.", bytes.toString().trim());
+    }
+
+    @Test
+    public void testExceptionPrintsItsStackTrace() {
+        Log.error("stack trace test {}: {}", "loading", new IllegalStateException("broken"));
+        Log.flush();
+
+        String[] lines = bytes.toString().split("\\R");
+        assertEquals("[ERROR] stack trace test loading: java.lang.IllegalStateException: broken", lines[0]);
+        assertEquals("java.lang.IllegalStateException: broken", lines[1]);
+        assertTrue(lines[2].trim().startsWith("at inkball.LogTest.testExceptionPrintsItsStackTrace"));
+    }
+
+    @Test
+    public void testLevelsBelowTheThresholdAreSkipped() {
+        Log.setLevel(Log.WARN);
+        Log.debug("level test debug");
+        Log.info("level test info");
+        Log.warn("level test warn");
+        Log.error("level test error");
+
+        assertEquals(0, countLines("level test debug"));
+        assertEquals(0, countLines("level test info"));
+        assertEquals(1, countLines("level test warn"));
+        assertEquals(1, countLines("level test error"));
+        assertFalse(Log.isEnabled(Log.INFO));
+        assertTrue(Log.isEnabled(Log.ERROR));
+    }
+
+    @Test
+    public void testOffLogsNothing() {
+        Log.setLevel(Log.OFF);
+        Log.error("off test {}", 1);
+
+        assertEquals(0, countLines("off test"));
+        assertThrows(IllegalArgumentException.class, () -> Log.setLevel(Log.OFF + 1));
+    }
+
+    @Test
+    public void testRepeatedMessagesAreRateLimited() throws InterruptedException {
+        long suppressed = Log.getSuppressed();
+        for (int i = 0; i < 100; i++) {
+            Log.info("rate test {}", i);
+        }
+
+        assertEquals(Log.RATE_LIMIT, countLines("] rate test"));
+        assertEquals(100 - Log.RATE_LIMIT, Log.getSuppressed() - suppressed);
+
+        // The repeats are reported with the next message after the window
+        Thread.sleep(1100);
+        Log.info("rate test {}", 100);
+        assertEquals(1, countLines("90 repeats of \"rate test {}\" were suppressed"));
+        assertEquals(1, countLines("rate test 100"));
+    }
+
+    @Test
+    public void testFullBufferDropsMessages() {
+        int attempts = Log.CAPACITY * 3;
+        String[] formats = new String[attempts];
+        for (int i = 0; i < attempts; i++) {
+            formats[i] = "drop test " + i;
+        }
+
+        long dropped = Log.getDropped();
+        for (String format : formats) {
+            Log.info(format);
+        }
+
+        // Every message is either printed or counted as dropped
+        assertEquals(attempts, countLines("drop test") + (Log.getDropped() - dropped));
+    }
+
+    @Test
+    public void testDisabledLevelDoesNotAllocate() {
+        Log.setLevel(Log.ERROR);
+        Object argument = "argument";
+
+        long allocated = Allocations.measure(100000, () -> {
+            Log.debug("allocation test {} {}", argument, argument);
+            Log.info("allocation test {}", argument);
+        });
+
+        assertEquals(0, allocated);
+        assertEquals(0, countLines("allocation test"));
+    }
+}
@@ -0,0 +1,65 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Benchmark for the parallel ball update. The same crowded board is stepped
+ * with a growing number of threads and the time per tick is compared with
+ * the single threaded update. Run with "gradle benchmark".
+ */
+@Tag("benchmark")
+public class ParallelUpdateBenchmark {
+
+    private static final int BALLS = 50000;
+    private static final int TICKS = 100;
+
+    @Test
+    public void benchmarkTickTimeAsThreadsGrow() {
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // Warm up the JIT before timing anything
+        measure(cores);
+        measure(1);
+
+        double serialMillis = measure(1);
+        System.out.printf("threads=%2d  ms/tick=%8.3f%n", 1, serialMillis);
+        for (int threads = 2; threads <= cores; threads *= 2) {
+            double millis = measure(threads);
+            System.out.printf("threads=%2d  ms/tick=%8.3f  speedup=%5.2f%n", threads, millis, serialMillis / millis);
+        }
+        assertTrue(serialMillis > 0);
+    }
+
+    // Returns the best time per tick in milliseconds
+    private double measure(int threads) {
+        Level level = TestFixtures.level("level2.txt", 100000, 1);
+        Simulation simulation = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+        simulation.loadLevel(level, Simulation.readLayout("level2.txt"));
+        simulation.getSpawners().clear();
+        simulation.getHoles().clear();
+        simulation.setParallelism(threads);
+
+        Random random = new Random(7);
+        for (int i = 0; i < BALLS; i++) {
+            float x = App.CELLSIZE + random.nextFloat() * App.CELLSIZE * (App.BOARD_WIDTH - 2);
+            float y = App.TOPBAR + App.CELLSIZE + random.nextFloat() * App.CELLSIZE * (App.BOARD_HEIGHT - 2);
+            simulation.getBallStore().add(x, y, random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2, i % 5);
+        }
+
+        // Take the best of a few repetitions to filter out GC pauses
+        double best = Double.MAX_VALUE;
+        for (int repeat = 0; repeat < 5; repeat++) {
+            long start = System.nanoTime();
+            simulation.stepN(TICKS);
+            best = Math.min(best, (System.nanoTime() - start) / (TICKS * 1e6));
+        }
+        simulation.setParallelism(1);
+        return best;
+    }
+
+}
@@ -0,0 +1,120 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the Profiler class
+ */
+public class ProfilerTest {
+
+    @BeforeEach
+    public void setUp() {
+        Profiler.setEnabled(true);
+        Profiler.reset();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Profiler.setEnabled(true);
+        Profiler.reset();
+    }
+
+    @Test
+    public void testPhaseIsTimed() throws InterruptedException {
+        long start = Profiler.start();
+        Thread.sleep(5);
+        Profiler.stop(Profiler.HUD, start);
+
+        LatencyHistogram histogram = Profiler.getHistogram(Profiler.HUD);
+        assertEquals(1, histogram.getCount());
+        assertTrue(histogram.getMax() >= 5_000_000L);
+        assertEquals(0, Profiler.getHistogram(Profiler.LINES).getCount());
+    }
+
+    @Test
+    public void testDisabledProfilerRecordsNothing() {
+        Profiler.setEnabled(false);
+        long start = Profiler.start();
+        Profiler.stop(Profiler.FRAME, start);
+
+        assertEquals(0, start);
+        assertEquals(0, Profiler.getHistogram(Profiler.FRAME).getCount());
+    }
+
+    @Test
+    public void testReset() {
+        for (int phase = 0; phase < Profiler.PHASES; phase++) {
+            Profiler.stop(phase, Profiler.start());
+        }
+        Profiler.reset();
+
+        for (int phase = 0; phase < Profiler.PHASES; phase++) {
+            assertEquals(0, Profiler.getHistogram(phase).getCount());
+        }
+    }
+
+    @Test
+    public void testDumpListsEveryPhase() throws IOException {
+        Profiler.getHistogram(Profiler.BALLS).record(2_000_000L);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Profiler.dump(new PrintStream(bytes, true));
+        String[] lines = bytes.toString().split("\\R");
+
+        assertEquals(Profiler.PHASES + 1 + Profiler.COUNTERS + 1, lines.length);
+        assertTrue(lines[Profiler.BALLS + 1].startsWith("balls"));
+        assertTrue(lines[Profiler.BALLS + 1].trim().endsWith("2000.0"));
+
+        File file = File.createTempFile("profile", ".txt");
+        file.deleteOnExit();
+        assertTrue(Profiler.dump(file));
+        List<String> written = Files.readAllLines(file.toPath());
+        assertEquals(lines[Profiler.BALLS + 1], written.get(Profiler.BALLS + 1));
+    }
+
+    @Test
+    public void testCountersAreDumpedAfterThePhases() {
+        Profiler.count(Profiler.DRAW_CALLS, 40);
+        Profiler.count(Profiler.DRAW_CALLS, 60);
+
+        LatencyHistogram drawCalls = Profiler.getCounter(Profiler.DRAW_CALLS);
+        assertEquals(2, drawCalls.getCount());
+        assertEquals(50.0, drawCalls.getMean(), 0.01);
+        assertEquals(60, drawCalls.getMax());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Profiler.dump(new PrintStream(bytes, true));
+        String[] lines = bytes.toString().split("\\R");
+        String row = lines[Profiler.PHASES + 2 + Profiler.DRAW_CALLS];
+        assertTrue(lines[Profiler.PHASES + 1].startsWith("counter"));
+        assertTrue(row.startsWith(Profiler.getCounterName(Profiler.DRAW_CALLS)));
+        assertTrue(row.trim().endsWith("60"));
+
+        Profiler.reset();
+        assertEquals(0, drawCalls.getCount());
+    }
+
+    @Test
+    public void testDisabledProfilerCountsNothing() {
+        Profiler.setEnabled(false);
+        Profiler.count(Profiler.DRAW_CALLS, 10);
+        assertEquals(0, Profiler.getCounter(Profiler.DRAW_CALLS).getCount());
+    }
+
+    @Test
+    public void testTimingDoesNotAllocate() {
+        long bytes = Allocations.measure(100000, () -> Profiler.stop(Profiler.BOARD, Profiler.start()));
+        assertEquals(0, bytes);
+    }
+}
@@ -0,0 +1,181 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the Replay class. A session is played headless the way App
+ * plays it, with a scripted player, and recorded into memory together with a
+ * fingerprint of the state at every frame. The replay has to reproduce each
+ * fingerprint, whichever order the frames are visited in.
+ */
+public class ReplayTest {
+
+    private static final int TICKS = 2400;
+    private static final int RESTART_TICK = 1500;
+
+    private GameConfig config;
+    private Map<Integer, Long> fingerprints;
+    private int frames;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        config = TestFixtures.config(
+                TestFixtures.levelJson("level1.txt", 120, 2, "grey", "orange", "blue", "green", "yellow", "blue"),
+                TestFixtures.levelJson("level2.txt", 120, 2, "orange", "orange", "grey"));
+        fingerprints = new HashMap<>();
+    }
+
+    // Plays a session like App does and records it, with keyframes
+    private byte[] record() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(bytes, 1);
+
+        Level level = new Level(config, 0);
+        GameStateManager gameStateManager = new GameStateManager(null, level);
+        Simulation simulation = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, gameStateManager);
+        simulation.setSeed(11);
+        simulation.loadLevel(level, Simulation.readLayout(level.getLayoutFile()));
+        recorder.level(0, 0, simulation.getSeed());
+        recorder.keyframe(0, Keyframe.capture(simulation, null));
+
+        Random player = new Random(5);
+        Line currentLine = null;
+        int frame = 0;
+        for (int i = 0; i < TICKS; i++) {
+            // Input comes in between ticks, stamped with the tick before it
+            int tick = simulation.getTick();
+            if (currentLine == null && i % 45 == 0) {
+                int x = App.CELLSIZE * 2 + player.nextInt(App.CELLSIZE * 14);
+                int y = App.TOPBAR + App.CELLSIZE * 2 + player.nextInt(App.CELLSIZE * 14);
+                currentLine = simulation.createLine();
+                currentLine.addPoint(x, y);
+                recorder.press(tick, x, y);
+            } else if (currentLine != null && i % 45 < 30) {
+                int x = App.CELLSIZE * 2 + player.nextInt(App.CELLSIZE * 14);
+                int y = App.TOPBAR + App.CELLSIZE * 2 + player.nextInt(App.CELLSIZE * 14);
+                currentLine.addPoint(x, y);
+                recorder.point(tick, x, y);
+            } else if (currentLine != null) {
+                simulation.addLine(currentLine);
+                currentLine = null;
+                recorder.release(tick);
+            }
+            if (i % 400 == 399) {
+                simulation.removeLastLine();
+                recorder.remove(tick);
+            }
+            if (i == 700 || i == 740) {
+                gameStateManager.togglePause();
+                recorder.pause(tick);
+            }
+            if (i == RESTART_TICK) {
+                // Restart into the second level, like GameStateManager.restart and App.initialiseLevel
+                recorder.restart(tick);
+                gameStateManager.startLevel(1, config.getLevel(1).getTimeLimit());
+                level = new Level(config, 1);
+                simulation.setSeed(23);
+                simulation.loadLevel(level, Simulation.readLayout(level.getLayoutFile()));
+                currentLine = null;
+                recorder.level(tick, 1, simulation.getSeed());
+                recorder.keyframe(0, Keyframe.capture(simulation, null));
+            }
+            fingerprints.put(frame, TestFixtures.fingerprint(simulation, currentLine));
+
+            if (gameStateManager.getState() == GameStateManager.GameState.PLAYING) {
+                simulation.step();
+                frame++;
+                if (currentLine != null && currentLine.isRemoved()) {
+                    currentLine = null;
+                }
+                if (simulation.getTick() % InputRecorder.KEYFRAME_INTERVAL == 0) {
+                    recorder.keyframe(simulation.getTick(), Keyframe.capture(simulation, currentLine));
+                }
+            }
+        }
+        // The last frame, with no ticks after it
+        currentLine = simulation.createLine();
+        currentLine.addPoint(100, 100);
+        recorder.press(simulation.getTick(), 100, 100);
+        fingerprints.put(frame, TestFixtures.fingerprint(simulation, currentLine));
+        frames = frame;
+        recorder.close();
+        return bytes.toByteArray();
+    }
+
+    private Replay replay(byte[] recording) throws IOException {
+        return new Replay(config, new InputReader(new ByteArrayInputStream(recording)));
+    }
+
+    @Test
+    public void testEveryFrameIsReplayed() throws IOException {
+        Replay replay = replay(record());
+        assertEquals(frames, replay.getFrameCount());
+
+        for (int frame = 0; frame <= frames; frame++) {
+            replay.seek(frame);
+            assertEquals(frame, replay.getFrame());
+            assertEquals(fingerprints.get(frame).longValue(), TestFixtures.fingerprint(replay.getSimulation(), replay.getCurrentLine()),
+                    "frame " + frame);
+        }
+        assertEquals(1, replay.getLevelIndex());
+        assertEquals(frames, replay.getSimulatedTicks());
+    }
+
+    @Test
+    public void testSeekingIsBoundedByTheKeyframeInterval() throws IOException {
+        Replay replay = replay(record());
+        assertTrue(replay.getKeyframeCount() >= frames / InputRecorder.KEYFRAME_INTERVAL);
+
+        Random random = new Random(8);
+        for (int i = 0; i < 40; i++) {
+            int frame = random.nextInt(frames + 1);
+            long before = replay.getSimulatedTicks();
+            replay.seek(frame);
+            assertTrue(replay.getSimulatedTicks() - before <= InputRecorder.KEYFRAME_INTERVAL);
+            assertEquals(fingerprints.get(frame).longValue(), TestFixtures.fingerprint(replay.getSimulation(), replay.getCurrentLine()),
+                    "frame " + frame);
+        }
+    }
+
+    @Test
+    public void testOnlyRequestedFramesAreShown() throws IOException {
+        Replay replay = replay(record());
+        int[] targets = {frames, 10, RESTART_TICK - 1, RESTART_TICK + 1};
+        int[] shown = new int[targets.length];
+        int[] count = {0};
+
+        replay.play(targets, (frame, played) -> {
+            assertEquals(fingerprints.get(frame).longValue(), TestFixtures.fingerprint(played.getSimulation(), played.getCurrentLine()));
+            shown[count[0]++] = frame;
+        });
+        assertArrayEquals(targets, shown);
+    }
+
+    @Test
+    public void testReplayWithoutKeyframesStartsFromTheBeginning() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(bytes, 1);
+        recorder.level(0, 0, 11);
+        recorder.press(50, 200, 300);
+        recorder.close();
+
+        Replay replay = replay(bytes.toByteArray());
+        assertEquals(0, replay.getKeyframeCount());
+        replay.seek(50);
+        assertNotNull(replay.getCurrentLine());
+        replay.seek(20);
+        assertNull(replay.getCurrentLine());
+        assertEquals(20, replay.getSimulation().getTick());
+        assertEquals(70, replay.getSimulatedTicks());
+    }
+}
@@ -0,0 +1,403 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the Simulation class. Every test runs headless, without a
+ * PApplet.
+ */
+public class SimulationTest {
+
+    private Simulation simulation;
+    private GameStateManager gameStateManager;
+    private Level level;
+
+    // An 18x18 board with a border, one ball, one spawner and one hole
+    private static final String[] LAYOUT = {
+        "XXXXXXXXXXXXXXXXXX",
+        "X                X",
+        "X  B1        S   X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X          H1    X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "X                X",
+        "XXXXXXXXXXXXXXXXXX"
+    };
+
+    @BeforeEach
+    public void setUp() {
+        level = createLevel(120);
+        gameStateManager = new GameStateManager(null, level);
+        simulation = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, gameStateManager);
+        simulation.loadLevel(level, LAYOUT);
+    }
+
+    // Grey, orange and blue score, grey is never lost in a wrong hole, green and yellow score nothing
+    private Level createLevel(int time) {
+        int[] scoreIncrease = {70, 50, 50, 0, 0};
+        int[] scoreDecrease = {0, 25, 25, 0, 0};
+        return new Level(TestFixtures.config(scoreIncrease, scoreDecrease,
+                TestFixtures.levelJson("level1.txt", time, 1, "grey", "blue")), 0);
+    }
+
+    @Test
+    public void testLoadLevelCreatesObjects() {
+        assertEquals(1, simulation.getBalls().size());
+        assertEquals(1, simulation.getSpawners().size());
+        assertEquals(1, simulation.getHoles().size());
+        assertTrue(simulation.getTile(0, 0).isWall());
+        assertTrue(simulation.getTile(12, 12).isHole());
+        assertFalse(simulation.getTile(5, 5).isWall());
+    }
+
+    @Test
+    public void testStepMovesBallsWithoutPApplet() {
+        Ball ball = simulation.getBalls().get(0);
+        float startX = ball.getPosX();
+        float startY = ball.getPosY();
+
+        simulation.stepN(10);
+
+        assertEquals(10, simulation.getTick());
+        assertNotEquals(startX, ball.getPosX());
+        assertNotEquals(startY, ball.getPosY());
+    }
+
+    @Test
+    public void testStepAccumulatesFixedTicks() {
+        assertEquals(2, simulation.step(Simulation.TIMESTEP * 2.5f));
+        assertEquals(2, simulation.getTick());
+
+        // The left over half tick is carried into the next call
+        assertEquals(1, simulation.step(Simulation.TIMESTEP * 0.6f));
+        assertEquals(3, simulation.getTick());
+    }
+
+    @Test
+    public void testSpawnerSpawnsAfterInterval() {
+        simulation.stepN(App.FPS - 1);
+        assertEquals(1, simulation.getBalls().size());
+
+        simulation.stepN(1);
+        assertEquals(2, simulation.getBalls().size());
+        assertEquals(1, level.getBalls().size());
+    }
+
+    @Test
+    public void testPausedSimulationDoesNotAdvance() {
+        gameStateManager.togglePause();
+        Ball ball = simulation.getBalls().get(0);
+        float startX = ball.getPosX();
+
+        simulation.stepN(100);
+
+        assertEquals(0, simulation.getTick());
+        assertEquals(startX, ball.getPosX());
+    }
+
+    @Test
+    public void testTimerCountsDownWithTicks() {
+        simulation.stepN(App.FPS * 10);
+        assertEquals("110", gameStateManager.getRemainingTime());
+    }
+
+    @Test
+    public void testRemoveLastLine() {
+        simulation.addLine(simulation.createLine());
+        Line last = simulation.createLine();
+        last.addSegment(new LineSegment(100, 100, 120, 100));
+        simulation.addLine(last);
+        simulation.removeLastLine();
+        assertEquals(1, simulation.getLines().size());
+        assertTrue(last.isRemoved());
+        assertEquals(0, simulation.getLineIndex().size());
+
+        simulation.removeLastLine();
+        simulation.removeLastLine();
+        assertTrue(simulation.getLines().isEmpty());
+    }
+
+    @Test
+    public void testBallReflectsOffSegmentThatWasHit() {
+        Ball ball = simulation.getBalls().get(0);
+        ball.setVelocity(1, 0);
+        float x = ball.getPosX();
+        float y = ball.getPosY();
+
+        // The first segment is far away, the second is right in front of the ball
+        Line line = simulation.createLine();
+        line.addSegment(new LineSegment(x - 200, y + 200, x - 150, y + 200));
+        line.addSegment(new LineSegment(x + 15, y - 40, x + 15, y + 40));
+        simulation.addLine(line);
+
+        simulation.step();
+
+        assertEquals(-1, ball.getVelocityX(), 0.01);
+        assertEquals(0, ball.getVelocityY(), 0.01);
+        assertTrue(line.isRemoved());
+        assertTrue(simulation.getLines().isEmpty());
+        assertEquals(0, simulation.getLineIndex().size());
+    }
+
+    @Test
+    public void testFastBallDoesNotTunnelThroughWalls() {
+        // The pillar in the middle is a single tile wide
+        String[] layout = new String[App.BOARD_HEIGHT];
+        for (int y = 0; y < App.BOARD_HEIGHT; y++) {
+            if (y == 0 || y == App.BOARD_HEIGHT - 1) {
+                layout[y] = "XXXXXXXXXXXXXXXXXX";
+            } else if (y == 2) {
+                layout[y] = "X  B1    X       X";
+            } else {
+                layout[y] = "X        X       X";
+            }
+        }
+        simulation.loadLevel(level, layout);
+        simulation.getSpawners().clear();
+
+        // Far more than a wall tile per tick
+        Ball ball = simulation.getBalls().get(0);
+        ball.setVelocity(45, 0);
+
+        float pillarLeft = 9 * App.CELLSIZE;
+        for (int i = 0; i < 200; i++) {
+            simulation.step();
+            assertTrue(ball.getPosX() <= pillarLeft - Ball.RADIUS + 0.01f, "Ball passed into the pillar at tick " + i);
+            assertTrue(ball.getPosX() >= App.CELLSIZE + Ball.RADIUS - 0.01f, "Ball passed into the border at tick " + i);
+        }
+        assertEquals(45, Math.abs(ball.getVelocityX()), 0.01);
+    }
+
+    @Test
+    public void testFastBallHitsThinLine() {
+        Ball ball = simulation.getBalls().get(0);
+        ball.setVelocity(60, 0);
+        float x = ball.getPosX();
+        float y = ball.getPosY();
+
+        // The ball would jump from one side of the line to the other in one tick
+        Line line = simulation.createLine();
+        line.addSegment(new LineSegment(x + 40, y - 20, x + 40, y + 20));
+        simulation.addLine(line);
+
+        simulation.step();
+
+        assertTrue(line.isRemoved());
+        assertEquals(-60, ball.getVelocityX(), 0.01);
+        assertTrue(ball.getPosX() < x + 40 - Ball.RADIUS + 0.01f);
+    }
+
+    @Test
+    public void testMaxSubStepsMustBePositive() {
+        simulation.setMaxSubSteps(2);
+        assertEquals(2, simulation.getMaxSubSteps());
+        assertThrows(IllegalArgumentException.class, () -> simulation.setMaxSubSteps(0));
+    }
+
+    @Test
+    public void testSteadyStateStepDoesNotAllocate() {
+        // Balls bounce around the board with nothing to capture or spawn them
+        String[] layout = {
+            "XXXXXXXXXXXXXXXXXX",
+            "X                X",
+            "X  B1    B2      X",
+            "X                X",
+            "X       X        X",
+            "X       X        X",
+            "X       X   B0   X",
+            "X                X",
+            "X                X",
+            "X   B2           X",
+            "X           XXXX X",
+            "X           X    X",
+            "X           X    X",
+            "X           XXXX X",
+            "X                X",
+            "X      B0        X",
+            "X                X",
+            "XXXXXXXXXXXXXXXXXX"
+        };
+        // Long enough for the warm up and the measured ticks
+        level = createLevel(1000);
+        gameStateManager = new GameStateManager(null, level);
+        simulation = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, gameStateManager);
+        simulation.loadLevel(level, layout);
+        simulation.getSpawners().clear();
+        Line line = simulation.createLine();
+        line.addSegment(new LineSegment(100, 500, 140, 520));
+        simulation.addLine(line);
+
+        long bytes = Allocations.measure(2000, () -> simulation.step());
+
+        assertEquals(GameStateManager.GameState.PLAYING, gameStateManager.getState());
+        assertEquals(5, simulation.getBalls().size());
+        assertEquals(0, bytes);
+    }
+
+    @Test
+    public void testParallelUpdateMatchesSerialUpdate() {
+        Simulation serial = createCrowdedSimulation(1);
+        Simulation parallel = createCrowdedSimulation(4);
+
+        serial.stepN(60);
+        parallel.stepN(60);
+
+        BallStore expected = serial.getBallStore();
+        BallStore actual = parallel.getBallStore();
+        assertEquals(expected.size(), actual.size());
+        assertEquals(serial.getLines().size(), parallel.getLines().size());
+        assertEquals(serial.getGameStateManager().getScore(), parallel.getGameStateManager().getScore());
+        for (int slot = 0; slot < expected.size(); slot++) {
+            assertEquals(expected.getHandle(slot), actual.getHandle(slot));
+            assertEquals(expected.getPosX(slot), actual.getPosX(slot));
+            assertEquals(expected.getPosY(slot), actual.getPosY(slot));
+            assertEquals(expected.getVelocityX(slot), actual.getVelocityX(slot));
+            assertEquals(expected.getVelocityY(slot), actual.getVelocityY(slot));
+            assertEquals(expected.getColour(slot), actual.getColour(slot));
+        }
+    }
+
+    @Test
+    public void testParallelismMustBePositive() {
+        simulation.setParallelism(3);
+        assertEquals(3, simulation.getParallelism());
+        assertThrows(IllegalArgumentException.class, () -> simulation.setParallelism(0));
+    }
+
+    // Enough grey and orange balls for the parallel update, with lines to hit and the orange hole to fall into
+    private Simulation createCrowdedSimulation(int parallelism) {
+        Level crowdedLevel = createLevel(120);
+        Simulation crowded = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, crowdedLevel));
+        crowded.loadLevel(crowdedLevel, LAYOUT);
+        crowded.setParallelism(parallelism);
+
+        // Spawned balls start with a random velocity
+        crowded.getSpawners().clear();
+        crowded.getBalls().get(0).setVelocity(2, 1);
+
+        Random random = new Random(11);
+        for (int i = 0; i < Simulation.PARALLEL_THRESHOLD + 1000; i++) {
+            float x = App.CELLSIZE * 2 + random.nextFloat() * App.CELLSIZE * 14;
+            float y = App.TOPBAR + App.CELLSIZE * 2 + random.nextFloat() * App.CELLSIZE * 14;
+            crowded.getBallStore().add(x, y, random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2, i % 2);
+        }
+        for (int i = 0; i < 10; i++) {
+            Line line = crowded.createLine();
+            line.addSegment(new LineSegment(100 + i * 40, 200, 120 + i * 40, 260));
+            crowded.addLine(line);
+        }
+        return crowded;
+    }
+
+    // Loads the test layout with a seed and plays it, returns the position and velocity of every ball
+    private float[] playSeeded(Simulation seeded, long seed, int ticks) {
+        seeded.setSeed(seed);
+        seeded.loadLevel(createLevel(120), LAYOUT);
+        seeded.stepN(ticks);
+        return TestFixtures.ballState(seeded);
+    }
+
+    @Test
+    public void testSameSeedPlaysOutTheSame() {
+        Simulation other = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+
+        // Two balls are spawned, with their directions taken from the seed
+        float[] first = playSeeded(simulation, 99, 150);
+        float[] second = playSeeded(other, 99, 150);
+        assertEquals(3 * TestFixtures.BALL_STATE, first.length);
+        assertArrayEquals(first, second);
+        assertEquals(99, simulation.getSeed());
+
+        // Loading the level again starts the random numbers over
+        assertArrayEquals(first, playSeeded(simulation, 99, 150));
+    }
+
+    @Test
+    public void testRestartPlaysLikeAFreshLoad() {
+        simulation.setSeed(5);
+        simulation.loadLevel(level, LAYOUT);
+        TileGrid tiles = simulation.getTileGrid();
+        Hole hole = simulation.getHoles().get(0);
+        Spawner spawner = simulation.getSpawners().get(0);
+        List<BallColour> queue = new ArrayList<>(spawner.getBallsToSpawn());
+        simulation.stepN(150);
+        Line line = simulation.createLine();
+        line.addSegment(new LineSegment(100, 200, 160, 260));
+        simulation.addLine(line);
+        assertTrue(spawner.getBallsToSpawn().isEmpty());
+
+        assertTrue(simulation.restart(99));
+
+        // The layout is not built again, only the balls, lines, queue and clock are reset
+        assertSame(tiles, simulation.getTileGrid());
+        assertTrue(simulation.getTile(0, 0).isWall());
+        assertSame(hole, simulation.getHoles().get(0));
+        assertSame(spawner, simulation.getSpawners().get(0));
+        assertEquals(0, simulation.getTick());
+        assertTrue(simulation.getLines().isEmpty());
+        assertTrue(line.isRemoved());
+        assertEquals(1, simulation.getBalls().size());
+        assertEquals(2, queue.size());
+        assertEquals(queue, spawner.getBallsToSpawn());
+        assertEquals(99, simulation.getSeed());
+
+        // Which then plays out the same as the level loaded with the seed
+        simulation.stepN(150);
+        Simulation loaded = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+        assertArrayEquals(playSeeded(loaded, 99, 150), TestFixtures.ballState(simulation));
+    }
+
+    @Test
+    public void testRestartNeedsALoadedLevel() {
+        Simulation empty = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, gameStateManager);
+        assertFalse(empty.restart(1));
+        empty.loadLevel(level, null);
+        assertFalse(empty.restart(1));
+    }
+
+    @Test
+    public void testCaptureScoresComeFromTheLevel() {
+        Ball ball = simulation.getBalls().get(0);
+        Hole blueHole = new Hole(3, 3, null, "hole2", simulation);
+        List<BallColour> queue = simulation.getSpawners().get(0).getBallsToSpawn();
+        int queued = queue.size();
+
+        // The orange ball loses the penalty in the blue hole and goes back in the queue
+        simulation.handleFailedCapture(ball, blueHole);
+        assertEquals(-25, gameStateManager.getScore());
+        assertEquals(queued + 1, queue.size());
+        assertEquals(BallColour.ORANGE, queue.get(queue.size() - 1));
+        assertTrue(simulation.getBalls().isEmpty());
+
+        // A matching hole adds the score and leaves the queue alone
+        Ball orange = new Ball(64, 64, null, "ball1");
+        simulation.handleSuccessfulCapture(orange, simulation.getHoles().get(0));
+        assertEquals(25, gameStateManager.getScore());
+        assertEquals(queued + 1, queue.size());
+    }
+
+    @Test
+    public void testReadLayoutFromDisk() {
+        String[] layout = Simulation.readLayout("level1.txt");
+        assertNotNull(layout);
+        assertEquals(App.BOARD_HEIGHT, layout.length);
+        assertNull(Simulation.readLayout("missing_level.txt"));
+    }
+}
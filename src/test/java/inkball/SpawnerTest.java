@@ -16,7 +16,7 @@ public class SpawnerTest {
 
     private Spawner spawner;
     private PApplet appMock;
-    private List<String> ballsToSpawn;
+    private List<BallColour> ballsToSpawn;
     private Board boardMock;
 
     @BeforeEach
@@ -30,8 +30,8 @@ public class SpawnerTest {
 
         // Initialize the ballsToSpawn list and add some sample balls
         ballsToSpawn = new ArrayList<>();
-        ballsToSpawn.add("ball1");
-        ballsToSpawn.add("ball2");
+        ballsToSpawn.add(BallColour.ORANGE);
+        ballsToSpawn.add(BallColour.BLUE);
 
         // Initialize the Spawner object
         spawner = new Spawner(5, 5, appMock, 5, ballsToSpawn, boardMock);
@@ -100,16 +100,17 @@ public class SpawnerTest {
         spawner.setActive(true);
         spawner.draw();
 
-        // Verify that the spawner image was drawn
-        verify(appMock).image(any(PImage.class), eq(5 * App.CELLSIZE), eq(5 * App.CELLSIZE + App.TOPBAR));
+        // Verify that the spawner was drawn from its region of the sprite sheet
+        verify(appMock).image(any(PImage.class), eq((float) (5 * App.CELLSIZE)), eq((float) (5 * App.CELLSIZE + App.TOPBAR)),
+                eq(32f), eq(32f), eq(1), eq(34), eq(33), eq(66));
     }
 
     @Test
     public void testAddBallToSpawnQueue() {
         // Add a ball to the spawn queue
-        spawner.addBallToSpawnQueue("ball3");
+        spawner.addBallToSpawnQueue(BallColour.GREEN);
 
         // Verify that the ball was added to the queue
-        assertTrue(spawner.getBallsToSpawn().contains("ball3"));
+        assertTrue(spawner.getBallsToSpawn().contains(BallColour.GREEN));
     }
 }
@@ -0,0 +1,108 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+/**
+ * Test class for the SpriteAtlas class. A PApplet that hands out a sheet
+ * filled with the colour key stands in for the real one.
+ */
+public class SpriteAtlasTest {
+
+    private SheetApp app;
+    private SpriteAtlas atlas;
+
+    // Decodes the sheet as an image filled with the colour key, or fails
+    private static class SheetApp extends PApplet {
+        private int loads;
+        private boolean fail;
+
+        @Override
+        public PImage loadImage(String path) {
+            loads++;
+            if (fail) {
+                return null;
+            }
+            PImage sheet = new PImage(381, 400);
+            Arrays.fill(sheet.pixels, 0xFFFF00FF);
+            sheet.pixels[0] = 0xFF000000;
+            return sheet;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        app = new SheetApp();
+        atlas = new SpriteAtlas(app);
+    }
+
+    @Test
+    public void testMetadataListsEverySprite() {
+        assertEquals(17, atlas.size());
+        assertTrue(atlas.contains("tile"));
+        assertTrue(atlas.contains("entrypoint"));
+        for (int i = 0; i < BallColour.COUNT; i++) {
+            assertTrue(atlas.contains("ball" + i));
+            assertTrue(atlas.contains("hole" + i));
+            assertTrue(atlas.contains("wall" + i));
+        }
+        assertFalse(atlas.contains("inkball_spritesheet"));
+
+        // Reading the metadata does not decode the sheet
+        assertEquals(0, app.loads);
+    }
+
+    @Test
+    public void testSpritesShareTheSheet() {
+        Sprite ball = atlas.getSprite("ball3");
+        Sprite hole = atlas.getSprite("hole1");
+        Sprite wall = atlas.getSprite("wall4");
+
+        assertEquals(1, app.loads);
+        assertSame(ball.getSheet(), hole.getSheet());
+        assertSame(ball.getSheet(), wall.getSheet());
+        assertSame(ball, atlas.getSprite("ball3"));
+        assertNull(atlas.getSprite("missing"));
+    }
+
+    @Test
+    public void testSpriteRegions() {
+        Sprite ball = atlas.getSprite("ball3");
+        assertEquals(1, ball.getU());
+        assertEquals(229, ball.getV());
+        assertEquals(24, ball.width);
+        assertEquals(24, ball.height);
+
+        Sprite hole = atlas.getSprite("hole1");
+        assertEquals(34, hole.getU());
+        assertEquals(66, hole.getV());
+        assertEquals(64, hole.width);
+        assertEquals(64, hole.height);
+    }
+
+    @Test
+    public void testColourKeyIsTransparent() {
+        PImage sheet = atlas.getSprite("tile").getSheet();
+
+        assertEquals(0xFF000000, sheet.pixels[0]);
+        assertEquals(0, sheet.pixels[1]);
+        assertEquals(0, sheet.pixels[sheet.pixels.length - 1]);
+    }
+
+    @Test
+    public void testFailedSheetIsLoadedAgain() {
+        app.fail = true;
+        assertNull(atlas.getSprite("tile"));
+
+        app.fail = false;
+        assertNotNull(atlas.getSprite("tile"));
+        assertEquals(2, app.loads);
+    }
+}
@@ -0,0 +1,40 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the StatefulRandom class
+ */
+public class StatefulRandomTest {
+
+    @Test
+    public void testSameNumbersAsRandom() {
+        Random expected = new Random(1234);
+        StatefulRandom random = new StatefulRandom(1234);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(expected.nextInt(7), random.nextInt(7));
+            assertEquals(expected.nextBoolean(), random.nextBoolean());
+            assertEquals(expected.nextLong(), random.nextLong());
+        }
+
+        expected.setSeed(-5);
+        random.setSeed(-5);
+        assertEquals(expected.nextFloat(), random.nextFloat());
+    }
+
+    @Test
+    public void testStateCanBeRestored() {
+        StatefulRandom random = new StatefulRandom(42);
+        random.nextInt();
+        long state = random.getState();
+        int[] first = {random.nextInt(), random.nextInt(100), random.nextInt(3)};
+
+        random.nextLong();
+        random.setState(state);
+        assertArrayEquals(first, new int[] {random.nextInt(), random.nextInt(100), random.nextInt(3)});
+    }
+}
@@ -0,0 +1,138 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the SweepAndPrune class and the ball to ball collision in
+ * BallStore
+ */
+public class SweepAndPruneTest {
+
+    private BallStore store;
+    private SweepAndPrune sweepAndPrune;
+
+    @BeforeEach
+    public void setUp() {
+        store = new BallStore(16);
+        sweepAndPrune = new SweepAndPrune();
+    }
+
+    @Test
+    public void testHeadOnCollisionSwapsVelocities() {
+        int left = store.add(100, 100, 2, 0, 0);
+        int right = store.add(100 + Ball.RADIUS * 2 - 1, 100, -1, 0, 0);
+
+        assertEquals(1, sweepAndPrune.collide(store));
+
+        assertEquals(-1, store.getVelocityX(store.getSlot(left)), 0.0001);
+        assertEquals(2, store.getVelocityX(store.getSlot(right)), 0.0001);
+    }
+
+    @Test
+    public void testGlancingCollisionConservesMomentumAndEnergy() {
+        int a = store.add(100, 100, 3, 1, 0);
+        int b = store.add(110, 108, -1, -2, 0);
+        float momentumX = 3 - 1;
+        float momentumY = 1 - 2;
+        float energy = 3 * 3 + 1 * 1 + 1 * 1 + 2 * 2;
+
+        assertEquals(1, sweepAndPrune.collide(store));
+
+        int sa = store.getSlot(a);
+        int sb = store.getSlot(b);
+        assertEquals(momentumX, store.getVelocityX(sa) + store.getVelocityX(sb), 0.0001);
+        assertEquals(momentumY, store.getVelocityY(sa) + store.getVelocityY(sb), 0.0001);
+        float after = store.getVelocityX(sa) * store.getVelocityX(sa) + store.getVelocityY(sa) * store.getVelocityY(sa)
+                + store.getVelocityX(sb) * store.getVelocityX(sb) + store.getVelocityY(sb) * store.getVelocityY(sb);
+        assertEquals(energy, after, 0.001);
+    }
+
+    @Test
+    public void testSeparatingBallsDoNotCollide() {
+        int left = store.add(100, 100, -1, 0, 0);
+        store.add(110, 100, 1, 0, 0);
+
+        assertEquals(0, sweepAndPrune.collide(store));
+        assertEquals(-1, store.getVelocityX(store.getSlot(left)), 0.0001);
+    }
+
+    @Test
+    public void testDistantBallsAreNotTested() {
+        store.add(100, 100, 1, 0, 0);
+        store.add(100, 300, -1, 0, 0);
+        store.add(400, 100, -1, 0, 0);
+
+        assertEquals(0, sweepAndPrune.collide(store));
+        assertEquals(1, sweepAndPrune.getPairTests());
+    }
+
+    @Test
+    public void testMatchesBruteForceAfterRemovals() {
+        Random random = new Random(3);
+        int[] handles = new int[300];
+        int total = 0;
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = store.add(random.nextFloat() * 1500, random.nextFloat() * 1500,
+                    random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2, 0);
+        }
+        BallStore copy = new BallStore(16);
+
+        for (int round = 0; round < 20; round++) {
+            // Remove a few balls and add new ones so the kept order has gaps
+            for (int i = round; i < handles.length; i += 37) {
+                if (store.isValid(handles[i])) {
+                    store.remove(handles[i]);
+                    handles[i] = store.add(random.nextFloat() * 1500, random.nextFloat() * 1500, 1, -1, 0);
+                }
+            }
+            for (int slot = 0; slot < store.size(); slot++) {
+                store.advance(slot, 1);
+            }
+
+            // Test every pair, in the same x order so balls touching several others end up the same
+            copy.clear();
+            for (int slot = 0; slot < store.size(); slot++) {
+                copy.add(store.getPosX(slot), store.getPosY(slot), store.getVelocityX(slot), store.getVelocityY(slot), 0);
+            }
+            Integer[] order = new Integer[copy.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing((Integer slot) -> copy.getPosX(slot)).thenComparing(slot -> slot));
+            int expected = 0;
+            for (int a = 0; a < order.length; a++) {
+                for (int b = a + 1; b < order.length; b++) {
+                    if (copy.collideBalls(order[a], order[b])) {
+                        expected++;
+                    }
+                }
+            }
+
+            assertEquals(expected, sweepAndPrune.collide(store), "Round " + round);
+            for (int slot = 0; slot < store.size(); slot++) {
+                assertEquals(copy.getVelocityX(slot), store.getVelocityX(slot));
+                assertEquals(copy.getVelocityY(slot), store.getVelocityY(slot));
+            }
+            total += expected;
+        }
+        assertTrue(total > 0);
+    }
+
+    @Test
+    public void testSteadyStateCollideDoesNotAllocate() {
+        Random random = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            store.add(random.nextFloat() * 500, random.nextFloat() * 500, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, 0);
+        }
+
+        long bytes = Allocations.measure(200, () -> sweepAndPrune.collide(store));
+        assertEquals(0, bytes);
+    }
+}
@@ -0,0 +1,139 @@
+package inkball;
+
+import java.util.Arrays;
+
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+/**
+ * Test helper that builds game configurations and levels without the
+ * config.json file, and sums up the state of a simulation so two runs can be
+ * compared. Unless a test gives its own scores, every colour scores
+ * SCORE_INCREASE in a matching hole and loses SCORE_DECREASE in a wrong one,
+ * with both modifiers at 1.
+ */
+final class TestFixtures {
+    static final int SCORE_INCREASE = 50;
+    static final int SCORE_DECREASE = 25;
+
+    // Floats per ball in ballState
+    static final int BALL_STATE = 5;
+
+    private TestFixtures() {
+    }
+
+    /**
+     * Build the configuration of one level
+     * @param layout        The layout file of the level
+     * @param time          The time limit in seconds
+     * @param spawnInterval The seconds between spawns
+     * @param balls         The colours of the balls to spawn
+     * @return              The level as it is written in config.json
+     */
+    static JSONObject levelJson(String layout, int time, int spawnInterval, String... balls) {
+        JSONObject levelData = new JSONObject();
+        levelData.put("layout", layout);
+        levelData.put("time", time);
+        levelData.put("spawn_interval", spawnInterval);
+        levelData.put("score_increase_from_hole_capture_modifier", 1.0);
+        levelData.put("score_decrease_from_wrong_hole_modifier", 1.0);
+        JSONArray ballsArray = new JSONArray();
+        for (String ball : balls) {
+            ballsArray.append(ball);
+        }
+        levelData.put("balls", ballsArray);
+        return levelData;
+    }
+
+    /**
+     * Build a game configuration from its levels
+     * @param levels    The levels, built with levelJson
+     * @return          The parsed configuration
+     */
+    static GameConfig config(JSONObject... levels) {
+        int[] scoreIncrease = new int[BallColour.COUNT];
+        int[] scoreDecrease = new int[BallColour.COUNT];
+        Arrays.fill(scoreIncrease, SCORE_INCREASE);
+        Arrays.fill(scoreDecrease, SCORE_DECREASE);
+        return config(scoreIncrease, scoreDecrease, levels);
+    }
+
+    /**
+     * Build a game configuration from its levels and capture scores
+     * @param scoreIncrease The score for capturing a ball, by colour id
+     * @param scoreDecrease The score lost for a ball in a wrong hole, by colour id
+     * @param levels        The levels, built with levelJson
+     * @return              The parsed configuration
+     */
+    static GameConfig config(int[] scoreIncrease, int[] scoreDecrease, JSONObject... levels) {
+        JSONObject json = new JSONObject();
+        JSONArray levelsArray = new JSONArray();
+        for (JSONObject level : levels) {
+            levelsArray.append(level);
+        }
+        json.put("levels", levelsArray);
+
+        JSONObject increase = new JSONObject();
+        JSONObject decrease = new JSONObject();
+        for (BallColour colour : BallColour.values()) {
+            increase.put(colour.getName(), scoreIncrease[colour.getId()]);
+            decrease.put(colour.getName(), scoreDecrease[colour.getId()]);
+        }
+        json.put("score_increase_from_hole_capture", increase);
+        json.put("score_decrease_from_wrong_hole", decrease);
+        return GameConfig.parse(json);
+    }
+
+    /**
+     * Build the only level of a game configuration
+     * @param layout        The layout file of the level
+     * @param time          The time limit in seconds
+     * @param spawnInterval The seconds between spawns
+     * @param balls         The colours of the balls to spawn
+     * @return              The level
+     */
+    static Level level(String layout, int time, int spawnInterval, String... balls) {
+        return new Level(config(levelJson(layout, time, spawnInterval, balls)), 0);
+    }
+
+    /**
+     * Get the position, velocity and colour of every ball, in slot order
+     * @param simulation    The simulation
+     * @return              BALL_STATE floats for each ball
+     */
+    static float[] ballState(Simulation simulation) {
+        BallStore store = simulation.getBallStore();
+        float[] state = new float[store.size() * BALL_STATE];
+        for (int slot = 0; slot < store.size(); slot++) {
+            state[slot * BALL_STATE] = store.getPosX(slot);
+            state[slot * BALL_STATE + 1] = store.getPosY(slot);
+            state[slot * BALL_STATE + 2] = store.getVelocityX(slot);
+            state[slot * BALL_STATE + 3] = store.getVelocityY(slot);
+            state[slot * BALL_STATE + 4] = store.getColour(slot);
+        }
+        return state;
+    }
+
+    /**
+     * Sum up the state that a replay or a restored keyframe has to reproduce:
+     * the score, the clock, the balls, the lines and the spawn queue
+     * @param simulation    The simulation
+     * @param currentLine   The line being drawn, or null
+     * @return              A hash of the state
+     */
+    static long fingerprint(Simulation simulation, Line currentLine) {
+        GameStateManager gameStateManager = simulation.getGameStateManager();
+        long hash = gameStateManager.getScore();
+        hash = hash * 31 + Double.doubleToLongBits(gameStateManager.getRemainingSeconds());
+        hash = hash * 31 + gameStateManager.getState().ordinal();
+        hash = hash * 31 + simulation.getTick();
+        for (float value : ballState(simulation)) {
+            hash = hash * 31 + Float.floatToIntBits(value);
+        }
+        for (Line line : simulation.getLines()) {
+            hash = hash * 31 + line.getSegments().size();
+        }
+        hash = hash * 31 + (currentLine == null ? -1 : currentLine.getSegments().size());
+        return hash * 31 + simulation.getSpawners().get(0).getBallsToSpawn().size();
+    }
+}
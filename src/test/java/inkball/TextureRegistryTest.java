@@ -0,0 +1,142 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+/**
+ * Test class for the TextureRegistry class. A PApplet that counts the images
+ * it decodes stands in for the real one.
+ */
+public class TextureRegistryTest {
+
+    private CountingApp app;
+    private TextureRegistry textures;
+
+    // Decodes every image as a blank image and counts the calls
+    private static class CountingApp extends PApplet {
+        private int loads;
+
+        @Override
+        public PImage loadImage(String path) {
+            loads++;
+            if (path.endsWith(SpriteAtlas.SHEET)) {
+                return new PImage(381, 400);
+            }
+            return new PImage(32, 32);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        app = new CountingApp();
+        textures = TextureRegistry.of(app);
+    }
+
+    @Test
+    public void testEachImageIsDecodedOnce() {
+        // The sprites of every colour are loaded with the registry
+        assertEquals(3 * BallColour.COUNT, textures.getMisses());
+        textures.resetCounters();
+
+        PImage first = textures.getBall(2);
+        PImage second = textures.getBall(2);
+        PImage byName = textures.get("ball2");
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertSame(first, byName);
+        assertEquals(1, app.loads);
+        assertEquals(0, textures.getMisses());
+        assertEquals(3, textures.getHits());
+    }
+
+    @Test
+    public void testRegistryIsSharedPerApp() {
+        assertSame(textures, TextureRegistry.of(app));
+        assertNotSame(textures, TextureRegistry.of(new CountingApp()));
+    }
+
+    @Test
+    public void testSpritesAreCutFromTheSheet() {
+        PImage ball = textures.getBall(2);
+
+        assertTrue(ball instanceof Sprite);
+        assertEquals(24, ball.width);
+        assertEquals(24, ball.height);
+        assertSame(((Sprite) ball).getSheet(), ((Sprite) textures.getHole(4)).getSheet());
+        assertSame(((Sprite) ball).getSheet(), ((Sprite) textures.get("tile")).getSheet());
+        assertEquals(1, app.loads);
+    }
+
+    @Test
+    public void testMissingImageIsNotCached() {
+        int loads = app.loads;
+        textures.resetCounters();
+
+        assertNull(textures.get("missing"));
+        assertNull(textures.get("missing"));
+        assertNull(textures.getWall(7));
+        assertEquals(loads, app.loads);
+        assertEquals(2, textures.getMisses());
+    }
+
+    @Test
+    public void testColourLookupsFromManyThreads() throws InterruptedException {
+        textures.resetCounters();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    assertSame(textures.getWall(1), textures.getWall(1));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Every lookup is counted and none of them loads an image
+        assertEquals(threads.length * 2000, textures.getHits());
+        assertEquals(0, textures.getMisses());
+    }
+
+    @Test
+    public void testWallBounceDoesNotLoadImages() {
+        Ball ball = new Ball(2, 2, app, "ball0");
+        TileGrid tiles = new TileGrid(3, 1);
+        tiles.setType(0, 0, Tile.TileType.WALL3);
+        tiles.setType(1, 0, Tile.TileType.WALL1);
+        tiles.setType(2, 0, Tile.TileType.WALL0);
+        ball.changeColour(tiles.getTile(0, 0));
+        ball.changeColour(tiles.getTile(1, 0));
+        int loads = app.loads;
+        textures.resetCounters();
+
+        for (int i = 0; i < 100; i++) {
+            ball.changeColour(tiles.getTile(i % 2 == 0 ? 0 : 2, 0));
+        }
+
+        assertEquals(loads, app.loads);
+        assertEquals(0, textures.getMisses());
+        assertEquals("green", ball.getColour());
+    }
+
+    @Test
+    public void testObjectsShareSprites() {
+        Ball first = new Ball(2, 2, app, "ball1");
+        Ball second = new Ball(3, 3, app, "ball1");
+        new HUD(app, TestFixtures.level("level1.txt", 100, 1));
+
+        // Every sprite comes from the one sheet
+        assertEquals(1, app.loads);
+        assertSame(textures.getBall(1), first.getBallImage());
+        assertSame(first.getBallImage(), second.getBallImage());
+    }
+
+}
@@ -0,0 +1,158 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+/**
+ * Test class for the TileGrid class and the Tile views onto it
+ */
+public class TileGridTest {
+
+    private static final int SIZE = 18;
+    private TileGrid tiles;
+
+    // Counts the images and rectangles drawn into it
+    private static class CountingGraphics extends PGraphics {
+        private int images;
+        private int rects;
+
+        @Override
+        public void image(PImage image, float x, float y) {
+            images++;
+        }
+
+        @Override
+        public void image(PImage image, float x, float y, float w, float h) {
+            images++;
+        }
+
+        @Override
+        public void image(PImage image, float a, float b, float c, float d, int u1, int v1, int u2, int v2) {
+            images++;
+        }
+
+        @Override
+        public void fill(int rgb) {
+        }
+
+        @Override
+        public void rect(float a, float b, float c, float d) {
+            rects++;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        tiles = new TileGrid(SIZE, SIZE);
+    }
+
+    @Test
+    public void testTypeSetsWallAndHoleFlags() {
+        tiles.setType(2, 3, Tile.TileType.WALL3);
+        tiles.setType(4, 5, Tile.TileType.HOLE1);
+
+        assertEquals(Tile.TileType.WALL3, tiles.getType(2, 3));
+        assertTrue(tiles.isWall(2, 3));
+        assertFalse(tiles.isHole(2, 3));
+        assertEquals(Tile.TileType.HOLE1, tiles.getType(4, 5));
+        assertTrue(tiles.isHole(4, 5));
+        assertFalse(tiles.isWall(4, 5));
+        assertEquals(Tile.TileType.EMPTY, tiles.getType(3, 2));
+        assertFalse(tiles.isWall(3, 2));
+    }
+
+    @Test
+    public void testChangingTheTypeKeepsTheFlags() {
+        Tile tile = tiles.getTile(5, 5);
+        tile.setTileType(Tile.TileType.WALL2);
+        assertFalse(tile.isWall());
+
+        tile.setIsWall(true);
+        assertEquals(Tile.TileType.WALL2, tile.getType());
+        assertTrue(tiles.isWall(5, 5));
+
+        tile.setIsWall(false);
+        tile.setHole(true);
+        assertFalse(tile.isWall());
+        assertTrue(tile.isHole());
+    }
+
+    @Test
+    public void testViewsOfACellAreEqual() {
+        assertEquals(tiles.getTile(3, 4), tiles.getTile(3, 4));
+        assertEquals(tiles.getTile(3, 4).hashCode(), tiles.getTile(3, 4).hashCode());
+        assertNotEquals(tiles.getTile(3, 4), tiles.getTile(4, 3));
+        assertNotEquals(tiles.getTile(3, 4), new TileGrid(SIZE, SIZE).getTile(3, 4));
+        assertNull(tiles.getTile(SIZE, 0));
+        assertNull(tiles.getTile(0, -1));
+    }
+
+    @Test
+    public void testHitboxIsBuiltFromTheTemplate() {
+        assertNull(tiles.getHitbox(1, 1));
+
+        tiles.setType(1, 2, Tile.TileType.WALL0);
+        LineSegment[] hitbox = tiles.getTile(1, 2).getHitbox();
+        float left = App.CELLSIZE - 2;
+        float right = 2 * App.CELLSIZE + 2;
+        float top = 2 * App.CELLSIZE + App.TOPBAR - 2;
+        float bottom = 3 * App.CELLSIZE + App.TOPBAR + 2;
+
+        assertEquals(4, hitbox.length);
+        assertEquals(left, hitbox[0].startX);
+        assertEquals(top, hitbox[0].startY);
+        assertEquals(right, hitbox[0].endX);
+        assertEquals(bottom, hitbox[1].startY);
+        assertEquals(left, hitbox[2].endX);
+        assertEquals(bottom, hitbox[2].endY);
+        assertEquals(right, hitbox[3].startX);
+    }
+
+    @Test
+    public void testTilesOfATypeShareOneImage() {
+        PImage background = new PImage(32, 32);
+        PImage wall = new PImage(32, 32);
+        tiles.setImage(Tile.TileType.EMPTY, background);
+        tiles.setImage(Tile.TileType.WALL1, wall);
+        tiles.setType(0, 0, Tile.TileType.WALL1);
+        tiles.setType(1, 0, Tile.TileType.HOLE2);
+
+        CountingGraphics g = new CountingGraphics();
+        assertTrue(tiles.draw(g, 0, 0));
+        assertTrue(tiles.draw(g, 5, 5));
+        assertEquals(2, g.images);
+
+        // Hole tiles show their debug colour under the hole
+        assertTrue(tiles.draw(g, 1, 0));
+        assertEquals(1, g.rects);
+
+        // A wall without an image for its type draws nothing
+        tiles.setType(2, 0, Tile.TileType.WALL3);
+        assertFalse(tiles.draw(g, 2, 0));
+    }
+
+    @Test
+    public void testClearEmptiesEveryTile() {
+        tiles.setType(7, 7, Tile.TileType.WALL4);
+        tiles.setType(8, 8, Tile.TileType.HOLE0);
+        tiles.clear();
+        assertEquals(Tile.TileType.EMPTY, tiles.getType(7, 7));
+        assertFalse(tiles.isWall(7, 7));
+        assertFalse(tiles.isHole(8, 8));
+    }
+
+    @Test
+    public void testLargeBoardTakesAByteATile() {
+        TileGrid large = new TileGrid(1000, 1000);
+        assertEquals(1000 * 1000, large.getByteSize());
+
+        large.setType(999, 999, Tile.TileType.WALL2);
+        assertTrue(large.isWall(999, 999));
+        assertFalse(large.isWall(998, 999));
+    }
+}
@@ -0,0 +1,115 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the WallGeometry class
+ */
+public class WallGeometryTest {
+
+    private static final int SIZE = 18;
+
+    private TileGrid createTiles(String[] layout) {
+        TileGrid tiles = new TileGrid(SIZE, SIZE);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                char c = x < layout[y].length() ? layout[y].charAt(x) : ' ';
+                // The digit after a hole or ball is its colour, not a wall
+                if (x > 0 && (layout[y].charAt(x - 1) == 'H' || layout[y].charAt(x - 1) == 'B')) {
+                    c = ' ';
+                }
+                tiles.setType(x, y, Simulation.getWallTileType(c));
+            }
+        }
+        return tiles;
+    }
+
+    private String[] borderLayout() {
+        String[] layout = new String[SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            layout[y] = y == 0 || y == SIZE - 1 ? "XXXXXXXXXXXXXXXXXX" : "X                X";
+        }
+        return layout;
+    }
+
+    @Test
+    public void testBorderCompilesToFourEdges() {
+        WallGeometry geometry = new WallGeometry(createTiles(borderLayout()));
+
+        // Only the inner sides of the border face the board
+        assertEquals(4, geometry.size());
+        for (int i = 0; i < geometry.size(); i++) {
+            assertEquals((SIZE - 2) * App.CELLSIZE, geometry.getEdge(i).getLength(), 0.0001);
+        }
+    }
+
+    @Test
+    public void testEdgesLieOnTileBoundariesWithoutPadding() {
+        WallGeometry geometry = new WallGeometry(createTiles(borderLayout()));
+
+        for (int i = 0; i < geometry.size(); i++) {
+            LineSegment edge = geometry.getEdge(i);
+            assertEquals(0, edge.startX % App.CELLSIZE, 0.0001);
+            assertEquals(0, (edge.startY - App.TOPBAR) % App.CELLSIZE, 0.0001);
+            assertEquals(0, edge.endX % App.CELLSIZE, 0.0001);
+            assertEquals(0, (edge.endY - App.TOPBAR) % App.CELLSIZE, 0.0001);
+        }
+    }
+
+    @Test
+    public void testNormalsPointOutOfTheWall() {
+        String[] layout = borderLayout();
+        layout[8] = "X       X        X";
+        WallGeometry geometry = new WallGeometry(createTiles(layout));
+
+        // A point just off the middle of each edge along its normal is never inside a wall
+        for (int i = 0; i < geometry.size(); i++) {
+            LineSegment edge = geometry.getEdge(i);
+            float px = (edge.startX + edge.endX) / 2 + edge.getNormalX() * 4;
+            float py = (edge.startY + edge.endY) / 2 + edge.getNormalY() * 4;
+            int x = (int) Math.floor(px / App.CELLSIZE);
+            int y = (int) Math.floor((py - App.TOPBAR) / App.CELLSIZE);
+            assertEquals(' ', layout[y].charAt(x), "Edge " + i + " faces into a wall");
+        }
+    }
+
+    @Test
+    public void testEdgesSplitWhereTheColourChanges() {
+        String[] layout = borderLayout();
+        layout[0] = "XXXXXX222XXXXXXXXX";
+        WallGeometry geometry = new WallGeometry(createTiles(layout));
+
+        // The top side of the board is split into grey, orange and grey
+        assertEquals(6, geometry.size());
+        int orange = 0;
+        for (int i = 0; i < geometry.size(); i++) {
+            if (geometry.getColourId(i) == 2) {
+                orange++;
+                assertEquals(3 * App.CELLSIZE, geometry.getEdge(i).getLength(), 0.0001);
+                assertEquals(Tile.TileType.WALL2, geometry.getOwner(i).getType());
+            } else {
+                assertEquals(-1, geometry.getColourId(i));
+            }
+        }
+        assertEquals(1, orange);
+    }
+
+    @Test
+    public void testShippedLevelHasFarFewerEdgesThanTileSides() {
+        String[] layout = Simulation.readLayout("level2.txt");
+        TileGrid tiles = createTiles(layout);
+        int walls = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                if (tiles.isWall(x, y)) {
+                    walls++;
+                }
+            }
+        }
+
+        WallGeometry geometry = new WallGeometry(tiles);
+        assertTrue(geometry.size() * 3 < walls * 4, geometry.size() + " edges for " + walls + " walls");
+    }
+}
@@ -0,0 +1,139 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Benchmark for the WallGrid broad phase. Balls are scattered over boards of
+ * growing size with the same wall density, and the cost of a wall collision
+ * check per ball is compared between the grid and a scan of every tile. The
+ * grid cost should stay flat as the wall count grows. Run with
+ * "gradle benchmark".
+ */
+@Tag("benchmark")
+public class WallGridBenchmark {
+
+    private static final int BALLS = 1000;
+    private static final int ROUNDS = 20;
+    private static final float WALL_DENSITY = 0.1f;
+
+    @Test
+    public void benchmarkCostPerBallAsWallsGrow() {
+        int[] sizes = {18, 36, 72, 144};
+        double[] gridNanos = new double[sizes.length];
+
+        // Warm up the JIT on the largest board before timing anything
+        measure(sizes[sizes.length - 1], true);
+
+        for (int s = 0; s < sizes.length; s++) {
+            double[] result = measure(sizes[s], false);
+            gridNanos[s] = result[1];
+            System.out.printf("walls=%6d  grid ns/ball=%8.1f  full scan ns/ball=%10.1f%n",
+                    (int) result[0], result[1], result[2]);
+        }
+
+        // The grid cost may not grow with the board, unlike the full scan
+        assertTrue(gridNanos[sizes.length - 1] < gridNanos[0] * 4);
+    }
+
+    @Test
+    public void benchmarkMergedEdgesOnShippedLevels() {
+        for (String file : new String[] {"level1.txt", "level2.txt", "level3.txt"}) {
+            Level level = TestFixtures.level(file, 100, 1);
+            Simulation simulation = new Simulation(null, App.BOARD_WIDTH, App.BOARD_HEIGHT, new GameStateManager(null, level));
+            simulation.loadLevel(level, Simulation.readLayout(file));
+
+            int tileSides = 0;
+            int tileRegistrations = 0;
+            for (int x = 0; x < App.BOARD_WIDTH; x++) {
+                for (int y = 0; y < App.BOARD_HEIGHT; y++) {
+                    Tile tile = simulation.getTile(x, y);
+                    if (tile.isWall()) {
+                        for (LineSegment edge : tile.getHitbox()) {
+                            tileSides++;
+                            tileRegistrations += countCells(edge);
+                        }
+                    }
+                }
+            }
+
+            WallGrid grid = simulation.getWallGrid();
+            System.out.printf("%s  tile sides=%4d  merged edges=%4d  registrations %5d -> %5d%n", file,
+                    tileSides, grid.getGeometry().size(), tileRegistrations, grid.getRegistrationCount());
+            assertTrue(grid.getRegistrationCount() < tileRegistrations);
+        }
+    }
+
+    // Number of cells an edge registers in, the same way WallGrid counts them
+    private int countCells(LineSegment edge) {
+        int columns = (int) Math.floor((Math.max(edge.startX, edge.endX) + WallGrid.QUERY_MARGIN) / App.CELLSIZE)
+                - (int) Math.floor((Math.min(edge.startX, edge.endX) - WallGrid.QUERY_MARGIN) / App.CELLSIZE) + 1;
+        int rows = (int) Math.floor((Math.max(edge.startY, edge.endY) - App.TOPBAR + WallGrid.QUERY_MARGIN) / App.CELLSIZE)
+                - (int) Math.floor((Math.min(edge.startY, edge.endY) - App.TOPBAR - WallGrid.QUERY_MARGIN) / App.CELLSIZE) + 1;
+        return columns * rows;
+    }
+
+    // Returns {wall count, grid ns per ball, full scan ns per ball}
+    private double[] measure(int size, boolean warmUp) {
+        Random random = new Random(7);
+        TileGrid tiles = new TileGrid(size, size);
+        LineSegment[][][] hitboxes = new LineSegment[size][size][];
+        int walls = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                boolean wall = random.nextFloat() < WALL_DENSITY;
+                tiles.setType(x, y, wall ? Tile.TileType.WALL0 : Tile.TileType.EMPTY);
+                if (wall) {
+                    hitboxes[x][y] = tiles.getHitbox(x, y);
+                    walls++;
+                }
+            }
+        }
+        WallGrid grid = new WallGrid(tiles);
+
+        Ball[] balls = new Ball[BALLS];
+        for (int i = 0; i < BALLS; i++) {
+            balls[i] = new Ball(0, 0, null, "ball0");
+            balls[i].setPosition(random.nextFloat() * size * App.CELLSIZE, random.nextFloat() * size * App.CELLSIZE + App.TOPBAR);
+        }
+
+        // Take the best of a few repetitions to filter out GC pauses
+        double gridNanos = Double.MAX_VALUE;
+        for (int repeat = 0; repeat < 5; repeat++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < ROUNDS; r++) {
+                for (Ball ball : balls) {
+                    int cell = grid.getCell(ball.getPosX() + ball.getVelocityX(), ball.getPosY() + ball.getVelocityY());
+                    for (int i = grid.getCellStart(cell); i < grid.getCellEnd(cell); i++) {
+                        if (ball.checkCollisionWithEdge(grid.getEdge(i))) {
+                            break;
+                        }
+                    }
+                }
+            }
+            gridNanos = Math.min(gridNanos, (System.nanoTime() - start) / (double) (ROUNDS * BALLS));
+        }
+
+        int scanRounds = warmUp ? 1 : Math.max(1, ROUNDS / (size / 18));
+        long start = System.nanoTime();
+        for (int r = 0; r < scanRounds; r++) {
+            for (Ball ball : balls) {
+                scan:
+                for (int x = 0; x < size; x++) {
+                    for (int y = 0; y < size; y++) {
+                        if (tiles.isWall(x, y) && ball.checkCollisionWithWall(hitboxes[x][y])) {
+                            break scan;
+                        }
+                    }
+                }
+            }
+        }
+        double scanNanos = (System.nanoTime() - start) / (double) (scanRounds * BALLS);
+
+        return new double[] {walls, gridNanos, scanNanos};
+    }
+}
@@ -0,0 +1,107 @@
+package inkball;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the WallGrid broad phase
+ */
+public class WallGridTest {
+
+    private static final int SIZE = 18;
+    private TileGrid tiles;
+
+    @BeforeEach
+    public void setUp() {
+        tiles = new TileGrid(SIZE, SIZE);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                boolean border = x == 0 || y == 0 || x == SIZE - 1 || y == SIZE - 1;
+                boolean pillar = x == 8 && y >= 6 && y <= 10;
+                tiles.setType(x, y, border || pillar ? Tile.TileType.WALL0 : Tile.TileType.EMPTY);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyBoardHasNoEdges() {
+        WallGrid grid = new WallGrid(new TileGrid(SIZE, SIZE));
+        assertEquals(0, grid.getRegistrationCount());
+    }
+
+    @Test
+    public void testCellAwayFromWallsIsEmpty() {
+        WallGrid grid = new WallGrid(tiles);
+        int cell = grid.getCell(4 * App.CELLSIZE + 16, 4 * App.CELLSIZE + App.TOPBAR + 16);
+        assertEquals(grid.getCellStart(cell), grid.getCellEnd(cell));
+    }
+
+    @Test
+    public void testCellNextToWallContainsItsEdges() {
+        WallGrid grid = new WallGrid(tiles);
+        int cell = grid.getCell(7 * App.CELLSIZE + 16, 8 * App.CELLSIZE + App.TOPBAR + 16);
+
+        boolean found = false;
+        for (int i = grid.getCellStart(cell); i < grid.getCellEnd(cell); i++) {
+            LineSegment edge = grid.getEdge(i);
+            if (edge.startX == 8 * App.CELLSIZE && edge.endX == 8 * App.CELLSIZE) {
+                found = true;
+                assertEquals(tiles.getTile(8, 6), grid.getOwner(i));
+            }
+            // Only edges within reach of the cell are registered
+            assertTrue(edge.distanceSquaredTo(7 * App.CELLSIZE + 16, 8 * App.CELLSIZE + App.TOPBAR + 16) < 48 * 48);
+        }
+        assertTrue(found, "The left side of the pillar should be registered in the cell next to it.");
+    }
+
+    @Test
+    public void testPointsOutsideBoardAreClamped() {
+        WallGrid grid = new WallGrid(tiles);
+        assertEquals(0, grid.getCell(-50, -50));
+        assertEquals(SIZE * SIZE - 1, grid.getCell(10000, 10000));
+    }
+
+    @Test
+    public void testGridFindsSameHitAsFullScan() {
+        WallGrid grid = new WallGrid(tiles);
+        WallGeometry geometry = grid.getGeometry();
+        Random random = new Random(42);
+
+        for (int n = 0; n < 2000; n++) {
+            Ball scanBall = new Ball(1, 1, null, "ball0");
+            Ball gridBall = new Ball(1, 1, null, "ball0");
+            float vx = random.nextBoolean() ? 1 : -1;
+            float vy = random.nextBoolean() ? 1 : -1;
+            scanBall.setVelocity(vx, vy);
+            gridBall.setVelocity(vx, vy);
+            float px = random.nextFloat() * SIZE * App.CELLSIZE;
+            float py = random.nextFloat() * SIZE * App.CELLSIZE + App.TOPBAR;
+            scanBall.setPosition(px, py);
+            gridBall.setPosition(px, py);
+
+            // Edges are registered in the order of the geometry, so both find the same edge first
+            LineSegment scanHit = null;
+            for (int i = 0; i < geometry.size() && scanHit == null; i++) {
+                if (scanBall.checkCollisionWithEdge(geometry.getEdge(i))) {
+                    scanHit = geometry.getEdge(i);
+                }
+            }
+
+            LineSegment gridHit = null;
+            int cell = grid.getCell(gridBall.getPosX() + vx, gridBall.getPosY() + vy);
+            for (int i = grid.getCellStart(cell); i < grid.getCellEnd(cell) && gridHit == null; i++) {
+                if (gridBall.checkCollisionWithEdge(grid.getEdge(i))) {
+                    gridHit = grid.getEdge(i);
+                }
+            }
+
+            assertSame(scanHit, gridHit);
+            assertEquals(scanBall.getVelocityX(), gridBall.getVelocityX(), 0.0001);
+            assertEquals(scanBall.getVelocityY(), gridBall.getVelocityY(), 0.0001);
+        }
+    }
+}